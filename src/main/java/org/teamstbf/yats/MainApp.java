@@ -1,8 +1,10 @@
 package org.teamstbf.yats;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.teamstbf.yats.commons.core.Config;
@@ -19,6 +21,7 @@ import org.teamstbf.yats.model.Model;
 import org.teamstbf.yats.model.ModelManager;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
 import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.UndoHistory;
 import org.teamstbf.yats.model.UserPrefs;
 import org.teamstbf.yats.model.util.SampleDataUtil;
 import org.teamstbf.yats.storage.Storage;
@@ -53,7 +56,7 @@ public class MainApp extends Application {
         super.init();
 
         config = initConfig(getApplicationParameter("config"));
-        storage = new StorageManager(config.getTaskManagerFilePath(), config.getUserPrefsFilePath());
+        storage = new StorageManager(config);
 
         userPrefs = initPrefs(config);
 
@@ -91,7 +94,26 @@ public class MainApp extends Application {
             initialData = new TaskManager();
         }
 
-        return new ModelManager(initialData, userPrefs);
+        UndoHistory undoHistory = new UndoHistory(config.getUndoHistoryDepth(), config.getUndoHistoryMemoryBudget());
+        Model initialModel = new ModelManager(initialData, userPrefs, storage, undoHistory);
+        archiveDoneTasks(initialModel);
+        return initialModel;
+    }
+
+    /**
+     * Moves the done tasks older than the configured number of days out of
+     * the task manager into the archive.
+     */
+    private void archiveDoneTasks(Model model) {
+        int days = config.getArchiveDoneTasksAfterDays();
+        if (days < 0) {
+            return;
+        }
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+        int archived = model.archiveDoneEvents(cutoff);
+        if (archived > 0) {
+            logger.info("Archived " + archived + " done tasks older than " + days + " days");
+        }
     }
 
     private void initLogging(Config config) {
@@ -173,6 +195,7 @@ public class MainApp extends Application {
     public void stop() {
         logger.info("============================ [ Stopping Task Manager ] =============================");
         ui.stop();
+        storage.flush();
         try {
             storage.saveUserPrefs(userPrefs);
         } catch (IOException e) {
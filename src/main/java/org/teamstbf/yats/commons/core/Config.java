@@ -11,6 +11,11 @@ import org.teamstbf.yats.commons.exceptions.DuplicateDataException;
 public class Config {
 
     public static final String DEFAULT_CONFIG_FILE = "config.json";
+    public static final String STORAGE_FORMAT_XML = "xml";
+    public static final String STORAGE_FORMAT_JOURNAL = "journal";
+    public static final String STORAGE_FORMAT_BINARY = "binary";
+    public static final String STORAGE_FORMAT_MAPPED = "mapped";
+    public static final String STORAGE_FORMAT_SEGMENTED = "segmented";
 
     // Config values customizable through config file
     private String appTitle = "Yet Another Task Scheduler";
@@ -18,6 +23,18 @@ public class Config {
     private String userPrefsFilePath = "preferences.json";
     private String taskManagerFilePath = "data/YATS.xml";
     private String taskManagerName = "MyYATSList";
+    private String taskManagerStorageFormat = STORAGE_FORMAT_XML;
+    private long journalCompactionThreshold = 1024 * 1024;
+    private long saveDebounceMillis = 200;
+    private int maximumPendingSaveChanges = 1000;
+    /** Done tasks that ended this many days ago are archived; negative to never archive. */
+    private int archiveDoneTasksAfterDays = 30;
+    /** Whether the xml storage format keeps a binary image of the data file to start up from. */
+    private boolean taskManagerCacheEnabled = true;
+    /** Number of commands that can be undone. */
+    private int undoHistoryDepth = 20;
+    /** Estimated bytes the undo history may hold; the oldest commands are forgotten beyond it. */
+    private long undoHistoryMemoryBudget = 64 * 1024 * 1024;
 
     public String getAppTitle() {
         return appTitle;
@@ -63,6 +80,70 @@ public class Config {
         this.taskManagerName = taskManagerName;
     }
 
+    public String getTaskManagerStorageFormat() {
+        return taskManagerStorageFormat;
+    }
+
+    public void setTaskManagerStorageFormat(String taskManagerStorageFormat) {
+        this.taskManagerStorageFormat = taskManagerStorageFormat;
+    }
+
+    public long getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+
+    public void setJournalCompactionThreshold(long journalCompactionThreshold) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
+    public long getSaveDebounceMillis() {
+        return saveDebounceMillis;
+    }
+
+    public void setSaveDebounceMillis(long saveDebounceMillis) {
+        this.saveDebounceMillis = saveDebounceMillis;
+    }
+
+    public int getMaximumPendingSaveChanges() {
+        return maximumPendingSaveChanges;
+    }
+
+    public void setMaximumPendingSaveChanges(int maximumPendingSaveChanges) {
+        this.maximumPendingSaveChanges = maximumPendingSaveChanges;
+    }
+
+    public int getArchiveDoneTasksAfterDays() {
+        return archiveDoneTasksAfterDays;
+    }
+
+    public void setArchiveDoneTasksAfterDays(int archiveDoneTasksAfterDays) {
+        this.archiveDoneTasksAfterDays = archiveDoneTasksAfterDays;
+    }
+
+    public boolean isTaskManagerCacheEnabled() {
+        return taskManagerCacheEnabled;
+    }
+
+    public void setTaskManagerCacheEnabled(boolean taskManagerCacheEnabled) {
+        this.taskManagerCacheEnabled = taskManagerCacheEnabled;
+    }
+
+    public int getUndoHistoryDepth() {
+        return undoHistoryDepth;
+    }
+
+    public void setUndoHistoryDepth(int undoHistoryDepth) {
+        this.undoHistoryDepth = undoHistoryDepth;
+    }
+
+    public long getUndoHistoryMemoryBudget() {
+        return undoHistoryMemoryBudget;
+    }
+
+    public void setUndoHistoryMemoryBudget(long undoHistoryMemoryBudget) {
+        this.undoHistoryMemoryBudget = undoHistoryMemoryBudget;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == this) {
@@ -77,12 +158,22 @@ public class Config {
         return Objects.equals(appTitle, o.appTitle) && Objects.equals(logLevel, o.logLevel)
                 && Objects.equals(userPrefsFilePath, o.userPrefsFilePath)
                 && Objects.equals(taskManagerFilePath, o.taskManagerFilePath)
-                && Objects.equals(taskManagerName, o.taskManagerName);
+                && Objects.equals(taskManagerName, o.taskManagerName)
+                && Objects.equals(taskManagerStorageFormat, o.taskManagerStorageFormat)
+                && journalCompactionThreshold == o.journalCompactionThreshold
+                && saveDebounceMillis == o.saveDebounceMillis
+                && maximumPendingSaveChanges == o.maximumPendingSaveChanges
+                && archiveDoneTasksAfterDays == o.archiveDoneTasksAfterDays
+                && taskManagerCacheEnabled == o.taskManagerCacheEnabled
+                && undoHistoryDepth == o.undoHistoryDepth
+                && undoHistoryMemoryBudget == o.undoHistoryMemoryBudget;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(appTitle, logLevel, userPrefsFilePath, taskManagerFilePath, taskManagerName);
+        return Objects.hash(appTitle, logLevel, userPrefsFilePath, taskManagerFilePath, taskManagerName,
+                taskManagerStorageFormat, journalCompactionThreshold, saveDebounceMillis, maximumPendingSaveChanges,
+                archiveDoneTasksAfterDays, taskManagerCacheEnabled, undoHistoryDepth, undoHistoryMemoryBudget);
     }
 
     @Override
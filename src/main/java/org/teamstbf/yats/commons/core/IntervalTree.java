@@ -0,0 +1,229 @@
+package org.teamstbf.yats.commons.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of elements, each covering an interval of {@code long} values, that
+ * finds the elements whose intervals overlap a given one.
+ *
+ * The elements are kept in a balanced binary tree ordered by the start of
+ * their intervals, in which every node also holds the largest end in its
+ * subtree. Adding or removing an element takes O(log n) time, and finding the
+ * k elements overlapping an interval O(log n + k). Elements are told apart by
+ * identity, so equal elements may be added with different intervals.
+ */
+public class IntervalTree<E> {
+
+    /** The node of each element in the tree. */
+    private final Map<E, Node<E>> nodes = new IdentityHashMap<>();
+    private Node<E> root;
+    /** Orders the nodes of intervals with the same start by when they were added. */
+    private long nextSequence;
+
+    public IntervalTree() {
+    }
+
+    /**
+     * Creates a tree with the same elements and intervals as
+     * {@code toBeCopied}, in O(n) time.
+     */
+    public IntervalTree(IntervalTree<E> toBeCopied) {
+        this.root = copy(toBeCopied.root);
+        this.nextSequence = toBeCopied.nextSequence;
+    }
+
+    /**
+     * Adds {@code element}, which is not in the tree, covering the values from
+     * {@code start} to {@code end} inclusive.
+     */
+    public void add(E element, long start, long end) {
+        assert element != null && start <= end;
+        assert !nodes.containsKey(element) : "An element can only be added once";
+        Node<E> node = new Node<>(element, start, end, nextSequence++);
+        nodes.put(element, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Removes {@code element} and returns true, or returns false if it is not
+     * in the tree.
+     */
+    public boolean remove(E element) {
+        Node<E> node = nodes.remove(element);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node);
+        return true;
+    }
+
+    public boolean contains(E element) {
+        return nodes.containsKey(element);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    /**
+     * Returns the elements whose intervals share a value with the one from
+     * {@code from} to {@code to} inclusive, ordered by the start of their
+     * intervals.
+     */
+    public List<E> findOverlapping(long from, long to) {
+        List<E> found = new ArrayList<>();
+        collectOverlapping(root, from, to, found);
+        return found;
+    }
+
+    private static <E> void collectOverlapping(Node<E> node, long from, long to, List<E> found) {
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, found);
+        if (node.start > to) {
+            return; // so do all the intervals to its right
+        }
+        if (node.end >= from) {
+            found.add(node.element);
+        }
+        collectOverlapping(node.right, from, to, found);
+    }
+
+    //// tree operations, each returning the root of the changed subtree
+
+    private Node<E> copy(Node<E> node) {
+        if (node == null) {
+            return null;
+        }
+        Node<E> copied = new Node<>(node.element, node.start, node.end, node.sequence);
+        copied.left = copy(node.left);
+        copied.right = copy(node.right);
+        copied.height = node.height;
+        copied.maxEnd = node.maxEnd;
+        nodes.put(copied.element, copied);
+        return copied;
+    }
+
+    private static <E> Node<E> insert(Node<E> node, Node<E> toInsert) {
+        if (node == null) {
+            return toInsert;
+        }
+        if (toInsert.isBefore(node)) {
+            node.left = insert(node.left, toInsert);
+        } else {
+            node.right = insert(node.right, toInsert);
+        }
+        return balance(node);
+    }
+
+    private static <E> Node<E> delete(Node<E> node, Node<E> toDelete) {
+        if (node == toDelete) {
+            if (node.left == null) {
+                return node.right;
+            } else if (node.right == null) {
+                return node.left;
+            }
+            Node<E> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = delete(node.right, successor);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        if (toDelete.isBefore(node)) {
+            node.left = delete(node.left, toDelete);
+        } else {
+            node.right = delete(node.right, toDelete);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Rotates {@code node}, whose subtrees' heights may differ by two, so that
+     * they differ by at most one, and updates the heights and largest ends.
+     */
+    private static <E> Node<E> balance(Node<E> node) {
+        int difference = heightOf(node.left) - heightOf(node.right);
+        if (difference > 1) {
+            if (heightOf(node.left.left) < heightOf(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (difference < -1) {
+            if (heightOf(node.right.right) < heightOf(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        node.update();
+        return node;
+    }
+
+    private static <E> Node<E> rotateRight(Node<E> node) {
+        Node<E> newRoot = node.left;
+        node.left = newRoot.right;
+        newRoot.right = node;
+        node.update();
+        newRoot.update();
+        return newRoot;
+    }
+
+    private static <E> Node<E> rotateLeft(Node<E> node) {
+        Node<E> newRoot = node.right;
+        node.right = newRoot.left;
+        newRoot.left = node;
+        node.update();
+        newRoot.update();
+        return newRoot;
+    }
+
+    private static int heightOf(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<E> {
+        private final E element;
+        private final long start;
+        private final long end;
+        private final long sequence;
+        private Node<E> left;
+        private Node<E> right;
+        private int height = 1;
+        /** The largest end of the intervals in this subtree. */
+        private long maxEnd;
+
+        Node(E element, long start, long end, long sequence) {
+            this.element = element;
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+            this.maxEnd = end;
+        }
+
+        boolean isBefore(Node<?> other) {
+            return start < other.start || (start == other.start && sequence < other.sequence);
+        }
+
+        void update() {
+            height = Math.max(heightOf(left), heightOf(right)) + 1;
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.teamstbf.yats.commons.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * An index from the words of a text to the elements it belongs to, that finds
+ * the elements whose text has a given word, or a word containing a given
+ * fragment, without reading every text.
+ *
+ * Words are split at whitespace and compared ignoring case. The start, at most
+ * {@link #MAX_SUFFIX_LENGTH} characters long, of every suffix of every distinct
+ * word is kept in a sorted dictionary of the words having it, so the words
+ * containing a fragment are among those with a suffix starting with the start
+ * of the fragment, which lie in one range of the dictionary. Only longer
+ * fragments need to be looked for in the words found. Elements are told apart
+ * by identity.
+ *
+ * A copy shares the sets of the index it copies, and either copies a set only
+ * before changing it.
+ */
+public class InvertedIndex<E> {
+
+    /** The most characters of a suffix kept in the dictionary. */
+    static final int MAX_SUFFIX_LENGTH = 4;
+
+    private final Map<E, Set<String>> wordsOf = new IdentityHashMap<>();
+    private final Map<String, Set<E>> elementsWithWord = new HashMap<>();
+    private final NavigableMap<String, Set<String>> wordsWithSuffix = new TreeMap<>();
+    /** The sets of this index that no copy shares, which can be changed in place. */
+    private final Set<Set<?>> ownSets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public InvertedIndex() {
+    }
+
+    /**
+     * Creates an index of the same elements and texts as {@code toBeCopied},
+     * sharing its sets until either index changes them.
+     */
+    public InvertedIndex(InvertedIndex<E> toBeCopied) {
+        wordsOf.putAll(toBeCopied.wordsOf);
+        elementsWithWord.putAll(toBeCopied.elementsWithWord);
+        wordsWithSuffix.putAll(toBeCopied.wordsWithSuffix);
+        toBeCopied.ownSets.clear();
+    }
+
+    /**
+     * Adds {@code element}, which is not in the index, with the words of
+     * {@code text}; a null text has none.
+     */
+    public void add(E element, String text) {
+        assert element != null;
+        assert !wordsOf.containsKey(element) : "An element can only be added once";
+        Set<String> words = toWords(text);
+        wordsOf.put(element, words);
+        for (String word : words) {
+            boolean isNewWord = !elementsWithWord.containsKey(word);
+            ownSetOf(elementsWithWord, word, InvertedIndex::newElementSet).add(element);
+            if (isNewWord) {
+                for (int i = 0; i < word.length(); i++) {
+                    ownSetOf(wordsWithSuffix, suffixKey(word, i), HashSet::new).add(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes {@code element} and returns true, or returns false if it is not
+     * in the index.
+     */
+    public boolean remove(E element) {
+        Set<String> words = wordsOf.remove(element);
+        if (words == null) {
+            return false;
+        }
+        for (String word : words) {
+            removeFrom(elementsWithWord, word, element, InvertedIndex::newElementSet);
+            if (!elementsWithWord.containsKey(word)) {
+                for (int i = 0; i < word.length(); i++) {
+                    removeFrom(wordsWithSuffix, suffixKey(word, i), word, HashSet::new);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds to {@code found} the elements whose text has any of {@code words}.
+     */
+    public void findWithAnyWord(Collection<String> words, Set<E> found) {
+        for (String word : words) {
+            found.addAll(elementsWithWord.getOrDefault(word.trim().toLowerCase(), Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Returns the number of elements whose text has each of {@code words},
+     * summed over the words, which is at least the number of elements
+     * {@link #findWithAnyWord} finds, without finding them.
+     */
+    public int countWithAnyWord(Collection<String> words) {
+        int count = 0;
+        for (String word : words) {
+            count += elementsWithWord.getOrDefault(word.trim().toLowerCase(), Collections.emptySet()).size();
+        }
+        return count;
+    }
+
+    /**
+     * Adds to {@code found} the elements whose text has a word containing any
+     * of {@code fragments}.
+     */
+    public void findWithAnyFragment(Collection<String> fragments, Set<E> found) {
+        Set<String> matchedWords = new HashSet<>();
+        for (String fragment : fragments) {
+            String searched = fragment.trim().toLowerCase();
+            if (searched.isEmpty()) {
+                continue;
+            }
+            String prefix = suffixKey(searched, 0);
+            boolean isWholeKey = prefix.length() == searched.length();
+            for (Map.Entry<String, Set<String>> entry : wordsWithSuffix.tailMap(prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) {
+                    break;
+                }
+                for (String word : entry.getValue()) {
+                    if ((isWholeKey || word.contains(searched)) && matchedWords.add(word)) {
+                        found.addAll(elementsWithWord.get(word));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an empty set that tells elements apart by identity, as the index
+     * does.
+     */
+    public static <E> Set<E> newElementSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /** Returns the dictionary key of the suffix of {@code word} starting at {@code start}. */
+    private static String suffixKey(String word, int start) {
+        return word.substring(start, Math.min(word.length(), start + MAX_SUFFIX_LENGTH));
+    }
+
+    /**
+     * Returns the set of {@code key} in {@code postings} that this index can
+     * change, which is a new one if there was none, or a copy if a copy of the
+     * index shares it.
+     */
+    private <V> Set<V> ownSetOf(Map<String, Set<V>> postings, String key, Supplier<Set<V>> newSet) {
+        Set<V> values = postings.get(key);
+        if (values != null && ownSets.contains(values)) {
+            return values;
+        }
+        Set<V> own = newSet.get();
+        if (values != null) {
+            own.addAll(values);
+        }
+        postings.put(key, own);
+        ownSets.add(own);
+        return own;
+    }
+
+    private <V> void removeFrom(Map<String, Set<V>> postings, String key, V value, Supplier<Set<V>> newSet) {
+        Set<V> values = postings.get(key);
+        if (values == null || !values.contains(value)) {
+            return;
+        }
+        if (values.size() == 1) {
+            postings.remove(key);
+            ownSets.remove(values);
+        } else {
+            ownSetOf(postings, key, newSet).remove(value);
+        }
+    }
+
+    private static Set<String> toWords(String text) {
+        Set<String> words = new HashSet<>();
+        if (text != null) {
+            for (String word : text.split("\\s+")) {
+                if (!word.isEmpty()) {
+                    words.add(word.toLowerCase());
+                }
+            }
+        }
+        return words;
+    }
+
+}
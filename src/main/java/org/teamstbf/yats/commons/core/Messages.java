@@ -9,5 +9,7 @@ public class Messages {
     public static final String MESSAGE_INVALID_COMMAND_FORMAT = "Invalid command format! \n%1$s";
     public static final String MESSAGE_INVALID_TASK_DISPLAYED_INDEX = "The task index provided is invalid";
     public static final String MESSAGE_PERSONS_LISTED_OVERVIEW = "%1$d tasks listed!";
+    public static final String MESSAGE_ARCHIVED_TASKS_LISTED_OVERVIEW = "%1$d archived tasks found!";
+    public static final String MESSAGE_ARCHIVE_READ_ERROR = "Could not read the archive: %1$s";
 
 }
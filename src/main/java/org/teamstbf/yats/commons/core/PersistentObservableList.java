@@ -0,0 +1,98 @@
+package org.teamstbf.yats.commons.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * A modifiable {@link javafx.collections.ObservableList} kept in a
+ * {@link PersistentVector}, so that {@link #snapshot()} of its contents and
+ * {@link #setAll(Collection)} from a snapshot are O(1).
+ */
+public class PersistentObservableList<E> extends ModifiableObservableListBase<E> {
+
+    private PersistentVector<E> elements = PersistentVector.empty();
+
+    /**
+     * Returns the current contents, which later changes to this list leave
+     * unchanged.
+     */
+    public PersistentVector<E> snapshot() {
+        return elements;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return elements.iterator();
+    }
+
+    @Override
+    protected void doAdd(int index, E element) {
+        elements = elements.plus(index, element);
+    }
+
+    @Override
+    protected E doSet(int index, E element) {
+        E replaced = elements.get(index);
+        elements = elements.with(index, element);
+        return replaced;
+    }
+
+    @Override
+    protected E doRemove(int index) {
+        E removed = elements.get(index);
+        elements = elements.minus(index);
+        return removed;
+    }
+
+    /**
+     * Replaces the contents with {@code replacement}, sharing it if it is a
+     * {@link PersistentVector}.
+     */
+    @Override
+    public boolean setAll(Collection<? extends E> replacement) {
+        PersistentVector<E> replaced = elements;
+        elements = PersistentVector.of(replacement);
+        beginChange();
+        if (!replaced.isEmpty()) {
+            nextRemove(0, replaced);
+        }
+        if (!elements.isEmpty()) {
+            nextAdd(0, elements.size());
+        }
+        endChange();
+        return true;
+    }
+
+    /**
+     * Runs {@code changes} to this list, and tells the listeners of all of
+     * them together in a single change.
+     */
+    public void changeAll(Runnable changes) {
+        beginChange();
+        try {
+            changes.run();
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (!isEmpty()) {
+            setAll(PersistentVector.empty());
+        }
+    }
+
+}
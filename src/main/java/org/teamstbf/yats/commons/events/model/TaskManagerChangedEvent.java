@@ -1,15 +1,31 @@
 package org.teamstbf.yats.commons.events.model;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.teamstbf.yats.commons.events.BaseEvent;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
 
 /** Indicates the TaskManager in the model has changed */
 public class TaskManagerChangedEvent extends BaseEvent {
 
     public final ReadOnlyTaskManager data;
 
+    /**
+     * The individual changes that lead to {@link #data}. Empty when they are
+     * not known, in which case the whole task manager should be saved.
+     */
+    public final List<TaskManagerChange> changes;
+
     public TaskManagerChangedEvent(ReadOnlyTaskManager data) {
+        this(data, Collections.emptyList());
+    }
+
+    public TaskManagerChangedEvent(ReadOnlyTaskManager data, List<TaskManagerChange> changes) {
+        assert changes != null;
         this.data = data;
+        this.changes = changes;
     }
 
     @Override
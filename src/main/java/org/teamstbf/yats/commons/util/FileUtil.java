@@ -2,7 +2,11 @@ package org.teamstbf.yats.commons.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Writes and reads files
@@ -62,6 +66,33 @@ public class FileUtil {
         }
     }
 
+    /**
+     * Moves {@code source} to {@code target}, replacing it, in a single step
+     * if the file system supports it.
+     */
+    public static void moveAtomically(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the entries of the directory holding {@code file} to disk, so that
+     * a file just moved there is still there after a crash. Does nothing where
+     * directories cannot be opened, e.g. on Windows.
+     */
+    public static void syncParentDirectory(File file) {
+        File parentDir = file.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(parentDir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort only
+        }
+    }
+
     /**
      * Assumes file exists
      */
@@ -2,6 +2,10 @@ package org.teamstbf.yats.commons.util;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -13,6 +17,10 @@ import javax.xml.bind.Unmarshaller;
  */
 public class XmlUtil {
 
+    /** JAXBContexts are expensive to create but thread-safe, so they are shared. */
+    private static final Map<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+    private static final String TEMP_SUFFIX = ".tmp";
+
     /**
      * Returns the xml data in the file as an object of the specified type.
      *
@@ -38,14 +46,16 @@ public class XmlUtil {
             throw new FileNotFoundException("File not found : " + file.getAbsolutePath());
         }
 
-        JAXBContext context = JAXBContext.newInstance(classToConvert);
+        JAXBContext context = getContext(classToConvert);
         Unmarshaller um = context.createUnmarshaller();
 
         return ((T) um.unmarshal(file));
     }
 
     /**
-     * Saves the data in the file in xml format.
+     * Saves the data in the file in xml format. The data is written to a
+     * temporary file and forced to disk first, then moved over the file, so
+     * that a crash never leaves a half-written file behind.
      *
      * @param file
      *            Points to a valid xml file containing data that match the
@@ -65,11 +75,31 @@ public class XmlUtil {
             throw new FileNotFoundException("File not found : " + file.getAbsolutePath());
         }
 
-        JAXBContext context = JAXBContext.newInstance(data.getClass());
+        JAXBContext context = getContext(data.getClass());
         Marshaller m = context.createMarshaller();
         m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 
-        m.marshal(data, file);
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        try {
+            try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                m.marshal(data, out);
+                out.getChannel().force(true);
+            }
+            FileUtil.moveAtomically(tempFile, file);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw new JAXBException("Could not write " + file, e);
+        }
+        FileUtil.syncParentDirectory(file);
+    }
+
+    private static JAXBContext getContext(Class<?> type) throws JAXBException {
+        JAXBContext context = contexts.get(type);
+        if (context == null) {
+            context = JAXBContext.newInstance(type);
+            contexts.put(type, context);
+        }
+        return context;
     }
 
 }
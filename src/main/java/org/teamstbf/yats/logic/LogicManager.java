@@ -34,7 +34,16 @@ public class LogicManager extends ComponentManager implements Logic {
         logger.info("----------------[USER COMMAND][" + commandText + "]");
         Command command = parser.parseCommand(commandText);
         command.setData(model);
-        return command.execute();
+        // the command's changes are undone, raised and saved together, or not at all if it fails
+        model.beginTransaction();
+        try {
+            CommandResult result = command.execute();
+            model.commitTransaction();
+            return result;
+        } catch (CommandException | RuntimeException e) {
+            model.rollbackTransaction();
+            throw e;
+        }
     }
 
     @Override
@@ -13,6 +13,7 @@ import org.teamstbf.yats.model.item.Location;
 import org.teamstbf.yats.model.item.Recurrence;
 import org.teamstbf.yats.model.item.Schedule;
 import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 import org.teamstbf.yats.model.tag.Tag;
 import org.teamstbf.yats.model.tag.UniqueTagList;
 
@@ -29,6 +30,7 @@ public class AddCommand extends Command {
             + " meeting with boss @work, 7:00pm to 9pm tomorrow " + "//get scolded for being lazy #kthxbye";
 
     public static final String MESSAGE_SUCCESS = "New event added: %1$s";
+    public static final String MESSAGE_DUPLICATE_EVENT = "This task already exists in the task manager.";
 
     private final Event toAdd;
 
@@ -71,7 +73,11 @@ public class AddCommand extends Command {
     public CommandResult execute() throws CommandException {
         assert model != null;
         model.saveImageOfCurrentTaskManager();
-        model.addEvent(toAdd);
+        try {
+            model.addEvent(toAdd);
+        } catch (DuplicateEventException e) {
+            throw new CommandException(MESSAGE_DUPLICATE_EVENT);
+        }
         // model.updateCalendarFilteredListToShowStartTime();
         return new CommandResult(String.format(MESSAGE_SUCCESS, toAdd));
     }
@@ -1,5 +1,7 @@
 package org.teamstbf.yats.logic.commands;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 import org.teamstbf.yats.commons.core.Messages;
@@ -30,20 +32,20 @@ public class BatchDeleteCommand extends Command {
 
         UnmodifiableObservableList<ReadOnlyEvent> lastShownList = model.getFilteredTaskList();
         int numOfTask = targetIndexes.size();
-        model.saveImageOfCurrentTaskManager();
-        for (int i = 0; i < numOfTask; i++) {
-
-            if (lastShownList.size() < targetIndexes.peek()) {
+        List<ReadOnlyEvent> tasksToDelete = new ArrayList<>(numOfTask);
+        for (int targetIndex : targetIndexes) {
+            if (lastShownList.size() < targetIndex) {
                 throw new CommandException(Messages.MESSAGE_INVALID_TASK_DISPLAYED_INDEX);
             }
+            tasksToDelete.add(lastShownList.get(targetIndex - 1));
+        }
+        targetIndexes.clear();
 
-            ReadOnlyEvent taskToDelete = lastShownList.get(targetIndexes.pop() - 1);
-
-            try {
-                model.deleteEvent(taskToDelete);
-            } catch (EventNotFoundException pnfe) {
-                assert false : "The target task cannot be missing";
-            }
+        model.saveImageOfCurrentTaskManager();
+        try {
+            model.deleteEvents(tasksToDelete);
+        } catch (EventNotFoundException pnfe) {
+            assert false : "The target task cannot be missing";
         }
         return new CommandResult(String.format(MESSAGE_DELETE_TASK_SUCCESS, numOfTask));
     }
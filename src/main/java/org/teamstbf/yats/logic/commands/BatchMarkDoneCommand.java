@@ -1,13 +1,13 @@
 package org.teamstbf.yats.logic.commands;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
 import org.teamstbf.yats.commons.core.Messages;
 import org.teamstbf.yats.logic.commands.exceptions.CommandException;
-import org.teamstbf.yats.model.item.Event;
-import org.teamstbf.yats.model.item.IsDone;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.UniqueEventList.EventNotFoundException;
 
 /**
  * Batch marks existing tasks as done in the task scheduler.
@@ -35,28 +35,23 @@ public class BatchMarkDoneCommand extends Command {
 
         List<ReadOnlyEvent> lastShownList = model.getFilteredTaskList();
         int numOfTask = targetIndexes.size();
-
-        if (lastShownList.size() < targetIndexes.peek()) {
-            throw new CommandException(Messages.MESSAGE_INVALID_TASK_DISPLAYED_INDEX);
-        }
-        model.saveImageOfCurrentTaskManager();
-
-        for (int i = 0; i < numOfTask; i++) {
-            ReadOnlyEvent taskToMark = lastShownList.get(targetIndexes.peek());
-
-            Event markedTask = new Event(taskToMark.getTitle(), taskToMark.getLocation(), taskToMark.getStartTime(),
-                    taskToMark.getEndTime(), taskToMark.getDeadline(), taskToMark.getDescription(),
-                    taskToMark.getTags(), new IsDone(), taskToMark.isRecurring(), taskToMark.getRecurrence());
-
-            if (markedTask.getIsDone().getValue().equals(IsDone.ISDONE_DONE)) {
-                return new CommandResult(MESSAGE_ALR_MARKED);
+        List<ReadOnlyEvent> tasksToMark = new ArrayList<>(numOfTask);
+        for (int targetIndex : targetIndexes) {
+            if (targetIndex >= lastShownList.size()) {
+                throw new CommandException(Messages.MESSAGE_INVALID_TASK_DISPLAYED_INDEX);
             }
+            tasksToMark.add(lastShownList.get(targetIndex));
+        }
+        targetIndexes.clear();
 
-            markedTask.getIsDone().markDone();
-            model.updateEvent(targetIndexes.pop(), markedTask);
-            model.updateDoneTaskList();
-            model.updateFilteredListToShowAll();
+        model.saveImageOfCurrentTaskManager();
+        try {
+            model.markDone(tasksToMark);
+        } catch (EventNotFoundException e) {
+            assert false : "The target task cannot be missing";
         }
+        model.updateDoneTaskList();
+        model.updateFilteredListToShowAll();
         return new CommandResult(String.format(MESSAGE_EDIT_TASK_SUCCESS, numOfTask));
     }
 }
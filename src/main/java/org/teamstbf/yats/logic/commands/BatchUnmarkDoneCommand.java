@@ -1,7 +1,9 @@
 package org.teamstbf.yats.logic.commands;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
@@ -10,6 +12,7 @@ import org.teamstbf.yats.logic.commands.exceptions.CommandException;
 import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.IsDone;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 
 //@@author A0138952W
 public class BatchUnmarkDoneCommand extends Command {
@@ -35,7 +38,7 @@ public class BatchUnmarkDoneCommand extends Command {
 
         List<ReadOnlyEvent> lastShownList = retrieveDoneTaskList();
         int numOfTask = targetIndexes.size();
-        model.saveImageOfCurrentTaskManager();
+        Map<Integer, Event> markedTasks = new LinkedHashMap<>();
 
         for (int i = 0; i < numOfTask; i++) {
 
@@ -54,9 +57,16 @@ public class BatchUnmarkDoneCommand extends Command {
             }
 
             markedTask.getIsDone().markUndone();
-            model.updateEvent(targetIndexes.pop(), markedTask);
-            model.updateDoneTaskList();
+            markedTasks.put(targetIndexes.pop(), markedTask);
+        }
+
+        model.saveImageOfCurrentTaskManager();
+        try {
+            model.updateEvents(markedTasks);
+        } catch (DuplicateEventException e) {
+            assert false : "Marking a task does not change its title or description";
         }
+        model.updateDoneTaskList();
         model.updateFilteredListToShowAll();
         return new CommandResult(String.format(MESSAGE_EDIT_TASK_SUCCESS, numOfTask));
     }
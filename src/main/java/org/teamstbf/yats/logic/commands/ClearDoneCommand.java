@@ -1,6 +1,8 @@
 package org.teamstbf.yats.logic.commands;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
@@ -27,25 +29,23 @@ public class ClearDoneCommand extends Command {
 
         UnmodifiableObservableList<ReadOnlyEvent> lastShownList = model.getFilteredTaskList();
 
-        int formerSize = lastShownList.size();
-        model.saveImageOfCurrentTaskManager(); // For undo command
-
-        for (int index = 0; index < lastShownList.size(); index++) {
-            if (lastShownList.get(index).getIsDone().getValue().equals(IsDone.ISDONE_DONE)) {
-                ReadOnlyEvent eventToDelete = lastShownList.get(index);
-                try {
-                    model.deleteEvent(eventToDelete);
-                } catch (EventNotFoundException pnfe) {
-                    assert false : "The target task cannot be missing";
-                }
-                index--;
+        List<ReadOnlyEvent> eventsToDelete = new ArrayList<>();
+        for (ReadOnlyEvent event : lastShownList) {
+            if (event.getIsDone().getValue().equals(IsDone.ISDONE_DONE)) {
+                eventsToDelete.add(event);
             }
         }
-        if (formerSize == lastShownList.size()) { // Check if any deletes
-                                                  // occurred
+        if (eventsToDelete.isEmpty()) {
             model.updateFilteredListToShowAll();
             return new CommandResult(MESSAGE_ALREADY_CLEAR);
         }
+
+        model.saveImageOfCurrentTaskManager(); // For undo command
+        try {
+            model.deleteEvents(eventsToDelete);
+        } catch (EventNotFoundException pnfe) {
+            assert false : "The target task cannot be missing";
+        }
         model.updateFilteredListToShowAll();
         return new CommandResult(MESSAGE_SUCCESS);
     }
@@ -1,8 +1,11 @@
 package org.teamstbf.yats.logic.commands;
 
+import java.util.List;
+
 import org.teamstbf.yats.commons.core.Messages;
 import org.teamstbf.yats.logic.commands.exceptions.CommandException;
 import org.teamstbf.yats.model.Model;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
 
 /**
  * Represents a command with hidden internal logic and the ability to be
@@ -23,6 +26,23 @@ public abstract class Command {
         return String.format(Messages.MESSAGE_PERSONS_LISTED_OVERVIEW, displaySize);
     }
 
+    /**
+     * Constructs a feedback message listing the titles of archived tasks,
+     * which are not shown in the task list.
+     *
+     * @param archivedEvents
+     *            the archived tasks found
+     * @return summary message followed by one title per line
+     */
+    public static String getMessageForArchivedListShownSummary(List<ReadOnlyEvent> archivedEvents) {
+        StringBuilder message = new StringBuilder(
+                String.format(Messages.MESSAGE_ARCHIVED_TASKS_LISTED_OVERVIEW, archivedEvents.size()));
+        for (ReadOnlyEvent event : archivedEvents) {
+            message.append("\n").append(event.getTitle().fullName);
+        }
+        return message.toString();
+    }
+
     /**
      * Executes the command and returns the result message.
      *
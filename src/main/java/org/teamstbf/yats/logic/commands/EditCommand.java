@@ -16,6 +16,7 @@ import org.teamstbf.yats.model.item.ReadOnlyEvent;
 import org.teamstbf.yats.model.item.Recurrence;
 import org.teamstbf.yats.model.item.Schedule;
 import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 import org.teamstbf.yats.model.tag.UniqueTagList;
 
 //@@author A0116219L
@@ -71,7 +72,11 @@ public class EditCommand extends Command {
 
         ReadOnlyEvent taskToEdit = lastShownList.get(filteredTaskListIndex);
         Event editedTask = createEditedTask(taskToEdit, editTaskDescriptor);
-        model.updateEvent(filteredTaskListIndex, editedTask);
+        try {
+            model.updateEvent(filteredTaskListIndex, editedTask);
+        } catch (DuplicateEventException e) {
+            throw new CommandException(MESSAGE_DUPLICATE_TASK);
+        }
         model.updateFilteredListToShowAll();
         return new CommandResult(String.format(MESSAGE_EDIT_TASK_SUCCESS, taskToEdit));
     }
@@ -1,7 +1,11 @@
 package org.teamstbf.yats.logic.commands;
 
+import java.io.IOException;
 import java.util.Set;
 
+import org.teamstbf.yats.commons.core.Messages;
+import org.teamstbf.yats.logic.commands.exceptions.CommandException;
+
 /**
  * Finds and lists all tasks in task manager whose name contains any of the
  * argument keywords. Keyword matching is case sensitive.
@@ -9,19 +13,39 @@ import java.util.Set;
 public class FindCommand extends Command {
 
     public static final String COMMAND_WORD = "find";
+    public static final String KEYWORD_ARCHIVED = "archived";
 
     public static final String MESSAGE_USAGE = COMMAND_WORD + ": Finds all tasks whose names contain any of "
             + "the specified keywords (case-sensitive) and displays them as a list with index numbers.\n"
-            + "Parameters: KEYWORD [MORE_KEYWORDS]...\n" + "Example: " + COMMAND_WORD + " alice bob charlie";
+            + "Parameters: [" + KEYWORD_ARCHIVED + "] KEYWORD [MORE_KEYWORDS]...\n" + "Example: " + COMMAND_WORD
+            + " alice bob charlie";
 
     private final Set<String> keywords;
+    private final boolean isArchived;
 
     public FindCommand(Set<String> keywords) {
+        this(keywords, false);
+    }
+
+    /**
+     * @param isArchived
+     *            if true, searches the archived tasks instead of the task
+     *            list.
+     */
+    public FindCommand(Set<String> keywords, boolean isArchived) {
         this.keywords = keywords;
+        this.isArchived = isArchived;
     }
 
     @Override
-    public CommandResult execute() {
+    public CommandResult execute() throws CommandException {
+        if (isArchived) {
+            try {
+                return new CommandResult(getMessageForArchivedListShownSummary(model.findArchivedEvents(keywords)));
+            } catch (IOException e) {
+                throw new CommandException(String.format(Messages.MESSAGE_ARCHIVE_READ_ERROR, e.getMessage()));
+            }
+        }
         model.updateFilteredListToFindAll(keywords);
         return new CommandResult(getMessageForPersonListShownSummary(model.getFilteredTaskList().size()));
     }
@@ -1,5 +1,7 @@
 package org.teamstbf.yats.logic.commands;
 
+import org.teamstbf.yats.logic.commands.exceptions.CommandException;
+
 //@@author A0138952W
 /**
  * Lists all persons in the task manager to the user.
@@ -14,16 +16,24 @@ public class ListCommand extends Command {
     public static final String COMMAND_WORD_SUFFIX_LOCATION = "location";
     public static final String COMMAND_WORD_SUFFIX_DONE = "done";
     public static final String COMMAND_WORD_SUFFIX_TAG = "tag";;
+    public static final String COMMAND_WORD_QUERY = "where";
+    public static final String COMMAND_WORD_EXPLAIN = "explain";
 
     public static final String MESSAGE_USAGE = COMMAND_WORD + ": Lists all undone tasks. However, "
             + "should you want to search for specific attributes, please use: " + COMMAND_WORD + " "
             + COMMAND_WORD_EXTENTION + "start / end / deadline/ location / tag followed by"
-            + " the string that you want to search for.";
+            + " the string that you want to search for. Tags can be combined with AND, OR and NOT, e.g. "
+            + COMMAND_WORD + " " + COMMAND_WORD_EXTENTION + " tag work AND NOT urgent. Use " + COMMAND_WORD
+            + " done archived"
+            + " to list the done tasks that have been archived. Use " + COMMAND_WORD + " " + COMMAND_WORD_QUERY
+            + " to list the tasks matching a query, e.g. " + COMMAND_WORD + " " + COMMAND_WORD_QUERY
+            + " title:meeting AND NOT done:yes, or " + COMMAND_WORD + " " + COMMAND_WORD_EXPLAIN
+            + " to also show how they were found.";
 
     public static final String MESSAGE_SUCCESS = "Listed all tasks";
 
     @Override
-    public CommandResult execute() {
+    public CommandResult execute() throws CommandException {
         model.updateFilteredListToShowAll();
         return new CommandResult(MESSAGE_SUCCESS);
     }
@@ -1,20 +1,42 @@
 package org.teamstbf.yats.logic.commands;
 
+import java.io.IOException;
 import java.util.Set;
 
+import org.teamstbf.yats.commons.core.Messages;
+import org.teamstbf.yats.logic.commands.exceptions.CommandException;
+
 //@@author A0138952W
 public class ListCommandDone extends ListCommand {
 
     public static final String MESSAGE_SUCCESS = "Listed all done tasks";
 
     private final Set<String> keywords;
+    private final boolean isArchived;
 
     public ListCommandDone(Set<String> keywords) {
+        this(keywords, false);
+    }
+
+    /**
+     * @param isArchived
+     *            if true, lists the done tasks in the archive instead of the
+     *            task list.
+     */
+    public ListCommandDone(Set<String> keywords, boolean isArchived) {
         this.keywords = keywords;
+        this.isArchived = isArchived;
     }
 
     @Override
-    public CommandResult execute() {
+    public CommandResult execute() throws CommandException {
+        if (isArchived) {
+            try {
+                return new CommandResult(getMessageForArchivedListShownSummary(model.findArchivedDoneEvents(keywords)));
+            } catch (IOException e) {
+                throw new CommandException(String.format(Messages.MESSAGE_ARCHIVE_READ_ERROR, e.getMessage()));
+            }
+        }
         model.updateFilteredListToShowDone(keywords);
         return new CommandResult(getMessageForPersonListShownSummary(model.getFilteredTaskList().size()));
     }
@@ -0,0 +1,36 @@
+package org.teamstbf.yats.logic.commands;
+
+import org.teamstbf.yats.model.query.Query;
+import org.teamstbf.yats.model.query.QueryCache;
+
+/**
+ * Lists the tasks matching a query, and how they were found if asked to
+ * explain it.
+ */
+public class ListCommandQuery extends ListCommand {
+
+    private final Query query;
+    private final boolean isExplain;
+
+    public ListCommandQuery(Query query) {
+        this(query, false);
+    }
+
+    /**
+     * @param isExplain
+     *            if true, the result also shows whether the tasks were
+     *            cached, the steps taken to find them and the tasks examined.
+     */
+    public ListCommandQuery(Query query, boolean isExplain) {
+        this.query = query;
+        this.isExplain = isExplain;
+    }
+
+    @Override
+    public CommandResult execute() {
+        QueryCache.Result result = model.updateFilteredListToMatch(query);
+        String message = getMessageForPersonListShownSummary(model.getFilteredTaskList().size());
+        return new CommandResult(isExplain ? message + "\n" + result.explain() : message);
+    }
+
+}
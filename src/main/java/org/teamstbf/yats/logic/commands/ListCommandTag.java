@@ -1,19 +1,19 @@
 package org.teamstbf.yats.logic.commands;
 
-import java.util.Set;
+import org.teamstbf.yats.model.tag.TagQuery;
 
 //@@author A0138952W
 public class ListCommandTag extends ListCommand {
 
-    private final Set<String> keywords;
+    private final TagQuery query;
 
-    public ListCommandTag(Set<String> keywords) {
-        this.keywords = keywords;
+    public ListCommandTag(TagQuery query) {
+        this.query = query;
     }
 
     @Override
     public CommandResult execute() {
-        model.updateFilteredListToShowTags(keywords);
+        model.updateFilteredListToShowTags(query);
         return new CommandResult(getMessageForPersonListShownSummary(model.getFilteredTaskList().size()));
     }
 
@@ -9,6 +9,7 @@ import org.teamstbf.yats.logic.commands.exceptions.CommandException;
 import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.IsDone;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 
 // @@author A0139448U
 /**
@@ -63,7 +64,11 @@ public class MarkUndoneCommand extends Command {
             markedTask.getIsDone().markUndone();
         }
 
-        model.updateEvent(targetIndex, markedTask);
+        try {
+            model.updateEvent(targetIndex, markedTask);
+        } catch (DuplicateEventException e) {
+            assert false : "Marking a task does not change its title or description";
+        }
         model.updateDoneTaskList();
         model.updateFilteredListToShowAll();
         markedTask.setPriority(1);
@@ -13,14 +13,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.teamstbf.yats.commons.core.EventsCenter;
-import org.teamstbf.yats.commons.events.ui.JumpToListRequestEvent;
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.logic.commands.exceptions.CommandException;
 import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
 import org.teamstbf.yats.model.item.ReadOnlyEventComparatorByStartTime;
 import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 import org.teamstbf.yats.model.tag.Tag;
 import org.teamstbf.yats.model.tag.UniqueTagList;
 
@@ -42,6 +41,7 @@ public class ScheduleCommand extends Command {
             + COMMAND_WORD + " have scheduled phone call [-l meeting room -d clients -T work -T skype] -h 2 -m 30  ";
 
     public static final String MESSAGE_SUCCESS = "New event scheduled: %1$s";
+    public static final String MESSAGE_DUPLICATE_EVENT = "This task already exists in the task manager.";
     public static final String MESSAGE_HOURS_INVALID = "The format of hours is invalid - must be a valid long";
     public static final String MESSAGE_TIME_TOO_LONG = "Schedule can only take a timing of at most 10 hours, "
             + "and it should not be negative - use add for long events";
@@ -123,6 +123,8 @@ public class ScheduleCommand extends Command {
             throw new CommandException(MESSAGE_HOURS_INVALID);
         } catch (IllegalArgumentException e) {
             throw new CommandException(MESSAGE_TIME_TOO_LONG);
+        } catch (DuplicateEventException e) {
+            throw new CommandException(MESSAGE_DUPLICATE_EVENT);
         }
     }
 
@@ -131,16 +133,16 @@ public class ScheduleCommand extends Command {
      * First it saves a copy of the current task manager for the undo function .
      * Then it computes the amount of time needed for scheduling then it calls
      * the method to set the schedule timings for the toSchedule event. Finally
-     * it adds this new event to the model, updates the list and moves the GUI
-     * to the location of the newly added caller.
+     * it adds this new event to the model and sorts the list, which moves the
+     * GUI to the location of the newly added event once the command's changes
+     * are committed.
      */
-    private void executeSchedulingMethod() {
+    private void executeSchedulingMethod() throws DuplicateEventException {
         model.saveImageOfCurrentTaskManager();
         long checkedHours = getTotalScheduleTime();
-        int count = setTimingsToSchedule(checkedHours, toSchedule);
+        setTimingsToSchedule(checkedHours, toSchedule);
         model.addEvent(toSchedule);
         model.updateFilteredListToShowSortedStart();
-        EventsCenter.getInstance().post(new JumpToListRequestEvent(count));
     }
 
     /*
@@ -220,7 +222,7 @@ public class ScheduleCommand extends Command {
         long getStartTime;
         long max = new Date().getTime();
         for (ReadOnlyEvent event : filteredTaskLists) {
-            curr = event.getStartTime().getDate().getTime();
+            curr = event.getStartTime().getTime();
             if ((curr - max) >= checkedHours) {
                 getStartTime = findStartTimeFromTwoBoundaries(max, checkedHours, curr,
                         (SCHEDULE_STARTING_HOUR * MINUTES_PER_HOUR), (SCHEDULE_ENDING_HOUR * MINUTES_PER_HOUR));
@@ -229,7 +231,7 @@ public class ScheduleCommand extends Command {
                     break;
                 }
             }
-            max = Math.max(max, event.getEndTime().getDate().getTime());
+            max = Math.max(max, event.getEndTime().getTime());
             position++;
         }
         if (start == INITIAL_START_VALUE) {
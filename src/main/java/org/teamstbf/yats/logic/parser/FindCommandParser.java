@@ -8,9 +8,12 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Matcher;
 
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.logic.commands.Command;
 import org.teamstbf.yats.logic.commands.FindCommand;
 import org.teamstbf.yats.logic.commands.IncorrectCommand;
+import org.teamstbf.yats.logic.commands.ListCommand;
+import org.teamstbf.yats.logic.commands.ListCommandQuery;
 
 /**
  * Parses input arguments and creates a new FindCommand object
@@ -19,9 +22,14 @@ public class FindCommandParser {
 
     /**
      * Parses the given {@code String} of arguments in the context of the
-     * FindCommand and returns an FindCommand object for execution.
+     * FindCommand and returns an FindCommand object for execution, or a
+     * command listing the tasks matching a query if the arguments test fields
+     * as {@link QueryParser} reads them.
      */
     public Command parse(String args) {
+        if (QueryParser.isQuery(args)) {
+            return parseQuery(args);
+        }
         final Matcher matcher = KEYWORDS_ARGS_FORMAT.matcher(args.trim());
         if (!matcher.matches()) {
             return new IncorrectCommand(String.format(MESSAGE_INVALID_COMMAND_FORMAT, FindCommand.MESSAGE_USAGE));
@@ -29,8 +37,21 @@ public class FindCommandParser {
 
         // keywords delimited by whitespace
         final String[] keywords = matcher.group("keywords").split("\\s+");
+        if (keywords.length > 1 && keywords[0].equals(FindCommand.KEYWORD_ARCHIVED)) {
+            return new FindCommand(new HashSet<>(Arrays.asList(keywords).subList(1, keywords.length)), true);
+        }
         final Set<String> keywordSet = new HashSet<>(Arrays.asList(keywords));
         return new FindCommand(keywordSet);
     }
 
+    private Command parseQuery(String args) {
+        String[] words = args.trim().split("\\s+", 2);
+        boolean isExplain = ListCommand.COMMAND_WORD_EXPLAIN.equals(words[0]) && words.length > 1;
+        try {
+            return new ListCommandQuery(new QueryParser().parse(isExplain ? words[1] : args), isExplain);
+        } catch (IllegalValueException e) {
+            return new IncorrectCommand(e.getMessage());
+        }
+    }
+
 }
@@ -6,6 +6,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.logic.commands.Command;
 import org.teamstbf.yats.logic.commands.IncorrectCommand;
 import org.teamstbf.yats.logic.commands.ListCommand;
@@ -13,6 +14,7 @@ import org.teamstbf.yats.logic.commands.ListCommandDeadline;
 import org.teamstbf.yats.logic.commands.ListCommandDone;
 import org.teamstbf.yats.logic.commands.ListCommandEndTime;
 import org.teamstbf.yats.logic.commands.ListCommandLocation;
+import org.teamstbf.yats.logic.commands.ListCommandQuery;
 import org.teamstbf.yats.logic.commands.ListCommandStartTime;
 import org.teamstbf.yats.logic.commands.ListCommandTag;
 
@@ -28,6 +30,7 @@ public class ListCommandParser {
     private static final String COMMAND_EXTENSION_DEADLINE = "by deadline";
     private static final String COMMAND_EXTENSION_LOCATION = "by location";
     private static final String COMMAND_EXTENSION_DONE = "done";
+    private static final String COMMAND_EXTENSION_ARCHIVED = " archived";
     private static final String COMMAND_EXTENSION_TAG = "by tag";
     private static final String KEYWORD_DONE = "Yes";
     private static final String KEYWORD_PERIOD = " ";
@@ -39,7 +42,11 @@ public class ListCommandParser {
      */
     public Command parse(String args) {
         try {
-            if (args.contains(ListCommand.COMMAND_WORD_EXTENTION)) {
+            String[] words = args.trim().split("\\s+", 2);
+            if (ListCommand.COMMAND_WORD_QUERY.equals(words[0]) || ListCommand.COMMAND_WORD_EXPLAIN.equals(words[0])) {
+                return new ListCommandQuery(new QueryParser().parse(words.length > 1 ? words[1] : ""),
+                        ListCommand.COMMAND_WORD_EXPLAIN.equals(words[0]));
+            } else if (args.contains(ListCommand.COMMAND_WORD_EXTENTION)) {
                 String[] commandTextArray = stringTokenizer(args);
                 switch (commandTextArray[LIST_COMMAND_SUFFIX]) {
                 case (ListCommand.COMMAND_WORD_SUFFIX_END):
@@ -51,13 +58,20 @@ public class ListCommandParser {
                 case (ListCommand.COMMAND_WORD_SUFFIX_LOCATION):
                     return new ListCommandLocation(internalParser(args, COMMAND_EXTENSION_LOCATION, KEYWORD_PERIOD));
                 case (ListCommand.COMMAND_WORD_SUFFIX_TAG):
-                    return new ListCommandTag(internalParser(args, COMMAND_EXTENSION_TAG, KEYWORD_PERIOD));
+                    return new ListCommandTag(
+                            new TagQueryParser().parse(args.replaceFirst(COMMAND_EXTENSION_TAG, KEYWORD_PERIOD)));
                 }
             } else if (args.contains(ListCommand.COMMAND_WORD_SUFFIX_DONE)) {
+                if (args.contains(COMMAND_EXTENSION_ARCHIVED)) {
+                    String doneArgs = args.replaceFirst(COMMAND_EXTENSION_ARCHIVED, "");
+                    return new ListCommandDone(internalParser(doneArgs, COMMAND_EXTENSION_DONE, KEYWORD_DONE), true);
+                }
                 return new ListCommandDone(internalParser(args, COMMAND_EXTENSION_DONE, KEYWORD_DONE));
             }
         } catch (java.lang.ArrayIndexOutOfBoundsException e) {
             return new IncorrectCommand(String.format(MESSAGE_INVALID_COMMAND_FORMAT, ListCommand.MESSAGE_USAGE));
+        } catch (IllegalValueException e) {
+            return new IncorrectCommand(e.getMessage());
         }
         return new ListCommand();
     }
@@ -0,0 +1,202 @@
+package org.teamstbf.yats.logic.parser;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.model.query.Query;
+import org.teamstbf.yats.model.query.Query.TimeField;
+import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.model.tag.TagQuery;
+
+/**
+ * Parses tests on the fields of a task, combined with the operators AND, OR
+ * and NOT and grouped with parentheses, into a {@link Query}. NOT binds
+ * tighter than AND, which binds tighter than OR. Tests next to each other
+ * without an operator are combined with AND, so "title:meeting tag:work" finds
+ * the tasks having both.
+ */
+public class QueryParser {
+
+    public static final String OPERATOR_AND = "AND";
+    public static final String OPERATOR_OR = "OR";
+    public static final String OPERATOR_NOT = "NOT";
+    public static final String FIELD_TITLE = "title";
+    public static final String FIELD_LOCATION = "location";
+    public static final String FIELD_TAG = "tag";
+    public static final String FIELD_DONE = "done";
+    public static final String VALUE_YES = "yes";
+    public static final String VALUE_NO = "no";
+    public static final String DATE_RANGE_SEPARATOR = "..";
+
+    public static final String MESSAGE_INVALID_QUERY = "Queries should be tests such as title:WORD, location:WORD, "
+            + "tag:TAG, done:yes, start:DD/MM/YYYY, end:DD/MM/YYYY..DD/MM/YYYY or deadline:HH:MMPM, combined with "
+            + OPERATOR_AND + ", " + OPERATOR_OR + ", " + OPERATOR_NOT + " and parentheses, "
+            + "e.g. tag:work AND NOT (done:yes OR location:home)";
+
+    private static final String FIELD_SEPARATOR = ":";
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private List<String> tokens;
+    private int position;
+
+    /**
+     * Returns true if {@code args} has a test on a field, so that it is meant
+     * as a query rather than as keywords.
+     */
+    public static boolean isQuery(String args) {
+        for (String token : toTokens(args)) {
+            int separator = token.indexOf(FIELD_SEPARATOR);
+            if (separator > 0 && isField(token.substring(0, separator))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses {@code args} into a {@code Query}.
+     *
+     * @throws IllegalValueException
+     *             if {@code args} is not a valid combination of tests.
+     */
+    public Query parse(String args) throws IllegalValueException {
+        tokens = toTokens(args);
+        position = 0;
+        if (tokens.isEmpty()) {
+            throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+        }
+        Query query = parseOr();
+        if (position < tokens.size()) {
+            throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+        }
+        return query;
+    }
+
+    private static List<String> toTokens(String args) {
+        List<String> tokens = new ArrayList<>(Arrays.asList(
+                args.replace(OPEN, " " + OPEN + " ").replace(CLOSE, " " + CLOSE + " ").trim().split("\\s+")));
+        tokens.removeAll(Collections.singleton(""));
+        return tokens;
+    }
+
+    private static boolean isField(String field) {
+        if (FIELD_TITLE.equals(field) || FIELD_LOCATION.equals(field) || FIELD_TAG.equals(field)
+                || FIELD_DONE.equals(field)) {
+            return true;
+        }
+        return toTimeField(field) != null;
+    }
+
+    private static TimeField toTimeField(String field) {
+        for (TimeField timeField : TimeField.values()) {
+            if (timeField.name.equals(field)) {
+                return timeField;
+            }
+        }
+        return null;
+    }
+
+    private Query parseOr() throws IllegalValueException {
+        List<Query> queries = new ArrayList<>();
+        queries.add(parseAnd());
+        while (position < tokens.size() && OPERATOR_OR.equals(tokens.get(position))) {
+            position++;
+            queries.add(parseAnd());
+        }
+        return queries.size() == 1 ? queries.get(0) : Query.or(queries.toArray(new Query[0]));
+    }
+
+    private Query parseAnd() throws IllegalValueException {
+        List<Query> queries = new ArrayList<>();
+        queries.add(parseNot());
+        while (position < tokens.size() && !OPERATOR_OR.equals(tokens.get(position))
+                && !CLOSE.equals(tokens.get(position))) {
+            if (OPERATOR_AND.equals(tokens.get(position))) {
+                position++;
+            }
+            queries.add(parseNot());
+        }
+        return queries.size() == 1 ? queries.get(0) : Query.and(queries.toArray(new Query[0]));
+    }
+
+    private Query parseNot() throws IllegalValueException {
+        if (position >= tokens.size()) {
+            throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+        }
+        String token = tokens.get(position++);
+        if (OPERATOR_NOT.equals(token)) {
+            return Query.not(parseNot());
+        } else if (OPEN.equals(token)) {
+            Query query = parseOr();
+            if (position >= tokens.size() || !CLOSE.equals(tokens.get(position++))) {
+                throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+            }
+            return query;
+        }
+        return parseTest(token);
+    }
+
+    private Query parseTest(String token) throws IllegalValueException {
+        int separator = token.indexOf(FIELD_SEPARATOR);
+        if (separator <= 0 || separator == token.length() - 1) {
+            throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+        }
+        String field = token.substring(0, separator);
+        String value = token.substring(separator + 1);
+        switch (field) {
+        case FIELD_TITLE:
+            return Query.title(value);
+        case FIELD_LOCATION:
+            return Query.location(value);
+        case FIELD_TAG:
+            if (!Tag.isValidTagName(value)) {
+                throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+            }
+            return Query.tag(TagQuery.tag(value));
+        case FIELD_DONE:
+            if (!VALUE_YES.equalsIgnoreCase(value) && !VALUE_NO.equalsIgnoreCase(value)) {
+                throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+            }
+            return Query.done(VALUE_YES.equalsIgnoreCase(value));
+        default:
+            TimeField timeField = toTimeField(field);
+            if (timeField == null) {
+                throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+            }
+            return parseTime(timeField, value);
+        }
+    }
+
+    /**
+     * Parses a date or a range of dates into a query on days, and anything
+     * else into a query on the date or time words, as listing by a time does.
+     */
+    private Query parseTime(TimeField field, String value) throws IllegalValueException {
+        String[] dates = value.split(Pattern.quote(DATE_RANGE_SEPARATOR), -1);
+        try {
+            LocalDate from = LocalDate.parse(dates[0], DATE_FORMATTER);
+            LocalDate to = dates.length == 1 ? from : LocalDate.parse(dates[1], DATE_FORMATTER);
+            if (dates.length > 2 || to.isBefore(from)) {
+                throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+            }
+            return Query.between(field, from, to);
+        } catch (DateTimeParseException e) {
+            if (dates.length > 1) {
+                throw new IllegalValueException(MESSAGE_INVALID_QUERY);
+            }
+            return Query.time(field, Collections.singleton(value));
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.teamstbf.yats.logic.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.model.tag.TagQuery;
+
+/**
+ * Parses a combination of tag names with the operators AND, OR and NOT into a
+ * {@link TagQuery}. NOT binds tighter than AND, which binds tighter than OR.
+ * Tag names next to each other without an operator are combined with OR, so
+ * "work school" finds the tasks tagged with either.
+ */
+public class TagQueryParser {
+
+    public static final String OPERATOR_AND = "AND";
+    public static final String OPERATOR_OR = "OR";
+    public static final String OPERATOR_NOT = "NOT";
+
+    public static final String MESSAGE_INVALID_TAG_QUERY = "Tags to list should be tag names combined with "
+            + OPERATOR_AND + ", " + OPERATOR_OR + " and " + OPERATOR_NOT + ", e.g. work AND NOT urgent";
+
+    private List<String> tokens;
+    private int position;
+
+    /**
+     * Parses {@code args} into a {@code TagQuery}.
+     *
+     * @throws IllegalValueException
+     *             if {@code args} is not a valid combination of tag names.
+     */
+    public TagQuery parse(String args) throws IllegalValueException {
+        tokens = new ArrayList<>(Arrays.asList(args.trim().split("\\s+")));
+        tokens.remove("");
+        position = 0;
+        if (tokens.isEmpty()) {
+            throw new IllegalValueException(MESSAGE_INVALID_TAG_QUERY);
+        }
+        return parseOr();
+    }
+
+    private TagQuery parseOr() throws IllegalValueException {
+        List<TagQuery> queries = new ArrayList<>();
+        queries.add(parseAnd());
+        while (position < tokens.size()) {
+            if (OPERATOR_OR.equals(tokens.get(position))) {
+                position++;
+            }
+            queries.add(parseAnd());
+        }
+        return queries.size() == 1 ? queries.get(0) : TagQuery.or(queries.toArray(new TagQuery[0]));
+    }
+
+    private TagQuery parseAnd() throws IllegalValueException {
+        List<TagQuery> queries = new ArrayList<>();
+        queries.add(parseNot());
+        while (position < tokens.size() && OPERATOR_AND.equals(tokens.get(position))) {
+            position++;
+            queries.add(parseNot());
+        }
+        return queries.size() == 1 ? queries.get(0) : TagQuery.and(queries.toArray(new TagQuery[0]));
+    }
+
+    private TagQuery parseNot() throws IllegalValueException {
+        if (position >= tokens.size()) {
+            throw new IllegalValueException(MESSAGE_INVALID_TAG_QUERY);
+        }
+        String token = tokens.get(position++);
+        if (OPERATOR_NOT.equals(token)) {
+            return TagQuery.not(parseNot());
+        } else if (OPERATOR_AND.equals(token) || OPERATOR_OR.equals(token) || !Tag.isValidTagName(token)) {
+            throw new IllegalValueException(MESSAGE_INVALID_TAG_QUERY);
+        }
+        return TagQuery.tag(token);
+    }
+
+}
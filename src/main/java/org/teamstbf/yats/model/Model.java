@@ -1,12 +1,20 @@
 package org.teamstbf.yats.model;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
 import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
 import org.teamstbf.yats.model.item.UniqueEventList;
+import org.teamstbf.yats.model.query.Query;
+import org.teamstbf.yats.model.query.QueryCache;
+import org.teamstbf.yats.model.tag.TagQuery;
 
 /**
  * The API of the Model component.
@@ -14,11 +22,81 @@ import org.teamstbf.yats.model.item.UniqueEventList;
 public interface Model {
 
     /** Adds the given Event */
-    void addEvent(Event event);
+    void addEvent(Event event) throws UniqueEventList.DuplicateEventException;
 
     /** Deletes the given Event. */
     void deleteEvent(ReadOnlyEvent target) throws UniqueEventList.EventNotFoundException;
 
+    /**
+     * Adds the given Events, telling of the change once.
+     *
+     * @throws DuplicateEventException
+     *             if any of them is equivalent to an existing event or to
+     *             another of them; none is added then.
+     */
+    void addEvents(Collection<Event> events) throws UniqueEventList.DuplicateEventException;
+
+    /**
+     * Deletes the given Events, telling of the change once.
+     *
+     * @throws EventNotFoundException
+     *             if any of them is not in the task manager; none is deleted
+     *             then.
+     */
+    void deleteEvents(Collection<? extends ReadOnlyEvent> targets) throws UniqueEventList.EventNotFoundException;
+
+    /**
+     * Marks the given Events done, or the next occurrence of those that recur,
+     * telling of the change once.
+     *
+     * @throws EventNotFoundException
+     *             if any of them is not in the task manager; none is marked
+     *             then.
+     */
+    void markDone(Collection<? extends ReadOnlyEvent> targets) throws UniqueEventList.EventNotFoundException;
+
+    /**
+     * Moves the done events whose last date is before {@code cutoff} into the
+     * task archive. Events without any date are kept. Returns how many events
+     * were archived; none are if the archive could not be written.
+     */
+    int archiveDoneEvents(Date cutoff);
+
+    /**
+     * Returns the archived events whose done status matches any of
+     * {@code keywords}, as in {@link #updateFilteredListToShowDone(Set)}. The
+     * archive is read for every call.
+     *
+     * @throws IOException
+     *             if the archive could not be read.
+     */
+    List<ReadOnlyEvent> findArchivedDoneEvents(Set<String> keywords) throws IOException;
+
+    /**
+     * Returns the archived events matching any of {@code keywords}, as in
+     * {@link #updateFilteredListToFindAll(Set)}. The archive is read for every
+     * call.
+     *
+     * @throws IOException
+     *             if the archive could not be read.
+     */
+    List<ReadOnlyEvent> findArchivedEvents(Set<String> keywords) throws IOException;
+
+    /**
+     * Returns the events with a start time that take up any time from
+     * {@code start} to {@code end} inclusive, ordered by start time. An event
+     * without an end time takes up just its start time.
+     */
+    List<ReadOnlyEvent> findOverlappingEvents(Date start, Date end);
+
+    /**
+     * Returns the events other than {@code event} that take up some of the
+     * time from its start to its end, ordered by start time. Events that only
+     * meet it at its start or end do not conflict with it; nor do any if it
+     * has no start time.
+     */
+    List<ReadOnlyEvent> findConflictingEvents(ReadOnlyEvent event);
+
     /**
      * Returns the filtered event list as an
      * {@code UnmodifiableObservableList<ReadOnlyEvent>}
@@ -49,11 +127,29 @@ public interface Model {
      * Updates the event located at {@code filteredEventListIndex} with
      * {@code editedEvent}.
      *
+     * @throws DuplicateEventException
+     *             if updating the event's details causes the event to be
+     *             equivalent to another existing event in the list.
      * @throws IndexOutOfBoundsException
      *             if {@code filteredEventListIndex} < 0 or >= the size of the
      *             filtered list.
      */
-    void updateEvent(int filteredEventListIndex, ReadOnlyEvent editedEvent);
+    void updateEvent(int filteredEventListIndex, ReadOnlyEvent editedEvent)
+            throws UniqueEventList.DuplicateEventException;
+
+    /**
+     * Updates the events located at the indexes in the filtered list that are
+     * the keys of {@code editedEvents} with their values, telling of the
+     * change once.
+     *
+     * @throws DuplicateEventException
+     *             if the edited events would be equivalent to each other or to
+     *             another existing event; none is updated then.
+     * @throws IndexOutOfBoundsException
+     *             if an index is < 0 or >= the size of the filtered list.
+     */
+    void updateEvents(Map<Integer, ? extends ReadOnlyEvent> editedEvents)
+            throws UniqueEventList.DuplicateEventException;
 
     /**
      * Updates the filter of the filtered event list to filter by the given
@@ -77,8 +173,9 @@ public interface Model {
     // @@author A0138952W
 
     /**
-     * Updates the filter of the Calendar filtered event list to show specified
-     * start time
+     * Updates the filter of the Calendar filtered event list to show the
+     * events taking up any time on {@code today}, including those starting
+     * earlier. The list keeps showing that day as the events change.
      */
     void updateCalendarFilteredListToShowStartTime(LocalDate today);
 
@@ -108,15 +205,19 @@ public interface Model {
 
     /**
      * This method sorts the filtered list by deadline, and then shows it on the
-     * GUI
+     * GUI. The list stays sorted as the events change, and the task manager's
+     * own order is left as it is.
      */
     void updateFilteredListToShowDeadline();
 
     /** Updates the filter of the filtered event list to show done tasks */
     void updateFilteredListToShowDone(Set<String> keywords);
 
-    /** Updates the filter of the filtered event list to show specified tags */
-    void updateFilteredListToShowTags(Set<String> keywords);
+    /**
+     * Updates the filter of the filtered event list to show the tasks whose
+     * tags match {@code query}
+     */
+    void updateFilteredListToShowTags(TagQuery query);
 
     /**
      * Updates the filter of the filtered event list to search for all tasks
@@ -124,6 +225,13 @@ public interface Model {
      */
     void updateFilteredListToFindAll(Set<String> keywords);
 
+    /**
+     * Updates the filter of the filtered event list to show the tasks matching
+     * {@code query}, and returns the cached result they are shown from, which
+     * can explain how it was looked up.
+     */
+    QueryCache.Result updateFilteredListToMatch(Query query);
+
     // @@author A0102778B
     /**
      * Method to get the previous state (undo command) of the task manager
@@ -151,25 +259,44 @@ public interface Model {
     void scheduleEvent(Event event);
 
     /**
-     * Saves an image of the previous state of the TaskManager for the undo
-     * command - also clears the redo stack images because once the state is
-     * mutated the previous redoes state are invalid because they are no longer
-     * part of the same chain. This is an internal method used by the addEvent,
-     * deteleEvent, clearEvent, editEvent methods. This method also contains a
-     * check - if there are currently too many task manager states, it will
-     * remove half of the earlier saved states and only keep the later half.
+     * Marks the current state of the TaskManager as the one the undo command
+     * goes back to: the changes made from now on are recorded as one undo
+     * step. Also clears the redo steps, because once the state is mutated the
+     * undone steps are no longer part of the same chain. Called by the
+     * mutating commands before they change anything.
      */
     void saveImageOfCurrentTaskManager();
 
     /**
-     * This method sorts the filtered list by start time, and then shows it on
-     * the GUI
+     * Starts a transaction, which cannot be nested. Until it is committed or
+     * rolled back, the changes are only raised as one event when it is
+     * committed, the list jumps only then, and only the first call to
+     * {@link #saveImageOfCurrentTaskManager()} starts an undo step.
+     */
+    void beginTransaction();
+
+    /**
+     * Ends the transaction, raising one event for all the changes made in it.
+     */
+    void commitTransaction();
+
+    /**
+     * Ends the transaction, reverting the changes made in it without raising
+     * any event, and forgetting the undo step it started.
+     */
+    void rollbackTransaction();
+
+    /**
+     * This method sorts the filtered list by start time, and then shows it on the
+     * GUI. The list stays sorted as the events change, and the task manager's
+     * own order is left as it is.
      */
     void updateFilteredListToShowSortedStart();
 
     /**
      * This method sorts the filtered list by end time, and then shows it on the
-     * GUI
+     * GUI. The list stays sorted as the events change, and the task manager's
+     * own order is left as it is.
      */
     void updateFilteredListToShowSortedEnd();
 
@@ -1,12 +1,21 @@
 package org.teamstbf.yats.model;
 
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import org.teamstbf.yats.commons.core.ComponentManager;
 import org.teamstbf.yats.commons.core.EventsCenter;
@@ -14,16 +23,24 @@ import org.teamstbf.yats.commons.core.LogsCenter;
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
 import org.teamstbf.yats.commons.events.model.TaskManagerChangedEvent;
 import org.teamstbf.yats.commons.events.ui.JumpToListRequestEvent;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
 import org.teamstbf.yats.commons.util.CollectionUtil;
 import org.teamstbf.yats.commons.util.StringUtil;
 import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.IsDone;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
 import org.teamstbf.yats.model.item.ReadOnlyEventComparatorByDeadline;
 import org.teamstbf.yats.model.item.ReadOnlyEventComparatorByEndDate;
 import org.teamstbf.yats.model.item.ReadOnlyEventComparatorByStartTime;
 import org.teamstbf.yats.model.item.ReadOnlyEventComparatorIsDeadline;
 import org.teamstbf.yats.model.item.ReadOnlyEventComparatorIsEvent;
+import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 import org.teamstbf.yats.model.item.UniqueEventList.EventNotFoundException;
+import org.teamstbf.yats.model.query.Query;
+import org.teamstbf.yats.model.query.QueryCache;
+import org.teamstbf.yats.model.query.Query.TimeField;
+import org.teamstbf.yats.model.tag.TagQuery;
 
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
@@ -35,24 +52,48 @@ import javafx.collections.transformation.SortedList;
 public class ModelManager extends ComponentManager implements Model {
 
 	private static final Logger logger = LogsCenter.getLogger(ModelManager.class);
-	private static final String TASK_UNDONE_IDENTIFIER = "No";
 	private static final String TASK_DONE_IDENTIFIER = "Yes";
-
-	private static final int MAXIMUM_SIZE_OF_UNDO_STACK = 20;
-	private static final int NEW_SIZE_OF_UNDO_STACK_AFTER_RESIZE = 10;
+	private static final Comparator<ReadOnlyEvent> ORDER_BY_START = new ReadOnlyEventComparatorIsEvent()
+			.thenComparing(new ReadOnlyEventComparatorByStartTime());
+	private static final Comparator<ReadOnlyEvent> ORDER_BY_END = new ReadOnlyEventComparatorIsEvent()
+			.thenComparing(new ReadOnlyEventComparatorByEndDate());
+	private static final Comparator<ReadOnlyEvent> ORDER_BY_DEADLINE = new ReadOnlyEventComparatorIsDeadline()
+			.thenComparing(new ReadOnlyEventComparatorByDeadline());
 
 	private final TaskManager taskManager;
+	/** Where done tasks are moved to; null if they are never archived. */
+	private final TaskArchive taskArchive;
 
-	// @@author A0102778B
-
-	private static Stack<TaskManager> undoTaskManager = new Stack<TaskManager>();
-	private static Stack<TaskManager> redoTaskManager = new Stack<TaskManager>();
-
-	// @@author
+	private final UndoHistory undoHistory;
 
+	/**
+	 * The task manager's events in the order they are shown, kept sorted as
+	 * they change; in the task manager's own order if it has no comparator.
+	 */
+	private final SortedList<ReadOnlyEvent> sortedEvents;
 	private final FilteredList<ReadOnlyEvent> filteredEvents;
 	private final FilteredList<ReadOnlyEvent> calendarList;
 	private final FilteredList<ReadOnlyEvent> taskList;
+	/**
+	 * Makes the filter of {@link #filteredEvents} from the task manager's
+	 * indexes; null if they are filtered otherwise.
+	 */
+	private Supplier<Predicate<? super ReadOnlyEvent>> filteredEventsLookup;
+	/** The tasks found for the recent queries, kept up to date as the tasks change. */
+	private final QueryCache queryCache = new QueryCache();
+	private final ResultFilter filteredEventsFilter;
+	private final ResultFilter calendarFilter;
+	private final ResultFilter taskListFilter;
+
+	/** True from the start of a transaction until it is committed or rolled back. */
+	private boolean isInTransaction;
+	/** The task manager as it was when the transaction began. */
+	private ReadOnlyTaskManager transactionStart;
+	/** True once the transaction has started an undo step, which holds all its changes. */
+	private boolean isTransactionStepBegun;
+	private boolean isChangedInTransaction;
+	/** Finds the position to jump to once the transaction is committed; null if there is none. */
+	private IntSupplier pendingJump;
 
 	public ModelManager() {
 		this(new TaskManager(), new UserPrefs());
@@ -62,25 +103,48 @@ public class ModelManager extends ComponentManager implements Model {
 	 * Initializes a ModelManager with the given taskManager and userPrefs.
 	 */
 	public ModelManager(ReadOnlyTaskManager taskManager, UserPrefs userPrefs) {
+		this(taskManager, userPrefs, null);
+	}
+
+	/**
+	 * Initializes a ModelManager with the given taskManager and userPrefs,
+	 * which archives done tasks to {@code taskArchive}.
+	 */
+	public ModelManager(ReadOnlyTaskManager taskManager, UserPrefs userPrefs, TaskArchive taskArchive) {
+		this(taskManager, userPrefs, taskArchive, new UndoHistory());
+	}
+
+	/**
+	 * Initializes a ModelManager with the given taskManager and userPrefs,
+	 * which archives done tasks to {@code taskArchive} and records the changes
+	 * to undo in {@code undoHistory}.
+	 */
+	public ModelManager(ReadOnlyTaskManager taskManager, UserPrefs userPrefs, TaskArchive taskArchive,
+			UndoHistory undoHistory) {
 		super();
-		assert !CollectionUtil.isAnyNull(taskManager, userPrefs);
+		assert !CollectionUtil.isAnyNull(taskManager, userPrefs, undoHistory);
+		this.taskArchive = taskArchive;
+		this.undoHistory = undoHistory;
 
 		logger.fine("Initializing with task manager: " + taskManager + " and user prefs " + userPrefs);
 
 		this.taskManager = new TaskManager(taskManager);
-		filteredEvents = new FilteredList<>(this.taskManager.getTaskList());
+		sortedEvents = new SortedList<>(this.taskManager.getTaskList());
+		filteredEvents = new FilteredList<>(sortedEvents);
 		calendarList = new FilteredList<ReadOnlyEvent>(this.taskManager.getTaskList());
 		taskList = new FilteredList<ReadOnlyEvent>(this.taskManager.getTaskList());
-		undoTaskManager = new Stack<TaskManager>();
-		redoTaskManager = new Stack<TaskManager>();
+		filteredEventsFilter = new ResultFilter(filteredEvents);
+		calendarFilter = new ResultFilter(calendarList);
+		taskListFilter = new ResultFilter(taskList);
+		this.taskManager.setUndoHistory(undoHistory);
 	}
 
 	@Override
-	public synchronized void addEvent(Event event) {
+	public synchronized void addEvent(Event event) throws DuplicateEventException {
 		taskManager.addEvent(event);
 		updateFilteredListToShowAll();
 		indicateTaskManagerChanged();
-		EventsCenter.getInstance().post(new JumpToListRequestEvent(filteredEvents.size() - 1));
+		jumpTo(() -> filteredEvents.indexOf(event));
 	}
 
 	@Override
@@ -89,77 +153,244 @@ public class ModelManager extends ComponentManager implements Model {
 		indicateTaskManagerChanged();
 	}
 
-	// @@author A0102778B
+	@Override
+	public synchronized void addEvents(Collection<Event> events) throws DuplicateEventException {
+		List<Event> toAdd = new ArrayList<>(events);
+		taskManager.addEvents(toAdd);
+		updateFilteredListToShowAll();
+		indicateTaskManagerChanged();
+		if (!toAdd.isEmpty()) {
+			Event last = toAdd.get(toAdd.size() - 1);
+			jumpTo(() -> filteredEvents.indexOf(last));
+		}
+	}
+
+	@Override
+	public synchronized void deleteEvents(Collection<? extends ReadOnlyEvent> targets)
+			throws EventNotFoundException {
+		taskManager.removeEvents(targets);
+		indicateTaskManagerChanged();
+	}
 
 	@Override
-	public void saveImageOfCurrentTaskManager() {
-		removeUndoEntriesIfUndoStackSizeTooLarge();
-		TaskManager tempManager = new TaskManager();
-		tempManager.resetData(taskManager);
-		undoTaskManager.push(tempManager);
-		clearRedoStack();
+	public synchronized void markDone(Collection<? extends ReadOnlyEvent> targets) throws EventNotFoundException {
+		taskManager.markDone(targets);
+		indicateTaskManagerChanged();
+	}
+
+	@Override
+	public synchronized int archiveDoneEvents(Date cutoff) {
+		assert cutoff != null;
+		if (taskArchive == null) {
+			return 0;
+		}
+		List<ReadOnlyEvent> toArchive = new ArrayList<>();
+		for (ReadOnlyEvent event : taskManager.getTaskList()) {
+			Date lastDate = getLastDate(event);
+			if (TASK_DONE_IDENTIFIER.equals(event.getIsDone().getValue()) && lastDate != null
+					&& lastDate.before(cutoff)) {
+				toArchive.add(event);
+			}
+		}
+		if (toArchive.isEmpty()) {
+			return 0;
+		}
+		try {
+			taskArchive.archiveEvents(toArchive);
+		} catch (IOException e) {
+			logger.warning("Could not archive done tasks, keeping them in the task manager: " + e);
+			return 0;
+		}
+		for (ReadOnlyEvent event : toArchive) {
+			try {
+				taskManager.removeEvent(event);
+			} catch (EventNotFoundException e) {
+				assert false : "The archived task cannot be missing";
+			}
+		}
+		indicateTaskManagerChanged();
+		return toArchive.size();
 	}
 
 	/**
-	 * This method clears the redo stack of taskmanagers. This occurs when a new
-	 * arraylist is created.
+	 * Returns the latest of the start time, end time and deadline of
+	 * {@code event}, or null if it has none of them.
 	 */
-	private void clearRedoStack() {
-		redoTaskManager = new Stack<TaskManager>();
+	private static Date getLastDate(ReadOnlyEvent event) {
+		Date lastDate = null;
+		for (Schedule schedule : new Schedule[] { event.getStartTime(), event.getEndTime(), event.getDeadline() }) {
+			Date date = schedule == null ? null : schedule.getDate();
+			if (date != null && (lastDate == null || date.after(lastDate))) {
+				lastDate = date;
+			}
+		}
+		return lastDate;
+	}
+
+	@Override
+	public List<ReadOnlyEvent> findArchivedDoneEvents(Set<String> keywords) throws IOException {
+		return findArchivedEvents(new PredicateExpression(new DoneQualifier(keywords)));
+	}
+
+	@Override
+	public List<ReadOnlyEvent> findArchivedEvents(Set<String> keywords) throws IOException {
+		return findArchivedEvents(new PredicateExpression(new FindQualifier(keywords)));
+	}
+
+	private List<ReadOnlyEvent> findArchivedEvents(Expression expression) throws IOException {
+		List<ReadOnlyEvent> found = new ArrayList<>();
+		if (taskArchive == null) {
+			return found;
+		}
+		try {
+			for (ReadOnlyEvent event : taskArchive.readArchivedEvents()) {
+				if (expression.satisfies(event)) {
+					found.add(event);
+				}
+			}
+		} catch (DataConversionException e) {
+			throw new IOException("The archive is not in the correct format", e);
+		}
+		return found;
+	}
+
+	@Override
+	public synchronized List<ReadOnlyEvent> findOverlappingEvents(Date start, Date end) {
+		assert start != null && end != null;
+		return taskManager.findEventsOverlapping(start, end);
+	}
+
+	@Override
+	public synchronized List<ReadOnlyEvent> findConflictingEvents(ReadOnlyEvent event) {
+		assert event != null;
+		Date start = getDate(event.getStartTime());
+		if (start == null) {
+			return Collections.emptyList();
+		}
+		Date end = getEndDate(event);
+		List<ReadOnlyEvent> conflicting = new ArrayList<>();
+		for (ReadOnlyEvent other : taskManager.findEventsOverlapping(start, end)) {
+			if (!other.isSameStateAs(event) && getDate(other.getStartTime()).before(end)
+					&& start.before(getEndDate(other))) {
+				conflicting.add(other);
+			}
+		}
+		return conflicting;
 	}
 
 	/**
-	 * This method checks if the undo stack size is above the maximum allowed
-	 * size
+	 * Returns the end time of {@code event}, which has a start time, or its
+	 * start time if it has no end time or ends before it starts.
 	 */
-	private void removeUndoEntriesIfUndoStackSizeTooLarge() {
-		if (undoTaskManager.size() >= MAXIMUM_SIZE_OF_UNDO_STACK) {
-			removeHalfOfUndoStack(undoTaskManager);
+	private static Date getEndDate(ReadOnlyEvent event) {
+		Date start = getDate(event.getStartTime());
+		Date end = getDate(event.getEndTime());
+		return end == null || end.before(start) ? start : end;
+	}
+
+	private static Date getDate(Schedule schedule) {
+		return schedule == null ? null : schedule.getDate();
+	}
+
+	// @@author A0102778B
+
+	@Override
+	public synchronized void saveImageOfCurrentTaskManager() {
+		if (isInTransaction) {
+			if (isTransactionStepBegun) {
+				return;
+			}
+			isTransactionStepBegun = true;
+		}
+		undoHistory.beginStep();
+	}
+
+	@Override
+	public synchronized void beginTransaction() {
+		assert !isInTransaction : "Transactions cannot be nested";
+		isInTransaction = true;
+		transactionStart = TaskManagerSnapshot.of(taskManager);
+	}
+
+	@Override
+	public synchronized void commitTransaction() {
+		assert isInTransaction;
+		IntSupplier jump = pendingJump;
+		boolean isChanged = isChangedInTransaction;
+		endTransaction();
+		if (isChanged) {
+			indicateTaskManagerChanged();
+		}
+		if (jump != null) {
+			jumpTo(jump);
 		}
 	}
 
 	/**
-	 * This method removes half of a stack of TaskManagers given to it (20 task
-	 * managers save states to 10)
+	 * Reverts the changes by undoing the step the transaction started, which
+	 * costs as much as the changes, or else by going back to the task manager
+	 * as it began, which was kept without copying it.
 	 */
-	private void removeHalfOfUndoStack(Stack<TaskManager> currStack) {
-		Stack<TaskManager> tempUndoTaskManager = new Stack<TaskManager>();
-		for (int i = 0; i < NEW_SIZE_OF_UNDO_STACK_AFTER_RESIZE; i++) {
-			tempUndoTaskManager.push(undoTaskManager.pop());
+	@Override
+	public synchronized void rollbackTransaction() {
+		assert isInTransaction;
+		boolean isReverted = isTransactionStepBegun && undoHistory.discardStep(taskManager);
+		if (!isReverted && isChangedInTransaction) {
+			taskManager.setUndoHistory(null);
+			try {
+				taskManager.resetData(transactionStart);
+			} finally {
+				taskManager.setUndoHistory(undoHistory);
+			}
 		}
-		while (!undoTaskManager.isEmpty()) {
-			undoTaskManager.pop();
+		boolean isChanged = isChangedInTransaction;
+		endTransaction();
+		if (isChanged) {
+			refreshLookupLists();
 		}
-		while (!tempUndoTaskManager.isEmpty()) {
-			undoTaskManager.push(tempUndoTaskManager.pop());
+		// the task manager is as it was, so there is nothing to raise or save
+		taskManager.drainChanges();
+	}
+
+	private void endTransaction() {
+		isInTransaction = false;
+		transactionStart = null;
+		isTransactionStepBegun = false;
+		isChangedInTransaction = false;
+		pendingJump = null;
+	}
+
+	/**
+	 * Moves the shown list to the position found by {@code index}, once the
+	 * transaction is committed if there is one.
+	 */
+	private void jumpTo(IntSupplier index) {
+		if (isInTransaction) {
+			pendingJump = index;
+		} else {
+			EventsCenter.getInstance().post(new JumpToListRequestEvent(index.getAsInt()));
 		}
 	}
 
 	@Override
-	public boolean checkEmptyUndoStack() {
-		return undoTaskManager.isEmpty();
+	public synchronized boolean checkEmptyUndoStack() {
+		return !undoHistory.canUndo();
 	}
 
 	@Override
-	public boolean checkEmptyRedoStack() {
-		return redoTaskManager.isEmpty();
+	public synchronized boolean checkEmptyRedoStack() {
+		return !undoHistory.canRedo();
 	}
 
 	@Override
-	public void getPreviousState() {
-		TaskManager tempManager = new TaskManager();
-		tempManager.resetData(taskManager);
-		redoTaskManager.push(tempManager);
-		taskManager.resetData(undoTaskManager.pop());
+	public synchronized void getPreviousState() {
+		undoHistory.undo(taskManager);
 		indicateTaskManagerChanged();
 	}
 
 	@Override
-	public void getNextState() {
-		TaskManager tempManager = new TaskManager();
-		tempManager.resetData(taskManager);
-		undoTaskManager.push(tempManager);
-		taskManager.resetData(redoTaskManager.pop());
+	public synchronized void getNextState() {
+		undoHistory.redo(taskManager);
 		indicateTaskManagerChanged();
 	}
 
@@ -198,9 +429,27 @@ public class ModelManager extends ComponentManager implements Model {
 		return new UnmodifiableObservableList<>(taskList);
 	}
 
-	/** Raises an event to indicate the model has changed */
+	/**
+	 * Raises an event to indicate the model has changed, or once the
+	 * transaction is committed if there is one.
+	 */
 	private void indicateTaskManagerChanged() {
-		raise(new TaskManagerChangedEvent(taskManager));
+		if (isInTransaction) {
+			isChangedInTransaction = true;
+			return;
+		}
+		refreshLookupLists();
+		raise(new TaskManagerChangedEvent(taskManager, taskManager.drainChanges()));
+	}
+
+	/** Filters again the lists filtered from the task manager's indexes. */
+	private void refreshLookupLists() {
+		if (filteredEventsLookup != null) {
+			refreshFilteredEventList();
+		}
+		filteredEventsFilter.refresh();
+		calendarFilter.refresh();
+		taskListFilter.refresh();
 	}
 
 	// =========== Filtered Event List Accessors
@@ -221,59 +470,87 @@ public class ModelManager extends ComponentManager implements Model {
 	// =================================================
 
 	@Override
-	public void updateEvent(int filteredEventListIndex, ReadOnlyEvent editedEvent) {
+	public void updateEvent(int filteredEventListIndex, ReadOnlyEvent editedEvent)
+			throws DuplicateEventException {
 		assert editedEvent != null;
-		int taskManagerIndex = filteredEvents.getSourceIndex(filteredEventListIndex);
+		int taskManagerIndex = sortedEvents.getSourceIndex(filteredEvents.getSourceIndex(filteredEventListIndex));
 		taskManager.updateEvent(taskManagerIndex, editedEvent);
 		indicateTaskManagerChanged();
-		EventsCenter.getInstance().post(new JumpToListRequestEvent(filteredEventListIndex));
+		jumpTo(() -> filteredEventListIndex);
+	}
+
+	@Override
+	public synchronized void updateEvents(Map<Integer, ? extends ReadOnlyEvent> editedEvents)
+			throws DuplicateEventException {
+		Map<Integer, ReadOnlyEvent> byTaskManagerIndex = new LinkedHashMap<>();
+		editedEvents.forEach((filteredEventListIndex, editedEvent) -> byTaskManagerIndex.put(
+				sortedEvents.getSourceIndex(filteredEvents.getSourceIndex(filteredEventListIndex)), editedEvent));
+		taskManager.updateEvents(byTaskManagerIndex);
+		indicateTaskManagerChanged();
 	}
 
 	private void updateFilteredEventList(Expression expression) {
+		filteredEventsLookup = null;
+		filteredEventsFilter.clear();
 		filteredEvents.setPredicate(expression::satisfies);
 	}
 
+	/**
+	 * Filters the event list with the filter made by {@code lookup}, which is
+	 * made again whenever the events change.
+	 */
+	private void updateFilteredEventList(Supplier<Predicate<? super ReadOnlyEvent>> lookup) {
+		filteredEventsLookup = lookup;
+		filteredEventsFilter.clear();
+		refreshFilteredEventList();
+	}
+
+	/** Filters the event list by the cached result of {@code query}, and returns that result. */
+	private QueryCache.Result updateFilteredEventList(Query query) {
+		filteredEventsLookup = null;
+		return filteredEventsFilter.filter(query);
+	}
+
+	private void refreshFilteredEventList() {
+		filteredEvents.setPredicate(filteredEventsLookup.get());
+	}
+
 	@Override
 	public void updateFilteredEventList(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new NameQualifier(keywords)));
+		updateFilteredEventList(anyWord(keywords, Query::title));
 	}
 
 	@Override
 	public void updateFilteredListToShowAll() {
-		Set<String> undoneTaskIdentifier = new HashSet<String>();
-		undoneTaskIdentifier.add(TASK_UNDONE_IDENTIFIER);
-		updateFilteredListToShowDone(undoneTaskIdentifier);
+		updateFilteredEventList(Query.done(false));
 	}
 
-	// @@author A0138952W
-
-	private void updateCalendarFilteredEventList(Expression expression) {
-		calendarList.setPredicate(expression::satisfies);
+	/** Returns a query for the tasks having any of {@code keywords} in the field queried by {@code field}. */
+	private static Query anyWord(Set<String> keywords, Function<String, Query> field) {
+		return Query.or(keywords.stream().filter(keyword -> !keyword.trim().isEmpty()).map(field)
+				.toArray(Query[]::new));
 	}
 
-	private void updateTaskFilteredEventList(Expression expression) {
-		taskList.setPredicate(expression::satisfies);
-	}
+	// @@author A0138952W
 
 	// ============== Methods used for filtering in Calendar list
 	// ===================
 
+	/**
+	 * Filters the calendar list to the cached events taking up any time on
+	 * {@code day}, which are found in the task manager's index of event times.
+	 */
 	@Override
-	public void updateCalendarFilteredListToShowStartTime(LocalDate day) {
-		calendarList.setPredicate(null);
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-		Set<String> keywordSet = new HashSet<String>();
-		keywordSet.add(day.format(formatter));
-		updateCalendarFilteredEventList(new PredicateExpression(new StartTimeQualifier(keywordSet)));
+	public synchronized void updateCalendarFilteredListToShowStartTime(LocalDate day) {
+		assert day != null;
+		calendarFilter.filter(Query.during(day));
 	}
 
 	// ============== Methods used for filtering in Done task list
 	// ====================
 	@Override
 	public void updateDoneTaskList() {
-		Set<String> doneTaskIdentifier = new HashSet<String>();
-		doneTaskIdentifier.add(TASK_DONE_IDENTIFIER);
-		updateTaskFilteredEventList(new PredicateExpression(new DoneQualifier(doneTaskIdentifier)));
+		taskListFilter.filter(Query.done(true));
 	}
 
 	// ============== Methods used for filtering in Primary list
@@ -281,90 +558,124 @@ public class ModelManager extends ComponentManager implements Model {
 
 	@Override
 	public void updateFilteredListToShowLocation(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new LocationQualifier(keywords)));
+		updateFilteredEventList(anyWord(keywords, Query::location));
 	}
 
 	@Override
 	public void updateFilteredListToShowEndTime(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new EndTimeQualifier(keywords)));
+		updateFilteredListToMatch(Query.time(TimeField.END, keywords));
 	}
 
 	@Override
 	public void updateFilteredListToShowStartTime(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new StartTimeQualifier(keywords)));
+		updateFilteredListToMatch(Query.time(TimeField.START, keywords));
 	}
 
 	@Override
 	public void updateFilteredListToShowDeadline(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new DeadlineQualifier(keywords)));
+		updateFilteredListToMatch(Query.time(TimeField.DEADLINE, keywords));
 	}
 
 	@Override
 	public void updateFilteredListToShowDeadline() {
-		FilteredList<ReadOnlyEvent> tempEvents = getSortedEventListByDeadline();
-		taskManager.setPersons(tempEvents);
+		sortedEvents.setComparator(ORDER_BY_DEADLINE);
 		updateFilteredListToShowAll();
 	}
 
+	/**
+	 * Shows the tasks whose done value is any of {@code keywords}. As a done
+	 * value is a single word, the keywords naming one are looked up in the
+	 * cache, and the list is only tested for them if none do.
+	 */
 	@Override
 	public void updateFilteredListToShowDone(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new DoneQualifier(keywords)));
+		Query[] states = keywords.stream()
+				.filter(keyword -> IsDone.ISDONE_DONE.equalsIgnoreCase(keyword.trim())
+						|| IsDone.ISDONE_NOTDONE.equalsIgnoreCase(keyword.trim()))
+				.map(keyword -> Query.done(IsDone.ISDONE_DONE.equalsIgnoreCase(keyword.trim()))).toArray(Query[]::new);
+		if (states.length == 0) {
+			updateFilteredEventList(new PredicateExpression(new DoneQualifier(keywords)));
+			return;
+		}
+		updateFilteredEventList(states.length == 1 ? states[0] : Query.or(states));
 	}
 
 	@Override
-	public void updateFilteredListToShowTags(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new TagQualifier(keywords)));
+	public void updateFilteredListToShowTags(TagQuery query) {
+		updateFilteredEventList(Query.tag(query));
 	}
 
 	@Override
 	public void updateFilteredListToFindAll(Set<String> keywords) {
-		updateFilteredEventList(new PredicateExpression(new FindQualifier(keywords)));
+		updateFilteredEventList(() -> taskManager.findEventsContainingInTitleOrDescription(keywords)::contains);
 	}
 
 	// @@author
 
+	/**
+	 * Filters with the cached result of the query, found by its plan only if
+	 * it is not cached.
+	 */
+	@Override
+	public synchronized QueryCache.Result updateFilteredListToMatch(Query query) {
+		return updateFilteredEventList(query);
+	}
+
 	@Override
 	public void updateFilteredListToShowSortedStart() {
-		FilteredList<ReadOnlyEvent> tempEvents = getSortedEventListByStart();
-		taskManager.setPersons(tempEvents);
+		sortedEvents.setComparator(ORDER_BY_START);
 		updateFilteredListToShowAll();
 	}
 
 	@Override
 	public void updateFilteredListToShowSortedEnd() {
-		FilteredList<ReadOnlyEvent> tempEvents = getSortedEventListByEnd();
-		taskManager.setPersons(tempEvents);
+		sortedEvents.setComparator(ORDER_BY_END);
 		updateFilteredListToShowAll();
 	}
 
-	private FilteredList<ReadOnlyEvent> getSortedEventListByEnd() {
-		filteredEvents.setPredicate(null);
-		SortedList<ReadOnlyEvent> reverseSortedEvents = filteredEvents.sorted(new ReadOnlyEventComparatorByEndDate());
-		SortedList<ReadOnlyEvent> sortedEvents = reverseSortedEvents.sorted(new ReadOnlyEventComparatorIsEvent());
-		FilteredList<ReadOnlyEvent> tempEvents = sortedEvents.filtered(null);
-		taskManager.setPersons(tempEvents);
-		return tempEvents;
-	}
+	// ================ Inner classes for FilteredList ==================
 
-	private FilteredList<ReadOnlyEvent> getSortedEventListByStart() {
-		filteredEvents.setPredicate(null);
-		SortedList<ReadOnlyEvent> reverseSortedEvents = filteredEvents.sorted(new ReadOnlyEventComparatorByStartTime());
-		SortedList<ReadOnlyEvent> sortedEvents = reverseSortedEvents.sorted(new ReadOnlyEventComparatorIsEvent());
-		FilteredList<ReadOnlyEvent> tempEvents = sortedEvents.filtered(null);
-		taskManager.setPersons(tempEvents);
-		return tempEvents;
-	}
+	/**
+	 * Filters a list by the cached result of a query. The list tests the
+	 * tasks added to the task manager as they come, before the result is
+	 * brought up to date, and drops those removed by itself, so it is filtered
+	 * again only if the result is another one or has gained tasks. Filtering
+	 * it again still looks up each of its tasks in the result.
+	 */
+	private class ResultFilter {
+		private final FilteredList<ReadOnlyEvent> list;
+		/** The result the list is filtered by; null if it is filtered otherwise. */
+		private QueryCache.Result result;
+		/** The additions to {@link #result} when the list was last filtered by it. */
+		private int additions;
+
+		ResultFilter(FilteredList<ReadOnlyEvent> list) {
+			this.list = list;
+		}
 
-	private FilteredList<ReadOnlyEvent> getSortedEventListByDeadline() {
-		filteredEvents.setPredicate(null);
-		SortedList<ReadOnlyEvent> reverseSortedEvents = filteredEvents.sorted(new ReadOnlyEventComparatorByDeadline());
-		SortedList<ReadOnlyEvent> sortedEvents = reverseSortedEvents.sorted(new ReadOnlyEventComparatorIsDeadline());
-		FilteredList<ReadOnlyEvent> tempEvents = sortedEvents.filtered(null);
-		taskManager.setPersons(tempEvents);
-		return tempEvents;
-	}
+		/** Filters the list by the cached result of {@code query}, and returns that result. */
+		QueryCache.Result filter(Query query) {
+			QueryCache.Result found = queryCache.find(query, taskManager);
+			if (found != result || found.getAdditions() != additions) {
+				result = found;
+				additions = found.getAdditions();
+				list.setPredicate(found::contains);
+			}
+			return found;
+		}
 
-	// ================ Inner classes for FilteredList ==================
+		/** Brings the list up to date with the changes made since it was filtered. */
+		void refresh() {
+			if (result != null) {
+				filter(result.getQuery());
+			}
+		}
+
+		/** Stops filtering by a result, as the list is filtered otherwise. */
+		void clear() {
+			result = null;
+		}
+	}
 
 	interface Qualifier {
 		boolean run(ReadOnlyEvent event);
@@ -399,111 +710,7 @@ public class ModelManager extends ComponentManager implements Model {
 		}
 	}
 
-	private class NameQualifier implements Qualifier {
-		private Set<String> nameKeyWords;
-
-		NameQualifier(Set<String> nameKeyWords) {
-			this.nameKeyWords = nameKeyWords;
-		}
-
-		@Override
-		public boolean run(ReadOnlyEvent event) {
-			return nameKeyWords.stream()
-					.filter(keyword -> StringUtil.containsWordIgnoreCase(event.getTitle().fullName, keyword)).findAny()
-					.isPresent();
-		}
-
-		@Override
-		public String toString() {
-			return "title=" + String.join(", ", nameKeyWords);
-		}
-	}
-
 	// @@author A0138952W
-	private class LocationQualifier implements Qualifier {
-
-		private Set<String> locationKeyWords;
-
-		LocationQualifier(Set<String> locationKeyWords) {
-			this.locationKeyWords = locationKeyWords;
-		}
-
-		@Override
-		public boolean run(ReadOnlyEvent event) {
-			return locationKeyWords.stream()
-					.filter(keyword -> StringUtil.containsWordIgnoreCase(event.getLocation().toString(), keyword))
-					.findAny().isPresent();
-		}
-
-		@Override
-		public String toString() {
-			return "location=" + String.join(", ", locationKeyWords);
-		}
-	}
-
-	private class EndTimeQualifier implements Qualifier {
-
-		private Set<String> dateKeyWords;
-
-		EndTimeQualifier(Set<String> dateKeyWords) {
-			this.dateKeyWords = dateKeyWords;
-		}
-
-		@Override
-		public boolean run(ReadOnlyEvent event) {
-			return dateKeyWords.stream()
-					.filter(keyword -> StringUtil.containsWordIgnoreCase(event.getEndTime().toString(), keyword))
-					.findAny().isPresent();
-		}
-
-		@Override
-		public String toString() {
-			return "date=" + String.join(", ", dateKeyWords);
-		}
-	}
-
-	private class StartTimeQualifier implements Qualifier {
-
-		private Set<String> startTimeKeyWords;
-
-		StartTimeQualifier(Set<String> startTimeKeyWords) {
-			this.startTimeKeyWords = startTimeKeyWords;
-		}
-
-		@Override
-		public boolean run(ReadOnlyEvent event) {
-			return startTimeKeyWords.stream()
-					.filter(keyword -> StringUtil.containsWordIgnoreCase(event.getStartTime().toString(), keyword))
-					.findAny().isPresent();
-		}
-
-		@Override
-		public String toString() {
-			return "startTime=" + String.join(", ", startTimeKeyWords);
-		}
-	}
-
-	private class DeadlineQualifier implements Qualifier {
-
-		private Set<String> deadlineKeyWords;
-
-		DeadlineQualifier(Set<String> startTimeKeyWords) {
-			this.deadlineKeyWords = startTimeKeyWords;
-		}
-
-		@Override
-		public boolean run(ReadOnlyEvent event) {
-			return deadlineKeyWords.stream()
-					.filter(keyword -> StringUtil.containsWordIgnoreCase(event.getDeadline().toString(), keyword))
-					.findAny().isPresent();
-		}
-
-		@Override
-		public String toString() {
-			return "deadline=" + String.join(", ", deadlineKeyWords);
-		}
-	}
-
 	private class DoneQualifier implements Qualifier {
 
 		private Set<String> doneKeyWords;
@@ -525,28 +732,6 @@ public class ModelManager extends ComponentManager implements Model {
 		}
 	}
 
-	private class TagQualifier implements Qualifier {
-
-		private Set<String> tagKeyWords;
-
-		TagQualifier(Set<String> tagKeyWords) {
-			this.tagKeyWords = tagKeyWords;
-		}
-
-		@Override
-		public boolean run(ReadOnlyEvent event) {
-			String tagObtain = event.getTags().asObservableList().stream().map(tagString -> tagString.tagName)
-					.distinct().collect(Collectors.joining(" "));
-			return tagKeyWords.stream().filter(keyword -> StringUtil.containsWordIgnoreCase(tagObtain, keyword))
-					.findAny().isPresent();
-		}
-
-		@Override
-		public String toString() {
-			return "tag=" + String.join(", ", tagKeyWords);
-		}
-	}
-
 	private class FindQualifier implements Qualifier {
 
 		private int SUBSTRING_INDEX = 0;
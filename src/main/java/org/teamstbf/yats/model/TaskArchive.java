@@ -0,0 +1,35 @@
+package org.teamstbf.yats.model;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+
+/**
+ * A store for tasks that have been moved out of the task manager. Unlike the
+ * task manager, it is not loaded at startup, only when archived tasks are
+ * asked for.
+ */
+public interface TaskArchive {
+
+    /**
+     * Adds {@code events} to the archive. The events are in the archive once
+     * this returns.
+     *
+     * @throws IOException
+     *             if the events could not be written; none of them are then
+     *             in the archive.
+     */
+    void archiveEvents(List<? extends ReadOnlyEvent> events) throws IOException;
+
+    /**
+     * Returns all archived events, oldest first. An event archived more than
+     * once is returned once.
+     *
+     * @throws DataConversionException
+     *             if the archive is not in the expected format.
+     */
+    List<ReadOnlyEvent> readArchivedEvents() throws DataConversionException, IOException;
+
+}
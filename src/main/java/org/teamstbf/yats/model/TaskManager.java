@@ -1,18 +1,28 @@
 package org.teamstbf.yats.model;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
 import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
 import org.teamstbf.yats.model.item.UniqueEventList;
 import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.model.tag.TagIndex;
+import org.teamstbf.yats.model.tag.TagQuery;
 import org.teamstbf.yats.model.tag.UniqueTagList;
 
 import javafx.collections.ObservableList;
@@ -23,8 +33,29 @@ import javafx.collections.ObservableList;
  */
 public class TaskManager implements ReadOnlyTaskManager {
 
+    /**
+     * Number of unsaved changes kept before they are collapsed into a single
+     * {@link TaskManagerChange.Type#RESET}.
+     */
+    private static final int MAXIMUM_PENDING_CHANGES = 1000;
+    /** Number of recent changes that are at least kept to be replayed, whether or not they were drained. */
+    private static final int RECENT_CHANGES_KEPT = 1000;
+
     private final UniqueEventList events;
     private final UniqueTagList tags;
+    /** The tags of the events in {@link #events}, by event id. */
+    private final TagIndex tagIndex = new TagIndex();
+    private List<TaskManagerChange> pendingChanges = new ArrayList<>();
+    /** The number of changes recorded since the task manager was made. */
+    private long generation = 0;
+    /** The changes since the last reset, of which only the most recent are kept. */
+    private final List<TaskManagerChange> recentChanges = new ArrayList<>();
+    /** The generation just before the first of {@link #recentChanges}. */
+    private long recentChangesStart = 0;
+    /** Ids of events grow with their position in {@link #events}, so added events get the largest. */
+    private long nextEventId = 0;
+    /** Where the changes are recorded to be undone; null if they are not. */
+    private UndoHistory undoHistory;
 
     /*
      * The 'unusual' code block below is an non-static initialization block,
@@ -54,19 +85,91 @@ public class TaskManager implements ReadOnlyTaskManager {
     //// list overwrite operations
 
     public void setPersons(List<? extends ReadOnlyEvent> tasks) {
+        if (undoHistory != null) {
+            int[] order = findOrder(tasks);
+            if (order != null) {
+                undoHistory.recordReordered(order);
+            } else {
+                undoHistory.recordReset(this);
+            }
+        }
+        replaceEvents(tasks);
+    }
+
+    private void replaceEvents(List<? extends ReadOnlyEvent> tasks) {
         this.events.setEvents(tasks);
+        assignEventIds();
+        rebuildTagIndex();
+        recordChange(TaskManagerChange.reset());
+    }
+
+    private void rebuildTagIndex() {
+        tagIndex.clear();
+        events.forEach(event -> tagIndex.add(event.getId(), event.getTags()));
+    }
+
+    /**
+     * Returns the positions in {@link #events} of the tasks in {@code tasks},
+     * or null if {@code tasks} are not the same tasks in another order.
+     */
+    private int[] findOrder(List<? extends ReadOnlyEvent> tasks) {
+        if (tasks.size() != events.size()) {
+            return null;
+        }
+        Map<ReadOnlyEvent, Integer> positions = new IdentityHashMap<>();
+        int position = 0;
+        for (Event event : events) {
+            positions.put(event, position++);
+        }
+        int[] order = new int[tasks.size()];
+        for (int i = 0; i < order.length; i++) {
+            Integer oldPosition = positions.remove(tasks.get(i));
+            if (oldPosition == null) {
+                return null;
+            }
+            order[i] = oldPosition;
+        }
+        return order;
+    }
+
+    /**
+     * Keeps the ids of the events as long as they increase along the list,
+     * and gives the other events new ones.
+     */
+    private void assignEventIds() {
+        long lastId = Event.NO_ID;
+        for (Event event : events) {
+            if (event.getId() <= lastId) {
+                event.setId(lastId + 1);
+            }
+            lastId = event.getId();
+        }
+        nextEventId = lastId + 1;
     }
 
     public void setTags(Collection<Tag> tags) throws UniqueTagList.DuplicateTagException {
-        this.tags.setTags(tags);
+        if (undoHistory != null) {
+            undoHistory.recordReset(this);
+        }
+        replaceTags(tags);
+    }
+
+    private void replaceTags(Collection<Tag> tags) throws UniqueTagList.DuplicateTagException {
+        List<Tag> canonicalTags = new ArrayList<>(tags.size());
+        tags.forEach(tag -> canonicalTags.add(tag.intern()));
+        this.tags.setTags(canonicalTags);
+        recordChange(TaskManagerChange.reset());
     }
 
     public void resetData(ReadOnlyTaskManager newData) {
         assert newData != null;
 
-        setPersons(newData.getTaskList());
+        if (undoHistory != null) {
+            undoHistory.recordReset(this);
+        }
+        replaceEvents(newData.getTaskList());
         try {
-            setTags(newData.getTagList());
+            replaceTags(newData.getTagList());
         } catch (UniqueTagList.DuplicateTagException e) {
             assert false : "AddressBooks should not have duplicate tags";
         }
@@ -78,65 +181,76 @@ public class TaskManager implements ReadOnlyTaskManager {
     /**
      * Adds a task to the task manager. Also checks the new task's tags and
      * updates {@link #tags} with any new tags found, and updates the Tag
-     * objects in the task to point to those in {@link #tags}.
+     * objects in the task to point to those in {@link #tags}. The task is given
+     * an id larger than that of any task already added.
      *
      * @throws UniqueEventList.DuplicateEventException
      *             if an equivalent person already exists.
      */
-    public void addEvent(Event p) {
-        storeEventTagImage();
-        syncMasterTagListWith(p);
+    public void addEvent(Event p) throws UniqueEventList.DuplicateEventException {
+        p.setId(nextEventId);
         events.add(p);
-    }
-
-    private void storeEventTagImage() {
-        UniqueEventList tempEvents = new UniqueEventList();
-        tempEvents.setEvents(events);
-        UniqueTagList tempTags = new UniqueTagList();
-        tempTags.setTags(tags);
+        nextEventId++;
+        int tagCount = tags.asObservableList().size();
+        syncMasterTagListWith(p);
+        recordChange(TaskManagerChange.added(events.size() - 1, p));
+        if (undoHistory != null) {
+            undoHistory.recordAdded(events.size() - 1, p);
+            recordTagsAddedSince(tagCount);
+        }
     }
 
     /**
      * Updates the task in the list at position {@code index} with
-     * {@code editedReadOnlyEvent}. {@code TaskManager}'s tag list will be
-     * updated with the tags of {@code editedReadOnlyEvent}.
+     * {@code editedReadOnlyEvent}, which keeps the id of the replaced task.
+     * {@code TaskManager}'s tag list will be updated with the tags of
+     * {@code editedReadOnlyEvent}.
      *
      * @see #syncMasterTagListWith(Task)
      *
+     * @throws UniqueEventList.DuplicateEventException
+     *             if updating the task's details causes the task to be
+     *             equivalent to another existing task in the list.
      * @throws IndexOutOfBoundsException
      *             if {@code index} < 0 or >= the size of the list.
      */
-    public void updateEvent(int index, ReadOnlyEvent editedReadOnlyEvent) {
+    public void updateEvent(int index, ReadOnlyEvent editedReadOnlyEvent)
+            throws UniqueEventList.DuplicateEventException {
         assert editedReadOnlyEvent != null;
 
         Event editedTask = new Event(editedReadOnlyEvent);
-        syncMasterTagListWith(editedTask);
-        // TODO: the tags master list will be updated even though the below line
-        // fails.
-        // This can cause the tags master list to have additional tags that are
-        // not tagged to any person
-        // in the person list.
+        Event replaced = events.asObservableList().get(index);
+        editedTask.setId(replaced.getId());
+        // updated first, so that the master tag list is left alone if it fails
         events.updateEvent(index, editedTask);
+        int tagCount = tags.asObservableList().size();
+        syncMasterTagListWith(editedTask);
+        recordChange(TaskManagerChange.updated(index, replaced, editedTask));
+        if (undoHistory != null) {
+            undoHistory.recordUpdated(index, replaced, editedTask);
+            recordTagsAddedSince(tagCount);
+        }
     }
 
     /**
      * Ensures that every tag in this task: - exists in the master list
-     * {@link #tags} - points to a Tag object in the master list
+     * {@link #tags} - points to a Tag object in the master list. The master
+     * list holds canonical tags, so this takes time proportional to the
+     * task's own tags.
      */
     private void syncMasterTagListWith(Event p) {
-        final UniqueTagList taskTags = p.getTags();
-        tags.mergeFrom(taskTags);
-
-        // Create map with values = tag object references in the master list
-        // used for checking person tag references
-        final Map<Tag, Tag> masterTagObjects = new HashMap<>();
-        tags.forEach(tag -> masterTagObjects.put(tag, tag));
-
-        // Rebuild the list of task tags to point to the relevant tags in the
-        // master tag list.
-        final Set<Tag> correctTagReferences = new HashSet<>();
-        taskTags.forEach(tag -> correctTagReferences.add(masterTagObjects.get(tag)));
-        p.setTags(new UniqueTagList(correctTagReferences));
+        final Set<Tag> canonicalTags = new LinkedHashSet<>();
+        boolean isCanonical = true;
+        for (Tag tag : p.getTags()) {
+            Tag canonical = tag.intern();
+            isCanonical &= canonical == tag;
+            canonicalTags.add(canonical);
+        }
+        if (!isCanonical) {
+            p.setTags(new UniqueTagList(canonicalTags));
+        }
+        tags.mergeFrom(p.getTags());
+        tagIndex.add(p.getId(), p.getTags());
     }
 
     /**
@@ -150,21 +264,385 @@ public class TaskManager implements ReadOnlyTaskManager {
     }
 
     public boolean removeEvent(ReadOnlyEvent key) throws UniqueEventList.EventNotFoundException {
-        if (events.remove(key)) {
-            return true;
-        } else {
+        int index = events.indexOf(key);
+        if (index < 0) {
             throw new UniqueEventList.EventNotFoundException();
         }
+        Event removed = events.remove(index);
+        tagIndex.remove(removed.getId());
+        recordChange(TaskManagerChange.removed(index, removed));
+        if (undoHistory != null) {
+            undoHistory.recordRemoved(index, removed);
+        }
+        return true;
+    }
+
+    /**
+     * Adds {@code toAdd} to the end of the task list as
+     * {@link #addEvent(Event)} does, as a single change to the list.
+     *
+     * @throws UniqueEventList.DuplicateEventException
+     *             if any of them is equivalent to a task in the list or to
+     *             another of them; none is added then.
+     */
+    public void addEvents(List<Event> toAdd) throws UniqueEventList.DuplicateEventException {
+        long firstId = nextEventId;
+        toAdd.forEach(event -> event.setId(nextEventId++));
+        int firstIndex = events.size();
+        try {
+            events.addAll(toAdd);
+        } catch (UniqueEventList.DuplicateEventException e) {
+            nextEventId = firstId;
+            throw e;
+        }
+        int tagCount = tags.asObservableList().size();
+        for (int i = 0; i < toAdd.size(); i++) {
+            Event added = toAdd.get(i);
+            syncMasterTagListWith(added);
+            recordChange(TaskManagerChange.added(firstIndex + i, added));
+            if (undoHistory != null) {
+                undoHistory.recordAdded(firstIndex + i, added);
+            }
+        }
+        if (undoHistory != null) {
+            recordTagsAddedSince(tagCount);
+        }
+    }
+
+    /**
+     * Updates the tasks at the positions that are the keys of
+     * {@code editedEvents} with their values as
+     * {@link #updateEvent(int, ReadOnlyEvent)} does, as a single change to
+     * the list.
+     *
+     * @throws UniqueEventList.DuplicateEventException
+     *             if the edited tasks would be equivalent to each other or to
+     *             a task left in the list; none is updated then.
+     */
+    public void updateEvents(Map<Integer, ? extends ReadOnlyEvent> editedEvents)
+            throws UniqueEventList.DuplicateEventException {
+        List<Event> eventList = events.asObservableList();
+        Map<Integer, Event> editedTasks = new LinkedHashMap<>();
+        editedEvents.forEach((index, edited) -> {
+            Event editedTask = new Event(edited);
+            editedTask.setId(eventList.get(index).getId());
+            editedTasks.put(index, editedTask);
+        });
+        Map<Integer, Event> replaced = new HashMap<>();
+        editedTasks.keySet().forEach(index -> replaced.put(index, eventList.get(index)));
+        events.updateEvents(editedTasks);
+        int tagCount = tags.asObservableList().size();
+        editedTasks.forEach((index, editedTask) -> {
+            syncMasterTagListWith(editedTask);
+            recordChange(TaskManagerChange.updated(index, replaced.get(index), editedTask));
+            if (undoHistory != null) {
+                undoHistory.recordUpdated(index, replaced.get(index), editedTask);
+            }
+        });
+        if (undoHistory != null) {
+            recordTagsAddedSince(tagCount);
+        }
+    }
+
+    /**
+     * Marks {@code targets} done, or the next occurrence of those that recur,
+     * as a single change to the list.
+     *
+     * @throws UniqueEventList.EventNotFoundException
+     *             if any of them is not in the list; none is marked then.
+     */
+    public void markDone(Collection<? extends ReadOnlyEvent> targets) throws UniqueEventList.EventNotFoundException {
+        Map<Integer, Event> marked = new LinkedHashMap<>();
+        for (ReadOnlyEvent target : targets) {
+            int index = events.indexOf(target);
+            if (index < 0) {
+                throw new UniqueEventList.EventNotFoundException();
+            }
+            Event markedTask = new Event(target);
+            markedTask.markDone();
+            marked.put(index, markedTask);
+        }
+        try {
+            updateEvents(marked);
+        } catch (UniqueEventList.DuplicateEventException e) {
+            assert false : "Marking a task does not change its title or description";
+        }
+    }
+
+    /**
+     * Removes the tasks equivalent to {@code keys}, as a single change to the
+     * list.
+     *
+     * @throws UniqueEventList.EventNotFoundException
+     *             if any of them is not in the list; none is removed then.
+     */
+    public void removeEvents(Collection<? extends ReadOnlyEvent> keys) throws UniqueEventList.EventNotFoundException {
+        int[] indexes = new int[keys.size()];
+        int i = 0;
+        for (ReadOnlyEvent key : keys) {
+            indexes[i] = events.indexOf(key);
+            if (indexes[i++] < 0) {
+                throw new UniqueEventList.EventNotFoundException();
+            }
+        }
+        indexes = IntStream.of(indexes).distinct().sorted().toArray();
+        List<Event> removed = events.removeAll(indexes);
+        // removed from the last index to the first, so each index is still right when the changes are replayed
+        for (int j = 0; j < removed.size(); j++) {
+            int index = indexes[indexes.length - 1 - j];
+            Event removedTask = removed.get(j);
+            tagIndex.remove(removedTask.getId());
+            recordChange(TaskManagerChange.removed(index, removedTask));
+            if (undoHistory != null) {
+                undoHistory.recordRemoved(index, removedTask);
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks with a start time that take up any time from
+     * {@code start} to {@code end} inclusive, ordered by start time.
+     */
+    public List<ReadOnlyEvent> findEventsOverlapping(Date start, Date end) {
+        return Collections.unmodifiableList(events.findOverlapping(start, end));
+    }
+
+    /**
+     * Returns the tasks with a title that has any of {@code words} as a whole
+     * word, ignoring case.
+     */
+    public Set<ReadOnlyEvent> findEventsWithWordInTitle(Collection<String> words) {
+        return Collections.unmodifiableSet(events.findWithWordInTitle(words));
+    }
+
+    /**
+     * Returns the tasks with a location that has any of {@code words} as a
+     * whole word, ignoring case.
+     */
+    public Set<ReadOnlyEvent> findEventsWithWordInLocation(Collection<String> words) {
+        return Collections.unmodifiableSet(events.findWithWordInLocation(words));
+    }
+
+    /**
+     * Returns the tasks with a title or description that contains any of
+     * {@code fragments}, ignoring case.
+     */
+    public Set<ReadOnlyEvent> findEventsContainingInTitleOrDescription(Collection<String> fragments) {
+        return Collections.unmodifiableSet(events.findContainingInTitleOrDescription(fragments));
+    }
+
+    /**
+     * Returns at least the number of tasks
+     * {@link #findEventsWithWordInTitle} finds, without finding them.
+     */
+    public int countEventsWithWordInTitle(Collection<String> words) {
+        return events.countWithWordInTitle(words);
+    }
+
+    /**
+     * Returns at least the number of tasks
+     * {@link #findEventsWithWordInLocation} finds, without finding them.
+     */
+    public int countEventsWithWordInLocation(Collection<String> words) {
+        return events.countWithWordInLocation(words);
+    }
+
+    /**
+     * Returns the number of tasks with a start time, which is the most that
+     * {@link #findEventsOverlapping} can find.
+     */
+    public int countEventsWithTime() {
+        return events.countWithTime();
+    }
+
+    /**
+     * Returns a new bitmap of the ids of the tasks that match {@code query}.
+     */
+    public BitSet findEventIdsWithTags(TagQuery query) {
+        return query.evaluate(tagIndex);
+    }
+
+    /**
+     * Returns the tasks with the ids set in {@code ids}, as returned by
+     * {@link #findEventIdsWithTags}, in the order of the task list.
+     */
+    public List<ReadOnlyEvent> findEventsWithIds(BitSet ids) {
+        return Collections.unmodifiableList(events.findWithIds(ids));
     }
 
     //// tag-level operations
 
     public void addTag(Tag t) throws UniqueTagList.DuplicateTagException {
-        tags.add(t);
+        Tag canonical = t.intern();
+        tags.add(canonical);
+        recordChange(TaskManagerChange.reset());
+        if (undoHistory != null) {
+            undoHistory.recordTagsAdded(Collections.singletonList(canonical));
+        }
+    }
+
+    private void recordTagsAddedSince(int tagCount) {
+        List<Tag> tagList = tags.asObservableList();
+        if (tagList.size() > tagCount) {
+            undoHistory.recordTagsAdded(tagList.subList(tagCount, tagList.size()));
+        }
+    }
+
+    //// undo
+
+    /**
+     * Records the changes made from now on in {@code undoHistory}; null to
+     * stop recording them.
+     */
+    void setUndoHistory(UndoHistory undoHistory) {
+        this.undoHistory = undoHistory;
+    }
+
+    /**
+     * Puts a copy of {@code event} back at position {@code index}, with the
+     * same id unless that would break the order of ids.
+     */
+    void insertEvent(int index, Event event) {
+        Event inserted = new Event(event);
+        inserted.setId(event.getId());
+        try {
+            events.add(index, inserted);
+        } catch (UniqueEventList.DuplicateEventException e) {
+            assert false : "An undone change cannot add a duplicate task";
+        }
+        List<Event> eventList = events.asObservableList();
+        if ((index > 0 && eventList.get(index - 1).getId() >= inserted.getId())
+                || (index < eventList.size() - 1 && eventList.get(index + 1).getId() <= inserted.getId())) {
+            assignEventIds();
+            rebuildTagIndex();
+            recordChange(TaskManagerChange.reset());
+        } else {
+            nextEventId = Math.max(nextEventId, inserted.getId() + 1);
+            tagIndex.add(inserted.getId(), inserted.getTags());
+            recordChange(TaskManagerChange.added(index, inserted));
+        }
+    }
+
+    void removeEvent(int index) {
+        Event removed = events.remove(index);
+        tagIndex.remove(removed.getId());
+        recordChange(TaskManagerChange.removed(index, removed));
+    }
+
+    /**
+     * Puts the tasks in a new order, where the task at position {@code i} is
+     * the one now at position {@code order[i]}.
+     */
+    void reorderEvents(int[] order) {
+        List<Event> eventList = events.asObservableList();
+        List<Event> reordered = new ArrayList<>(order.length);
+        for (int position : order) {
+            reordered.add(eventList.get(position));
+        }
+        replaceEvents(reordered);
+    }
+
+    void addTags(List<Tag> toAdd) {
+        tags.mergeFrom(new UniqueTagList(new LinkedHashSet<>(toAdd)));
+        recordChange(TaskManagerChange.reset());
+    }
+
+    void removeTags(List<Tag> toRemove) {
+        Set<Tag> removed = new HashSet<>(toRemove);
+        List<Tag> remaining = new ArrayList<>();
+        tags.forEach(tag -> {
+            if (!removed.contains(tag)) {
+                remaining.add(tag);
+            }
+        });
+        try {
+            tags.setTags(remaining);
+        } catch (UniqueTagList.DuplicateTagException e) {
+            assert false : "A subset of unique tags cannot have duplicates";
+        }
+        recordChange(TaskManagerChange.reset());
+    }
+
+    //// change tracking
+
+    private void recordChange(TaskManagerChange change) {
+        generation++;
+        recordRecentChange(change);
+        if (change.getType() == TaskManagerChange.Type.RESET || pendingChanges.size() >= MAXIMUM_PENDING_CHANGES) {
+            pendingChanges = new ArrayList<>();
+            pendingChanges.add(TaskManagerChange.reset());
+        } else if (!hasPendingReset()) {
+            pendingChanges.add(change);
+        }
+    }
+
+    /**
+     * Keeps {@code change} among the recent changes, and forgets the older
+     * half of them once twice as many as are kept have been made.
+     */
+    private void recordRecentChange(TaskManagerChange change) {
+        if (change.getType() == TaskManagerChange.Type.RESET) {
+            recentChanges.clear();
+            recentChangesStart = generation;
+            return;
+        }
+        recentChanges.add(change);
+        if (recentChanges.size() >= 2 * RECENT_CHANGES_KEPT) {
+            recentChanges.subList(0, RECENT_CHANGES_KEPT).clear();
+            recentChangesStart += RECENT_CHANGES_KEPT;
+        }
+    }
+
+    private boolean hasPendingReset() {
+        return pendingChanges.size() == 1 && pendingChanges.get(0).getType() == TaskManagerChange.Type.RESET;
+    }
+
+    /**
+     * Returns a number that grows with every change, whether or not the
+     * changes have been drained, so that anything found from the task manager
+     * is current as long as the number stays the same.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the changes made after {@code since}, a generation returned by
+     * {@link #getGeneration()}, whether or not they were drained; or null if
+     * they are no longer known individually, because the data was reset or
+     * too many changes were made since. The list is only valid until the next
+     * change.
+     */
+    public List<TaskManagerChange> getChangesSince(long since) {
+        assert since <= generation;
+        if (since < recentChangesStart) {
+            return null;
+        }
+        return Collections.unmodifiableList(
+                recentChanges.subList((int) (since - recentChangesStart), recentChanges.size()));
+    }
+
+    /**
+     * Returns the changes made since the last call and clears them. A list
+     * holding a single {@link TaskManagerChange.Type#RESET} means the changes
+     * were too many or too broad to describe individually.
+     */
+    public List<TaskManagerChange> drainChanges() {
+        List<TaskManagerChange> drained = Collections.unmodifiableList(pendingChanges);
+        pendingChanges = new ArrayList<>();
+        return drained;
     }
 
     //// utility methods
 
+    /**
+     * Returns the current tasks and tags, sharing their structure rather than
+     * copying them.
+     */
+    TaskManagerSnapshot snapshot() {
+        return new TaskManagerSnapshot(events.snapshot(), tags.snapshot());
+    }
+
     @Override
     public String toString() {
         return events.asObservableList().size() + " persons, " + tags.asObservableList().size() + " tags";
@@ -0,0 +1,88 @@
+package org.teamstbf.yats.model;
+
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+
+/**
+ * Describes a single mutation of the event list of a {@link TaskManager}.
+ * Storage backends can use a sequence of these to persist only what changed
+ * instead of rewriting the whole task manager.
+ */
+public class TaskManagerChange {
+
+    /** The kind of mutation that was applied. */
+    public enum Type {
+        /** An event was inserted at {@link #getIndex()}. */
+        ADD,
+        /** The event at {@link #getIndex()} was replaced. */
+        UPDATE,
+        /** The event at {@link #getIndex()} was removed. */
+        REMOVE,
+        /** The whole task manager was replaced; only a full save can capture it. */
+        RESET
+    }
+
+    private final Type type;
+    private final int index;
+    private final ReadOnlyEvent event;
+    private final ReadOnlyEvent replaced;
+
+    private TaskManagerChange(Type type, int index, ReadOnlyEvent event, ReadOnlyEvent replaced) {
+        this.type = type;
+        this.index = index;
+        this.event = event;
+        this.replaced = replaced;
+    }
+
+    public static TaskManagerChange added(int index, ReadOnlyEvent event) {
+        assert event != null;
+        return new TaskManagerChange(Type.ADD, index, event, null);
+    }
+
+    public static TaskManagerChange updated(int index, ReadOnlyEvent replaced, ReadOnlyEvent event) {
+        assert event != null && replaced != null;
+        return new TaskManagerChange(Type.UPDATE, index, event, replaced);
+    }
+
+    public static TaskManagerChange removed(int index, ReadOnlyEvent event) {
+        return new TaskManagerChange(Type.REMOVE, index, event, null);
+    }
+
+    public static TaskManagerChange reset() {
+        return new TaskManagerChange(Type.RESET, -1, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the position in the event list the change applies to, or -1 for
+     * {@link Type#RESET}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the event as it is after the change ({@link Type#ADD},
+     * {@link Type#UPDATE}) or the event that was removed ({@link Type#REMOVE}).
+     * Returns null for {@link Type#RESET}.
+     */
+    public ReadOnlyEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the event that was replaced for {@link Type#UPDATE}, or null for
+     * the other types.
+     */
+    public ReadOnlyEvent getReplaced() {
+        return replaced;
+    }
+
+    @Override
+    public String toString() {
+        return type + (type == Type.RESET ? "" : " at " + index);
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.teamstbf.yats.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.teamstbf.yats.commons.core.PersistentVector;
+import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.tag.Tag;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * An immutable {@link ReadOnlyTaskManager} over a fixed list of events and
+ * tags. Later changes to the source lists are not reflected.
+ */
+public class TaskManagerSnapshot implements ReadOnlyTaskManager {
+
+    private final ObservableList<ReadOnlyEvent> events;
+    private final ObservableList<Tag> tags;
+
+    public TaskManagerSnapshot(Collection<? extends ReadOnlyEvent> events, Collection<Tag> tags) {
+        assert events != null && tags != null;
+        this.events = new UnmodifiableObservableList<>(FXCollections.observableList(new ArrayList<>(events)));
+        this.tags = new UnmodifiableObservableList<>(FXCollections.observableList(new ArrayList<>(tags)));
+    }
+
+    /**
+     * Creates a snapshot sharing the immutable {@code events} and {@code tags}.
+     */
+    TaskManagerSnapshot(PersistentVector<? extends ReadOnlyEvent> events, PersistentVector<Tag> tags) {
+        assert events != null && tags != null;
+        this.events = new UnmodifiableObservableList<>(FXCollections.observableList(
+                PersistentVector.<ReadOnlyEvent>of(events)));
+        this.tags = new UnmodifiableObservableList<>(FXCollections.observableList(tags));
+    }
+
+    /**
+     * Creates a snapshot of the current contents of {@code source}, in O(1) if
+     * it is a {@link TaskManager}.
+     */
+    public static TaskManagerSnapshot of(ReadOnlyTaskManager source) {
+        if (source instanceof TaskManager) {
+            return ((TaskManager) source).snapshot();
+        }
+        return new TaskManagerSnapshot(source.getTaskList(), source.getTagList());
+    }
+
+    @Override
+    public ObservableList<ReadOnlyEvent> getTaskList() {
+        return events;
+    }
+
+    @Override
+    public ObservableList<Tag> getTagList() {
+        return tags;
+    }
+
+    @Override
+    public String toString() {
+        return events.size() + " events, " + tags.size() + " tags";
+    }
+
+}
@@ -0,0 +1,375 @@
+package org.teamstbf.yats.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.UniqueEventList;
+import org.teamstbf.yats.model.tag.Tag;
+
+/**
+ * Remembers how to undo and redo the changes made to a {@link TaskManager} by
+ * each command, as the changed tasks rather than copies of the task manager.
+ *
+ * A command starts a step with {@link #beginStep()}, and every change made to
+ * the task manager until the next step is recorded in it, so undoing a step
+ * costs as much as the changes it holds. Only replacing the whole task list
+ * records the previous list, and reordering it only records the order.
+ *
+ * The oldest steps are forgotten when there are more than the maximum depth,
+ * or when the changes held are estimated to take more than the memory budget.
+ */
+public class UndoHistory {
+
+    public static final int DEFAULT_DEPTH = 20;
+    public static final long DEFAULT_MEMORY_BUDGET = 64 * 1024 * 1024;
+
+    /** Rough size of a task with its fields, used to estimate the memory held. */
+    static final long ESTIMATED_EVENT_SIZE = 1024;
+    private static final long ESTIMATED_TAG_SIZE = 64;
+    private static final long ESTIMATED_CHANGE_SIZE = 32;
+
+    private static final Logger logger = LogsCenter.getLogger(UndoHistory.class);
+
+    private final int maximumDepth;
+    private final long memoryBudget;
+    private final Deque<Step> undoSteps = new ArrayDeque<>();
+    private final Deque<Step> redoSteps = new ArrayDeque<>();
+    private long estimatedSize;
+    /** Set while a step is undone or redone, so that its changes are not recorded again. */
+    private boolean isApplying;
+
+    public UndoHistory() {
+        this(DEFAULT_DEPTH, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * @param maximumDepth
+     *            the number of steps that can be undone; 0 or less disables
+     *            undo.
+     * @param memoryBudget
+     *            the estimated bytes the steps may hold.
+     */
+    public UndoHistory(int maximumDepth, long memoryBudget) {
+        this.maximumDepth = Math.max(0, maximumDepth);
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Starts recording the changes of a new command, which can no longer be
+     * followed by the steps that were undone.
+     */
+    public synchronized void beginStep() {
+        clearRedoSteps();
+        if (maximumDepth == 0 || (!undoSteps.isEmpty() && undoSteps.peek().isEmpty())) {
+            return;
+        }
+        undoSteps.push(new Step());
+        while (undoSteps.size() > maximumDepth) {
+            estimatedSize -= undoSteps.removeLast().getEstimatedSize();
+        }
+    }
+
+    public synchronized boolean canUndo() {
+        return undoSteps.size() > 1 || (undoSteps.size() == 1 && !undoSteps.peek().isEmpty());
+    }
+
+    public synchronized boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /**
+     * Reverts the changes of the last step that made any to {@code taskManager}.
+     */
+    public synchronized void undo(TaskManager taskManager) {
+        assert canUndo();
+        if (undoSteps.peek().isEmpty()) {
+            undoSteps.pop();
+        }
+        Step step = undoSteps.pop();
+        apply(step, taskManager, true);
+        redoSteps.push(step);
+    }
+
+    /**
+     * Makes again the changes of the last step undone.
+     */
+    public synchronized void redo(TaskManager taskManager) {
+        assert canRedo();
+        Step step = redoSteps.pop();
+        apply(step, taskManager, false);
+        undoSteps.push(step);
+    }
+
+    /**
+     * Reverts the changes of the current step and forgets it, so that it
+     * cannot be redone either. Returns false, reverting nothing, if there is no
+     * step because undo is disabled or the steps were cleared for being too
+     * large.
+     */
+    public synchronized boolean discardStep(TaskManager taskManager) {
+        if (undoSteps.isEmpty()) {
+            return false;
+        }
+        Step step = undoSteps.pop();
+        apply(step, taskManager, true);
+        estimatedSize -= step.getEstimatedSize();
+        return true;
+    }
+
+    private void apply(Step step, TaskManager taskManager, boolean isUndo) {
+        estimatedSize -= step.getEstimatedSize();
+        isApplying = true;
+        try {
+            if (isUndo) {
+                for (int i = step.changes.size() - 1; i >= 0; i--) {
+                    step.changes.get(i).undo(taskManager);
+                }
+            } else {
+                for (Change change : step.changes) {
+                    change.redo(taskManager);
+                }
+            }
+        } finally {
+            isApplying = false;
+        }
+        estimatedSize += step.getEstimatedSize();
+    }
+
+    //// recording
+
+    void recordAdded(int index, Event event) {
+        record(new EventChange(index, null, event));
+    }
+
+    void recordRemoved(int index, Event event) {
+        record(new EventChange(index, event, null));
+    }
+
+    void recordUpdated(int index, Event before, Event after) {
+        record(new EventChange(index, before, after));
+    }
+
+    void recordTagsAdded(List<Tag> added) {
+        record(new TagsAdded(added));
+    }
+
+    /**
+     * Records that the task list was put in a new order, where the task at
+     * position {@code i} was at position {@code order[i]} before.
+     */
+    void recordReordered(int[] order) {
+        record(new Reordered(order));
+    }
+
+    void recordReset(ReadOnlyTaskManager before) {
+        record(new Reset(TaskManagerSnapshot.of(before)));
+    }
+
+    /**
+     * Adds {@code change} to the current step. A change made outside of any
+     * command while steps are undone cannot be redone over, so those are
+     * forgotten.
+     */
+    private synchronized void record(Change change) {
+        if (isApplying) {
+            return;
+        }
+        clearRedoSteps();
+        if (undoSteps.isEmpty()) {
+            return;
+        }
+        undoSteps.peek().add(change);
+        estimatedSize += change.getEstimatedSize();
+        while (estimatedSize > memoryBudget && undoSteps.size() > 1) {
+            estimatedSize -= undoSteps.removeLast().getEstimatedSize();
+        }
+        if (estimatedSize > memoryBudget) {
+            // later changes of this step would be undone without its earlier ones
+            logger.info("Changes too large to be undone, clearing the undo history");
+            undoSteps.clear();
+            estimatedSize = 0;
+        }
+    }
+
+    private void clearRedoSteps() {
+        for (Step step : redoSteps) {
+            estimatedSize -= step.getEstimatedSize();
+        }
+        redoSteps.clear();
+    }
+
+    /**
+     * The changes made by a command, in the order they were made.
+     */
+    private static class Step {
+        private final List<Change> changes = new ArrayList<>();
+
+        void add(Change change) {
+            changes.add(change);
+        }
+
+        boolean isEmpty() {
+            return changes.isEmpty();
+        }
+
+        /** Summed each time, as a reset holds a different task manager once undone. */
+        long getEstimatedSize() {
+            long size = 0;
+            for (Change change : changes) {
+                size += change.getEstimatedSize();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * A change that can be reverted and made again. A change is undone and
+     * redone on the task manager as it was right after and right before it.
+     */
+    private interface Change {
+        void undo(TaskManager taskManager);
+
+        void redo(TaskManager taskManager);
+
+        long getEstimatedSize();
+    }
+
+    /**
+     * A task added (no {@code before}), removed (no {@code after}) or replaced
+     * at a position in the task list.
+     */
+    private static class EventChange implements Change {
+        private final int index;
+        private final Event before;
+        private final Event after;
+
+        EventChange(int index, Event before, Event after) {
+            this.index = index;
+            this.before = before;
+            this.after = after;
+        }
+
+        @Override
+        public void undo(TaskManager taskManager) {
+            change(taskManager, after, before);
+        }
+
+        @Override
+        public void redo(TaskManager taskManager) {
+            change(taskManager, before, after);
+        }
+
+        private void change(TaskManager taskManager, Event from, Event to) {
+            if (from == null) {
+                taskManager.insertEvent(index, to);
+            } else if (to == null) {
+                taskManager.removeEvent(index);
+            } else {
+                try {
+                    taskManager.updateEvent(index, to);
+                } catch (UniqueEventList.DuplicateEventException e) {
+                    assert false : "An undone change cannot make a duplicate task";
+                }
+            }
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return ESTIMATED_CHANGE_SIZE + (before == null ? 0 : ESTIMATED_EVENT_SIZE)
+                    + (after == null ? 0 : ESTIMATED_EVENT_SIZE);
+        }
+    }
+
+    /**
+     * Tags added to the master tag list along with the tasks using them.
+     */
+    private static class TagsAdded implements Change {
+        private final List<Tag> added;
+
+        TagsAdded(List<Tag> added) {
+            this.added = new ArrayList<>(added);
+        }
+
+        @Override
+        public void undo(TaskManager taskManager) {
+            taskManager.removeTags(added);
+        }
+
+        @Override
+        public void redo(TaskManager taskManager) {
+            taskManager.addTags(added);
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return ESTIMATED_CHANGE_SIZE + added.size() * ESTIMATED_TAG_SIZE;
+        }
+    }
+
+    private static class Reordered implements Change {
+        private final int[] order;
+
+        Reordered(int[] order) {
+            this.order = order;
+        }
+
+        @Override
+        public void undo(TaskManager taskManager) {
+            int[] inverse = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                inverse[order[i]] = i;
+            }
+            taskManager.reorderEvents(inverse);
+        }
+
+        @Override
+        public void redo(TaskManager taskManager) {
+            taskManager.reorderEvents(order);
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return ESTIMATED_CHANGE_SIZE + order.length * Integer.BYTES;
+        }
+    }
+
+    /**
+     * The whole task manager replaced. Holds the task manager as it was on
+     * the other side of the change, swapping it with the current one.
+     */
+    private static class Reset implements Change {
+        private ReadOnlyTaskManager other;
+
+        Reset(ReadOnlyTaskManager other) {
+            this.other = other;
+        }
+
+        @Override
+        public void undo(TaskManager taskManager) {
+            swap(taskManager);
+        }
+
+        @Override
+        public void redo(TaskManager taskManager) {
+            swap(taskManager);
+        }
+
+        private void swap(TaskManager taskManager) {
+            ReadOnlyTaskManager current = TaskManagerSnapshot.of(taskManager);
+            taskManager.resetData(other);
+            other = current;
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return ESTIMATED_CHANGE_SIZE + other.getTaskList().size() * ESTIMATED_EVENT_SIZE
+                    + other.getTagList().size() * ESTIMATED_TAG_SIZE;
+        }
+    }
+
+}
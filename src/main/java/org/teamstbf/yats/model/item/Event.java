@@ -19,6 +19,8 @@ public class Event implements ReadOnlyEvent {
     public static final int INITIALPRIORITY = 1;
     public static final int STEP_START_TIME = -2;
     public static final int STEP_END_TIME = 2;
+    /** The id of an event that has not been added to a task manager. */
+    public static final long NO_ID = -1;
 
     private Title name;
     private Schedule startTime;
@@ -31,6 +33,8 @@ public class Event implements ReadOnlyEvent {
     private Integer priority;
     private boolean isRecurring;
     private Recurrence recurrence;
+    private long id = NO_ID;
+    private volatile boolean isDirty = true;
 
     // @@author A0116219L
     /**
@@ -151,13 +155,17 @@ public class Event implements ReadOnlyEvent {
         this.endTime = editedReadOnlyEvent.getEndTime();
         this.deadline = editedReadOnlyEvent.getDeadline();
         this.description = editedReadOnlyEvent.getDescription();
-        this.isDone = editedReadOnlyEvent.getIsDone();
+        this.isDone = copyOf(editedReadOnlyEvent.getIsDone());
         this.tags = new UniqueTagList(editedReadOnlyEvent.getTags()); // protect
         // internal
         // tags
         // from
         this.isRecurring = editedReadOnlyEvent.isRecurring();
-        this.recurrence = editedReadOnlyEvent.getRecurrence();
+        this.recurrence = copyOf(editedReadOnlyEvent.getRecurrence());
+        if (editedReadOnlyEvent instanceof Event) {
+            this.id = ((Event) editedReadOnlyEvent).id;
+            this.isDirty = ((Event) editedReadOnlyEvent).isDirty;
+        }
     }
 
     /**
@@ -174,13 +182,26 @@ public class Event implements ReadOnlyEvent {
         this.endTime = endTime;
         this.deadline = deadline;
         this.description = description;
-        this.isDone = isDone;
+        this.isDone = copyOf(isDone);
         this.tags = new UniqueTagList(tags); // protect internal tags from
         this.isRecurring = isRecurring;
-        this.recurrence = recurrence;
+        this.recurrence = copyOf(recurrence);
         // changes in the arg list
     }
 
+    /*
+     * IsDone and Recurrence are mutable, so events keep their own copies.
+     * Otherwise marking a copy done would also change the original, which may
+     * still be in the task list or in a snapshot being saved.
+     */
+    private static IsDone copyOf(IsDone isDone) {
+        return isDone == null ? null : new IsDone(isDone.getValue());
+    }
+
+    private static Recurrence copyOf(Recurrence recurrence) {
+        return recurrence == null ? null : new Recurrence(recurrence);
+    }
+
     @Override
     public Description getDescription() {
         return description;
@@ -241,40 +262,83 @@ public class Event implements ReadOnlyEvent {
         this.setIsDone(replacement.getIsDone());
         this.isRecurring = replacement.isRecurring();
         this.recurrence = replacement.getRecurrence();
+        this.isDirty = true;
+    }
+
+    /**
+     * Returns the id of this event in its task manager, which stays the same
+     * when the event is edited, or {@link #NO_ID} if it has not been added to
+     * one.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of this event in its task manager. The event is then dirty,
+     * as it has not been saved under the new id yet.
+     */
+    public void setId(long id) {
+        this.id = id;
+        this.isDirty = true;
+    }
+
+    /**
+     * Returns true if this event was created or changed since
+     * {@link #markClean()} was last called on it. Copies of an event are dirty
+     * if the event is.
+     */
+    public boolean isDirty() {
+        return isDirty;
+    }
+
+    /**
+     * Marks this event as saved. Storages should call this before writing the
+     * event out, so that a change made while writing leaves it dirty.
+     */
+    public void markClean() {
+        this.isDirty = false;
     }
 
     private void setIsDone(IsDone done) {
         this.isDone = done;
+        this.isDirty = true;
     }
 
     public void setDescription(Description description) {
         assert description != null;
         this.description = description;
+        this.isDirty = true;
     }
 
     public void setEndTime(Schedule schedule) {
         assert schedule != null;
         this.endTime = schedule;
+        this.isDirty = true;
     }
 
     public void setLocation(Location location) {
         assert location != null;
         this.location = location;
+        this.isDirty = true;
     }
 
     public void setStartTime(Schedule schedule) {
         assert schedule != null;
         this.startTime = schedule;
+        this.isDirty = true;
     }
 
     public void setDeadline(Schedule schedule) {
         assert schedule != null;
         this.deadline = schedule;
+        this.isDirty = true;
     }
 
     public void setRecurrence(Recurrence recurrence) {
         assert recurrence != null;
         this.recurrence = recurrence;
+        this.isDirty = true;
     }
 
     /**
@@ -284,11 +348,13 @@ public class Event implements ReadOnlyEvent {
      */
     public void setTags(UniqueTagList replacement) {
         tags.setTags(replacement);
+        this.isDirty = true;
     }
 
     public void setTitle(Title name) {
         assert name != null;
         this.name = name;
+        this.isDirty = true;
     }
 
     @Override
@@ -308,6 +374,7 @@ public class Event implements ReadOnlyEvent {
         } else {
             this.isDone.markDone();
         }
+        this.isDirty = true;
     }
 
     @Override
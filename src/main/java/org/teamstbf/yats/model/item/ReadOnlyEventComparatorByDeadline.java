@@ -6,21 +6,15 @@ import java.util.Comparator;
 
 public class ReadOnlyEventComparatorByDeadline implements Comparator<ReadOnlyEvent> {
 
-    private static final String NO_DEADLINE_STRING = "";
-
     @Override
     public int compare(ReadOnlyEvent o1, ReadOnlyEvent o2) {
-        if (o1.getDeadline().toString().equals(NO_DEADLINE_STRING)
-                && o1.getDeadline().toString().equals(NO_DEADLINE_STRING)) {
-            return 0;
-        }
-        if (o1.getDeadline().toString().equals(NO_DEADLINE_STRING)) {
-            return 1;
-        }
-        if (o2.getDeadline().toString().equals(NO_DEADLINE_STRING)) {
-            return -1;
+        Schedule s1 = o1.getDeadline();
+        Schedule s2 = o2.getDeadline();
+        if (s1.isEmpty() || s2.isEmpty()) {
+            // those with no deadline go last
+            return Boolean.compare(s1.isEmpty(), s2.isEmpty());
         }
-        return o1.getDeadline().getDate().compareTo(o2.getDeadline().getDate());
+        return Long.compare(s1.getTime(), s2.getTime());
     }
 
 }
@@ -4,21 +4,15 @@ import java.util.Comparator;
 
 public class ReadOnlyEventComparatorByEndDate implements Comparator<ReadOnlyEvent> {
 
-    private static final String NO_END_TIME_STRING = "";
-
     @Override
     public int compare(ReadOnlyEvent o1, ReadOnlyEvent o2) {
-        if (o1.getEndTime().toString().equals(NO_END_TIME_STRING)
-                && o1.getEndTime().toString().equals(NO_END_TIME_STRING)) {
-            return 0;
-        }
-        if (o1.getEndTime().toString().equals(NO_END_TIME_STRING)) {
-            return 1;
-        }
-        if (o2.getEndTime().toString().equals(NO_END_TIME_STRING)) {
-            return -1;
+        Schedule s1 = o1.getEndTime();
+        Schedule s2 = o2.getEndTime();
+        if (s1.isEmpty() || s2.isEmpty()) {
+            // those with no end time go last
+            return Boolean.compare(s1.isEmpty(), s2.isEmpty());
         }
-        return o1.getEndTime().getDate().compareTo(o2.getEndTime().getDate());
+        return Long.compare(s1.getTime(), s2.getTime());
     }
 
 }
@@ -4,21 +4,15 @@ import java.util.Comparator;
 
 public class ReadOnlyEventComparatorByStartTime implements Comparator<ReadOnlyEvent> {
 
-    private static final String NO_START_TIME_STRING = "";
-
     @Override
     public int compare(ReadOnlyEvent o1, ReadOnlyEvent o2) {
-        if (o1.getStartTime().toString().equals(NO_START_TIME_STRING)
-                && o1.getStartTime().toString().equals(NO_START_TIME_STRING)) {
-            return 0;
-        }
-        if (o1.getStartTime().toString().equals(NO_START_TIME_STRING)) {
-            return -1;
-        }
-        if (o2.getStartTime().toString().equals(NO_START_TIME_STRING)) {
-            return 1;
+        Schedule s1 = o1.getStartTime();
+        Schedule s2 = o2.getStartTime();
+        if (s1.isEmpty() || s2.isEmpty()) {
+            // those with no start time go first
+            return Boolean.compare(s2.isEmpty(), s1.isEmpty());
         }
-        return o1.getStartTime().getDate().compareTo(o2.getStartTime().getDate());
+        return Long.compare(s1.getTime(), s2.getTime());
     }
 
 }
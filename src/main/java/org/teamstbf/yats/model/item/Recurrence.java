@@ -2,16 +2,24 @@ package org.teamstbf.yats.model.item;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 
-import edu.emory.mathcs.backport.java.util.Arrays;
-
 //@@author A0116219L
 public class Recurrence {
 
@@ -27,12 +35,17 @@ public class Recurrence {
     public static final String RECURRENCE_VALIDATION_REGEX = ".*(none|daily|weekly|monthly|yearly).*";
     public static final String RECURRENCE_DATE_FORMAT = "dd/MM/yyyy";
     public static final String DELIMITER_DONE_LIST = ",";
+    public static final String DELIMITER_DONE_RUN = "-";
     public static final String STRING_EMPTY = "";
 
     Date startDate;
     String periodicity;
-    List<String> doneList;
-    static SimpleDateFormat dateFormat = new SimpleDateFormat(RECURRENCE_DATE_FORMAT);
+    /** The numbers of the occurrences done, counted from 0 for the start date. */
+    BitSet doneOccurences;
+    // SimpleDateFormat is not thread-safe and tasks are also formatted by the storage thread
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = ThreadLocal
+            .withInitial(() -> new SimpleDateFormat(RECURRENCE_DATE_FORMAT));
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(RECURRENCE_DATE_FORMAT);
     int recurrencePeriod;
 
     /*
@@ -41,7 +54,7 @@ public class Recurrence {
     public Recurrence() {
         this.startDate = new Date(Long.MIN_VALUE);
         this.periodicity = RECURRENCE_NONE;
-        this.doneList = new ArrayList<String>();
+        this.doneOccurences = new BitSet();
     }
 
     public Recurrence(Date date, String recurrence) throws IllegalValueException {
@@ -52,12 +65,23 @@ public class Recurrence {
         this.startDate = date;
         this.periodicity = recurrence;
         setPeriod(recurrence);
-        this.doneList = new ArrayList<String>();
+        this.doneOccurences = new BitSet();
+    }
+
+    /**
+     * Creates a copy of {@code source} that can be marked done or undone
+     * without affecting {@code source}.
+     */
+    public Recurrence(Recurrence source) {
+        this.startDate = new Date(source.startDate.getTime());
+        this.periodicity = source.periodicity;
+        this.recurrencePeriod = source.recurrencePeriod;
+        this.doneOccurences = (BitSet) source.doneOccurences.clone();
     }
 
     public Recurrence(String startDate, String periodicity, String doneList) throws IllegalValueException {
         try {
-            this.startDate = dateFormat.parse(startDate);
+            this.startDate = dateFormat().parse(startDate);
         } catch (ParseException pe) {
             throw new IllegalValueException(MESSAGE_RECURRENCE_DATE_CONSTRAINTS);
         }
@@ -66,15 +90,39 @@ public class Recurrence {
         }
         this.periodicity = periodicity;
         setPeriod(periodicity);
-        this.doneList = getDoneListFromString(doneList);
+        this.doneOccurences = getDoneOccurencesFromString(doneList);
     }
 
-    private List<String> getDoneListFromString(String doneListString) {
-        // return an empty List if string is empty
-        if (doneListString.equals(STRING_EMPTY)) {
-            return new ArrayList<String>();
+    private static SimpleDateFormat dateFormat() {
+        return DATE_FORMAT.get();
+    }
+
+    /**
+     * Reads the done occurrences written by {@link #getDoneListString()}, or
+     * the list of their dates that was written before. Occurrences were only
+     * ever marked done in order from the start date, so the dates in that list
+     * are those of the first occurrences.
+     */
+    private BitSet getDoneOccurencesFromString(String doneListString) throws IllegalValueException {
+        BitSet done = new BitSet();
+        boolean isDateList = doneListString.contains("/");
+        try {
+            for (String entry : doneListString.split(DELIMITER_DONE_LIST)) {
+                if (entry.isEmpty()) {
+                    continue;
+                } else if (isDateList) {
+                    LocalDate.parse(entry, DATE_FORMATTER);
+                    done.set(done.length());
+                } else {
+                    String[] run = entry.split(DELIMITER_DONE_RUN);
+                    int first = Integer.parseInt(run[0]);
+                    done.set(first, (run.length == 1 ? first : Integer.parseInt(run[1])) + 1);
+                }
+            }
+        } catch (DateTimeParseException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalValueException(MESSAGE_RECURRENCE_DATE_CONSTRAINTS);
         }
-        return new ArrayList<String>(Arrays.asList(doneListString.split(DELIMITER_DONE_LIST)));
+        return done;
     }
 
     public static boolean isValidPeriod(String recurrence) {
@@ -95,66 +143,167 @@ public class Recurrence {
         }
     }
 
+    /**
+     * Returns true if an occurrence falls on the same day as {@code day}, found
+     * from the number of periods between the start date and that day.
+     */
     public boolean hasOccurenceOn(Date day) {
-        throw new UnsupportedOperationException();
+        LocalDate date = toLocalDateTime(day).toLocalDate();
+        long number = getOccurenceNumberOn(date);
+        return number >= 0 && getOccurence(number).toLocalDate().equals(date);
+    }
+
+    /**
+     * Returns the number of the last occurrence on or before {@code date},
+     * counted from 0 for the start date, or -1 if there is none.
+     */
+    private long getOccurenceNumberOn(LocalDate date) {
+        LocalDate first = toLocalDateTime(startDate).toLocalDate();
+        ChronoUnit unit = getPeriodUnit();
+        if (date.isBefore(first)) {
+            return -1;
+        } else if (unit == null) {
+            return 0;
+        }
+        // counted between months, as an occurrence on a day a month lacks falls on its last day instead
+        long periods = unit == ChronoUnit.DAYS || unit == ChronoUnit.WEEKS ? unit.between(first, date)
+                : unit.between(YearMonth.from(first), YearMonth.from(date));
+        return first.plus(periods, unit).isAfter(date) ? periods - 1 : periods;
+    }
+
+    /** Returns the occurrence numbered {@code number}, counted from 0 for the start date. */
+    private LocalDateTime getOccurence(long number) {
+        ChronoUnit unit = getPeriodUnit();
+        LocalDateTime first = toLocalDateTime(startDate);
+        return unit == null ? first : first.plus(number, unit);
     }
 
     public String getStartTimeString() {
-        return this.dateFormat.format(startDate);
+        return dateFormat().format(startDate);
     }
 
     public String getPeriodicity() {
         return this.periodicity;
     }
 
+    /**
+     * Returns the numbers of the done occurrences as runs of consecutive
+     * numbers, e.g. "0-41,43", so that the text stays short however many
+     * occurrences in a row are done.
+     */
     public String getDoneListString() {
-        if (this.doneList.isEmpty()) {
-            return STRING_EMPTY;
-        }
         StringBuilder sb = new StringBuilder();
-        for (String doneDate : this.doneList) {
-            sb.append(doneDate);
-            sb.append(DELIMITER_DONE_LIST);
+        for (int first = doneOccurences.nextSetBit(0); first >= 0; first = doneOccurences.nextSetBit(first)) {
+            int end = doneOccurences.nextClearBit(first);
+            if (sb.length() > 0) {
+                sb.append(DELIMITER_DONE_LIST);
+            }
+            sb.append(first);
+            if (end - 1 > first) {
+                sb.append(DELIMITER_DONE_RUN).append(end - 1);
+            }
+            first = end;
         }
         return sb.toString();
     }
 
+    /**
+     * Returns the occurrences after {@code start} and before {@code end}, in
+     * time proportional to their number however long ago the start date is.
+     */
     public List<Date> getOccurenceBetween(Date start, Date end) {
         List<Date> occurenceList = new ArrayList<Date>();
-        Calendar startTime = Calendar.getInstance();
-        Calendar startBound = Calendar.getInstance();
-        Calendar endBound = Calendar.getInstance();
-        startTime.setTime(this.startDate);
-        startBound.setTime(start);
-        endBound.setTime(end);
-
-        for (Date date = startTime.getTime(); startTime.before(endBound); startTime.add(recurrencePeriod,
-                RECURRENCE_INCREMENT), date = startTime.getTime()) {
-            if (date.before(end) && date.after(start)) {
+        for (Iterator<Date> occurences = getOccurencesFrom(start); occurences.hasNext();) {
+            Date date = occurences.next();
+            if (!date.before(end)) {
+                break;
+            }
+            if (date.after(start)) {
                 occurenceList.add(date);
             }
         }
-
         return occurenceList;
     }
 
-    public String getLatestUndoneDateString() {
-        if (doneList.isEmpty()) {
-            return dateFormat.format(startDate);
+    /**
+     * Returns the occurrences at or after {@code from} in order, without end
+     * if the recurrence repeats. The first one is found by counting the periods
+     * from the start date to {@code from} rather than by stepping through them,
+     * and each one is the start date moved by a whole number of periods, so
+     * monthly occurrences on a day that some months lack do not drift.
+     */
+    public Iterator<Date> getOccurencesFrom(Date from) {
+        ChronoUnit unit = getPeriodUnit();
+        if (unit == null) {
+            return startDate.before(from) ? Collections.emptyIterator()
+                    : Collections.singletonList(new Date(startDate.getTime())).iterator();
         }
-        String lastDateString = doneList.get(doneList.size() - 1);
-        Calendar lastCalendar = Calendar.getInstance();
-        try {
-            lastCalendar.setTime(dateFormat.parse(lastDateString));
-        } catch (ParseException pe) {
-            // TODO: handle parse exception
-            ;
+        LocalDateTime first = toLocalDateTime(startDate);
+        LocalDateTime bound = toLocalDateTime(from);
+        long periods = Math.max(0, unit.between(first, bound));
+        while (first.plus(periods, unit).isBefore(bound)) {
+            periods++;
         }
-        return dateFormat.format(getNextOccurence(lastCalendar).getTime());
+        return new OccurenceIterator(first, unit, periods);
     }
 
-    public Date getLatestUndoneDate() throws ParseException {
-        return dateFormat.parse(getLatestUndoneDateString());
+    /** Returns the length of the period, or null if the recurrence does not repeat. */
+    private ChronoUnit getPeriodUnit() {
+        switch (periodicity) {
+        case RECURRENCE_DAY:
+            return ChronoUnit.DAYS;
+        case RECURRENCE_WEEK:
+            return ChronoUnit.WEEKS;
+        case RECURRENCE_MONTH:
+            return ChronoUnit.MONTHS;
+        case RECURRENCE_YEAR:
+            return ChronoUnit.YEARS;
+        default:
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Iterates over the occurrences of a recurrence from the given number of
+     * periods after its first one.
+     */
+    private static class OccurenceIterator implements Iterator<Date> {
+        private final LocalDateTime first;
+        private final ChronoUnit unit;
+        private long periods;
+
+        OccurenceIterator(LocalDateTime first, ChronoUnit unit, long periods) {
+            this.first = first;
+            this.unit = unit;
+            this.periods = periods;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public Date next() {
+            return Date.from(first.plus(periods++, unit).atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    /**
+     * Returns the date of the occurrence after the last one done, or of the
+     * start date if none is done.
+     */
+    public String getLatestUndoneDateString() {
+        return DATE_FORMATTER.format(getOccurence(doneOccurences.length()));
+    }
+
+    public Date getLatestUndoneDate() {
+        return Date.from(getOccurence(doneOccurences.length()).toLocalDate().atStartOfDay(ZoneId.systemDefault())
+                .toInstant());
     }
 
     public Calendar getNextOccurence(Calendar occurence) {
@@ -162,25 +311,26 @@ public class Recurrence {
         return occurence;
     }
 
+    /**
+     * Marks the occurrence after the last one done as done, or the one on the
+     * start date if none is done.
+     */
     public void markOccurenceDone() {
-        // if no occurence yet, mark the start date as done
-        if (doneList.isEmpty()) {
-            doneList.add(dateFormat.format(this.startDate));
-        } else {
-            doneList.add(getLatestUndoneDateString());
-        }
+        doneOccurences.set(doneOccurences.length());
     }
 
+    /**
+     * Marks the last occurrence done as undone.
+     */
     public void markOccurenceUndone() throws NoSuchElementException {
-        if (this.doneList.isEmpty()) {
+        if (doneOccurences.isEmpty()) {
             throw new NoSuchElementException();
         }
-        // remove last occurence
-        this.doneList.remove(doneList.size() - 1);
+        doneOccurences.clear(doneOccurences.length() - 1);
     }
 
     public boolean hasDoneOccurence() {
-        return !doneList.isEmpty();
+        return !doneOccurences.isEmpty();
     }
 
 }
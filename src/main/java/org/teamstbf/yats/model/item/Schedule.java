@@ -1,81 +1,176 @@
 package org.teamstbf.yats.model.item;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
 import java.util.Date;
-
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * A point in time, or no time at all, kept as milliseconds since the epoch so
+ * that schedules are compared without formatting them. Two schedules are equal
+ * if they fall in the same minute, which is all that is shown of them.
+ */
 public class Schedule {
 
     public static final String MESSAGE_TIME_ERROR = "Invalid or empty date/time entry";
     public static final String STRING_EMPTY = "";
-    public static final SimpleDateFormat FORMATTER_TIME = new SimpleDateFormat("hh:mma ");
-    private static final SimpleDateFormat FORMATTER_DATE = new SimpleDateFormat("hh:mma dd/MM/yyyy");
     public static final String MESSAGE_TIME_CONSTRAINTS = "non valid time";
 
     public static final String TIME_VALIDATION_REGEX = "\\b((1[0-2]|0?[1-9]):([0-5][0-9])([AP][M]))";
     public static final String MONTH_VALIDATION_REGEX = ".*(01|02|03|04|05|06|07|08|09|10|11|12).*";
 
-    private Date scheduleDate;
+    /** The time of a schedule with no time. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final long MILLISECONDS_PER_MINUTE = 60000L;
+    private static final DateTimeFormatter FORMATTER_TIME = DateTimeFormatter.ofPattern("hh:mma ", Locale.ENGLISH);
+    private static final DateTimeFormatter FORMATTER_DATE = DateTimeFormatter.ofPattern("hh:mma dd/MM/yyyy",
+            Locale.ENGLISH);
+    /** Reads times written by {@link #FORMATTER_DATE}, and those with single digit fields. */
+    private static final DateTimeFormatter PARSER_DATE = new DateTimeFormatterBuilder().parseCaseInsensitive()
+            .appendValue(ChronoField.CLOCK_HOUR_OF_AMPM, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral(':')
+            .appendValue(ChronoField.MINUTE_OF_HOUR, 2).appendText(ChronoField.AMPM_OF_DAY).appendLiteral(' ')
+            .appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral('/')
+            .appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral('/')
+            .appendValue(ChronoField.YEAR, 4).toFormatter(Locale.ENGLISH);
+    /** Reads the words of {@link #toString()} exactly, ignoring case. */
+    private static final DateTimeFormatter PARSER_WORD_DATE = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter PARSER_WORD_TIME = new DateTimeFormatterBuilder().parseCaseInsensitive()
+            .appendPattern("hh:mma").toFormatter(Locale.ENGLISH);
+
+    private final long time;
+    /** {@link #toString()}, once it has been formatted. */
+    private String text;
 
     // @@author A0116219L
     /*
      * Creates a Schedule object from the Date object given. Date can be null.
      */
     public Schedule(Date dateObject) {
-        this.scheduleDate = dateObject;
+        this.time = dateObject == null ? NO_TIME : dateObject.getTime();
+    }
+
+    /**
+     * Creates a schedule at {@code time} milliseconds since the epoch, or with
+     * no time if it is {@link #NO_TIME}.
+     */
+    public Schedule(long time) {
+        this.time = time;
     }
 
     public String getTimeOnlyString() {
-        return FORMATTER_TIME.format(scheduleDate);
+        return FORMATTER_TIME.format(toDateTime());
     }
 
+    /**
+     * Creates a schedule from text in the format of {@link #toString()}. The
+     * schedule has no time if the text is empty or not in that format.
+     */
     public Schedule(String timeString) {
-        validateDate(timeString);
-        try {
-            this.scheduleDate = STRING_EMPTY.equals(timeString) ? null : FORMATTER_DATE.parse(timeString);
-        } catch (ParseException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+        long parsed = NO_TIME;
+        if (!STRING_EMPTY.equals(timeString)) {
+            try {
+                parsed = LocalDateTime.parse(timeString, PARSER_DATE).atZone(ZoneId.systemDefault()).toInstant()
+                        .toEpochMilli();
+            } catch (DateTimeException e) {
+                parsed = NO_TIME;
+            }
         }
+        this.time = parsed;
     }
 
     @Override
     public boolean equals(Object other) {
         return other == this // short circuit if same object
                 || (other instanceof Schedule // instanceof handles nulls
-                        && this.toString().equals(((Schedule) other).toString())); // state
+                        && this.getMinute() == ((Schedule) other).getMinute()); // state
         // check
     }
 
-    /*
-     * public SimpleDate getDate() { return this.date; } public Timing getTime()
-     * { return this.time; } public String getValue() { return this.value; }
-     */
-
     @Override
     public int hashCode() {
-        return this.scheduleDate.hashCode();
+        return Long.hashCode(getMinute());
     }
 
-    /*
-     * public void setDate(SimpleDate endTime) { this.date = endTime; } public
-     * void setTime(Timing startTime) { this.time = startTime; }
+    /**
+     * Returns the number of minutes since the epoch, or {@link #NO_TIME}.
      */
+    private long getMinute() {
+        return isEmpty() ? NO_TIME : Math.floorDiv(time, MILLISECONDS_PER_MINUTE);
+    }
 
     @Override
     public String toString() {
-        if (this.scheduleDate == null) {
-            return STRING_EMPTY;
-        } else if (this.scheduleDate.equals("")) {
+        if (isEmpty()) {
             return STRING_EMPTY;
         }
+        // formatting is deterministic, so threads racing to cache it store the same text
+        String formatted = text;
+        if (formatted == null) {
+            formatted = FORMATTER_DATE.format(toDateTime());
+            text = formatted;
+        }
+        return formatted;
+    }
+
+    public boolean isEmpty() {
+        return time == NO_TIME;
+    }
 
-        String dateString = FORMATTER_DATE.format(this.scheduleDate);
-        return dateString;
+    /**
+     * Returns the milliseconds since the epoch, or {@link #NO_TIME} if the
+     * schedule has no time.
+     */
+    public long getTime() {
+        return time;
     }
 
+    /**
+     * Returns a new {@code Date} of the time, or null if the schedule has no
+     * time.
+     */
     public Date getDate() {
-        return this.scheduleDate;
+        return isEmpty() ? null : new Date(time);
+    }
+
+    private ZonedDateTime toDateTime() {
+        return Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * Returns a test of whether a schedule has {@code keyword} as the date or
+     * the time in its {@link #toString()}, ignoring case, which compares times
+     * instead of formatting the schedules tested.
+     */
+    public static Predicate<Schedule> matching(String keyword) {
+        String word = keyword.trim();
+        try {
+            LocalDate date = LocalDate.parse(word, PARSER_WORD_DATE);
+            long dayStart = date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long nextDayStart = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return schedule -> !schedule.isEmpty() && schedule.time >= dayStart && schedule.time < nextDayStart;
+        } catch (DateTimeException e) {
+            // not a date
+        }
+        try {
+            LocalTime minute = LocalTime.parse(word, PARSER_WORD_TIME);
+            return schedule -> !schedule.isEmpty()
+                    && schedule.toDateTime().toLocalTime().withSecond(0).withNano(0).equals(minute);
+        } catch (DateTimeException e) {
+            return schedule -> false;
+        }
     }
 
     // @@author A0139448U
@@ -1,5 +1,7 @@
 package org.teamstbf.yats.model.item;
 
+import java.util.regex.Pattern;
+
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 
 /**
@@ -16,6 +18,7 @@ public class Title {
      * " " (a blank string) becomes a valid input.
      */
     public static final String NAME_VALIDATION_REGEX = "[\\p{Alnum}][\\p{Alnum} ]*";
+    private static final Pattern NAME_VALIDATION_PATTERN = Pattern.compile(NAME_VALIDATION_REGEX);
 
     public final String fullName;
 
@@ -38,7 +41,7 @@ public class Title {
      * Returns true if a given string is a valid person name.
      */
     public static boolean isValidTitle(String test) {
-        return test.matches(NAME_VALIDATION_REGEX);
+        return NAME_VALIDATION_PATTERN.matcher(test).matches();
     }
 
     @Override
@@ -1,27 +1,58 @@
 package org.teamstbf.yats.model.item;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
 
+import org.teamstbf.yats.commons.core.IntervalTree;
+import org.teamstbf.yats.commons.core.InvertedIndex;
+import org.teamstbf.yats.commons.core.PersistentObservableList;
+import org.teamstbf.yats.commons.core.PersistentVector;
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
+import org.teamstbf.yats.commons.exceptions.DuplicateDataException;
 import org.teamstbf.yats.commons.util.CollectionUtil;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-
 /**
  * A list of events that enforces uniqueness between its elements and does not
  * allow nulls.
  *
- * Supports a minimal set of list operations.
+ * Supports a minimal set of list operations. The events are kept in a
+ * {@link PersistentVector}, so a {@link #snapshot()} of the list is O(1).
+ * They are also indexed by title and description, which identify an event
+ * (see {@link ReadOnlyEvent#isSameStateAs(ReadOnlyEvent)}), so finding an
+ * event does not compare it with every other. Its position is then found by
+ * {@linkplain Event#getId() id}, which grows along the list in a task manager.
+ * Events with a start time are indexed by the time from their start to their
+ * end as well, to find those overlapping a given period, and by the words of
+ * their titles, descriptions and locations, to find those matching keywords.
+ *
+ * Lists set with {@link #setEvents(List)} may hold duplicates saved before they
+ * were rejected; those are kept, but no more can be added.
  *
  * @see Task#equals(Object)
  * @see CollectionUtil#elementsAreUnique(Collection)
  */
 public class UniqueEventList implements Iterable<Event> {
 
-    private final ObservableList<Event> internalList = FXCollections.observableArrayList();
+    private final PersistentObservableList<Event> internalList = new PersistentObservableList<>();
+    /** The first event in the list with each key. */
+    private Map<Key, Event> index = new HashMap<>();
+    /** Number of events with the key of an earlier event in the list. */
+    private int duplicateCount;
+    /** The events with a start time, over the times they take up. */
+    private IntervalTree<Event> timeIndex = new IntervalTree<>();
+    private InvertedIndex<Event> titleIndex = new InvertedIndex<>();
+    private InvertedIndex<Event> descriptionIndex = new InvertedIndex<>();
+    private InvertedIndex<Event> locationIndex = new InvertedIndex<>();
 
     /**
      * Returns true if the list contains an equivalent event as the given
@@ -29,7 +60,7 @@ public class UniqueEventList implements Iterable<Event> {
      */
     public boolean contains(ReadOnlyEvent p) {
         assert p != null;
-        return internalList.contains(p);
+        return index.containsKey(new Key(p));
     }
 
     /**
@@ -39,12 +70,27 @@ public class UniqueEventList implements Iterable<Event> {
      *             if the event to add is a duplicate of an existing event in
      *             the list.
      */
-    public void add(Event p) {
+    public void add(Event p) throws DuplicateEventException {
+        add(internalList.size(), p);
+    }
+
+    /**
+     * Inserts a event at position {@code index} in the list.
+     *
+     * @throws DuplicateEventException
+     *             if the event to add is a duplicate of an existing event in
+     *             the list.
+     * @throws IndexOutOfBoundsException
+     *             if {@code index} < 0 or > the size of the list.
+     */
+    public void add(int index, Event p) throws DuplicateEventException {
         assert p != null;
-        /*
-         * if (contains(p)) { throw new DuplicateEventException(); }
-         */
-        internalList.add(p);
+        if (contains(p)) {
+            throw new DuplicateEventException();
+        }
+        internalList.add(index, p);
+        this.index.put(new Key(p), p);
+        indexTimeAndText(p);
     }
 
     /**
@@ -57,19 +103,79 @@ public class UniqueEventList implements Iterable<Event> {
      * @throws IndexOutOfBoundsException
      *             if {@code index} < 0 or >= the size of the list.
      */
-    public void updateEvent(int index, ReadOnlyEvent editedEvent) {
+    public void updateEvent(int index, Event editedEvent) throws DuplicateEventException {
         assert editedEvent != null;
 
-        Event eventToUpdate = internalList.get(index);
+        Event replaced = internalList.get(index);
+        Key editedKey = new Key(editedEvent);
+        if (!editedKey.equals(new Key(replaced)) && this.index.containsKey(editedKey)) {
+            throw new DuplicateEventException();
+        }
+        // The old event is replaced rather than modified in place, so that
+        // snapshots still holding it (e.g. one being saved) stay unchanged.
+        internalList.set(index, editedEvent);
+        unindex(replaced);
+        if (!this.index.containsKey(editedKey)) {
+            this.index.put(editedKey, editedEvent);
+        } else {
+            duplicateCount++;
+        }
+        indexTimeAndText(editedEvent);
+    }
 
-        eventToUpdate.resetData(editedEvent);
-        // TODO: The code below is just a workaround to notify observers of the
-        // updated event.
-        // The right way is to implement observable properties in the Event
-        // class.
-        // Then, EventCard should then bind its text labels to those observable
-        // properties.
-        internalList.set(index, eventToUpdate);
+    /**
+     * Adds {@code toAdd} to the end of the list, as a single change to the
+     * list.
+     *
+     * @throws DuplicateEventException
+     *             if any of the events to add is a duplicate of an existing
+     *             event in the list or of another of them; none is added then.
+     */
+    public void addAll(List<Event> toAdd) throws DuplicateEventException {
+        Set<Key> keys = new HashSet<>();
+        for (Event event : toAdd) {
+            assert event != null;
+            if (contains(event) || !keys.add(new Key(event))) {
+                throw new DuplicateEventException();
+            }
+        }
+        internalList.changeAll(() -> toAdd.forEach(event -> {
+            internalList.add(event);
+            index.put(new Key(event), event);
+            indexTimeAndText(event);
+        }));
+    }
+
+    /**
+     * Updates the events in the list at the positions that are the keys of
+     * {@code editedEvents} with their values, as a single change to the list.
+     *
+     * @throws DuplicateEventException
+     *             if the edited events would be equivalent to each other or to
+     *             an event left in the list; none is updated then.
+     * @throws IndexOutOfBoundsException
+     *             if a position is < 0 or >= the size of the list.
+     */
+    public void updateEvents(Map<Integer, Event> editedEvents) throws DuplicateEventException {
+        Set<Event> replaced = InvertedIndex.newElementSet();
+        editedEvents.keySet().forEach(position -> replaced.add(internalList.get(position)));
+        Set<Key> editedKeys = new HashSet<>();
+        for (Event edited : editedEvents.values()) {
+            assert edited != null;
+            Key editedKey = new Key(edited);
+            Event holder = this.index.get(editedKey);
+            if (!editedKeys.add(editedKey) || (holder != null && !replaced.contains(holder))) {
+                throw new DuplicateEventException();
+            }
+        }
+        internalList.changeAll(() -> editedEvents.forEach(internalList::set));
+        replaced.forEach(this::unindex);
+        for (Event edited : editedEvents.values()) {
+            if (this.index.putIfAbsent(new Key(edited), edited) != null) {
+                duplicateCount++;
+            }
+            indexTimeAndText(edited);
+        }
     }
 
     /**
@@ -80,23 +186,204 @@ public class UniqueEventList implements Iterable<Event> {
      */
     public boolean remove(ReadOnlyEvent toRemove) throws EventNotFoundException {
         assert toRemove != null;
-        final boolean eventFoundAndDeleted = internalList.remove(toRemove);
-        if (!eventFoundAndDeleted) {
+        int position = indexOf(toRemove);
+        if (position < 0) {
             throw new EventNotFoundException();
         }
-        return eventFoundAndDeleted;
+        remove(position);
+        return true;
+    }
+
+    public int size() {
+        return internalList.size();
+    }
+
+    /**
+     * Returns the position of the first equivalent event in the list, or -1 if
+     * there is none.
+     */
+    public int indexOf(ReadOnlyEvent event) {
+        assert event != null;
+        Event found = index.get(new Key(event));
+        return found == null ? -1 : positionOf(found);
+    }
+
+    /**
+     * Removes the event at position {@code index} and returns it.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if {@code index} < 0 or >= the size of the list.
+     */
+    public Event remove(int index) {
+        Event removed = internalList.remove(index);
+        unindex(removed);
+        return removed;
+    }
+
+    /**
+     * Removes the events at {@code positions}, as a single change to the list,
+     * and returns them from the last position to the first.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if a position is < 0 or >= the size of the list.
+     */
+    public List<Event> removeAll(int[] positions) {
+        int[] sorted = IntStream.of(positions).distinct().sorted().toArray();
+        List<Event> removed = new ArrayList<>(sorted.length);
+        internalList.changeAll(() -> {
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                removed.add(internalList.remove(sorted[i]));
+            }
+        });
+        removed.forEach(this::unindex);
+        return removed;
     }
 
     public void setEvents(UniqueEventList replacement) {
-        this.internalList.setAll(replacement.internalList);
+        this.internalList.setAll(replacement.internalList.snapshot());
+        this.index = new HashMap<>(replacement.index);
+        this.duplicateCount = replacement.duplicateCount;
+        this.timeIndex = new IntervalTree<>(replacement.timeIndex);
+        this.titleIndex = new InvertedIndex<>(replacement.titleIndex);
+        this.descriptionIndex = new InvertedIndex<>(replacement.descriptionIndex);
+        this.locationIndex = new InvertedIndex<>(replacement.locationIndex);
     }
 
     public void setEvents(List<? extends ReadOnlyEvent> events) {
         final UniqueEventList replacement = new UniqueEventList();
         for (final ReadOnlyEvent event : events) {
-            replacement.add(new Event(event));
+            Event copy = new Event(event);
+            replacement.internalList.add(copy);
+            if (replacement.index.putIfAbsent(new Key(copy), copy) != null) {
+                replacement.duplicateCount++;
+            }
+            replacement.indexTimeAndText(copy);
         }
-        setEvents(replacement);
+        // the replacement is not used again, so its indexes are taken rather than copied
+        this.internalList.setAll(replacement.internalList.snapshot());
+        this.index = replacement.index;
+        this.duplicateCount = replacement.duplicateCount;
+        this.timeIndex = replacement.timeIndex;
+        this.titleIndex = replacement.titleIndex;
+        this.descriptionIndex = replacement.descriptionIndex;
+        this.locationIndex = replacement.locationIndex;
+    }
+
+    /**
+     * Returns the events with a start time that take up any time from
+     * {@code start} to {@code end} inclusive, ordered by start time. An event
+     * without an end time takes up just its start time.
+     */
+    public List<Event> findOverlapping(Date start, Date end) {
+        assert start != null && end != null;
+        return timeIndex.findOverlapping(start.getTime(), end.getTime());
+    }
+
+    /**
+     * Returns the events with a title that has any of {@code words} as a whole
+     * word, ignoring case.
+     */
+    public Set<Event> findWithWordInTitle(Collection<String> words) {
+        Set<Event> found = InvertedIndex.newElementSet();
+        titleIndex.findWithAnyWord(words, found);
+        return found;
+    }
+
+    /**
+     * Returns at least the number of events {@link #findWithWordInTitle}
+     * finds, without finding them.
+     */
+    public int countWithWordInTitle(Collection<String> words) {
+        return titleIndex.countWithAnyWord(words);
+    }
+
+    /**
+     * Returns at least the number of events {@link #findWithWordInLocation}
+     * finds, without finding them.
+     */
+    public int countWithWordInLocation(Collection<String> words) {
+        return locationIndex.countWithAnyWord(words);
+    }
+
+    /**
+     * Returns the number of events with a start time, which is the most that
+     * {@link #findOverlapping} can find.
+     */
+    public int countWithTime() {
+        return timeIndex.size();
+    }
+
+    /**
+     * Returns the events with the ids set in {@code ids} in the order of the
+     * list. Each is found by a binary search, as ids grow along the list, and
+     * the whole list is read instead if they do not.
+     */
+    public List<Event> findWithIds(BitSet ids) {
+        List<Event> found = new ArrayList<>();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            int position = searchById(id);
+            if (position < 0) {
+                found.clear();
+                for (Event event : internalList) {
+                    if (event.getId() >= 0 && event.getId() <= Integer.MAX_VALUE && ids.get((int) event.getId())) {
+                        found.add(event);
+                    }
+                }
+                return found;
+            }
+            found.add(internalList.get(position));
+        }
+        return found;
+    }
+
+    /**
+     * Returns the position of the event with id {@code id}, or -1 if a binary
+     * search by id does not find it.
+     */
+    private int searchById(long id) {
+        int low = 0;
+        int high = internalList.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = internalList.get(middle).getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the events with a location that has any of {@code words} as a
+     * whole word, ignoring case.
+     */
+    public Set<Event> findWithWordInLocation(Collection<String> words) {
+        Set<Event> found = InvertedIndex.newElementSet();
+        locationIndex.findWithAnyWord(words, found);
+        return found;
+    }
+
+    /**
+     * Returns the events with a title or description that contains any of
+     * {@code fragments}, which have no whitespace, ignoring case.
+     */
+    public Set<Event> findContainingInTitleOrDescription(Collection<String> fragments) {
+        Set<Event> found = InvertedIndex.newElementSet();
+        titleIndex.findWithAnyFragment(fragments, found);
+        descriptionIndex.findWithAnyFragment(fragments, found);
+        return found;
+    }
+
+    /**
+     * Returns the events currently in the list, which later changes to the
+     * list leave unchanged.
+     */
+    public PersistentVector<Event> snapshot() {
+        return internalList.snapshot();
     }
 
     public UnmodifiableObservableList<Event> asObservableList() {
@@ -108,6 +395,81 @@ public class UniqueEventList implements Iterable<Event> {
         return internalList.iterator();
     }
 
+    /**
+     * Removes {@code removed}, no longer in the list, from the indexes. If it
+     * was the first of duplicate events, the next of them takes its place.
+     */
+    private void unindex(Event removed) {
+        timeIndex.remove(removed);
+        titleIndex.remove(removed);
+        descriptionIndex.remove(removed);
+        locationIndex.remove(removed);
+        Key key = new Key(removed);
+        if (index.get(key) != removed) {
+            duplicateCount--;
+            return;
+        }
+        index.remove(key);
+        if (duplicateCount > 0) {
+            for (Event event : internalList) {
+                if (key.equals(new Key(event))) {
+                    index.put(key, event);
+                    duplicateCount--;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds {@code event} to the indexes of words, and to {@link #timeIndex} if
+     * it has a start time.
+     */
+    private void indexTimeAndText(Event event) {
+        titleIndex.add(event, event.getTitle() == null ? null : event.getTitle().fullName);
+        descriptionIndex.add(event, event.getDescription() == null ? null : event.getDescription().value);
+        locationIndex.add(event, event.getLocation() == null ? null : event.getLocation().value);
+        Schedule start = event.getStartTime();
+        if (start == null || start.isEmpty()) {
+            return;
+        }
+        Schedule end = event.getEndTime();
+        long endTime = end == null || end.isEmpty() ? start.getTime() : Math.max(start.getTime(), end.getTime());
+        timeIndex.add(event, start.getTime(), endTime);
+    }
+
+    /**
+     * Returns the position of {@code event}, which is in the list. Searches by
+     * id, and through the whole list if the ids are not in order.
+     */
+    private int positionOf(Event event) {
+        long id = event.getId();
+        if (id != Event.NO_ID) {
+            int low = 0;
+            int high = internalList.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                Event candidate = internalList.get(middle);
+                if (candidate == event) {
+                    return middle;
+                } else if (candidate.getId() < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+        }
+        int position = 0;
+        for (Event candidate : internalList) {
+            if (candidate == event) {
+                return position;
+            }
+            position++;
+        }
+        assert false : "An indexed event must be in the list";
+        return -1;
+    }
+
     @Override
     public boolean equals(Object other) {
         return other == this // short circuit if same object
@@ -120,6 +482,44 @@ public class UniqueEventList implements Iterable<Event> {
         return internalList.hashCode();
     }
 
+    /**
+     * The fields that make two events equivalent.
+     */
+    private static class Key {
+        private final Title title;
+        private final Description description;
+
+        Key(ReadOnlyEvent event) {
+            this.title = event.getTitle();
+            this.description = event.getDescription();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other == this
+                    || (other instanceof Key
+                            && Objects.equals(title, ((Key) other).title)
+                            && Objects.equals(description, ((Key) other).description));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(title, description);
+        }
+    }
+
+    /**
+     * Signals that an operation would have violated the 'no duplicates'
+     * property of the list.
+     */
+    public static class DuplicateEventException extends DuplicateDataException {
+        private static final long serialVersionUID = 1L;
+
+        protected DuplicateEventException() {
+            super("Operation would result in duplicate events");
+        }
+    }
+
     /**
      * Signals that an operation targeting a specified event in the list would
      * fail because there is no such matching event in the list.
@@ -0,0 +1,405 @@
+package org.teamstbf.yats.model.query;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.teamstbf.yats.commons.util.StringUtil;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.IsDone;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.tag.TagQuery;
+
+/**
+ * A combination of tests on the fields of a task with AND, OR and NOT. A
+ * {@link QueryPlan} finds the tasks matching it through the indexes of a
+ * {@link TaskManager} where it can, and by testing every task where it cannot.
+ * Words and tag names are compared ignoring case.
+ */
+public abstract class Query {
+
+    private static final String DONE_YES = "Yes";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * The times of a task that can be queried.
+     */
+    public enum TimeField {
+        START("start", ReadOnlyEvent::getStartTime),
+        END("end", ReadOnlyEvent::getEndTime),
+        DEADLINE("deadline", ReadOnlyEvent::getDeadline);
+
+        public final String name;
+        private final Function<ReadOnlyEvent, Schedule> getter;
+
+        TimeField(String name, Function<ReadOnlyEvent, Schedule> getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        Schedule of(ReadOnlyEvent event) {
+            return getter.apply(event);
+        }
+    }
+
+    /** Returns true if {@code event} matches this query. */
+    public abstract boolean matches(ReadOnlyEvent event);
+
+    /**
+     * Returns a plan finding the tasks that match this query in
+     * {@code taskManager} through its indexes, or null if every task has to be
+     * tested.
+     */
+    abstract QueryPlan planLookup(TaskManager taskManager);
+
+    /** Returns a query for the tasks with a title that has {@code word} as a whole word. */
+    public static Query title(String word) {
+        return new Title(word);
+    }
+
+    /** Returns a query for the tasks with a location that has {@code word} as a whole word. */
+    public static Query location(String word) {
+        return new Location(word);
+    }
+
+    /** Returns a query for the tasks with tags matching {@code query}. */
+    public static Query tag(TagQuery query) {
+        return new Tag(query);
+    }
+
+    /** Returns a query for the tasks that are done if {@code isDone}, or not done otherwise. */
+    public static Query done(boolean isDone) {
+        return new Done(isDone);
+    }
+
+    /**
+     * Returns a query for the tasks with {@code field} having any of
+     * {@code keywords} as its date or time, as in {@link Schedule#matching}.
+     */
+    public static Query time(TimeField field, Collection<String> keywords) {
+        List<Predicate<Schedule>> matchers = keywords.stream().map(Schedule::matching).collect(Collectors.toList());
+        return new Time(field, schedule -> matchers.stream().anyMatch(matcher -> matcher.test(schedule)),
+                String.join(",", keywords), null, null);
+    }
+
+    /**
+     * Returns a query for the tasks with {@code field} on any day from
+     * {@code from} to {@code to} inclusive.
+     */
+    public static Query between(TimeField field, LocalDate from, LocalDate to) {
+        assert !to.isBefore(from);
+        ZoneId zone = ZoneId.systemDefault();
+        long start = from.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        String text = from.equals(to) ? DATE_FORMATTER.format(from)
+                : DATE_FORMATTER.format(from) + ".." + DATE_FORMATTER.format(to);
+        return new Time(field, schedule -> !schedule.isEmpty() && schedule.getTime() >= start
+                && schedule.getTime() < end, text, new Date(start), new Date(end - 1));
+    }
+
+    /**
+     * Returns a query for the tasks with a start time that take up any time
+     * on {@code day}, from their start time to their end time if it is later.
+     */
+    public static Query during(LocalDate day) {
+        ZoneId zone = ZoneId.systemDefault();
+        long start = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new During(DATE_FORMATTER.format(day), start, end - 1);
+    }
+
+    /** Returns a query for the tasks that do not match {@code query}. */
+    public static Query not(Query query) {
+        return new Not(query);
+    }
+
+    /** Returns a query for the tasks that match all of {@code queries}. */
+    public static Query and(Query... queries) {
+        return new Combination(true, Arrays.asList(queries));
+    }
+
+    /** Returns a query for the tasks that match any of {@code queries}. */
+    public static Query or(Query... queries) {
+        return new Combination(false, Arrays.asList(queries));
+    }
+
+    private static class Title extends Query {
+        private final Set<String> words;
+
+        Title(String word) {
+            assert word != null && !word.trim().isEmpty();
+            this.words = Collections.singleton(word.trim());
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            return event.getTitle() != null
+                    && StringUtil.containsWordIgnoreCase(event.getTitle().fullName, words.iterator().next());
+        }
+
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            return QueryPlan.lookup(toString(), taskManager.countEventsWithWordInTitle(words),
+                    () -> taskManager.findEventsWithWordInTitle(words));
+        }
+
+        @Override
+        public String toString() {
+            return "title:" + words.iterator().next();
+        }
+    }
+
+    private static class Location extends Query {
+        private final Set<String> words;
+
+        Location(String word) {
+            assert word != null && !word.trim().isEmpty();
+            this.words = Collections.singleton(word.trim());
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            return event.getLocation() != null
+                    && StringUtil.containsWordIgnoreCase(event.getLocation().value, words.iterator().next());
+        }
+
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            return QueryPlan.lookup(toString(), taskManager.countEventsWithWordInLocation(words),
+                    () -> taskManager.findEventsWithWordInLocation(words));
+        }
+
+        @Override
+        public String toString() {
+            return "location:" + words.iterator().next();
+        }
+    }
+
+    private static class Tag extends Query {
+        private final TagQuery query;
+
+        Tag(TagQuery query) {
+            assert query != null;
+            this.query = query;
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            return query.matches(event.getTags());
+        }
+
+        /** The tags are found with bitwise operations, so finding them is their estimate. */
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            BitSet ids = taskManager.findEventIdsWithTags(query);
+            return QueryPlan.lookup(toString(), ids.cardinality(), () -> taskManager.findEventsWithIds(ids));
+        }
+
+        @Override
+        public String toString() {
+            return "tag:" + query;
+        }
+    }
+
+    private static class Done extends Query {
+        private final boolean isDone;
+
+        Done(boolean isDone) {
+            this.isDone = isDone;
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            IsDone done = event.getIsDone();
+            return done != null && DONE_YES.equals(done.getValue()) == isDone;
+        }
+
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "done:" + (isDone ? "yes" : "no");
+        }
+    }
+
+    /**
+     * A test on a time of a task. The tasks with a start time in a range are
+     * among those taking up time in it, which the index of event times finds.
+     */
+    private static class Time extends Query {
+        private final TimeField field;
+        private final Predicate<Schedule> matcher;
+        private final String text;
+        /** The range the time is in; null if it is tested otherwise. */
+        private final Date from;
+        private final Date to;
+
+        Time(TimeField field, Predicate<Schedule> matcher, String text, Date from, Date to) {
+            this.field = field;
+            this.matcher = matcher;
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            Schedule schedule = field.of(event);
+            return schedule != null && matcher.test(schedule);
+        }
+
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            if (field != TimeField.START || from == null) {
+                return null;
+            }
+            QueryPlan overlapping = QueryPlan.lookup("time overlapping " + text, taskManager.countEventsWithTime(),
+                    () -> taskManager.findEventsOverlapping(from, to));
+            return QueryPlan.filter(overlapping, this);
+        }
+
+        @Override
+        public String toString() {
+            return field.name + ":" + text;
+        }
+    }
+
+    /**
+     * A test on the time a task takes up, which the index of event times
+     * answers by itself.
+     */
+    private static class During extends Query {
+        private final String text;
+        private final long from;
+        private final long to;
+
+        During(String text, long from, long to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            Schedule start = event.getStartTime();
+            if (start == null || start.isEmpty()) {
+                return false;
+            }
+            Schedule end = event.getEndTime();
+            long endTime = end == null || end.isEmpty() ? start.getTime() : Math.max(start.getTime(), end.getTime());
+            return start.getTime() <= to && endTime >= from;
+        }
+
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            return QueryPlan.lookup(toString(), taskManager.countEventsWithTime(),
+                    () -> taskManager.findEventsOverlapping(new Date(from), new Date(to)));
+        }
+
+        @Override
+        public String toString() {
+            return "during:" + text;
+        }
+    }
+
+    private static class Not extends Query {
+        private final Query query;
+
+        Not(Query query) {
+            assert query != null;
+            this.query = query;
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            return !query.matches(event);
+        }
+
+        /** The tasks not found are not indexed, so they have to be tested. */
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            return null;
+        }
+
+        /** A combination is parenthesized, so that the text tells apart every query. */
+        @Override
+        public String toString() {
+            return "NOT " + (query instanceof Combination ? "(" + query + ")" : query.toString());
+        }
+    }
+
+    private static class Combination extends Query {
+        private final boolean isAnd;
+        private final List<Query> queries;
+
+        Combination(boolean isAnd, List<Query> queries) {
+            assert !queries.isEmpty();
+            this.isAnd = isAnd;
+            this.queries = queries;
+        }
+
+        @Override
+        public boolean matches(ReadOnlyEvent event) {
+            return isAnd ? queries.stream().allMatch(query -> query.matches(event))
+                    : queries.stream().anyMatch(query -> query.matches(event));
+        }
+
+        /**
+         * Finds the tasks matching all the queries from the query with the
+         * fewest tasks estimated to be found through an index, and tests them
+         * with the others. Finds the tasks matching any of the queries only if
+         * all of them can be found through an index.
+         */
+        @Override
+        QueryPlan planLookup(TaskManager taskManager) {
+            if (!isAnd) {
+                List<QueryPlan> plans = new ArrayList<>();
+                for (Query query : queries) {
+                    QueryPlan plan = query.planLookup(taskManager);
+                    if (plan == null) {
+                        return null;
+                    }
+                    plans.add(plan);
+                }
+                return QueryPlan.union(plans);
+            }
+            QueryPlan best = null;
+            Query bestQuery = null;
+            for (Query query : queries) {
+                QueryPlan plan = query.planLookup(taskManager);
+                if (plan != null && (best == null || plan.getEstimatedRows() < best.getEstimatedRows())) {
+                    best = plan;
+                    bestQuery = query;
+                }
+            }
+            if (best == null || queries.size() == 1) {
+                return best;
+            }
+            List<Query> others = new ArrayList<>(queries);
+            others.remove(bestQuery);
+            return QueryPlan.filter(best, others.size() == 1 ? others.get(0) : new Combination(true, others));
+        }
+
+        @Override
+        public String toString() {
+            return queries.stream().map(query -> query instanceof Combination ? "(" + query + ")" : query.toString())
+                    .collect(Collectors.joining(isAnd ? " AND " : " OR "));
+        }
+    }
+
+}
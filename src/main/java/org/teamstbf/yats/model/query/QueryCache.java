@@ -0,0 +1,168 @@
+package org.teamstbf.yats.model.query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+
+/**
+ * The tasks found for the queries used most recently, by the text of each
+ * query, so that going back to a query finds its tasks without testing them
+ * again. Each result is brought up to date from the changes the task manager
+ * made since it was found, testing only the tasks that changed, and is found
+ * again only if those changes are no longer known. Each result can explain how
+ * it was last looked up.
+ */
+public class QueryCache {
+
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final Map<String, Result> results;
+
+    public QueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public QueryCache(int capacity) {
+        assert capacity > 0;
+        this.results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the tasks in {@code taskManager} matching {@code query}, which
+     * is the same result as long as it stays cached, updated as the tasks
+     * change.
+     */
+    public Result find(Query query, TaskManager taskManager) {
+        String key = query.toString();
+        Result result = results.get(key);
+        if (result == null || !result.update(taskManager)) {
+            result = new Result(query, taskManager.getGeneration(), QueryPlan.of(query, taskManager));
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    /** Returns the number of results cached. */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * The tasks matching a query at a generation of the task manager.
+     */
+    public static class Result {
+        private final Query query;
+        /** The plan that found the tasks, executed when the result was made. */
+        private final QueryPlan plan;
+        private final Set<ReadOnlyEvent> tasks;
+        private long generation;
+        private int additions;
+        /** Whether the last lookup found this result cached, rather than making it. */
+        private boolean isHit;
+        /** The changes applied and the tasks they tested in the last lookup. */
+        private int changesApplied;
+        private int tasksTested;
+
+        Result(Query query, long generation, QueryPlan plan) {
+            this.query = query;
+            this.generation = generation;
+            this.plan = plan;
+            this.tasks = plan.execute();
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        /** Returns true if {@code task}, told apart by identity, is in this result. */
+        public boolean contains(ReadOnlyEvent task) {
+            return tasks.contains(task);
+        }
+
+        public int size() {
+            return tasks.size();
+        }
+
+        /**
+         * Returns the number of times tasks were added to this result since it
+         * was found, so that its users can tell whether a task they tested
+         * before has come in.
+         */
+        public int getAdditions() {
+            return additions;
+        }
+
+        /**
+         * Applies the changes made since this result's generation, and returns
+         * false if they are no longer known.
+         */
+        boolean update(TaskManager taskManager) {
+            isHit = true;
+            changesApplied = 0;
+            tasksTested = 0;
+            if (generation == taskManager.getGeneration()) {
+                return true;
+            }
+            List<TaskManagerChange> changes = taskManager.getChangesSince(generation);
+            if (changes == null) {
+                return false;
+            }
+            changesApplied = changes.size();
+            for (TaskManagerChange change : changes) {
+                switch (change.getType()) {
+                case ADD:
+                    add(change.getEvent());
+                    break;
+                case UPDATE:
+                    tasks.remove(change.getReplaced());
+                    add(change.getEvent());
+                    break;
+                case REMOVE:
+                    tasks.remove(change.getEvent());
+                    break;
+                default:
+                    return false;
+                }
+            }
+            generation = taskManager.getGeneration();
+            return true;
+        }
+
+        private void add(ReadOnlyEvent task) {
+            tasksTested++;
+            if (query.matches(task) && tasks.add(task)) {
+                additions++;
+            }
+        }
+
+        /**
+         * Returns whether the last lookup found this result cached, the steps
+         * of the plan that found its tasks, and the tasks the last lookup
+         * examined: those the plan examined if the result was made by it, or
+         * those tested from the changes applied if it was cached.
+         */
+        public String explain() {
+            if (!isHit) {
+                return "Cache miss, found by:\n" + plan.explain();
+            }
+            return "Cache hit, brought up to date from " + changesApplied + " changes; found earlier by:\n"
+                    + plan.explainSteps() + "Rows examined: " + tasksTested;
+        }
+
+        @Override
+        public String toString() {
+            return query + " (" + tasks.size() + " tasks)";
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+package org.teamstbf.yats.model.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.teamstbf.yats.commons.core.InvertedIndex;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+
+/**
+ * How the tasks matching a {@link Query} are found in a {@link TaskManager}:
+ * from the index giving the fewest tasks estimated for a query that needs all
+ * its parts to match, testing those tasks with the other parts, or by testing
+ * every task when no index can be used. Once executed, a plan tells how many
+ * tasks each of its steps examined.
+ */
+public abstract class QueryPlan {
+
+    private static final String INDENT = "  ";
+
+    /** The tasks examined by this step alone, once it is executed. */
+    private int rowsExamined;
+    private boolean isExecuted;
+
+    /**
+     * Returns the plan finding the tasks in {@code taskManager} that match
+     * {@code query}.
+     */
+    public static QueryPlan of(Query query, TaskManager taskManager) {
+        QueryPlan plan = query.planLookup(taskManager);
+        return plan == null ? new Scan(query, taskManager) : plan;
+    }
+
+    static QueryPlan lookup(String description, int estimatedRows,
+            Supplier<Collection<? extends ReadOnlyEvent>> finder) {
+        return new Lookup(description, estimatedRows, finder);
+    }
+
+    static QueryPlan filter(QueryPlan input, Query condition) {
+        return new Filter(input, condition);
+    }
+
+    static QueryPlan union(List<QueryPlan> inputs) {
+        return new Union(inputs);
+    }
+
+    /**
+     * Returns the most tasks this plan is estimated to find.
+     */
+    abstract int getEstimatedRows();
+
+    /**
+     * Returns true if this plan tests every task rather than using an index.
+     */
+    public boolean isScan() {
+        return false;
+    }
+
+    /**
+     * Finds the matching tasks, told apart by identity as the task manager's
+     * indexes do.
+     */
+    public Set<ReadOnlyEvent> execute() {
+        Set<ReadOnlyEvent> found = InvertedIndex.newElementSet();
+        rowsExamined = find(found);
+        isExecuted = true;
+        return found;
+    }
+
+    /**
+     * Adds the matching tasks to {@code found} and returns the number of tasks
+     * examined by this step alone.
+     */
+    abstract int find(Set<ReadOnlyEvent> found);
+
+    /** Returns the steps this step takes the tasks of. */
+    List<QueryPlan> getInputs() {
+        return Collections.emptyList();
+    }
+
+    abstract String describe();
+
+    /**
+     * Returns the tasks examined by all the steps of this plan, executing it
+     * if it has not been.
+     */
+    public int getRowsExamined() {
+        if (!isExecuted) {
+            execute();
+        }
+        int rows = rowsExamined;
+        for (QueryPlan input : getInputs()) {
+            rows += input.getRowsExamined();
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the steps of this plan, one per line with the steps they take
+     * the tasks of indented under them, with the tasks each is estimated to
+     * find and those it examined, executing it if it has not been.
+     */
+    public String explain() {
+        return explainSteps() + "Rows examined: " + getRowsExamined();
+    }
+
+    /**
+     * Returns the steps of this plan as {@link #explain()} does, without the
+     * total of the tasks examined.
+     */
+    String explainSteps() {
+        StringBuilder explanation = new StringBuilder();
+        explain(explanation, "");
+        return explanation.toString();
+    }
+
+    private void explain(StringBuilder explanation, String indent) {
+        if (!isExecuted) {
+            execute();
+        }
+        explanation.append(indent).append(describe()).append(" (estimated ").append(getEstimatedRows())
+                .append(" rows, examined ").append(rowsExamined).append(")\n");
+        for (QueryPlan input : getInputs()) {
+            input.explain(explanation, indent + INDENT);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+    /**
+     * Finds the tasks an index has for a query.
+     */
+    private static class Lookup extends QueryPlan {
+        private final String description;
+        private final int estimatedRows;
+        private final Supplier<Collection<? extends ReadOnlyEvent>> finder;
+
+        Lookup(String description, int estimatedRows, Supplier<Collection<? extends ReadOnlyEvent>> finder) {
+            this.description = description;
+            this.estimatedRows = estimatedRows;
+            this.finder = finder;
+        }
+
+        @Override
+        int getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        @Override
+        int find(Set<ReadOnlyEvent> found) {
+            Collection<? extends ReadOnlyEvent> tasks = finder.get();
+            found.addAll(tasks);
+            return tasks.size();
+        }
+
+        @Override
+        String describe() {
+            return "Index lookup " + description;
+        }
+    }
+
+    /**
+     * Keeps the tasks found by another step that match a query.
+     */
+    private static class Filter extends QueryPlan {
+        private final QueryPlan input;
+        private final Query condition;
+
+        Filter(QueryPlan input, Query condition) {
+            this.input = input;
+            this.condition = condition;
+        }
+
+        @Override
+        int getEstimatedRows() {
+            return input.getEstimatedRows();
+        }
+
+        @Override
+        int find(Set<ReadOnlyEvent> found) {
+            Set<ReadOnlyEvent> candidates = input.execute();
+            for (ReadOnlyEvent candidate : candidates) {
+                if (condition.matches(candidate)) {
+                    found.add(candidate);
+                }
+            }
+            return candidates.size();
+        }
+
+        @Override
+        List<QueryPlan> getInputs() {
+            return Collections.singletonList(input);
+        }
+
+        @Override
+        String describe() {
+            return "Filter " + condition;
+        }
+    }
+
+    /**
+     * Finds the tasks found by any of several steps.
+     */
+    private static class Union extends QueryPlan {
+        private final List<QueryPlan> inputs;
+
+        Union(List<QueryPlan> inputs) {
+            this.inputs = new ArrayList<>(inputs);
+        }
+
+        @Override
+        int getEstimatedRows() {
+            int rows = 0;
+            for (QueryPlan input : inputs) {
+                rows += input.getEstimatedRows();
+            }
+            return rows;
+        }
+
+        @Override
+        int find(Set<ReadOnlyEvent> found) {
+            for (QueryPlan input : inputs) {
+                found.addAll(input.execute());
+            }
+            return 0;
+        }
+
+        @Override
+        List<QueryPlan> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        String describe() {
+            return "Union";
+        }
+    }
+
+    /**
+     * Tests every task with a query.
+     */
+    private static class Scan extends QueryPlan {
+        private final Query query;
+        private final TaskManager taskManager;
+
+        Scan(Query query, TaskManager taskManager) {
+            this.query = query;
+            this.taskManager = taskManager;
+        }
+
+        @Override
+        int getEstimatedRows() {
+            return taskManager.getTaskList().size();
+        }
+
+        @Override
+        public boolean isScan() {
+            return true;
+        }
+
+        @Override
+        int find(Set<ReadOnlyEvent> found) {
+            List<ReadOnlyEvent> tasks = taskManager.getTaskList();
+            for (ReadOnlyEvent task : tasks) {
+                if (query.matches(task)) {
+                    found.add(task);
+                }
+            }
+            return tasks.size();
+        }
+
+        @Override
+        String describe() {
+            return "Scan " + query;
+        }
+    }
+
+}
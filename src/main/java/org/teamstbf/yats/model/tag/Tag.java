@@ -1,5 +1,9 @@
 package org.teamstbf.yats.model.tag;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 
 /**
@@ -10,6 +14,9 @@ public class Tag {
 
     public static final String MESSAGE_TAG_CONSTRAINTS = "Tags names should be alphanumeric";
     public static final String TAG_VALIDATION_REGEX = "\\p{Alnum}+";
+    private static final Pattern TAG_VALIDATION_PATTERN = Pattern.compile(TAG_VALIDATION_REGEX);
+    /** The canonical tag of each name, shared by all the tasks having it. */
+    private static final ConcurrentMap<String, Tag> CANONICAL_TAGS = new ConcurrentHashMap<>();
 
     public final String tagName;
 
@@ -28,11 +35,21 @@ public class Tag {
         this.tagName = trimmedName;
     }
 
+    /**
+     * Returns the canonical tag equal to this one, which is this tag if there
+     * was none yet. Like {@link String#intern()}, interned tags are equal only
+     * if they are the same object.
+     */
+    public Tag intern() {
+        Tag canonical = CANONICAL_TAGS.putIfAbsent(tagName, this);
+        return canonical == null ? this : canonical;
+    }
+
     /**
      * Returns true if a given string is a valid tag name.
      */
     public static boolean isValidTagName(String test) {
-        return test.matches(TAG_VALIDATION_REGEX);
+        return TAG_VALIDATION_PATTERN.matcher(test).matches();
     }
 
     @Override
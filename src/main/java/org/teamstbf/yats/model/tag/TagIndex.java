@@ -0,0 +1,89 @@
+package org.teamstbf.yats.model.tag;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index from tag names to the tasks having them, kept as a bitmap over the
+ * tasks' ids for each tag, so that combinations of tags are found with
+ * bitwise operations on whole words of tasks at a time. Task ids are given
+ * from zero upwards, so the bitmaps stay dense. Tag names are compared
+ * ignoring case. The tags of each task are kept too, so that updating a task
+ * only touches the bitmaps of its own tags.
+ */
+public class TagIndex {
+
+    private final Map<String, BitSet> tasksWithTag = new HashMap<>();
+    private final Map<Integer, String[]> tagsOfTask = new HashMap<>();
+    private final BitSet allTasks = new BitSet();
+
+    /**
+     * Adds the task with id {@code id}, or updates it if it is already in the
+     * index, to have {@code tags}.
+     */
+    public void add(long id, UniqueTagList tags) {
+        int bit = toBit(id);
+        remove(id);
+        allTasks.set(bit);
+        List<String> keys = new ArrayList<>();
+        for (Tag tag : tags) {
+            String key = toKey(tag.tagName);
+            keys.add(key);
+            tasksWithTag.computeIfAbsent(key, unused -> new BitSet()).set(bit);
+        }
+        tagsOfTask.put(bit, keys.toArray(new String[keys.size()]));
+    }
+
+    /**
+     * Removes the task with id {@code id}, if it is in the index.
+     */
+    public void remove(long id) {
+        int bit = toBit(id);
+        if (!allTasks.get(bit)) {
+            return;
+        }
+        allTasks.clear(bit);
+        for (String key : tagsOfTask.remove(bit)) {
+            BitSet tasks = tasksWithTag.get(key);
+            tasks.clear(bit);
+            if (tasks.isEmpty()) {
+                tasksWithTag.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        tasksWithTag.clear();
+        tagsOfTask.clear();
+        allTasks.clear();
+    }
+
+    /**
+     * Returns a new bitmap of the ids of the tasks with the tag named
+     * {@code tagName}.
+     */
+    public BitSet getTasksWithTag(String tagName) {
+        BitSet tasks = tasksWithTag.get(toKey(tagName));
+        return tasks == null ? new BitSet() : (BitSet) tasks.clone();
+    }
+
+    /**
+     * Returns a new bitmap of the ids of all the tasks in the index.
+     */
+    public BitSet getAllTasks() {
+        return (BitSet) allTasks.clone();
+    }
+
+    private static int toBit(long id) {
+        assert id >= 0 && id <= Integer.MAX_VALUE : "Only tasks with an id up to Integer.MAX_VALUE can be indexed";
+        return (int) id;
+    }
+
+    private static String toKey(String tagName) {
+        return tagName.toLowerCase();
+    }
+
+}
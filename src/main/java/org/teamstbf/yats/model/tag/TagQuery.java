@@ -0,0 +1,155 @@
+package org.teamstbf.yats.model.tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A combination of tags with AND, OR and NOT, which finds the tasks having it
+ * with bitwise operations on a {@link TagIndex}. Tag names are compared
+ * ignoring case.
+ */
+public abstract class TagQuery {
+
+    /**
+     * Returns a new bitmap of the ids of the tasks in {@code index} that match
+     * this query.
+     */
+    public abstract BitSet evaluate(TagIndex index);
+
+    /**
+     * Returns true if a task with {@code tags} matches this query, without an
+     * index.
+     */
+    public abstract boolean matches(UniqueTagList tags);
+
+    /** Returns a query for the tasks with the tag named {@code tagName}. */
+    public static TagQuery tag(String tagName) {
+        return new TagName(tagName);
+    }
+
+    /** Returns a query for the tasks that do not match {@code query}. */
+    public static TagQuery not(TagQuery query) {
+        return new Not(query);
+    }
+
+    /** Returns a query for the tasks that match all of {@code queries}. */
+    public static TagQuery and(TagQuery... queries) {
+        return new Combination(true, Arrays.asList(queries));
+    }
+
+    /** Returns a query for the tasks that match any of {@code queries}. */
+    public static TagQuery or(TagQuery... queries) {
+        return new Combination(false, Arrays.asList(queries));
+    }
+
+    /**
+     * Returns a query for the tasks with any of the tags named in
+     * {@code tagNames}; none if it is empty.
+     */
+    public static TagQuery anyOf(Collection<String> tagNames) {
+        List<TagQuery> queries = new ArrayList<>();
+        tagNames.forEach(tagName -> queries.add(tag(tagName)));
+        return new Combination(false, queries);
+    }
+
+    private static class TagName extends TagQuery {
+        private final String tagName;
+
+        TagName(String tagName) {
+            assert tagName != null;
+            this.tagName = tagName;
+        }
+
+        @Override
+        public BitSet evaluate(TagIndex index) {
+            return index.getTasksWithTag(tagName);
+        }
+
+        @Override
+        public boolean matches(UniqueTagList tags) {
+            for (Tag tag : tags) {
+                if (tag.tagName.equalsIgnoreCase(tagName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return tagName;
+        }
+    }
+
+    private static class Not extends TagQuery {
+        private final TagQuery query;
+
+        Not(TagQuery query) {
+            assert query != null;
+            this.query = query;
+        }
+
+        @Override
+        public BitSet evaluate(TagIndex index) {
+            BitSet tasks = index.getAllTasks();
+            tasks.andNot(query.evaluate(index));
+            return tasks;
+        }
+
+        @Override
+        public boolean matches(UniqueTagList tags) {
+            return !query.matches(tags);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + query;
+        }
+    }
+
+    private static class Combination extends TagQuery {
+        private final boolean isAnd;
+        private final List<TagQuery> queries;
+
+        Combination(boolean isAnd, List<TagQuery> queries) {
+            this.isAnd = isAnd;
+            this.queries = queries;
+        }
+
+        @Override
+        public BitSet evaluate(TagIndex index) {
+            if (queries.isEmpty()) {
+                return isAnd ? index.getAllTasks() : new BitSet();
+            }
+            BitSet tasks = queries.get(0).evaluate(index);
+            for (int i = 1; i < queries.size(); i++) {
+                if (isAnd) {
+                    if (tasks.isEmpty()) {
+                        break;
+                    }
+                    tasks.and(queries.get(i).evaluate(index));
+                } else {
+                    tasks.or(queries.get(i).evaluate(index));
+                }
+            }
+            return tasks;
+        }
+
+        @Override
+        public boolean matches(UniqueTagList tags) {
+            return isAnd ? queries.stream().allMatch(query -> query.matches(tags))
+                    : queries.stream().anyMatch(query -> query.matches(tags));
+        }
+
+        @Override
+        public String toString() {
+            return queries.stream().map(query -> "(" + query + ")")
+                    .collect(Collectors.joining(isAnd ? " AND " : " OR "));
+        }
+    }
+
+}
@@ -8,25 +8,29 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.teamstbf.yats.commons.core.PersistentObservableList;
+import org.teamstbf.yats.commons.core.PersistentVector;
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
 import org.teamstbf.yats.commons.exceptions.DuplicateDataException;
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.commons.util.CollectionUtil;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-
 /**
  * A list of tags that enforces no nulls and uniqueness between its elements.
  *
- * Supports minimal set of list operations for the app's features.
+ * Supports minimal set of list operations for the app's features. The tags
+ * are kept in a {@link PersistentVector}, so copying the list is O(1). A set of
+ * them is built the first time it is looked up, so that checking or merging
+ * tags takes time proportional to the tags checked rather than to the list.
  *
  * @see Tag#equals(Object)
  * @see CollectionUtil#elementsAreUnique(Collection)
  */
 public class UniqueTagList implements Iterable<Tag> {
 
-    private final ObservableList<Tag> internalList = FXCollections.observableArrayList();
+    private final PersistentObservableList<Tag> internalList = new PersistentObservableList<>();
+    /** The tags in {@link #internalList}; null until it is needed. */
+    private Set<Tag> lookup;
 
     /**
      * Constructs empty TagList.
@@ -51,12 +55,7 @@ public class UniqueTagList implements Iterable<Tag> {
      * duplicates.
      */
     public UniqueTagList(Tag... tags) throws DuplicateTagException {
-        assert !CollectionUtil.isAnyNull((Object[]) tags);
-        final List<Tag> initialTags = Arrays.asList(tags);
-        if (!CollectionUtil.elementsAreUnique(initialTags)) {
-            throw new DuplicateTagException();
-        }
-        internalList.addAll(initialTags);
+        this(Arrays.asList(tags));
     }
 
     /**
@@ -80,8 +79,8 @@ public class UniqueTagList implements Iterable<Tag> {
      * Creates a copy of the given list. Insulates from changes in source.
      */
     public UniqueTagList(UniqueTagList source) {
-        internalList.addAll(source.internalList); // insulate internal list from
-        // changes in argument
+        internalList.setAll(source.internalList.snapshot()); // shared, but insulated
+        // from changes in argument
     }
 
     /**
@@ -96,7 +95,8 @@ public class UniqueTagList implements Iterable<Tag> {
      * Replaces the Tags in this list with those in the argument tag list.
      */
     public void setTags(UniqueTagList replacement) {
-        this.internalList.setAll(replacement.internalList);
+        this.internalList.setAll(replacement.internalList.snapshot());
+        lookup = null;
     }
 
     public void setTags(Collection<Tag> tags) throws DuplicateTagException {
@@ -105,14 +105,18 @@ public class UniqueTagList implements Iterable<Tag> {
             throw new DuplicateTagException();
         }
         internalList.setAll(tags);
+        lookup = null;
     }
 
     /**
      * Ensures every tag in the argument list exists in this object.
      */
     public void mergeFrom(UniqueTagList from) {
-        final Set<Tag> alreadyInside = this.toSet();
-        from.internalList.stream().filter(tag -> !alreadyInside.contains(tag)).forEach(internalList::add);
+        for (Tag tag : from) {
+            if (getLookup().add(tag)) {
+                internalList.add(tag);
+            }
+        }
     }
 
     /**
@@ -124,6 +128,7 @@ public class UniqueTagList implements Iterable<Tag> {
         final Set<Tag> alreadyInside = this.toSet();
         from.internalList.stream().filter(tag -> alreadyInside.contains(tag)).forEach(internalList::remove);
         from.internalList.stream().filter(tag -> !alreadyInside.contains(tag)).forEach(internalList::add);
+        lookup = null;
     }
 
     /**
@@ -132,7 +137,7 @@ public class UniqueTagList implements Iterable<Tag> {
      */
     public boolean contains(Tag toCheck) {
         assert toCheck != null;
-        return internalList.contains(toCheck);
+        return getLookup().contains(toCheck);
     }
 
     /**
@@ -144,12 +149,19 @@ public class UniqueTagList implements Iterable<Tag> {
      */
     public void add(Tag toAdd) throws DuplicateTagException {
         assert toAdd != null;
-        if (contains(toAdd)) {
+        if (!getLookup().add(toAdd)) {
             throw new DuplicateTagException();
         }
         internalList.add(toAdd);
     }
 
+    private Set<Tag> getLookup() {
+        if (lookup == null) {
+            lookup = new HashSet<>(internalList);
+        }
+        return lookup;
+    }
+
     /**
      * Returns true if the list is not empty.
      */
@@ -166,6 +178,14 @@ public class UniqueTagList implements Iterable<Tag> {
         return internalList.iterator();
     }
 
+    /**
+     * Returns the tags currently in the list, which later changes to the list
+     * leave unchanged.
+     */
+    public PersistentVector<Tag> snapshot() {
+        return internalList.snapshot();
+    }
+
     public UnmodifiableObservableList<Tag> asObservableList() {
         return new UnmodifiableObservableList<>(internalList);
     }
@@ -10,6 +10,7 @@ import org.teamstbf.yats.model.item.Location;
 import org.teamstbf.yats.model.item.Recurrence;
 import org.teamstbf.yats.model.item.Schedule;
 import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 import org.teamstbf.yats.model.tag.UniqueTagList;
 
 public class SampleDataUtil {
@@ -232,8 +233,12 @@ public class SampleDataUtil {
 
     public static ReadOnlyTaskManager getSampleTaskManager() {
         TaskManager sampleTM = new TaskManager();
-        for (Event sampleTask : getSampleEvents()) {
-            sampleTM.addEvent(sampleTask);
+        try {
+            for (Event sampleTask : getSampleEvents()) {
+                sampleTM.addEvent(sampleTask);
+            }
+        } catch (DuplicateEventException e) {
+            throw new AssertionError("sample data cannot contain duplicate tasks", e);
         }
         return sampleTM;
     }
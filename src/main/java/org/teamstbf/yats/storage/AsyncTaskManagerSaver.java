@@ -0,0 +1,183 @@
+package org.teamstbf.yats.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
+
+/**
+ * Saves task manager snapshots to a {@link TaskManagerStorage} on a
+ * background thread.
+ *
+ * Only the latest submitted snapshot is kept. Submissions arriving within the
+ * debounce window of each other are written together once the burst is over,
+ * or once the oldest unsaved submission is {@link #MAXIMUM_DELAY_FACTOR}
+ * windows old. The changes that lead to a snapshot are concatenated across
+ * submissions; past {@code maximumPendingChanges} they are dropped and the
+ * snapshot is saved in full instead.
+ */
+public class AsyncTaskManagerSaver {
+
+    /** How many debounce windows a burst may delay a save for at most. */
+    public static final int MAXIMUM_DELAY_FACTOR = 10;
+
+    private static final Logger logger = LogsCenter.getLogger(AsyncTaskManagerSaver.class);
+
+    private final TaskManagerStorage storage;
+    private final long debounceMillis;
+    private final int maximumPendingChanges;
+    private final Consumer<IOException> failureHandler;
+
+    private ReadOnlyTaskManager pendingSnapshot;
+    /** Changes since the last handed-off snapshot; empty if they are unknown. */
+    private List<TaskManagerChange> pendingChanges = new ArrayList<>();
+    private boolean isPendingChangesComplete = true;
+    private long firstPendingAt;
+    private long lastPendingAt;
+    private boolean isWriting;
+    private boolean isFlushRequested;
+
+    /**
+     * @param storage
+     *            where snapshots are written to. It should not be written to
+     *            by anything else while this saver is in use.
+     * @param debounceMillis
+     *            how long to wait for further submissions before saving.
+     * @param maximumPendingChanges
+     *            how many unsaved changes to keep before falling back to a
+     *            full save.
+     * @param failureHandler
+     *            called on the background thread when a save fails.
+     */
+    public AsyncTaskManagerSaver(TaskManagerStorage storage, long debounceMillis, int maximumPendingChanges,
+            Consumer<IOException> failureHandler) {
+        assert storage != null && failureHandler != null;
+        assert debounceMillis >= 0 && maximumPendingChanges >= 0;
+        this.storage = storage;
+        this.debounceMillis = debounceMillis;
+        this.maximumPendingChanges = maximumPendingChanges;
+        this.failureHandler = failureHandler;
+        Thread writer = new Thread(this::runWriter, "task-manager-saver");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues {@code snapshot} to be saved, replacing any snapshot that has not
+     * been written yet.
+     *
+     * @param snapshot
+     *            must not be modified afterwards.
+     * @param changes
+     *            the changes since the previously submitted snapshot, or an
+     *            empty list if they are unknown.
+     */
+    public synchronized void submit(ReadOnlyTaskManager snapshot, List<TaskManagerChange> changes) {
+        assert snapshot != null && changes != null;
+        long now = System.currentTimeMillis();
+        if (pendingSnapshot == null) {
+            firstPendingAt = now;
+        }
+        lastPendingAt = now;
+        pendingSnapshot = snapshot;
+
+        if (changes.isEmpty() || pendingChanges.size() + changes.size() > maximumPendingChanges) {
+            isPendingChangesComplete = false;
+        }
+        if (isPendingChangesComplete) {
+            pendingChanges.addAll(changes);
+        } else {
+            pendingChanges.clear();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Writes any pending snapshot without waiting for the debounce window and
+     * blocks until it is on disk.
+     */
+    public synchronized void flush() {
+        isFlushRequested = true;
+        notifyAll();
+        try {
+            while (pendingSnapshot != null || isWriting) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            isFlushRequested = false;
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            ReadOnlyTaskManager snapshot;
+            List<TaskManagerChange> changes;
+            try {
+                synchronized (this) {
+                    waitForDueSnapshot();
+                    snapshot = pendingSnapshot;
+                    changes = isPendingChangesComplete ? pendingChanges : Collections.emptyList();
+                    pendingSnapshot = null;
+                    pendingChanges = new ArrayList<>();
+                    isPendingChangesComplete = true;
+                    isWriting = true;
+                }
+            } catch (InterruptedException e) {
+                logger.warning("Task manager saver interrupted, unsaved changes may be lost");
+                return;
+            }
+
+            try {
+                storage.saveTaskManagerChanges(snapshot, changes);
+            } catch (IOException e) {
+                handleFailure(e);
+            } catch (RuntimeException e) {
+                logger.severe("Unexpected error while saving task manager: " + e);
+                handleFailure(new IOException(e));
+            } finally {
+                synchronized (this) {
+                    isWriting = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void handleFailure(IOException e) {
+        synchronized (this) {
+            // the storage may now be missing these changes, so save in full next time
+            isPendingChangesComplete = false;
+            pendingChanges.clear();
+        }
+        failureHandler.accept(e);
+    }
+
+    /**
+     * Blocks until there is a pending snapshot and either the burst it belongs
+     * to is over, it has waited long enough, or a flush was requested.
+     */
+    private void waitForDueSnapshot() throws InterruptedException {
+        while (true) {
+            if (pendingSnapshot == null) {
+                wait();
+                continue;
+            }
+            long dueAt = Math.min(lastPendingAt + debounceMillis,
+                    firstPendingAt + debounceMillis * MAXIMUM_DELAY_FACTOR);
+            long remaining = dueAt - System.currentTimeMillis();
+            if (isFlushRequested || remaining <= 0) {
+                return;
+            }
+            wait(remaining);
+        }
+    }
+
+}
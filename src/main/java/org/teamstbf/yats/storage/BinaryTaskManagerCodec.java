@@ -0,0 +1,741 @@
+package org.teamstbf.yats.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.Description;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.IsDone;
+import org.teamstbf.yats.model.item.Location;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Recurrence;
+import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.model.tag.UniqueTagList;
+
+/**
+ * Reads and writes task managers in a compact, versioned binary format.
+ *
+ * A file is a header followed by checksummed blocks:
+ * <ul>
+ * <li>a string table holding every distinct title, location, description,
+ * tag name and recurrence string once,</li>
+ * <li>task blocks of up to {@link #TASKS_PER_BLOCK} tasks each, referring to
+ * the string table by index, with {@link Schedule} values as epoch millis and
+ * done/recurring as bit flags,</li>
+ * <li>a block listing the tags of the task manager.</li>
+ * </ul>
+ * Each block ends with a CRC32 of its payload.
+ *
+ * Files can also be converted to and from {@link XmlSerializableTaskManager}
+ * without loss: values that do not fit the compact representation, e.g. a
+ * time that does not format back to the same text, are stored as strings.
+ */
+public class BinaryTaskManagerCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    static final int MAGIC = 0x59415453; // "YATS"
+    static final int TASKS_PER_BLOCK = 4096;
+
+    private static final byte BLOCK_END = 0;
+    private static final byte BLOCK_STRINGS = 1;
+    private static final byte BLOCK_TASKS = 2;
+    private static final byte BLOCK_TAGS = 3;
+
+    private static final int FLAG_DONE = 1;
+    private static final int FLAG_RECURRING = 1 << 1;
+    /** The done and recurring values are stored as strings after the flags. */
+    private static final int FLAG_RAW_STATUS = 1 << 2;
+
+    /** Schedule values that are not epoch millis. */
+    private static final long SCHEDULE_ABSENT = Long.MIN_VALUE;
+    private static final long SCHEDULE_EMPTY = Long.MIN_VALUE + 1;
+    private static final long SCHEDULE_RAW = Long.MIN_VALUE + 2;
+
+    private static final long NO_JOURNAL_SEQUENCE = -1;
+
+    private BinaryTaskManagerCodec() {
+    }
+
+    //// writing
+
+    /**
+     * Writes {@code taskManager} to {@code out}.
+     */
+    public static void write(OutputStream out, ReadOnlyTaskManager taskManager) throws IOException {
+        assert out != null && taskManager != null;
+        List<TaskRecord> records = new ArrayList<>(taskManager.getTaskList().size());
+        for (ReadOnlyEvent event : taskManager.getTaskList()) {
+            records.add(TaskRecord.fromEvent(event));
+        }
+        List<String> tagNames = new ArrayList<>();
+        for (Tag tag : taskManager.getTagList()) {
+            tagNames.add(tag.tagName);
+        }
+        write(out, records, tagNames, NO_JOURNAL_SEQUENCE);
+    }
+
+    /**
+     * Writes {@code data} to {@code out} such that
+     * {@link #readAsXml(InputStream)} returns the same data.
+     */
+    public static void write(OutputStream out, XmlSerializableTaskManager data) throws IOException {
+        assert out != null && data != null;
+        List<TaskRecord> records = new ArrayList<>(data.getAdaptedTasks().size());
+        for (XmlAdaptedTask task : data.getAdaptedTasks()) {
+            records.add(TaskRecord.fromXml(task));
+        }
+        List<String> tagNames = new ArrayList<>();
+        for (XmlAdaptedTag tag : data.getAdaptedTags()) {
+            tagNames.add(tag.tagName);
+        }
+        Long journalSequence = data.getJournalSequenceAttribute();
+        write(out, records, tagNames, journalSequence == null ? NO_JOURNAL_SEQUENCE : journalSequence);
+    }
+
+    private static void write(OutputStream output, List<TaskRecord> records, List<String> tagNames,
+            long journalSequence) throws IOException {
+        StringTable strings = new StringTable();
+        List<ByteSink> taskBlocks = new ArrayList<>();
+        for (int start = 0; start < records.size(); start += TASKS_PER_BLOCK) {
+            int end = Math.min(start + TASKS_PER_BLOCK, records.size());
+            ByteSink block = new ByteSink();
+            block.writeVarInt(end - start);
+            for (TaskRecord record : records.subList(start, end)) {
+                record.writeTo(block, strings);
+            }
+            taskBlocks.add(block);
+        }
+        ByteSink tagBlock = new ByteSink();
+        tagBlock.writeVarInt(tagNames.size());
+        for (String tagName : tagNames) {
+            tagBlock.writeVarInt(strings.indexOf(tagName));
+        }
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(journalSequence);
+        out.writeInt(records.size());
+        writeBlock(out, BLOCK_STRINGS, strings.toBlock());
+        for (ByteSink block : taskBlocks) {
+            writeBlock(out, BLOCK_TASKS, block);
+        }
+        writeBlock(out, BLOCK_TAGS, tagBlock);
+        writeBlock(out, BLOCK_END, new ByteSink());
+        out.flush();
+    }
+
+    private static void writeBlock(DataOutputStream out, byte type, ByteSink payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.bytes, 0, payload.size);
+        out.writeByte(type);
+        out.writeInt(payload.size);
+        out.write(payload.bytes, 0, payload.size);
+        out.writeInt((int) crc.getValue());
+    }
+
+    //// reading
+
+    /**
+     * Reads a task manager written by this codec.
+     *
+     * @throws DataConversionException
+     *             if the data is not in this format, fails a checksum or
+     *             contains an invalid task.
+     */
+    public static ReadOnlyTaskManager read(InputStream in) throws DataConversionException, IOException {
+        List<ReadOnlyEvent> events = new ArrayList<>();
+        ModelCache[] cache = new ModelCache[1];
+        DecodedFile file = readFile(in, (record, strings) -> {
+            if (cache[0] == null) {
+                cache[0] = new ModelCache(strings);
+            }
+            events.add(record.toEvent(cache[0]));
+        });
+        if (cache[0] == null) {
+            cache[0] = new ModelCache(file.strings);
+        }
+        List<Tag> tags = new ArrayList<>(file.tagIndexes.length);
+        try {
+            for (int tagIndex : file.tagIndexes) {
+                tags.add(cache[0].tag(tagIndex));
+            }
+        } catch (IllegalValueException e) {
+            throw new DataConversionException(e);
+        }
+        return new TaskManagerSnapshot(events, tags);
+    }
+
+    /**
+     * Reads data written by this codec into the form JAXB would produce from
+     * the equivalent XML file.
+     */
+    public static XmlSerializableTaskManager readAsXml(InputStream in) throws DataConversionException, IOException {
+        List<XmlAdaptedTask> tasks = new ArrayList<>();
+        DecodedFile file = readFile(in, (record, strings) -> tasks.add(record.toXml(strings)));
+        List<XmlAdaptedTag> tags = new ArrayList<>(file.tagIndexes.length);
+        for (int tagIndex : file.tagIndexes) {
+            XmlAdaptedTag tag = new XmlAdaptedTag();
+            tag.tagName = file.strings[tagIndex];
+            tags.add(tag);
+        }
+        Long journalSequence = file.journalSequence == NO_JOURNAL_SEQUENCE ? null : file.journalSequence;
+        return new XmlSerializableTaskManager(tasks, tags, journalSequence);
+    }
+
+    /**
+     * Reads the file header and blocks, handing each task to {@code sink} as
+     * soon as it has been decoded rather than keeping all of them around.
+     */
+    private static DecodedFile readFile(InputStream input, RecordSink sink)
+            throws DataConversionException, IOException {
+        DataInputStream in = new DataInputStream(input);
+        DecodedFile file = new DecodedFile();
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new DataConversionException(new IOException("Not a binary task manager file"));
+            }
+            int version = in.readUnsignedShort();
+            if (version != FORMAT_VERSION) {
+                throw new DataConversionException(new IOException("Unsupported binary format version " + version));
+            }
+            file.journalSequence = in.readLong();
+            int taskCount = in.readInt();
+            int tasksRead = 0;
+
+            byte type;
+            while ((type = in.readByte()) != BLOCK_END) {
+                ByteBuffer block = readBlock(in);
+                switch (type) {
+                case BLOCK_STRINGS:
+                    file.strings = readStrings(block);
+                    break;
+                case BLOCK_TASKS:
+                    int count = readVarInt(block);
+                    for (int i = 0; i < count; i++) {
+                        sink.accept(TaskRecord.readFrom(block, file.strings), file.strings);
+                    }
+                    tasksRead += count;
+                    break;
+                case BLOCK_TAGS:
+                    file.tagIndexes = new int[readVarInt(block)];
+                    for (int i = 0; i < file.tagIndexes.length; i++) {
+                        file.tagIndexes[i] = checkIndex(readVarInt(block), file.strings);
+                    }
+                    break;
+                default:
+                    // blocks added by later minor revisions can be skipped
+                    break;
+                }
+            }
+            readBlock(in);
+            if (tasksRead != taskCount) {
+                throw new DataConversionException(
+                        new IOException("Expected " + taskCount + " tasks but found " + tasksRead));
+            }
+        } catch (EOFException | BufferUnderflowException e) {
+            throw new DataConversionException(new IOException("Binary task manager file is truncated", e));
+        } catch (IllegalValueException e) {
+            throw new DataConversionException(e);
+        }
+        return file;
+    }
+
+    private static ByteBuffer readBlock(DataInputStream in) throws DataConversionException, IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new DataConversionException(new IOException("Invalid block length " + length));
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        int checksum = in.readInt();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            throw new DataConversionException(new IOException("Checksum mismatch in binary task manager file"));
+        }
+        return ByteBuffer.wrap(payload);
+    }
+
+    private static String[] readStrings(ByteBuffer block) {
+        String[] strings = new String[readVarInt(block)];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readVarInt(block);
+            strings[i] = new String(block.array(), block.position(), length, StandardCharsets.UTF_8);
+            block.position(block.position() + length);
+        }
+        return strings;
+    }
+
+    private static int checkIndex(int index, String[] strings) throws DataConversionException {
+        if (strings == null || index < 0 || index >= strings.length) {
+            throw new DataConversionException(new IOException("Invalid string reference " + index));
+        }
+        return index;
+    }
+
+    //// encoding helpers
+
+    static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * A growable byte array with varint support.
+     */
+    static class ByteSink {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+    }
+
+    /**
+     * Assigns each distinct string an index in order of first use.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = strings.size();
+                indexes.put(value, index);
+                strings.add(value);
+            }
+            return index;
+        }
+
+        /** Returns index + 1, or 0 for null. */
+        int reference(String value) {
+            return value == null ? 0 : indexOf(value) + 1;
+        }
+
+        ByteSink toBlock() {
+            ByteSink block = new ByteSink();
+            block.writeVarInt(strings.size());
+            for (String value : strings) {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                block.writeVarInt(encoded.length);
+                block.writeBytes(encoded);
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Model objects built from the string table, shared between tasks that use
+     * the same string. They are all immutable.
+     */
+    private static class ModelCache {
+        private final String[] strings;
+        private final Title[] titles;
+        private final Location[] locations;
+        private final Description[] descriptions;
+        private final Tag[] tags;
+
+        ModelCache(String[] strings) {
+            this.strings = strings == null ? new String[0] : strings;
+            titles = new Title[this.strings.length];
+            locations = new Location[this.strings.length];
+            descriptions = new Description[this.strings.length];
+            tags = new Tag[this.strings.length];
+        }
+
+        Title title(int index) throws IllegalValueException {
+            if (index < 0) {
+                throw new IllegalValueException(Title.MESSAGE_NAME_CONSTRAINTS);
+            }
+            if (titles[index] == null) {
+                titles[index] = new Title(strings[index]);
+            }
+            return titles[index];
+        }
+
+        Location location(int index) throws IllegalValueException {
+            if (index < 0) {
+                throw new IllegalValueException(Location.MESSAGE_LOCATION_CONSTRAINTS);
+            }
+            if (locations[index] == null) {
+                locations[index] = new Location(strings[index]);
+            }
+            return locations[index];
+        }
+
+        Description description(int index) {
+            if (index < 0) {
+                return new Description(null);
+            }
+            if (descriptions[index] == null) {
+                descriptions[index] = new Description(strings[index]);
+            }
+            return descriptions[index];
+        }
+
+        Tag tag(int index) throws IllegalValueException {
+            if (tags[index] == null) {
+                tags[index] = new Tag(strings[index]);
+            }
+            return tags[index];
+        }
+    }
+
+    /**
+     * The parts of a file other than its tasks.
+     */
+    private static class DecodedFile {
+        private String[] strings;
+        private int[] tagIndexes = new int[0];
+        private long journalSequence;
+    }
+
+    /**
+     * Receives the tasks of a file as they are decoded.
+     */
+    private interface RecordSink {
+        void accept(TaskRecord record, String[] strings) throws IllegalValueException;
+    }
+
+    /**
+     * One task as stored in a task block. When writing, {@code values} holds
+     * the strings of the task; when reading, {@code references} holds their
+     * string table indexes, with -1 standing for null.
+     */
+    private static class TaskRecord {
+        private static final int FIELD_TITLE = 0;
+        private static final int FIELD_LOCATION = 1;
+        private static final int FIELD_DESCRIPTION = 2;
+        private static final int FIELD_PERIOD = 3;
+        /** Raw text of the schedules, in the order of {@link #schedules}. */
+        private static final int FIELD_RAW_SCHEDULE = 4;
+        private static final int FIELD_COMPLETED = 7;
+        private static final int FIELD_IS_RECURRING = 8;
+        private static final int FIELD_RECURRENCE_START = 9;
+        private static final int FIELD_RECURRENCE_PERIODICITY = 10;
+        private static final int FIELD_RECURRENCE_DONE_LIST = 11;
+        private static final int FIELD_COUNT = 12;
+
+        private static final int SCHEDULE_START_TIME = 0;
+        private static final int SCHEDULE_END_TIME = 1;
+        private static final int SCHEDULE_DEADLINE = 2;
+        private static final int SCHEDULE_COUNT = 3;
+
+        /** Start of an empty {@link Recurrence}, which is slow to format. */
+        private static final String NO_RECURRENCE_START = new Recurrence().getStartTimeString();
+
+        private final long[] schedules = new long[SCHEDULE_COUNT];
+        private int flags;
+        private String[] values;
+        private String[] tagNames;
+        private int[] references;
+        private int[] tags;
+
+        static TaskRecord fromEvent(ReadOnlyEvent event) {
+            TaskRecord record = new TaskRecord();
+            record.values = new String[FIELD_COUNT];
+            record.values[FIELD_TITLE] = event.getTitle().fullName;
+            record.values[FIELD_LOCATION] = event.getLocation().value;
+            record.values[FIELD_DESCRIPTION] = event.getDescription().value;
+            record.schedules[SCHEDULE_START_TIME] = encodeSchedule(event.getStartTime());
+            record.schedules[SCHEDULE_END_TIME] = encodeSchedule(event.getEndTime());
+            record.schedules[SCHEDULE_DEADLINE] = encodeSchedule(event.getDeadline());
+            record.setStatus(event.getIsDone().getValue(),
+                    event.isRecurring() ? XmlAdaptedTask.RECURRING_YES : XmlAdaptedTask.RECURRING_NO);
+            if (event.isRecurring()) {
+                Recurrence recurrence = event.getRecurrence();
+                record.values[FIELD_RECURRENCE_START] = recurrence.getStartTimeString();
+                record.values[FIELD_RECURRENCE_PERIODICITY] = recurrence.getPeriodicity();
+                record.values[FIELD_RECURRENCE_DONE_LIST] = recurrence.getDoneListString();
+            } else {
+                // the recurrence of a task that does not recur is never read back
+                record.values[FIELD_RECURRENCE_START] = NO_RECURRENCE_START;
+                record.values[FIELD_RECURRENCE_PERIODICITY] = Recurrence.RECURRENCE_NONE;
+                record.values[FIELD_RECURRENCE_DONE_LIST] = Recurrence.STRING_EMPTY;
+            }
+
+            List<String> tagNames = new ArrayList<>();
+            for (Tag tag : event.getTags()) {
+                tagNames.add(tag.tagName);
+            }
+            record.tagNames = tagNames.toArray(new String[tagNames.size()]);
+            return record;
+        }
+
+        static TaskRecord fromXml(XmlAdaptedTask task) {
+            TaskRecord record = new TaskRecord();
+            record.values = new String[FIELD_COUNT];
+            record.values[FIELD_TITLE] = task.getTitle();
+            record.values[FIELD_LOCATION] = task.getLocation();
+            record.values[FIELD_DESCRIPTION] = task.getDescription();
+            record.values[FIELD_PERIOD] = task.getPeriod();
+            record.setSchedule(SCHEDULE_START_TIME, task.getStartTime());
+            record.setSchedule(SCHEDULE_END_TIME, task.getEndTime());
+            record.setSchedule(SCHEDULE_DEADLINE, task.getDeadline());
+            record.setStatus(task.getCompleted(), task.getIsRecurring());
+            record.values[FIELD_RECURRENCE_START] = task.getRecurrenceStart();
+            record.values[FIELD_RECURRENCE_PERIODICITY] = task.getRecurrencePeriodicity();
+            record.values[FIELD_RECURRENCE_DONE_LIST] = task.getRecurrenceDoneList();
+
+            List<XmlAdaptedTag> tagged = task.getTagged();
+            record.tagNames = new String[tagged.size()];
+            for (int i = 0; i < tagged.size(); i++) {
+                record.tagNames[i] = tagged.get(i).tagName;
+            }
+            return record;
+        }
+
+        private static long encodeSchedule(Schedule schedule) {
+            if (schedule == null || schedule.isEmpty()) {
+                return SCHEDULE_EMPTY;
+            }
+            return schedule.getTime();
+        }
+
+        /**
+         * Stores the text of a schedule as epoch millis if it formats back to
+         * the same text, and as a raw string otherwise.
+         */
+        private void setSchedule(int schedule, String text) {
+            if (text == null) {
+                schedules[schedule] = SCHEDULE_ABSENT;
+                return;
+            } else if (text.isEmpty()) {
+                schedules[schedule] = SCHEDULE_EMPTY;
+                return;
+            }
+            try {
+                Schedule parsed = new Schedule(text);
+                if (!parsed.isEmpty() && parsed.toString().equals(text)) {
+                    schedules[schedule] = parsed.getTime();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // not in the usual format, keep it as it is
+            }
+            schedules[schedule] = SCHEDULE_RAW;
+            values[FIELD_RAW_SCHEDULE + schedule] = text;
+        }
+
+        /**
+         * Stores the done and recurring values as flags if they have one of
+         * their usual values, and as strings otherwise.
+         */
+        private void setStatus(String done, String recurring) {
+            boolean isDoneUsual = IsDone.ISDONE_DONE.equals(done) || IsDone.ISDONE_NOTDONE.equals(done);
+            boolean isRecurringUsual = XmlAdaptedTask.RECURRING_YES.equals(recurring)
+                    || XmlAdaptedTask.RECURRING_NO.equals(recurring);
+            if (isDoneUsual && isRecurringUsual) {
+                flags |= IsDone.ISDONE_DONE.equals(done) ? FLAG_DONE : 0;
+                flags |= XmlAdaptedTask.RECURRING_YES.equals(recurring) ? FLAG_RECURRING : 0;
+            } else {
+                flags |= FLAG_RAW_STATUS;
+                values[FIELD_COMPLETED] = done;
+                values[FIELD_IS_RECURRING] = recurring;
+            }
+        }
+
+        void writeTo(ByteSink out, StringTable strings) {
+            for (int field = FIELD_TITLE; field <= FIELD_PERIOD; field++) {
+                out.writeVarInt(strings.reference(values[field]));
+            }
+            for (int schedule = 0; schedule < SCHEDULE_COUNT; schedule++) {
+                out.writeLong(schedules[schedule]);
+                if (schedules[schedule] == SCHEDULE_RAW) {
+                    out.writeVarInt(strings.reference(values[FIELD_RAW_SCHEDULE + schedule]));
+                }
+            }
+            out.writeByte(flags);
+            if ((flags & FLAG_RAW_STATUS) != 0) {
+                out.writeVarInt(strings.reference(values[FIELD_COMPLETED]));
+                out.writeVarInt(strings.reference(values[FIELD_IS_RECURRING]));
+            }
+            for (int field = FIELD_RECURRENCE_START; field <= FIELD_RECURRENCE_DONE_LIST; field++) {
+                out.writeVarInt(strings.reference(values[field]));
+            }
+            out.writeVarInt(tagNames.length);
+            for (String tagName : tagNames) {
+                out.writeVarInt(strings.indexOf(tagName));
+            }
+        }
+
+        static TaskRecord readFrom(ByteBuffer in, String[] strings) throws DataConversionException {
+            TaskRecord record = new TaskRecord();
+            int[] references = new int[FIELD_COUNT];
+            Arrays.fill(references, -1);
+            for (int field = FIELD_TITLE; field <= FIELD_PERIOD; field++) {
+                references[field] = readReference(in, strings);
+            }
+            for (int schedule = 0; schedule < SCHEDULE_COUNT; schedule++) {
+                record.schedules[schedule] = in.getLong();
+                if (record.schedules[schedule] == SCHEDULE_RAW) {
+                    references[FIELD_RAW_SCHEDULE + schedule] = readReference(in, strings);
+                }
+            }
+            record.flags = in.get();
+            if ((record.flags & FLAG_RAW_STATUS) != 0) {
+                references[FIELD_COMPLETED] = readReference(in, strings);
+                references[FIELD_IS_RECURRING] = readReference(in, strings);
+            }
+            for (int field = FIELD_RECURRENCE_START; field <= FIELD_RECURRENCE_DONE_LIST; field++) {
+                references[field] = readReference(in, strings);
+            }
+            record.tags = new int[readVarInt(in)];
+            for (int i = 0; i < record.tags.length; i++) {
+                record.tags[i] = checkIndex(readVarInt(in), strings);
+            }
+            record.references = references;
+            return record;
+        }
+
+        private static int readReference(ByteBuffer in, String[] strings) throws DataConversionException {
+            int reference = readVarInt(in);
+            return reference == 0 ? -1 : checkIndex(reference - 1, strings);
+        }
+
+        private String valueOf(int field, String[] strings) {
+            int index = references[field];
+            return index < 0 ? null : strings[index];
+        }
+
+        private String getCompleted(String[] strings) {
+            if ((flags & FLAG_RAW_STATUS) != 0) {
+                return valueOf(FIELD_COMPLETED, strings);
+            }
+            return (flags & FLAG_DONE) != 0 ? IsDone.ISDONE_DONE : IsDone.ISDONE_NOTDONE;
+        }
+
+        private String getIsRecurring(String[] strings) {
+            if ((flags & FLAG_RAW_STATUS) != 0) {
+                return valueOf(FIELD_IS_RECURRING, strings);
+            }
+            return (flags & FLAG_RECURRING) != 0 ? XmlAdaptedTask.RECURRING_YES : XmlAdaptedTask.RECURRING_NO;
+        }
+
+        /**
+         * Converts this record into an event the same way
+         * {@link XmlAdaptedTask#toModelType()} would.
+         */
+        Event toEvent(ModelCache cache) throws IllegalValueException {
+            String[] strings = cache.strings;
+            List<Tag> eventTags = new ArrayList<>(tags.length);
+            for (int tag : tags) {
+                eventTags.add(cache.tag(tag));
+            }
+            boolean isRecurringTask = XmlAdaptedTask.RECURRING_YES.equals(getIsRecurring(strings));
+            Recurrence recurrence = new Recurrence();
+            if (isRecurringTask) {
+                recurrence = new Recurrence(valueOf(FIELD_RECURRENCE_START, strings),
+                        valueOf(FIELD_RECURRENCE_PERIODICITY, strings), valueOf(FIELD_RECURRENCE_DONE_LIST, strings));
+            }
+            return new Event(cache.title(references[FIELD_TITLE]), cache.location(references[FIELD_LOCATION]),
+                    toSchedule(SCHEDULE_START_TIME, strings), toSchedule(SCHEDULE_END_TIME, strings),
+                    toSchedule(SCHEDULE_DEADLINE, strings), cache.description(references[FIELD_DESCRIPTION]),
+                    new UniqueTagList(eventTags), new IsDone(getCompleted(strings)), isRecurringTask, recurrence);
+        }
+
+        private Schedule toSchedule(int schedule, String[] strings) {
+            long value = schedules[schedule];
+            if (value == SCHEDULE_RAW) {
+                return new Schedule(valueOf(FIELD_RAW_SCHEDULE + schedule, strings));
+            } else if (value == SCHEDULE_EMPTY || value == SCHEDULE_ABSENT) {
+                return new Schedule(Schedule.NO_TIME);
+            }
+            return new Schedule(value);
+        }
+
+        XmlAdaptedTask toXml(String[] strings) {
+            XmlAdaptedTask task = new XmlAdaptedTask();
+            task.setTitle(valueOf(FIELD_TITLE, strings));
+            task.setLocation(valueOf(FIELD_LOCATION, strings));
+            task.setDescription(valueOf(FIELD_DESCRIPTION, strings));
+            task.setPeriod(valueOf(FIELD_PERIOD, strings));
+            task.setStartTime(toScheduleText(SCHEDULE_START_TIME, strings));
+            task.setEndTime(toScheduleText(SCHEDULE_END_TIME, strings));
+            task.setDeadline(toScheduleText(SCHEDULE_DEADLINE, strings));
+            task.setCompleted(getCompleted(strings));
+            task.setIsRecurring(getIsRecurring(strings));
+            task.setRecurrenceStart(valueOf(FIELD_RECURRENCE_START, strings));
+            task.setRecurrencePeriodicity(valueOf(FIELD_RECURRENCE_PERIODICITY, strings));
+            task.setRecurrenceDoneList(valueOf(FIELD_RECURRENCE_DONE_LIST, strings));
+            for (int tag : tags) {
+                XmlAdaptedTag adaptedTag = new XmlAdaptedTag();
+                adaptedTag.tagName = strings[tag];
+                task.getTagged().add(adaptedTag);
+            }
+            return task;
+        }
+
+        private String toScheduleText(int schedule, String[] strings) {
+            long value = schedules[schedule];
+            if (value == SCHEDULE_ABSENT) {
+                return null;
+            } else if (value == SCHEDULE_EMPTY) {
+                return Schedule.STRING_EMPTY;
+            } else if (value == SCHEDULE_RAW) {
+                return valueOf(FIELD_RAW_SCHEDULE + schedule, strings);
+            }
+            return new Schedule(value).toString();
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.teamstbf.yats.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+
+/**
+ * A {@link TaskManagerStorage} that keeps the task manager in the format of
+ * {@link BinaryTaskManagerCodec}, in {@code <file>.bin} next to the XML data
+ * file.
+ *
+ * If there is no binary file yet, the XML data file is read instead, so that
+ * switching to this storage keeps existing data. The XML file is left as it
+ * is.
+ */
+public class BinaryTaskManagerStorage implements TaskManagerStorage {
+
+    static final String BINARY_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Logger logger = LogsCenter.getLogger(BinaryTaskManagerStorage.class);
+
+    private final XmlTaskManagerStorage xmlStorage;
+
+    /**
+     * @param xmlStorage
+     *            provides the location of the data file, and is read from if
+     *            there is no binary file yet.
+     */
+    public BinaryTaskManagerStorage(XmlTaskManagerStorage xmlStorage) {
+        assert xmlStorage != null;
+        this.xmlStorage = xmlStorage;
+    }
+
+    public BinaryTaskManagerStorage(String filePath) {
+        this(new XmlTaskManagerStorage(filePath));
+    }
+
+    @Override
+    public String getTaskManagerFilePath() {
+        return xmlStorage.getTaskManagerFilePath();
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager() throws DataConversionException, IOException {
+        return readTaskManager(getTaskManagerFilePath());
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager(String filePath)
+            throws DataConversionException, IOException {
+        assert filePath != null;
+
+        File binaryFile = new File(filePath + BINARY_SUFFIX);
+        if (!binaryFile.exists()) {
+            logger.info("Binary TaskManager file " + binaryFile + " not found, reading " + filePath);
+            return xmlStorage.readTaskManager(filePath);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(binaryFile), BUFFER_SIZE)) {
+            return Optional.of(BinaryTaskManagerCodec.read(in));
+        }
+    }
+
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager) throws IOException {
+        saveTaskManager(taskManager, getTaskManagerFilePath());
+    }
+
+    /**
+     * Writes the binary file through a temporary file, so that a crash while
+     * saving never leaves a half-written data file behind.
+     */
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        assert taskManager != null;
+        assert filePath != null;
+
+        File file = new File(filePath + BINARY_SUFFIX);
+        File tempFile = new File(filePath + BINARY_SUFFIX + TEMP_SUFFIX);
+        FileUtil.createParentDirsOfFile(tempFile);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE)) {
+            BinaryTaskManagerCodec.write(out, taskManager);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
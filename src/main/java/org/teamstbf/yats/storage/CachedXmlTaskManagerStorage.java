@@ -0,0 +1,282 @@
+package org.teamstbf.yats.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+
+/**
+ * A {@link TaskManagerStorage} that saves to the XML data file, and keeps a
+ * binary image of the same data in {@code <file>.cache} to read from instead.
+ *
+ * The cache is only used if the size, modification time and checksum of the
+ * XML file are still those recorded in it, so the XML file stays the data
+ * file and can be edited by hand: an edited file is read as it is, see
+ * {@link XmlTaskManagerStorage#readDataFile(File)}. The checksum is the one
+ * written at the end of the XML file, so checking the cache reads only the
+ * end of the file. Otherwise the XML file is read, and the cache is rebuilt
+ * on a background thread. The cache is also rebuilt in the background after
+ * each save, from a snapshot of the saved data; a rebuild still waiting when
+ * a later one is requested is dropped.
+ */
+public class CachedXmlTaskManagerStorage implements TaskManagerStorage {
+
+    static final String CACHE_SUFFIX = ".cache";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x59545343; // "YTSC"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Logger logger = LogsCenter.getLogger(CachedXmlTaskManagerStorage.class);
+
+    private final XmlTaskManagerStorage xmlStorage;
+    private final ExecutorService cacheWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-manager-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The number of cache rebuilds requested, so that each can tell whether it is the latest. */
+    private final AtomicLong cacheRequests = new AtomicLong();
+    private volatile Future<?> lastCacheWrite;
+    private volatile boolean isLastReadFromCache;
+
+    public CachedXmlTaskManagerStorage(XmlTaskManagerStorage xmlStorage) {
+        assert xmlStorage != null;
+        this.xmlStorage = xmlStorage;
+    }
+
+    public CachedXmlTaskManagerStorage(String filePath) {
+        this(new XmlTaskManagerStorage(filePath));
+    }
+
+    @Override
+    public String getTaskManagerFilePath() {
+        return xmlStorage.getTaskManagerFilePath();
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager() throws DataConversionException, IOException {
+        return readTaskManager(getTaskManagerFilePath());
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager(String filePath)
+            throws DataConversionException, IOException {
+        assert filePath != null;
+
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return xmlStorage.readTaskManager(filePath);
+        }
+        CacheKey key = keyOf(file);
+
+        Optional<ReadOnlyTaskManager> cached = readCache(filePath, key);
+        isLastReadFromCache = cached.isPresent();
+        if (cached.isPresent()) {
+            return cached;
+        }
+        ReadOnlyTaskManager taskManager;
+        try {
+            taskManager = XmlTaskManagerStorage.readDataFile(file);
+        } catch (DataConversionException e) {
+            // lets the XML storage fall back to the previous version of the file
+            return xmlStorage.readTaskManager(filePath);
+        }
+        startCacheWriter(filePath, key, taskManager);
+        return Optional.of(taskManager);
+    }
+
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager) throws IOException {
+        saveTaskManager(taskManager, getTaskManagerFilePath());
+    }
+
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        assert taskManager != null;
+        assert filePath != null;
+
+        long checksum = xmlStorage.save(taskManager, filePath);
+        File file = new File(filePath);
+        startCacheWriter(filePath, new CacheKey(file.length(), file.lastModified(), checksum),
+                TaskManagerSnapshot.of(taskManager));
+    }
+
+    boolean isLastReadFromCache() {
+        return isLastReadFromCache;
+    }
+
+    /**
+     * Blocks until the cache rebuilds requested so far have finished or been
+     * dropped.
+     */
+    void awaitCacheWriter() {
+        Future<?> last = lastCacheWrite;
+        if (last == null) {
+            return;
+        }
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warning("Could not write TaskManager cache: " + e.getCause());
+        }
+    }
+
+    //// cache file
+
+    /**
+     * Returns the task manager in the cache of {@code filePath} if the cache
+     * was made for the XML file described by {@code key}.
+     */
+    private Optional<ReadOnlyTaskManager> readCache(String filePath, CacheKey key) {
+        File cacheFile = new File(filePath + CACHE_SUFFIX);
+        if (!cacheFile.exists()) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Ignoring TaskManager cache " + cacheFile + " of an unknown version");
+                return Optional.empty();
+            }
+            if (!key.equals(CacheKey.readFrom(in))) {
+                logger.info("TaskManager cache " + cacheFile + " is out of date, reading " + filePath);
+                return Optional.empty();
+            }
+            return Optional.of(BinaryTaskManagerCodec.read(in));
+        } catch (EOFException | DataConversionException e) {
+            logger.warning("TaskManager cache " + cacheFile + " is corrupted, reading " + filePath);
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warning("Could not read TaskManager cache " + cacheFile + ": " + e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Queues a rebuild of the cache of {@code filePath}, which is dropped if
+     * another one is queued before it starts.
+     */
+    private void startCacheWriter(String filePath, CacheKey key, ReadOnlyTaskManager taskManager) {
+        long request = cacheRequests.incrementAndGet();
+        lastCacheWrite = cacheWriter.submit(() -> {
+            if (request == cacheRequests.get()) {
+                writeCacheQuietly(filePath, key, taskManager);
+            }
+        });
+    }
+
+    /**
+     * Writes the cache of {@code filePath}, or removes it if it cannot be
+     * written. Failing to write the cache never fails a read or save. Only
+     * runs on the cache writer thread.
+     */
+    private void writeCacheQuietly(String filePath, CacheKey key, ReadOnlyTaskManager taskManager) {
+        File cacheFile = new File(filePath + CACHE_SUFFIX);
+        File tempFile = new File(filePath + CACHE_SUFFIX + TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                key.writeTo(out);
+                BinaryTaskManagerCodec.write(out, taskManager);
+            }
+            try {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warning("Could not write TaskManager cache " + cacheFile + ": " + e);
+            cacheFile.delete();
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Returns the key of the XML file as it is now. Files without a checksum
+     * at their end, such as ones written by an older version, are read
+     * through a CRC32 instead.
+     */
+    private static CacheKey keyOf(File file) throws IOException {
+        long length = file.length();
+        long modified = file.lastModified();
+        Long checksum = XmlTaskManagerCodec.readChecksum(file);
+        if (checksum == null) {
+            try (CheckedInputStream in = new CheckedInputStream(new FileInputStream(file), new CRC32())) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (in.read(buffer) != -1) {
+                    // only read to be checked
+                }
+                checksum = in.getChecksum().getValue();
+            }
+        }
+        return new CacheKey(length, modified, checksum);
+    }
+
+    /**
+     * Identifies the contents of an XML data file.
+     */
+    private static class CacheKey {
+        private final long length;
+        private final long modified;
+        private final long checksum;
+
+        CacheKey(long length, long modified, long checksum) {
+            this.length = length;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        static CacheKey readFrom(DataInputStream in) throws IOException {
+            return new CacheKey(in.readLong(), in.readLong(), in.readLong());
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(length);
+            out.writeLong(modified);
+            out.writeLong(checksum);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other == this
+                    || (other instanceof CacheKey
+                            && length == ((CacheKey) other).length
+                            && modified == ((CacheKey) other).modified
+                            && checksum == ((CacheKey) other).checksum);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(length ^ modified ^ checksum);
+        }
+    }
+
+}
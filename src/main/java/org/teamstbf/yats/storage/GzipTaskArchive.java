@@ -0,0 +1,133 @@
+package org.teamstbf.yats.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.model.TaskArchive;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Recurrence;
+
+/**
+ * A {@link TaskArchive} kept in {@code <data file>.archive.gz}, next to the
+ * data file of a {@link TaskManagerStorage}.
+ *
+ * Each batch of archived events is appended as a separate gzip member holding
+ * a {@link BinaryTaskManagerCodec} document, so archiving never rewrites
+ * what is already in the archive.
+ *
+ * The archive is forced to disk before the archived events are removed from
+ * the data file, which is saved later. If the app stops in between, the same
+ * events are archived again at the next startup, so a task archived more than
+ * once, with all the same fields, is read back only once.
+ */
+public class GzipTaskArchive implements TaskArchive {
+
+    static final String ARCHIVE_SUFFIX = ".archive.gz";
+
+    private static final Logger logger = LogsCenter.getLogger(GzipTaskArchive.class);
+
+    private final TaskManagerStorage taskManagerStorage;
+
+    /**
+     * @param taskManagerStorage
+     *            provides the location of the data file, which the archive
+     *            follows if it changes.
+     */
+    public GzipTaskArchive(TaskManagerStorage taskManagerStorage) {
+        assert taskManagerStorage != null;
+        this.taskManagerStorage = taskManagerStorage;
+    }
+
+    private File getArchiveFile() {
+        return new File(taskManagerStorage.getTaskManagerFilePath() + ARCHIVE_SUFFIX);
+    }
+
+    /**
+     * Appends {@code events} to the archive file. If writing fails part way,
+     * the file is cut back to its previous length.
+     */
+    @Override
+    public synchronized void archiveEvents(List<? extends ReadOnlyEvent> events) throws IOException {
+        assert events != null;
+        if (events.isEmpty()) {
+            return;
+        }
+        File file = getArchiveFile();
+        FileUtil.createParentDirsOfFile(file);
+        try (FileOutputStream fileOut = new FileOutputStream(file, true)) {
+            long previousLength = fileOut.getChannel().size();
+            try {
+                BufferedOutputStream bufferedOut = new BufferedOutputStream(fileOut);
+                GZIPOutputStream out = new GZIPOutputStream(bufferedOut);
+                BinaryTaskManagerCodec.write(out, new TaskManagerSnapshot(events, Collections.emptyList()));
+                out.finish();
+                bufferedOut.flush();
+                fileOut.getChannel().force(true);
+            } catch (IOException e) {
+                fileOut.getChannel().truncate(previousLength);
+                throw e;
+            }
+        }
+        logger.info("Archived " + events.size() + " tasks to " + file);
+    }
+
+    @Override
+    public synchronized List<ReadOnlyEvent> readArchivedEvents() throws DataConversionException, IOException {
+        File file = getArchiveFile();
+        List<ReadOnlyEvent> events = new ArrayList<>();
+        if (!file.exists()) {
+            return events;
+        }
+        Set<String> keys = new HashSet<>();
+        // a GZIPInputStream reads all the members of the file one after another
+        try (PushbackInputStream in = new PushbackInputStream(
+                new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            int next;
+            while ((next = in.read()) != -1) {
+                in.unread(next);
+                for (ReadOnlyEvent event : BinaryTaskManagerCodec.read(in).getTaskList()) {
+                    if (keys.add(identityKeyOf(event))) {
+                        events.add(event);
+                    }
+                }
+            }
+        } catch (ZipException | EOFException e) {
+            throw new DataConversionException(e);
+        }
+        return events;
+    }
+
+    /**
+     * Returns all the fields of {@code event}, which tell a task archived
+     * again apart from another task with the same title and description.
+     */
+    private static String identityKeyOf(ReadOnlyEvent event) {
+        StringBuilder key = new StringBuilder(event.getAsText()).append("\nDeadline: ").append(event.getDeadline());
+        if (event.isRecurring()) {
+            Recurrence recurrence = event.getRecurrence();
+            key.append("\nRecurrence: ").append(recurrence.getStartTimeString()).append(' ')
+                    .append(recurrence.getPeriodicity()).append(' ').append(recurrence.getDoneListString());
+        }
+        return key.toString();
+    }
+
+}
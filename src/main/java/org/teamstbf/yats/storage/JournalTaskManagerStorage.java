@@ -0,0 +1,558 @@
+package org.teamstbf.yats.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.tag.Tag;
+
+/**
+ * A {@link TaskManagerStorage} that keeps an XML snapshot of the task manager
+ * plus an append-only journal of the changes made since that snapshot.
+ *
+ * Each saved change costs one small record appended to
+ * {@code <file>.journal} instead of a rewrite of the whole XML file. Reading
+ * replays the journal on top of the snapshot. Once the journal grows past the
+ * compaction threshold it is set aside and a fresh snapshot is written on a
+ * background thread.
+ *
+ * A new snapshot replaces the old one only once it is on disk and has been
+ * read back. The old snapshot and the journals leading from it to the new one
+ * are then kept as {@code <file>.bak}, {@code <file>.bak.journal.compacting}
+ * and {@code <file>.bak.journal}, and are read instead if the snapshot is
+ * missing or cannot be read.
+ */
+public class JournalTaskManagerStorage implements TaskManagerStorage {
+
+    static final String JOURNAL_SUFFIX = ".journal";
+    static final String COMPACTING_SUFFIX = ".journal.compacting";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Logger logger = LogsCenter.getLogger(JournalTaskManagerStorage.class);
+
+    private static final int JOURNAL_MAGIC = 0x59544a4c; // "YTJL"
+    private static final int JOURNAL_VERSION = 1;
+    private static final int JOURNAL_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_UPDATE = 2;
+    private static final byte RECORD_REMOVE = 3;
+
+    private final XmlTaskManagerStorage snapshotStorage;
+    private final long compactionThreshold;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** File path whose journal is open for appending, null if none is. */
+    private String journalFilePath;
+    private DataOutputStream journalOut;
+    private FileOutputStream journalFileOut;
+    private long journalSize;
+    /** Sequence number of the last record written or replayed. */
+    private long sequence;
+    /** Whether the last read of the data file had to fall back to the previous snapshot. */
+    private boolean isSnapshotUnreadable;
+    private Future<?> compaction;
+
+    /**
+     * @param snapshotStorage
+     *            provides the location of the data file. The snapshot is
+     *            written to that location in the same format.
+     * @param compactionThreshold
+     *            size in bytes the journal may reach before it is compacted.
+     */
+    public JournalTaskManagerStorage(XmlTaskManagerStorage snapshotStorage, long compactionThreshold) {
+        assert snapshotStorage != null;
+        assert compactionThreshold > 0;
+        this.snapshotStorage = snapshotStorage;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public JournalTaskManagerStorage(String filePath, long compactionThreshold) {
+        this(new XmlTaskManagerStorage(filePath), compactionThreshold);
+    }
+
+    @Override
+    public String getTaskManagerFilePath() {
+        return snapshotStorage.getTaskManagerFilePath();
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager() throws DataConversionException, IOException {
+        return readTaskManager(getTaskManagerFilePath());
+    }
+
+    /**
+     * Reads the snapshot at {@code filePath} and replays any journal next to
+     * it. A torn record at the end of the journal, e.g. from a crash during
+     * the last append, is ignored. If the snapshot is missing or cannot be
+     * read, the previous snapshot is read instead and all the journals kept
+     * since are replayed on top of it.
+     *
+     * @throws DataConversionException
+     *             if neither snapshot can be read, or the journals do not
+     *             follow on from the snapshot read.
+     */
+    @Override
+    public synchronized Optional<ReadOnlyTaskManager> readTaskManager(String filePath)
+            throws DataConversionException, IOException {
+        assert filePath != null;
+
+        boolean isDataFile = filePath.equals(getTaskManagerFilePath());
+        if (isDataFile) {
+            awaitCompaction();
+        }
+        File snapshotFile = new File(filePath);
+        String backupPath = filePath + XmlTaskManagerStorage.BACKUP_SUFFIX;
+        boolean hasBackup = new File(backupPath).exists();
+        if (!snapshotFile.exists() && !hasBackup && !new File(filePath + COMPACTING_SUFFIX).exists()
+                && !new File(filePath + JOURNAL_SUFFIX).exists()) {
+            logger.info("TaskManager file " + snapshotFile + " not found");
+            return Optional.empty();
+        }
+
+        List<ReadOnlyEvent> events = new ArrayList<>();
+        List<Tag> tags = new ArrayList<>();
+        ReplayResult replayed = null;
+        if (snapshotFile.exists() || !hasBackup) {
+            try {
+                replayed = readGeneration(filePath, events, tags, filePath);
+            } catch (DataConversionException e) {
+                if (!hasBackup) {
+                    throw e;
+                }
+                logger.warning("TaskManager file " + snapshotFile + " is corrupted (" + e.getMessage()
+                        + "), reading previous version " + backupPath);
+            }
+        } else {
+            logger.warning("TaskManager file " + snapshotFile + " not found, reading previous version "
+                    + backupPath);
+        }
+        boolean isFallback = replayed == null;
+        if (isFallback) {
+            events.clear();
+            tags.clear();
+            replayed = readGeneration(backupPath, events, tags, backupPath, filePath);
+        }
+
+        if (isDataFile) {
+            closeJournal();
+            sequence = replayed.lastSequence;
+            isSnapshotUnreadable = isFallback;
+            // Appending after a torn record would leave later records unreachable,
+            // and appending to a journal whose snapshot is unreadable would keep
+            // relying on the previous one, so the next save starts over with a
+            // fresh snapshot.
+            journalFilePath = replayed.isComplete && !isFallback ? filePath : null;
+        }
+        return Optional.of(new TaskManagerSnapshot(events, tags));
+    }
+
+    /**
+     * Reads the snapshot at {@code snapshotPath}, if any, into {@code events}
+     * and {@code tags}, then replays the journals set aside for compaction and
+     * the journals next to each of {@code journalPaths} in turn.
+     */
+    private static ReplayResult readGeneration(String snapshotPath, List<ReadOnlyEvent> events, List<Tag> tags,
+            String... journalPaths) throws DataConversionException, IOException {
+        File snapshotFile = new File(snapshotPath);
+        long lastSequence = 0;
+        if (snapshotFile.exists()) {
+            XmlTaskManagerCodec.DecodedTaskManager snapshot = XmlTaskManagerCodec.read(snapshotFile);
+            events.addAll(snapshot.getTaskList());
+            tags.addAll(snapshot.getTagList());
+            lastSequence = snapshot.getJournalSequence();
+        }
+
+        boolean isComplete = true;
+        for (String journalPath : journalPaths) {
+            for (String suffix : new String[] { COMPACTING_SUFFIX, JOURNAL_SUFFIX }) {
+                ReplayResult journal = replay(new File(journalPath + suffix), lastSequence, events);
+                lastSequence = journal.lastSequence;
+                isComplete &= journal.isComplete;
+            }
+        }
+        return new ReplayResult(lastSequence, isComplete);
+    }
+
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager) throws IOException {
+        saveTaskManager(taskManager, getTaskManagerFilePath());
+    }
+
+    /**
+     * Writes a full snapshot of {@code taskManager} to {@code filePath}. If
+     * that is the current data file, its journal is cleared as well.
+     */
+    @Override
+    public synchronized void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        assert taskManager != null;
+        assert filePath != null;
+
+        if (!filePath.equals(getTaskManagerFilePath())) {
+            writeSnapshotFile(taskManager, filePath, 0, true, COMPACTING_SUFFIX, JOURNAL_SUFFIX);
+            return;
+        }
+
+        awaitCompaction();
+        closeJournal();
+        // an unreadable snapshot is no previous version worth keeping over the one already kept
+        writeSnapshotFile(taskManager, filePath, sequence, !isSnapshotUnreadable, COMPACTING_SUFFIX,
+                JOURNAL_SUFFIX);
+        isSnapshotUnreadable = false;
+        openJournal(filePath);
+    }
+
+    /**
+     * Appends {@code changes} to the journal. Falls back to a full snapshot if
+     * the changes are unknown, include a reset, or the data file has moved
+     * since the journal was opened.
+     */
+    @Override
+    public synchronized void saveTaskManagerChanges(ReadOnlyTaskManager taskManager,
+            List<TaskManagerChange> changes) throws IOException {
+        assert taskManager != null && changes != null;
+
+        String filePath = getTaskManagerFilePath();
+        if (changes.isEmpty() || containsReset(changes) || !filePath.equals(journalFilePath)) {
+            saveTaskManager(taskManager, filePath);
+            return;
+        }
+
+        if (journalOut == null) {
+            openJournal(filePath);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(buffer);
+        for (TaskManagerChange change : changes) {
+            writeRecord(records, ++sequence, change);
+        }
+        journalOut.write(buffer.toByteArray());
+        journalOut.flush();
+        journalFileOut.getChannel().force(false);
+        journalSize += buffer.size();
+
+        if (journalSize >= compactionThreshold) {
+            startCompaction(taskManager, filePath);
+        }
+    }
+
+    private static boolean containsReset(List<TaskManagerChange> changes) {
+        return changes.stream().anyMatch(change -> change.getType() == TaskManagerChange.Type.RESET);
+    }
+
+    //// compaction
+
+    /**
+     * Sets the current journal aside and writes a snapshot of
+     * {@code taskManager} in the background. Records appended in the meantime
+     * go to a new journal; the set-aside one is kept with the previous
+     * snapshot once the new snapshot is safely on disk.
+     */
+    private void startCompaction(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        if (compaction != null && !compaction.isDone()) {
+            return;
+        }
+        File compactingFile = new File(filePath + COMPACTING_SUFFIX);
+        if (compactingFile.exists()) {
+            // an earlier compaction did not finish; fold everything into a snapshot now
+            saveTaskManager(taskManager, filePath);
+            return;
+        }
+
+        closeJournal();
+        Files.move(new File(filePath + JOURNAL_SUFFIX).toPath(), compactingFile.toPath());
+        openJournal(filePath);
+
+        ReadOnlyTaskManager snapshot = TaskManagerSnapshot.of(taskManager);
+        long snapshotSequence = sequence;
+        logger.fine("Compacting journal of " + filePath + " up to record " + snapshotSequence);
+        compaction = compactor.submit(() -> {
+            try {
+                writeSnapshotFile(snapshot, filePath, snapshotSequence, true, COMPACTING_SUFFIX);
+            } catch (IOException e) {
+                logger.warning("Journal compaction failed, will retry later: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Blocks until the running background compaction, if any, has finished.
+     */
+    void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warning("Journal compaction failed: " + e.getCause());
+        }
+    }
+
+    //// file handling
+
+    /**
+     * Writes the snapshot to a temporary file and reads it back before it
+     * replaces the current one, so that a crash or a bad write never leaves
+     * only a half-written data file behind. The journals next to
+     * {@code filePath} with {@code foldedSuffixes}, whose records the snapshot
+     * now holds, are moved along with the snapshot they follow to
+     * {@code <file>.bak} if {@code isPreviousKept}, and deleted otherwise.
+     *
+     * The files are moved so that at every step a read finds either the new
+     * snapshot, or the previous one and every journal following it.
+     */
+    private static void writeSnapshotFile(ReadOnlyTaskManager taskManager, String filePath, long journalSequence,
+            boolean isPreviousKept, String... foldedSuffixes) throws IOException {
+        File file = new File(filePath);
+        File tempFile = new File(filePath + TEMP_SUFFIX);
+        FileUtil.createIfMissing(tempFile);
+        XmlTaskManagerCodec.write(tempFile, taskManager, journalSequence);
+        verifySnapshotFile(tempFile, journalSequence);
+
+        String backupPath = filePath + XmlTaskManagerStorage.BACKUP_SUFFIX;
+        if (isPreviousKept && file.exists()) {
+            Files.deleteIfExists(new File(backupPath + COMPACTING_SUFFIX).toPath());
+            Files.deleteIfExists(new File(backupPath + JOURNAL_SUFFIX).toPath());
+            FileUtil.moveAtomically(file, new File(backupPath));
+            for (String suffix : foldedSuffixes) {
+                File journalFile = new File(filePath + suffix);
+                if (journalFile.exists()) {
+                    FileUtil.moveAtomically(journalFile, new File(backupPath + suffix));
+                }
+            }
+            FileUtil.moveAtomically(tempFile, file);
+        } else {
+            FileUtil.moveAtomically(tempFile, file);
+            for (String suffix : foldedSuffixes) {
+                Files.deleteIfExists(new File(filePath + suffix).toPath());
+            }
+        }
+        FileUtil.syncParentDirectory(file);
+    }
+
+    /**
+     * Reads back the snapshot just written to {@code file}.
+     *
+     * @throws IOException
+     *             if it cannot be read or does not hold the records up to
+     *             {@code journalSequence}.
+     */
+    private static void verifySnapshotFile(File file, long journalSequence) throws IOException {
+        long readSequence;
+        try {
+            readSequence = XmlTaskManagerCodec.read(file).getJournalSequence();
+        } catch (DataConversionException e) {
+            throw new IOException("Snapshot " + file + " cannot be read back", e);
+        }
+        if (readSequence != journalSequence) {
+            throw new IOException("Snapshot " + file + " holds records up to " + readSequence + " instead of "
+                    + journalSequence);
+        }
+    }
+
+    private void openJournal(String filePath) throws IOException {
+        File journalFile = new File(filePath + JOURNAL_SUFFIX);
+        FileUtil.createParentDirsOfFile(journalFile);
+        boolean isNew = !journalFile.exists() || journalFile.length() == 0;
+
+        journalFileOut = new FileOutputStream(journalFile, true);
+        journalOut = new DataOutputStream(journalFileOut);
+        if (isNew) {
+            journalOut.writeInt(JOURNAL_MAGIC);
+            journalOut.writeInt(JOURNAL_VERSION);
+            journalOut.flush();
+        }
+        journalSize = journalFile.length();
+        journalFilePath = filePath;
+    }
+
+    private void closeJournal() throws IOException {
+        if (journalOut != null) {
+            journalOut.close();
+        }
+        journalOut = null;
+        journalFileOut = null;
+        journalFilePath = null;
+    }
+
+    //// record format
+
+    /**
+     * Writes one framed record: payload length, CRC32 of the payload, then the
+     * payload itself (sequence number, type, index and, except for removals,
+     * the task).
+     */
+    private static void writeRecord(DataOutputStream out, long sequence, TaskManagerChange change)
+            throws IOException {
+        ByteArrayOutputStream payloadBuffer = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBuffer);
+        payload.writeLong(sequence);
+        switch (change.getType()) {
+        case ADD:
+            payload.writeByte(RECORD_ADD);
+            break;
+        case UPDATE:
+            payload.writeByte(RECORD_UPDATE);
+            break;
+        case REMOVE:
+            payload.writeByte(RECORD_REMOVE);
+            break;
+        default:
+            throw new IllegalArgumentException("Change cannot be journalled: " + change);
+        }
+        payload.writeInt(change.getIndex());
+        if (change.getType() != TaskManagerChange.Type.REMOVE) {
+            new XmlAdaptedTask(change.getEvent()).writeTo(payload);
+        }
+        payload.flush();
+
+        byte[] bytes = payloadBuffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+    }
+
+    /**
+     * Applies the records of {@code journalFile} with a sequence number greater
+     * than {@code afterSequence} to {@code events}.
+     *
+     * @throws DataConversionException
+     *             if the first record applied does not follow
+     *             {@code afterSequence}, i.e. records are missing.
+     */
+    private static ReplayResult replay(File journalFile, long afterSequence, List<ReadOnlyEvent> events)
+            throws DataConversionException, IOException {
+        if (!journalFile.exists() || journalFile.length() < JOURNAL_HEADER_SIZE) {
+            return new ReplayResult(afterSequence, true);
+        }
+
+        long lastSequence = afterSequence;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (in.readInt() != JOURNAL_MAGIC || in.readInt() != JOURNAL_VERSION) {
+                throw new DataConversionException(new IOException("Unrecognised journal " + journalFile));
+            }
+            long remaining = journalFile.length() - JOURNAL_HEADER_SIZE;
+            while (remaining > 0) {
+                byte[] payload = readRecordPayload(in, remaining);
+                if (payload == null) {
+                    logger.warning("Ignoring incomplete record at the end of " + journalFile);
+                    return new ReplayResult(lastSequence, false);
+                }
+                remaining -= RECORD_HEADER_SIZE + payload.length;
+                long recordSequence = applyRecord(payload, lastSequence, events);
+                lastSequence = Math.max(lastSequence, recordSequence);
+            }
+        }
+        return new ReplayResult(lastSequence, true);
+    }
+
+    /**
+     * Returns the payload of the next record, or null if the record is
+     * truncated or fails its checksum.
+     */
+    private static byte[] readRecordPayload(DataInputStream in, long remaining) throws IOException {
+        if (remaining < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length < 0 || length > remaining - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        try {
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    /**
+     * Applies a single record following {@code afterSequence} and returns its
+     * sequence number.
+     */
+    private static long applyRecord(byte[] payload, long afterSequence, List<ReadOnlyEvent> events)
+            throws DataConversionException, IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long recordSequence = in.readLong();
+        if (recordSequence <= afterSequence) {
+            return recordSequence; // already part of the snapshot
+        }
+        if (recordSequence != afterSequence + 1) {
+            throw new DataConversionException(new IOException("Journal records " + (afterSequence + 1) + " to "
+                    + (recordSequence - 1) + " are missing"));
+        }
+        byte type = in.readByte();
+        int index = in.readInt();
+        try {
+            switch (type) {
+            case RECORD_ADD:
+                events.add(index, XmlAdaptedTask.readFrom(in).toModelType());
+                break;
+            case RECORD_UPDATE:
+                events.set(index, XmlAdaptedTask.readFrom(in).toModelType());
+                break;
+            case RECORD_REMOVE:
+                events.remove(index);
+                break;
+            default:
+                throw new DataConversionException(new IOException("Unknown journal record type " + type));
+            }
+        } catch (IllegalValueException | IndexOutOfBoundsException e) {
+            throw new DataConversionException(e);
+        }
+        return recordSequence;
+    }
+
+    /**
+     * Outcome of replaying one journal file.
+     */
+    private static class ReplayResult {
+        private final long lastSequence;
+        private final boolean isComplete;
+
+        ReplayResult(long lastSequence, boolean isComplete) {
+            this.lastSequence = lastSequence;
+            this.isComplete = isComplete;
+        }
+    }
+
+}
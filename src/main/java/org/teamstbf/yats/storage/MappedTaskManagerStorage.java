@@ -0,0 +1,833 @@
+package org.teamstbf.yats.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.Description;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.IsDone;
+import org.teamstbf.yats.model.item.Location;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Recurrence;
+import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.model.tag.UniqueTagList;
+
+/**
+ * A {@link TaskManagerStorage} that keeps the task manager in a memory-mapped
+ * file of fixed-size slots, {@code <file>.slots} next to the XML data file.
+ *
+ * The file starts with a header page, followed by one slot per task and an
+ * overflow region. A slot holds the done and recurring flags and the
+ * start/end/deadline times of its task, plus the location of the task's text
+ * (title, location, description, tags and recurrence) in the overflow region.
+ *
+ * A task keeps its slot for as long as it exists, so saving a change to one
+ * task only writes that task's slot. If the text of the task is unchanged,
+ * e.g. it was only marked done or moved in time, nothing else is written;
+ * otherwise the new text is appended to the overflow region. The whole file is
+ * rewritten, through a temporary file, when it runs out of slots or overflow
+ * space, when too much of the overflow region is unused, or when the changes
+ * are not known.
+ *
+ * Saved changes are forced to disk in three steps: the appended text, then
+ * the slots referring to it, then the header. A crash between them leaves
+ * either the previous slots or slots whose text is already there. A slot that
+ * is still torn is skipped when the file is read, losing only its task, and a
+ * file whose header cannot be read gives way to the XML data file.
+ *
+ * A mapped file stays mapped until its buffer is garbage collected, and some
+ * platforms do not let such a file be replaced. So a rewrite of the mapped
+ * file goes to the next numbered slot file, {@code <file>.slots.1} and so on,
+ * and the newest one is read; the older ones are deleted once they can be.
+ *
+ * If there is no slot file yet, the XML data file is read instead.
+ */
+public class MappedTaskManagerStorage implements TaskManagerStorage {
+
+    static final String SLOTS_SUFFIX = ".slots";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Logger logger = LogsCenter.getLogger(MappedTaskManagerStorage.class);
+
+    private static final int MAGIC = 0x5954534c; // "YTSL"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 4096;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOT_CAPACITY = 8;
+    private static final int HEADER_NEXT_POSITION = 16;
+    private static final int HEADER_OVERFLOW_END = 24;
+    private static final int HEADER_GARBAGE = 32;
+    private static final int HEADER_TAGS_OFFSET = 40;
+    private static final int HEADER_TAGS_LENGTH = 48;
+    private static final int HEADER_TAGS_CHECKSUM = 52;
+    /** The size of the part of the header that is written. */
+    private static final int HEADER_FIELDS_SIZE = 56;
+
+    static final int SLOT_SIZE = 64;
+    private static final int SLOT_FLAGS = 0;
+    /** Orders the tasks; increases with every task added. */
+    private static final int SLOT_POSITION = 8;
+    private static final int SLOT_START_TIME = 16;
+    private static final int SLOT_END_TIME = 24;
+    private static final int SLOT_DEADLINE = 32;
+    private static final int SLOT_TEXT_OFFSET = 40;
+    private static final int SLOT_TEXT_LENGTH = 48;
+    private static final int SLOT_TEXT_CHECKSUM = 52;
+    /** Checksum of the bytes of the slot before it. */
+    private static final int SLOT_CHECKSUM = 60;
+
+    private static final int FLAG_USED = 1;
+    private static final int FLAG_DONE = 1 << 1;
+    private static final int FLAG_RECURRING = 1 << 2;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int MINIMUM_SLOT_CAPACITY = 1024;
+    private static final int MINIMUM_OVERFLOW_CAPACITY = 64 * 1024;
+
+    private final XmlTaskManagerStorage xmlStorage;
+
+    /** File path whose slot file is mapped, null if none is. */
+    private String mappedFilePath;
+    /** The number of the slot file that is mapped, 0 for {@code <file>.slots}. */
+    private int mappedGeneration;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotCapacity;
+    private long nextPosition;
+    private long overflowEnd;
+    private long garbage;
+    /** Slot of each task, in task list order. */
+    private final List<Integer> slotsInOrder = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private List<String> savedTagNames = new ArrayList<>();
+    /** The slots changed by the changes being saved, by slot, written once their text is on disk. */
+    private final Map<Integer, ByteBuffer> pendingSlots = new LinkedHashMap<>();
+    /** The header fields changed by the changes being saved, written last; null if none are being saved. */
+    private ByteBuffer pendingHeader;
+
+    /**
+     * @param xmlStorage
+     *            provides the location of the data file, and is read from if
+     *            there is no slot file yet.
+     */
+    public MappedTaskManagerStorage(XmlTaskManagerStorage xmlStorage) {
+        assert xmlStorage != null;
+        this.xmlStorage = xmlStorage;
+    }
+
+    public MappedTaskManagerStorage(String filePath) {
+        this(new XmlTaskManagerStorage(filePath));
+    }
+
+    @Override
+    public String getTaskManagerFilePath() {
+        return xmlStorage.getTaskManagerFilePath();
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager() throws DataConversionException, IOException {
+        return readTaskManager(getTaskManagerFilePath());
+    }
+
+    @Override
+    public synchronized Optional<ReadOnlyTaskManager> readTaskManager(String filePath)
+            throws DataConversionException, IOException {
+        assert filePath != null;
+
+        int generation = newestGeneration(filePath);
+        if (generation < 0) {
+            logger.info("TaskManager slot file " + slotFile(filePath, 0) + " not found, reading " + filePath);
+            return xmlStorage.readTaskManager(filePath);
+        }
+        if (!filePath.equals(mappedFilePath) || generation != mappedGeneration) {
+            unmap();
+            map(filePath, generation);
+            deleteOlderSlotFiles(filePath, generation);
+        }
+        try {
+            return Optional.of(readMappedFile());
+        } catch (DataConversionException | RuntimeException e) {
+            unmap();
+            if (!new File(filePath).exists()) {
+                throw e;
+            }
+            logger.warning("TaskManager slot file " + slotFile(filePath, generation) + " cannot be read (" + e
+                    + "), reading " + filePath);
+            return xmlStorage.readTaskManager(filePath);
+        }
+    }
+
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager) throws IOException {
+        saveTaskManager(taskManager, getTaskManagerFilePath());
+    }
+
+    @Override
+    public synchronized void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        assert taskManager != null;
+        assert filePath != null;
+        rewrite(taskManager, filePath);
+    }
+
+    /**
+     * Writes only the slots of the changed tasks if the slot file of the
+     * current data file is mapped, and rewrites the whole file otherwise. The
+     * text of the changed tasks is forced to disk before their slots, and the
+     * slots before the header.
+     */
+    @Override
+    public synchronized void saveTaskManagerChanges(ReadOnlyTaskManager taskManager, List<TaskManagerChange> changes)
+            throws IOException {
+        assert taskManager != null && changes != null;
+        String filePath = getTaskManagerFilePath();
+        if (changes.isEmpty() || !filePath.equals(mappedFilePath)
+                || !slotFile(filePath, mappedGeneration).exists()) {
+            rewrite(taskManager, filePath);
+            return;
+        }
+        pendingHeader = copyOf(0, HEADER_FIELDS_SIZE);
+        for (TaskManagerChange change : changes) {
+            if (!applyChange(change)) {
+                rewrite(taskManager, filePath);
+                return;
+            }
+        }
+        if (!saveTagNames(taskManager) || garbage > (overflowEnd - overflowStart()) / 2) {
+            rewrite(taskManager, filePath);
+            return;
+        }
+        writePending();
+    }
+
+    /**
+     * Forces the appended text to disk, then writes and forces the pending
+     * slots, then the pending header.
+     */
+    private void writePending() {
+        buffer.force();
+        for (Map.Entry<Integer, ByteBuffer> slot : pendingSlots.entrySet()) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(slotOffset(slot.getKey()));
+            view.put(slot.getValue().array());
+        }
+        pendingSlots.clear();
+        buffer.force();
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        view.put(pendingHeader.array());
+        pendingHeader = null;
+        buffer.force();
+    }
+
+    /**
+     * Returns the slot as it will be written, which the changes being saved
+     * read and write instead of the mapped slot.
+     */
+    private ByteBuffer slotImage(int slot) {
+        return pendingSlots.computeIfAbsent(slot, pending -> copyOf(slotOffset(pending), SLOT_SIZE));
+    }
+
+    private ByteBuffer copyOf(int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    //// in-place updates
+
+    /**
+     * Writes {@code change} to the mapped file. Returns false if it cannot be
+     * written in place.
+     */
+    private boolean applyChange(TaskManagerChange change) {
+        switch (change.getType()) {
+        case ADD:
+            if (change.getIndex() != slotsInOrder.size()) {
+                return false;
+            }
+            Integer slot = freeSlots.poll();
+            if (slot == null) {
+                return false;
+            }
+            if (!writeSlot(slot, change.getEvent(), nextPosition)) {
+                freeSlots.push(slot);
+                return false;
+            }
+            nextPosition++;
+            pendingHeader.putLong(HEADER_NEXT_POSITION, nextPosition);
+            slotsInOrder.add(slot);
+            return true;
+        case UPDATE:
+            int updated = slotsInOrder.get(change.getIndex());
+            return writeSlot(updated, change.getEvent(), slotImage(updated).getLong(SLOT_POSITION));
+        case REMOVE:
+            int removed = slotsInOrder.remove(change.getIndex());
+            ByteBuffer image = slotImage(removed);
+            garbage += image.getInt(SLOT_TEXT_LENGTH);
+            pendingHeader.putLong(HEADER_GARBAGE, garbage);
+            image.put(SLOT_FLAGS, (byte) 0);
+            image.putInt(SLOT_CHECKSUM, slotChecksum(image, 0));
+            freeSlots.push(removed);
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Writes {@code event} to the pending image of {@code slot}, appending its
+     * text to the overflow region unless the slot already holds the same
+     * text. Returns false if there is no overflow space left.
+     */
+    private boolean writeSlot(int slot, ReadOnlyEvent event, long position) {
+        ByteBuffer image = slotImage(slot);
+        byte[] text = encodeText(event);
+        boolean isUsed = (image.get(SLOT_FLAGS) & FLAG_USED) != 0;
+        long textOffset = image.getLong(SLOT_TEXT_OFFSET);
+        int textLength = image.getInt(SLOT_TEXT_LENGTH);
+        if (!isUsed || !isSameText(textOffset, textLength, text)) {
+            if (overflowEnd + text.length > buffer.capacity()) {
+                return false;
+            }
+            if (isUsed) {
+                garbage += textLength;
+                pendingHeader.putLong(HEADER_GARBAGE, garbage);
+            }
+            textOffset = appendToOverflow(text);
+            textLength = text.length;
+        }
+
+        image.put(SLOT_FLAGS, (byte) flagsOf(event));
+        image.putLong(SLOT_POSITION, position);
+        image.putLong(SLOT_START_TIME, timeOf(event.getStartTime()));
+        image.putLong(SLOT_END_TIME, timeOf(event.getEndTime()));
+        image.putLong(SLOT_DEADLINE, timeOf(event.getDeadline()));
+        image.putLong(SLOT_TEXT_OFFSET, textOffset);
+        image.putInt(SLOT_TEXT_LENGTH, textLength);
+        image.putInt(SLOT_TEXT_CHECKSUM, checksum(text, 0, text.length));
+        image.putInt(SLOT_CHECKSUM, slotChecksum(image, 0));
+        return true;
+    }
+
+    private boolean isSameText(long textOffset, int textLength, byte[] text) {
+        if (textLength != text.length || textOffset < overflowStart() || textOffset + textLength > overflowEnd) {
+            return false;
+        }
+        byte[] saved = new byte[textLength];
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) textOffset);
+        view.get(saved);
+        return Arrays.equals(saved, text);
+    }
+
+    /**
+     * Writes {@code bytes} at the end of the overflow region and returns where
+     * they were written. The caller must have checked there is space.
+     */
+    private long appendToOverflow(byte[] bytes) {
+        long offset = overflowEnd;
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset);
+        view.put(bytes);
+        overflowEnd += bytes.length;
+        pendingHeader.putLong(HEADER_OVERFLOW_END, overflowEnd);
+        return offset;
+    }
+
+    /**
+     * Writes the tag list of {@code taskManager} if it differs from the saved
+     * one. Returns false if there is no overflow space left.
+     */
+    private boolean saveTagNames(ReadOnlyTaskManager taskManager) {
+        List<String> tagNames = tagNamesOf(taskManager);
+        if (tagNames.equals(savedTagNames)) {
+            return true;
+        }
+        byte[] encoded = encodeStrings(tagNames);
+        if (overflowEnd + encoded.length > buffer.capacity()) {
+            return false;
+        }
+        garbage += pendingHeader.getInt(HEADER_TAGS_LENGTH);
+        pendingHeader.putLong(HEADER_GARBAGE, garbage);
+        long offset = appendToOverflow(encoded);
+        pendingHeader.putLong(HEADER_TAGS_OFFSET, offset);
+        pendingHeader.putInt(HEADER_TAGS_LENGTH, encoded.length);
+        pendingHeader.putInt(HEADER_TAGS_CHECKSUM, checksum(encoded, 0, encoded.length));
+        savedTagNames = tagNames;
+        return true;
+    }
+
+    //// whole-file operations
+
+    /**
+     * Writes {@code taskManager} to a new slot file with room to grow, and
+     * maps it if {@code filePath} is the current data file. The new file is
+     * written through a temporary file that is never mapped, and replaces the
+     * newest slot file unless that one is mapped.
+     */
+    private void rewrite(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        List<ReadOnlyEvent> events = new ArrayList<>(taskManager.getTaskList());
+        List<byte[]> texts = new ArrayList<>(events.size());
+        long textSize = 0;
+        for (ReadOnlyEvent event : events) {
+            byte[] text = encodeText(event);
+            texts.add(text);
+            textSize += text.length;
+        }
+        List<String> tagNames = tagNamesOf(taskManager);
+        byte[] tags = encodeStrings(tagNames);
+        textSize += tags.length;
+
+        int capacity = Math.max(MINIMUM_SLOT_CAPACITY, events.size() + events.size() / 4);
+        long overflowStart = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        long fileSize = overflowStart + Math.max(MINIMUM_OVERFLOW_CAPACITY, textSize * 2);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Too many tasks for a slot file");
+        }
+
+        ByteBuffer head = ByteBuffer.allocate((int) overflowStart);
+        head.putInt(HEADER_MAGIC, MAGIC);
+        head.putInt(HEADER_VERSION, VERSION);
+        head.putInt(HEADER_SLOT_CAPACITY, capacity);
+        head.putLong(HEADER_NEXT_POSITION, events.size());
+        head.putLong(HEADER_GARBAGE, 0);
+        long textOffset = overflowStart;
+        for (int i = 0; i < events.size(); i++) {
+            int offset = slotOffset(i);
+            ReadOnlyEvent event = events.get(i);
+            byte[] text = texts.get(i);
+            head.put(offset + SLOT_FLAGS, (byte) flagsOf(event));
+            head.putLong(offset + SLOT_POSITION, i);
+            head.putLong(offset + SLOT_START_TIME, timeOf(event.getStartTime()));
+            head.putLong(offset + SLOT_END_TIME, timeOf(event.getEndTime()));
+            head.putLong(offset + SLOT_DEADLINE, timeOf(event.getDeadline()));
+            head.putLong(offset + SLOT_TEXT_OFFSET, textOffset);
+            head.putInt(offset + SLOT_TEXT_LENGTH, text.length);
+            head.putInt(offset + SLOT_TEXT_CHECKSUM, checksum(text, 0, text.length));
+            head.putInt(offset + SLOT_CHECKSUM, slotChecksum(head, offset));
+            textOffset += text.length;
+        }
+        int emptySlotChecksum = checksum(new byte[SLOT_CHECKSUM], 0, SLOT_CHECKSUM);
+        for (int slot = events.size(); slot < capacity; slot++) {
+            head.putInt(slotOffset(slot) + SLOT_CHECKSUM, emptySlotChecksum);
+        }
+        long tagsOffset = textOffset;
+        long newOverflowEnd = tagsOffset + tags.length;
+        head.putLong(HEADER_TAGS_OFFSET, tagsOffset);
+        head.putInt(HEADER_TAGS_LENGTH, tags.length);
+        head.putInt(HEADER_TAGS_CHECKSUM, checksum(tags, 0, tags.length));
+        head.putLong(HEADER_OVERFLOW_END, newOverflowEnd);
+
+        File tempFile = new File(filePath + SLOTS_SUFFIX + TEMP_SUFFIX);
+        FileUtil.createParentDirsOfFile(tempFile);
+        try (RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+            FileChannel target = out.getChannel();
+            out.setLength(0);
+            writeFully(target, head);
+            for (byte[] text : texts) {
+                writeFully(target, ByteBuffer.wrap(text));
+            }
+            writeFully(target, ByteBuffer.wrap(tags));
+            out.setLength(fileSize);
+            target.force(true);
+        }
+
+        boolean isMapped = filePath.equals(mappedFilePath);
+        int generation = Math.max(0, newestGeneration(filePath));
+        if (isMapped && generation == mappedGeneration) {
+            generation++;
+        }
+        if (isMapped) {
+            unmap();
+        }
+        File file = slotFile(filePath, generation);
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        deleteOlderSlotFiles(filePath, generation);
+
+        if (filePath.equals(getTaskManagerFilePath())) {
+            unmap();
+            map(filePath, generation);
+            slotCapacity = capacity;
+            nextPosition = events.size();
+            overflowEnd = newOverflowEnd;
+            garbage = 0;
+            for (int slot = 0; slot < events.size(); slot++) {
+                slotsInOrder.add(slot);
+            }
+            for (int slot = capacity - 1; slot >= events.size(); slot--) {
+                freeSlots.push(slot);
+            }
+            savedTagNames = tagNames;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /** Returns the slot file numbered {@code generation} of {@code filePath}. */
+    private static File slotFile(String filePath, int generation) {
+        return new File(filePath + SLOTS_SUFFIX + (generation == 0 ? "" : "." + generation));
+    }
+
+    /**
+     * Returns the number of the newest slot file of {@code filePath}, or -1 if
+     * there is none.
+     */
+    private static int newestGeneration(String filePath) {
+        File first = slotFile(filePath, 0);
+        int newest = first.exists() ? 0 : -1;
+        String prefix = first.getName() + ".";
+        String[] names = first.getAbsoluteFile().getParentFile().list();
+        for (String name : names == null ? new String[0] : names) {
+            if (name.startsWith(prefix)) {
+                try {
+                    newest = Math.max(newest, Integer.parseInt(name.substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // not a numbered slot file, e.g. the temporary file
+                }
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Deletes the slot files of {@code filePath} older than {@code generation},
+     * leaving those that cannot be deleted yet, e.g. because they are still
+     * mapped, to a later call.
+     */
+    private static void deleteOlderSlotFiles(String filePath, int generation) {
+        for (int older = 0; older < generation; older++) {
+            File file = slotFile(filePath, older);
+            if (file.exists() && !file.delete()) {
+                logger.fine("Could not delete old slot file " + file + " yet");
+            }
+        }
+    }
+
+    private void map(String filePath, int generation) throws IOException {
+        File file = slotFile(filePath, generation);
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        mappedFilePath = filePath;
+        mappedGeneration = generation;
+    }
+
+    private void unmap() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        // the mapping itself goes away once the buffer is garbage collected
+        channel = null;
+        buffer = null;
+        mappedFilePath = null;
+        mappedGeneration = 0;
+        slotsInOrder.clear();
+        freeSlots.clear();
+        savedTagNames = new ArrayList<>();
+        pendingSlots.clear();
+        pendingHeader = null;
+    }
+
+    /**
+     * Reads the tasks in the mapped file and rebuilds the slot bookkeeping.
+     * A slot that does not match its checksum, or whose text does not, is
+     * skipped and freed; text written before a crash kept the header from
+     * being updated still counts as used.
+     */
+    private ReadOnlyTaskManager readMappedFile() throws DataConversionException {
+        try {
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new DataConversionException(new IOException("Not a task manager slot file"));
+            }
+            if (buffer.getInt(HEADER_VERSION) != VERSION) {
+                throw new DataConversionException(
+                        new IOException("Unsupported slot file version " + buffer.getInt(HEADER_VERSION)));
+            }
+            slotCapacity = buffer.getInt(HEADER_SLOT_CAPACITY);
+            nextPosition = buffer.getLong(HEADER_NEXT_POSITION);
+            overflowEnd = buffer.getLong(HEADER_OVERFLOW_END);
+            garbage = buffer.getLong(HEADER_GARBAGE);
+            if (slotCapacity < 0 || overflowStart() > overflowEnd || overflowEnd > buffer.capacity()) {
+                throw new DataConversionException(new IOException("Corrupted slot file header"));
+            }
+
+            List<long[]> positions = new ArrayList<>();
+            List<ReadOnlyEvent> events = new ArrayList<>();
+            Set<Tag> tagsOfEvents = new LinkedHashSet<>();
+            long usedEnd = overflowEnd;
+            freeSlots.clear();
+            for (int slot = slotCapacity - 1; slot >= 0; slot--) {
+                int offset = slotOffset(slot);
+                if ((buffer.get(offset + SLOT_FLAGS) & FLAG_USED) == 0
+                        && buffer.getInt(offset + SLOT_CHECKSUM) == slotChecksum(offset)) {
+                    freeSlots.push(slot);
+                    continue;
+                }
+                Event event;
+                try {
+                    if (buffer.getInt(offset + SLOT_CHECKSUM) != slotChecksum(offset)) {
+                        throw new DataConversionException(new IOException("Corrupted slot"));
+                    }
+                    event = readEvent(offset);
+                } catch (DataConversionException | IllegalValueException | IndexOutOfBoundsException
+                        | BufferUnderflowException e) {
+                    logger.warning("Skipping slot " + slot + " of " + slotFile(mappedFilePath, mappedGeneration)
+                            + ", which cannot be read: " + e);
+                    freeSlots.push(slot);
+                    continue;
+                }
+                long position = buffer.getLong(offset + SLOT_POSITION);
+                positions.add(new long[] { position, slot, events.size() });
+                events.add(event);
+                tagsOfEvents.addAll(event.getTags().asObservableList());
+                nextPosition = Math.max(nextPosition, position + 1);
+                usedEnd = Math.max(usedEnd,
+                        buffer.getLong(offset + SLOT_TEXT_OFFSET) + buffer.getInt(offset + SLOT_TEXT_LENGTH));
+            }
+            overflowEnd = usedEnd;
+            positions.sort((a, b) -> Long.compare(a[0], b[0]));
+
+            slotsInOrder.clear();
+            List<ReadOnlyEvent> orderedEvents = new ArrayList<>(events.size());
+            for (long[] position : positions) {
+                slotsInOrder.add((int) position[1]);
+                orderedEvents.add(events.get((int) position[2]));
+            }
+
+            List<Tag> tags = new ArrayList<>();
+            try {
+                savedTagNames = decodeStrings(readChecked(buffer.getLong(HEADER_TAGS_OFFSET),
+                        buffer.getInt(HEADER_TAGS_LENGTH), buffer.getInt(HEADER_TAGS_CHECKSUM)));
+                for (String tagName : savedTagNames) {
+                    tags.add(new Tag(tagName));
+                }
+            } catch (DataConversionException | BufferUnderflowException e) {
+                logger.warning("Tag list of " + slotFile(mappedFilePath, mappedGeneration)
+                        + " cannot be read, using the tags of the tasks: " + e);
+                // an empty saved list makes the next save write the tags again
+                savedTagNames = new ArrayList<>();
+                tags = new ArrayList<>(tagsOfEvents);
+            }
+            return new TaskManagerSnapshot(orderedEvents, tags);
+        } catch (IllegalValueException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new DataConversionException(e);
+        }
+    }
+
+    private Event readEvent(int offset) throws DataConversionException, IllegalValueException {
+        int flags = buffer.get(offset + SLOT_FLAGS);
+        ByteBuffer text = ByteBuffer.wrap(readChecked(buffer.getLong(offset + SLOT_TEXT_OFFSET),
+                buffer.getInt(offset + SLOT_TEXT_LENGTH), buffer.getInt(offset + SLOT_TEXT_CHECKSUM)));
+        Title title = new Title(readString(text));
+        Location location = new Location(readString(text));
+        Description description = new Description(readString(text));
+        List<Tag> tags = new ArrayList<>();
+        for (int i = text.getInt(); i > 0; i--) {
+            tags.add(new Tag(readString(text)));
+        }
+        boolean isRecurring = (flags & FLAG_RECURRING) != 0;
+        Recurrence recurrence = new Recurrence();
+        if (isRecurring) {
+            recurrence = new Recurrence(readString(text), readString(text), readString(text));
+        }
+        return new Event(title, location, scheduleOf(buffer.getLong(offset + SLOT_START_TIME)),
+                scheduleOf(buffer.getLong(offset + SLOT_END_TIME)), scheduleOf(buffer.getLong(offset + SLOT_DEADLINE)),
+                description, new UniqueTagList(tags),
+                new IsDone((flags & FLAG_DONE) != 0 ? IsDone.ISDONE_DONE : IsDone.ISDONE_NOTDONE), isRecurring,
+                recurrence);
+    }
+
+    /**
+     * Reads text from the overflow region, which may reach past the end
+     * recorded in the header if a crash kept the header from being updated.
+     */
+    private byte[] readChecked(long offset, int length, int expectedChecksum) throws DataConversionException {
+        if (offset < overflowStart() || length < 0 || offset + length > buffer.capacity()) {
+            throw new DataConversionException(new IOException("Text outside of the overflow region"));
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset);
+        view.get(bytes);
+        if (checksum(bytes, 0, length) != expectedChecksum) {
+            throw new DataConversionException(new IOException("Checksum mismatch in slot file text"));
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns how many bytes of the overflow region are in use, including
+     * text that is no longer referred to.
+     */
+    synchronized long getOverflowUsed() {
+        return overflowEnd - overflowStart();
+    }
+
+    private long overflowStart() {
+        return HEADER_SIZE + (long) slotCapacity * SLOT_SIZE;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    //// encoding
+
+    private static int flagsOf(ReadOnlyEvent event) {
+        int flags = FLAG_USED;
+        if (IsDone.ISDONE_DONE.equals(event.getIsDone().getValue())) {
+            flags |= FLAG_DONE;
+        }
+        if (event.isRecurring()) {
+            flags |= FLAG_RECURRING;
+        }
+        return flags;
+    }
+
+    private static long timeOf(Schedule schedule) {
+        return schedule == null || schedule.isEmpty() ? NO_DATE : schedule.getTime();
+    }
+
+    private static Schedule scheduleOf(long time) {
+        return new Schedule(time == NO_DATE ? Schedule.NO_TIME : time);
+    }
+
+    /**
+     * Encodes the parts of {@code event} that are not stored in its slot.
+     */
+    private static byte[] encodeText(ReadOnlyEvent event) {
+        List<String> strings = new ArrayList<>();
+        strings.add(event.getTitle().fullName);
+        strings.add(event.getLocation().value);
+        strings.add(event.getDescription().value);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeStrings(out, strings);
+            UniqueTagList tags = event.getTags();
+            out.writeInt(tags.asObservableList().size());
+            for (Tag tag : tags) {
+                writeString(out, tag.tagName);
+            }
+            if (event.isRecurring()) {
+                Recurrence recurrence = event.getRecurrence();
+                writeString(out, recurrence.getStartTimeString());
+                writeString(out, recurrence.getPeriodicity());
+                writeString(out, recurrence.getDoneListString());
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Writing to memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeStrings(List<String> strings) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(strings.size());
+            writeStrings(out, strings);
+        } catch (IOException e) {
+            throw new AssertionError("Writing to memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<String> decodeStrings(byte[] encoded) {
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        List<String> strings = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        for (String value : strings) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static List<String> tagNamesOf(ReadOnlyTaskManager taskManager) {
+        List<String> tagNames = new ArrayList<>();
+        for (Tag tag : taskManager.getTagList()) {
+            tagNames.add(tag.tagName);
+        }
+        return tagNames;
+    }
+
+    private int slotChecksum(int offset) {
+        return slotChecksum(buffer, offset);
+    }
+
+    private static int slotChecksum(ByteBuffer target, int offset) {
+        byte[] slot = new byte[SLOT_CHECKSUM];
+        ByteBuffer view = target.duplicate();
+        view.position(offset);
+        view.get(slot);
+        return checksum(slot, 0, slot.length);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+}
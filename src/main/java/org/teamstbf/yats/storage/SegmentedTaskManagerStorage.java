@@ -0,0 +1,295 @@
+package org.teamstbf.yats.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.tag.Tag;
+
+/**
+ * A {@link TaskManagerStorage} that splits the task manager into XML files in
+ * the directory {@code <file>.segments}, next to the XML data file: one file
+ * for the tags, and one segment file for each range of
+ * {@link #SEGMENT_SIZE} task {@linkplain Event#getId() ids}.
+ *
+ * A task keeps its id when it is edited, and added tasks get the largest id,
+ * so reading the segments in order gives the tasks in order. Saving changes
+ * only rewrites the segments holding {@linkplain Event#isDirty() dirty} or
+ * removed tasks, and the tag file if the tags changed. Everything is
+ * rewritten when the changes are not known or the task manager was reset.
+ *
+ * Each file is replaced atomically, but a crash while saving several segments
+ * may leave only some of them updated. If there is no segment directory yet,
+ * the XML data file is read instead.
+ */
+public class SegmentedTaskManagerStorage implements TaskManagerStorage {
+
+    static final String SEGMENTS_SUFFIX = ".segments";
+    static final int SEGMENT_SIZE = 128;
+    private static final String TAGS_FILE_NAME = "tags.xml";
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_EXTENSION = ".xml";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Logger logger = LogsCenter.getLogger(SegmentedTaskManagerStorage.class);
+
+    private final XmlTaskManagerStorage xmlStorage;
+
+    /**
+     * The data file the segments below were saved for, or null if the next
+     * save has to rewrite everything.
+     */
+    private String savedFilePath;
+    private Set<Long> savedSegments = new HashSet<>();
+    private List<Tag> savedTags = Collections.emptyList();
+
+    /**
+     * @param xmlStorage
+     *            provides the location of the data file, and is read from if
+     *            there is no segment directory yet.
+     */
+    public SegmentedTaskManagerStorage(XmlTaskManagerStorage xmlStorage) {
+        assert xmlStorage != null;
+        this.xmlStorage = xmlStorage;
+    }
+
+    public SegmentedTaskManagerStorage(String filePath) {
+        this(new XmlTaskManagerStorage(filePath));
+    }
+
+    @Override
+    public String getTaskManagerFilePath() {
+        return xmlStorage.getTaskManagerFilePath();
+    }
+
+    @Override
+    public Optional<ReadOnlyTaskManager> readTaskManager() throws DataConversionException, IOException {
+        return readTaskManager(getTaskManagerFilePath());
+    }
+
+    @Override
+    public synchronized Optional<ReadOnlyTaskManager> readTaskManager(String filePath)
+            throws DataConversionException, IOException {
+        assert filePath != null;
+
+        File directory = new File(filePath + SEGMENTS_SUFFIX);
+        if (!directory.isDirectory()) {
+            logger.info("TaskManager segments " + directory + " not found, reading " + filePath);
+            return xmlStorage.readTaskManager(filePath);
+        }
+        List<Tag> tags = new ArrayList<>();
+        File tagsFile = new File(directory, TAGS_FILE_NAME);
+        if (tagsFile.exists()) {
+            tags.addAll(XmlTaskManagerCodec.read(tagsFile).getTagList());
+        }
+        List<ReadOnlyEvent> events = new ArrayList<>();
+        for (File segmentFile : listSegmentFiles(directory).values()) {
+            events.addAll(XmlTaskManagerCodec.read(segmentFile).getTaskList());
+        }
+        return Optional.of(new TaskManagerSnapshot(events, tags));
+    }
+
+    @Override
+    public void saveTaskManager(ReadOnlyTaskManager taskManager) throws IOException {
+        saveTaskManager(taskManager, getTaskManagerFilePath());
+    }
+
+    @Override
+    public synchronized void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        assert taskManager != null;
+        assert filePath != null;
+        savedFilePath = null;
+
+        File directory = new File(filePath + SEGMENTS_SUFFIX);
+        FileUtil.createDirs(directory);
+        List<Tag> tags = new ArrayList<>(taskManager.getTagList());
+        writeFile(new File(directory, TAGS_FILE_NAME), new TaskManagerSnapshot(Collections.emptyList(), tags));
+
+        boolean hasIds = hasIncreasingIds(taskManager.getTaskList());
+        Map<Long, List<ReadOnlyEvent>> segments = new TreeMap<>();
+        List<ReadOnlyEvent> events = taskManager.getTaskList();
+        for (int i = 0; i < events.size(); i++) {
+            long segment = hasIds ? getSegment(events.get(i)) : i / SEGMENT_SIZE;
+            segments.computeIfAbsent(segment, key -> new ArrayList<>()).add(events.get(i));
+        }
+        for (Map.Entry<Long, List<ReadOnlyEvent>> segment : segments.entrySet()) {
+            writeSegment(directory, segment.getKey(), segment.getValue());
+        }
+        for (Map.Entry<Long, File> segmentFile : listSegmentFiles(directory).entrySet()) {
+            if (!segments.containsKey(segmentFile.getKey())) {
+                Files.delete(segmentFile.getValue().toPath());
+            }
+        }
+
+        if (hasIds) {
+            savedFilePath = filePath;
+            savedSegments = new HashSet<>(segments.keySet());
+            savedTags = tags;
+        }
+    }
+
+    /**
+     * Rewrites only the segments with changed tasks if the previous save went
+     * through this storage, and everything otherwise.
+     */
+    @Override
+    public synchronized void saveTaskManagerChanges(ReadOnlyTaskManager taskManager, List<TaskManagerChange> changes)
+            throws IOException {
+        assert taskManager != null && changes != null;
+        String filePath = getTaskManagerFilePath();
+        Set<Long> changedSegments = findChangedSegments(taskManager, changes);
+        if (!filePath.equals(savedFilePath) || changedSegments == null) {
+            saveTaskManager(taskManager, filePath);
+            return;
+        }
+
+        File directory = new File(filePath + SEGMENTS_SUFFIX);
+        savedFilePath = null;
+        List<Tag> tags = new ArrayList<>(taskManager.getTagList());
+        if (!tags.equals(savedTags)) {
+            writeFile(new File(directory, TAGS_FILE_NAME), new TaskManagerSnapshot(Collections.emptyList(), tags));
+            savedTags = tags;
+        }
+
+        Map<Long, List<ReadOnlyEvent>> segments = new TreeMap<>();
+        for (Long segment : changedSegments) {
+            segments.put(segment, new ArrayList<>());
+        }
+        for (ReadOnlyEvent event : taskManager.getTaskList()) {
+            List<ReadOnlyEvent> segment = segments.get(getSegment(event));
+            if (segment != null) {
+                segment.add(event);
+            }
+        }
+        for (Map.Entry<Long, List<ReadOnlyEvent>> segment : segments.entrySet()) {
+            if (segment.getValue().isEmpty()) {
+                Files.deleteIfExists(getSegmentFile(directory, segment.getKey()).toPath());
+                savedSegments.remove(segment.getKey());
+            } else {
+                writeSegment(directory, segment.getKey(), segment.getValue());
+                savedSegments.add(segment.getKey());
+            }
+        }
+        savedFilePath = filePath;
+    }
+
+    /**
+     * Returns the segments holding dirty tasks or tasks removed by
+     * {@code changes}, or null if they cannot be told apart from the rest.
+     */
+    private Set<Long> findChangedSegments(ReadOnlyTaskManager taskManager, List<TaskManagerChange> changes) {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        Set<Long> changedSegments = new HashSet<>();
+        for (TaskManagerChange change : changes) {
+            if (change.getType() == TaskManagerChange.Type.RESET || !hasId(change.getEvent())) {
+                return null;
+            }
+            if (change.getType() == TaskManagerChange.Type.REMOVE) {
+                changedSegments.add(getSegment(change.getEvent()));
+            }
+        }
+        for (ReadOnlyEvent event : taskManager.getTaskList()) {
+            if (!hasId(event)) {
+                return null;
+            }
+            if (((Event) event).isDirty()) {
+                changedSegments.add(getSegment(event));
+            }
+        }
+        return changedSegments;
+    }
+
+    private static boolean hasId(ReadOnlyEvent event) {
+        return event instanceof Event && ((Event) event).getId() != Event.NO_ID;
+    }
+
+    private static boolean hasIncreasingIds(List<? extends ReadOnlyEvent> events) {
+        long lastId = Event.NO_ID;
+        for (ReadOnlyEvent event : events) {
+            if (!hasId(event) || ((Event) event).getId() <= lastId) {
+                return false;
+            }
+            lastId = ((Event) event).getId();
+        }
+        return true;
+    }
+
+    private static long getSegment(ReadOnlyEvent event) {
+        return ((Event) event).getId() / SEGMENT_SIZE;
+    }
+
+    private static File getSegmentFile(File directory, long segment) {
+        return new File(directory, SEGMENT_PREFIX + segment + SEGMENT_EXTENSION);
+    }
+
+    /**
+     * Returns the segment files in {@code directory} by segment number.
+     */
+    private static Map<Long, File> listSegmentFiles(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Could not list " + directory);
+        }
+        Map<Long, File> segmentFiles = new TreeMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION)) {
+                try {
+                    segmentFiles.put(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length())), file);
+                } catch (NumberFormatException e) {
+                    logger.warning("Ignoring unexpected file " + file);
+                }
+            }
+        }
+        return segmentFiles;
+    }
+
+    private static void writeSegment(File directory, long segment, List<ReadOnlyEvent> events) throws IOException {
+        // cleaned before writing, so that a change made meanwhile is saved next time
+        for (ReadOnlyEvent event : events) {
+            if (event instanceof Event) {
+                ((Event) event).markClean();
+            }
+        }
+        writeFile(getSegmentFile(directory, segment), new TaskManagerSnapshot(events, Collections.emptyList()));
+    }
+
+    /**
+     * Writes {@code contents} to {@code file} through a temporary file, so that
+     * a crash while saving never leaves a half-written file behind.
+     */
+    private static void writeFile(File file, ReadOnlyTaskManager contents) throws IOException {
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        FileUtil.createIfMissing(tempFile);
+        XmlTaskManagerCodec.write(tempFile, contents, null);
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
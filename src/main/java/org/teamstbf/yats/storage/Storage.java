@@ -7,12 +7,13 @@ import org.teamstbf.yats.commons.events.model.TaskManagerChangedEvent;
 import org.teamstbf.yats.commons.events.storage.DataSavingExceptionEvent;
 import org.teamstbf.yats.commons.exceptions.DataConversionException;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskArchive;
 import org.teamstbf.yats.model.UserPrefs;
 
 /**
  * API of the Storage component
  */
-public interface Storage extends TaskManagerStorage, UserPrefsStorage {
+public interface Storage extends TaskManagerStorage, UserPrefsStorage, TaskArchive {
 
     @Override
     Optional<UserPrefs> readUserPrefs() throws DataConversionException, IOException;
@@ -35,4 +36,11 @@ public interface Storage extends TaskManagerStorage, UserPrefsStorage {
      * was an error during saving.
      */
     void handleTaskManagerChangedEvent(TaskManagerChangedEvent abce);
+
+    /**
+     * Blocks until all changes passed to
+     * {@link #handleTaskManagerChangedEvent(TaskManagerChangedEvent)} so far
+     * have been written to the hard disk.
+     */
+    void flush();
 }
@@ -1,16 +1,22 @@
 package org.teamstbf.yats.storage;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
 
 import org.teamstbf.yats.commons.core.ComponentManager;
+import org.teamstbf.yats.commons.core.Config;
 import org.teamstbf.yats.commons.core.LogsCenter;
 import org.teamstbf.yats.commons.events.model.TaskManagerChangedEvent;
 import org.teamstbf.yats.commons.events.storage.DataSavingExceptionEvent;
 import org.teamstbf.yats.commons.exceptions.DataConversionException;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskArchive;
+import org.teamstbf.yats.model.TaskManagerChange;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
 import org.teamstbf.yats.model.UserPrefs;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
 
 import com.google.common.eventbus.Subscribe;
 
@@ -22,17 +28,52 @@ public class StorageManager extends ComponentManager implements Storage {
     private static final Logger logger = LogsCenter.getLogger(StorageManager.class);
     private TaskManagerStorage taskManagerStorage;
     private UserPrefsStorage userPrefsStorage;
+    private TaskArchive taskArchive;
+    /** Writes changes in the background; null if they are saved synchronously. */
+    private AsyncTaskManagerSaver asyncSaver;
 
     public StorageManager(TaskManagerStorage addressBookStorage, UserPrefsStorage userPrefsStorage) {
         super();
         this.taskManagerStorage = addressBookStorage;
         this.userPrefsStorage = userPrefsStorage;
+        this.taskArchive = new GzipTaskArchive(addressBookStorage);
     }
 
     public StorageManager(String addressBookFilePath, String userPrefsFilePath) {
         this(new XmlTaskManagerStorage(addressBookFilePath), new JsonUserPrefsStorage(userPrefsFilePath));
     }
 
+    /**
+     * Creates a StorageManager using the file locations and task manager
+     * storage format given in {@code config}. Changes to the task manager are
+     * saved on a background thread.
+     */
+    public StorageManager(Config config) {
+        this(createTaskManagerStorage(config), new JsonUserPrefsStorage(config.getUserPrefsFilePath()));
+        this.asyncSaver = new AsyncTaskManagerSaver(taskManagerStorage, config.getSaveDebounceMillis(),
+                config.getMaximumPendingSaveChanges(), e -> raise(new DataSavingExceptionEvent(e)));
+    }
+
+    private static TaskManagerStorage createTaskManagerStorage(Config config) {
+        XmlTaskManagerStorage xmlStorage = new XmlTaskManagerStorage(config.getTaskManagerFilePath());
+        switch (config.getTaskManagerStorageFormat()) {
+        case Config.STORAGE_FORMAT_JOURNAL:
+            return new JournalTaskManagerStorage(xmlStorage, config.getJournalCompactionThreshold());
+        case Config.STORAGE_FORMAT_BINARY:
+            return new BinaryTaskManagerStorage(xmlStorage);
+        case Config.STORAGE_FORMAT_MAPPED:
+            return new MappedTaskManagerStorage(xmlStorage);
+        case Config.STORAGE_FORMAT_SEGMENTED:
+            return new SegmentedTaskManagerStorage(xmlStorage);
+        case Config.STORAGE_FORMAT_XML:
+            return config.isTaskManagerCacheEnabled() ? new CachedXmlTaskManagerStorage(xmlStorage) : xmlStorage;
+        default:
+            logger.warning("Unknown storage format " + config.getTaskManagerStorageFormat() + ", using "
+                    + Config.STORAGE_FORMAT_XML);
+            return xmlStorage;
+        }
+    }
+
     // ================ UserPrefs methods ==============================
 
     @Override
@@ -60,6 +101,7 @@ public class StorageManager extends ComponentManager implements Storage {
     @Override
     public Optional<ReadOnlyTaskManager> readTaskManager(String filePath) throws DataConversionException, IOException {
         logger.fine("Attempting to read data from file: " + filePath);
+        flush();
         return taskManagerStorage.readTaskManager(filePath);
     }
 
@@ -71,18 +113,53 @@ public class StorageManager extends ComponentManager implements Storage {
     @Override
     public void saveTaskManager(ReadOnlyTaskManager addressBook, String filePath) throws IOException {
         logger.fine("Attempting to write to data file: " + filePath);
+        flush();
         taskManagerStorage.saveTaskManager(addressBook, filePath);
     }
 
+    @Override
+    public void saveTaskManagerChanges(ReadOnlyTaskManager taskManager, List<TaskManagerChange> changes)
+            throws IOException {
+        logger.fine("Attempting to write " + changes.size() + " changes to data file: " + getTaskManagerFilePath());
+        flush();
+        taskManagerStorage.saveTaskManagerChanges(taskManager, changes);
+    }
+
+    // ================ Archive methods ==============================
+
+    @Override
+    public void archiveEvents(List<? extends ReadOnlyEvent> events) throws IOException {
+        logger.fine("Attempting to archive " + events.size() + " tasks");
+        taskArchive.archiveEvents(events);
+    }
+
+    @Override
+    public List<ReadOnlyEvent> readArchivedEvents() throws DataConversionException, IOException {
+        logger.fine("Attempting to read archived tasks");
+        return taskArchive.readArchivedEvents();
+    }
+
     @Override
     @Subscribe
     public void handleTaskManagerChangedEvent(TaskManagerChangedEvent event) {
         logger.info(LogsCenter.getEventHandlingLogMessage(event, "Local data changed, saving to file"));
+        if (asyncSaver != null) {
+            // the model keeps changing while the save runs, so hand over a copy
+            asyncSaver.submit(TaskManagerSnapshot.of(event.data), event.changes);
+            return;
+        }
         try {
-            saveTaskManager(event.data);
+            saveTaskManagerChanges(event.data, event.changes);
         } catch (IOException e) {
             raise(new DataSavingExceptionEvent(e));
         }
     }
 
+    @Override
+    public void flush() {
+        if (asyncSaver != null) {
+            asyncSaver.flush();
+        }
+    }
+
 }
@@ -1,10 +1,12 @@
 package org.teamstbf.yats.storage;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 import org.teamstbf.yats.commons.exceptions.DataConversionException;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
 
 /**
  * Represents a storage for {@link org.teamstbf.yats.model.TaskManager}.
@@ -47,4 +49,20 @@ public interface TaskManagerStorage {
      */
     void saveTaskManager(ReadOnlyTaskManager addressBook, String filePath) throws IOException;
 
+    /**
+     * Saves the given {@link ReadOnlyTaskManager}, which is the result of
+     * applying {@code changes} to the previously saved state. Storages that can
+     * persist individual changes should override this; by default the whole
+     * task manager is saved.
+     *
+     * @param changes
+     *            may be empty if the changes are not known.
+     * @throws IOException
+     *             if there was any problem writing to the file.
+     */
+    default void saveTaskManagerChanges(ReadOnlyTaskManager taskManager, List<TaskManagerChange> changes)
+            throws IOException {
+        saveTaskManager(taskManager);
+    }
+
 }
@@ -1,9 +1,17 @@
 package org.teamstbf.yats.storage;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.model.item.Description;
@@ -118,4 +126,256 @@ public class XmlAdaptedTask {
         return new Event(title, location, startTime, endTime, deadline, description, tags, isDone, isRecurring,
                 recurrence);
     }
+
+    /**
+     * Writes the child elements of this task to {@code out} in the same form
+     * JAXB would, so that either can read the result.
+     */
+    void writeTo(XMLStreamWriter out) throws XMLStreamException {
+        XmlTaskManagerCodec.writeTextElement(out, "title", title);
+        XmlTaskManagerCodec.writeTextElement(out, "location", location);
+        XmlTaskManagerCodec.writeTextElement(out, "period", period);
+        XmlTaskManagerCodec.writeTextElement(out, "startTime", startTime);
+        XmlTaskManagerCodec.writeTextElement(out, "endTime", endTime);
+        XmlTaskManagerCodec.writeTextElement(out, "deadline", deadline);
+        XmlTaskManagerCodec.writeTextElement(out, "description", description);
+        XmlTaskManagerCodec.writeTextElement(out, "completed", completed);
+        XmlTaskManagerCodec.writeTextElement(out, "isRecurring", isRecurring);
+        XmlTaskManagerCodec.writeTextElement(out, "recurrenceStart", recurrenceStart);
+        XmlTaskManagerCodec.writeTextElement(out, "recurrencePeriodicity", recurrencePeriodicity);
+        XmlTaskManagerCodec.writeTextElement(out, "recurrenceDoneList", recurrenceDoneList);
+        for (XmlAdaptedTag tag : tagged) {
+            XmlTaskManagerCodec.writeTextElement(out, "tagged", tag.tagName);
+        }
+    }
+
+    /**
+     * Reads a task from {@code in}, which must be positioned at the start of
+     * its element. Returns with {@code in} at the end of that element.
+     * Unknown child elements are skipped.
+     */
+    static XmlAdaptedTask readFrom(XMLStreamReader in) throws XMLStreamException {
+        XmlAdaptedTask task = new XmlAdaptedTask();
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = in.getLocalName();
+            switch (name) {
+            case "title":
+                task.title = in.getElementText();
+                break;
+            case "location":
+                task.location = in.getElementText();
+                break;
+            case "period":
+                task.period = in.getElementText();
+                break;
+            case "startTime":
+                task.startTime = in.getElementText();
+                break;
+            case "endTime":
+                task.endTime = in.getElementText();
+                break;
+            case "deadline":
+                task.deadline = in.getElementText();
+                break;
+            case "description":
+                task.description = in.getElementText();
+                break;
+            case "completed":
+                task.completed = in.getElementText();
+                break;
+            case "isRecurring":
+                task.isRecurring = in.getElementText();
+                break;
+            case "recurrenceStart":
+                task.recurrenceStart = in.getElementText();
+                break;
+            case "recurrencePeriodicity":
+                task.recurrencePeriodicity = in.getElementText();
+                break;
+            case "recurrenceDoneList":
+                task.recurrenceDoneList = in.getElementText();
+                break;
+            case "tagged":
+                XmlAdaptedTag tag = new XmlAdaptedTag();
+                tag.tagName = in.getElementText();
+                task.tagged.add(tag);
+                break;
+            default:
+                XmlTaskManagerCodec.skipElement(in);
+            }
+        }
+        return task;
+    }
+
+    //// raw field access for the other storage formats
+
+    String getTitle() {
+        return title;
+    }
+
+    void setTitle(String title) {
+        this.title = title;
+    }
+
+    String getLocation() {
+        return location;
+    }
+
+    void setLocation(String location) {
+        this.location = location;
+    }
+
+    String getPeriod() {
+        return period;
+    }
+
+    void setPeriod(String period) {
+        this.period = period;
+    }
+
+    String getStartTime() {
+        return startTime;
+    }
+
+    void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    String getEndTime() {
+        return endTime;
+    }
+
+    void setEndTime(String endTime) {
+        this.endTime = endTime;
+    }
+
+    String getDeadline() {
+        return deadline;
+    }
+
+    void setDeadline(String deadline) {
+        this.deadline = deadline;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    void setDescription(String description) {
+        this.description = description;
+    }
+
+    String getCompleted() {
+        return completed;
+    }
+
+    void setCompleted(String completed) {
+        this.completed = completed;
+    }
+
+    String getIsRecurring() {
+        return isRecurring;
+    }
+
+    void setIsRecurring(String isRecurring) {
+        this.isRecurring = isRecurring;
+    }
+
+    String getRecurrenceStart() {
+        return recurrenceStart;
+    }
+
+    void setRecurrenceStart(String recurrenceStart) {
+        this.recurrenceStart = recurrenceStart;
+    }
+
+    String getRecurrencePeriodicity() {
+        return recurrencePeriodicity;
+    }
+
+    void setRecurrencePeriodicity(String recurrencePeriodicity) {
+        this.recurrencePeriodicity = recurrencePeriodicity;
+    }
+
+    String getRecurrenceDoneList() {
+        return recurrenceDoneList;
+    }
+
+    void setRecurrenceDoneList(String recurrenceDoneList) {
+        this.recurrenceDoneList = recurrenceDoneList;
+    }
+
+    List<XmlAdaptedTag> getTagged() {
+        return tagged;
+    }
+
+    /**
+     * Writes this task to {@code out} in a compact binary form that can be
+     * read back with {@link #readFrom(DataInput)}.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        writeString(out, title);
+        writeString(out, location);
+        writeString(out, period);
+        writeString(out, startTime);
+        writeString(out, endTime);
+        writeString(out, deadline);
+        writeString(out, description);
+        writeString(out, completed);
+        writeString(out, isRecurring);
+        writeString(out, recurrenceStart);
+        writeString(out, recurrencePeriodicity);
+        writeString(out, recurrenceDoneList);
+        out.writeInt(tagged.size());
+        for (XmlAdaptedTag tag : tagged) {
+            writeString(out, tag.tagName);
+        }
+    }
+
+    /**
+     * Reads a task written by {@link #writeTo(DataOutput)}.
+     */
+    static XmlAdaptedTask readFrom(DataInput in) throws IOException {
+        XmlAdaptedTask task = new XmlAdaptedTask();
+        task.title = readString(in);
+        task.location = readString(in);
+        task.period = readString(in);
+        task.startTime = readString(in);
+        task.endTime = readString(in);
+        task.deadline = readString(in);
+        task.description = readString(in);
+        task.completed = readString(in);
+        task.isRecurring = readString(in);
+        task.recurrenceStart = readString(in);
+        task.recurrencePeriodicity = readString(in);
+        task.recurrenceDoneList = readString(in);
+        int tagCount = in.readInt();
+        for (int i = 0; i < tagCount; i++) {
+            XmlAdaptedTag tag = new XmlAdaptedTag();
+            tag.tagName = readString(in);
+            task.tagged.add(tag);
+        }
+        return task;
+    }
+
+    /** Writes a length-prefixed UTF-8 string; a length of -1 stands for null. */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
 }
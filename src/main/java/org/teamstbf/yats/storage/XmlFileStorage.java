@@ -6,6 +6,7 @@ import java.io.FileNotFoundException;
 import javax.xml.bind.JAXBException;
 
 import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.commons.util.XmlUtil;
 
 /**
@@ -25,14 +26,24 @@ public class XmlFileStorage {
 
     /**
      * Returns address book in the file or an empty address book
+     *
+     * @throws DataConversionException
+     *             if the file is not in the expected format, or any task or
+     *             tag in it is invalid.
      */
     public static XmlSerializableTaskManager loadDataFromSaveFile(File file)
             throws DataConversionException, FileNotFoundException {
+        XmlSerializableTaskManager data;
         try {
-            return XmlUtil.getDataFromFile(file, XmlSerializableTaskManager.class);
+            data = XmlUtil.getDataFromFile(file, XmlSerializableTaskManager.class);
         } catch (JAXBException e) {
             throw new DataConversionException(e);
         }
+        if (!data.getConversionErrors().isEmpty()) {
+            throw new DataConversionException(
+                    new IllegalValueException(String.join("\n", data.getConversionErrors())));
+        }
+        return data;
     }
 
 }
@@ -1,16 +1,23 @@
 package org.teamstbf.yats.storage;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 
+import org.teamstbf.yats.commons.core.LogsCenter;
 import org.teamstbf.yats.commons.core.UnmodifiableObservableList;
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
-import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
 import org.teamstbf.yats.model.tag.Tag;
 
@@ -23,10 +30,28 @@ import javafx.collections.ObservableList;
 @XmlRootElement(name = "YATS")
 public class XmlSerializableTaskManager implements ReadOnlyTaskManager {
 
+    /** Number of tasks converted by each fork-join task. */
+    static final int CONVERSION_CHUNK_SIZE = 1024;
+
+    private static final Logger logger = LogsCenter.getLogger(XmlSerializableTaskManager.class);
+
     @XmlElement
     private List<XmlAdaptedTask> tasks;
     @XmlElement
     private List<XmlAdaptedTag> tags;
+    /**
+     * Sequence number of the last journal record included in this snapshot,
+     * absent if the file was not written by {@link JournalTaskManagerStorage}.
+     */
+    @XmlAttribute
+    private Long journalSequence;
+    @XmlTransient
+    private ObservableList<ReadOnlyEvent> convertedTasks;
+    @XmlTransient
+    private ObservableList<Tag> convertedTags;
+    /** Null until the adapted tasks and tags have been converted. */
+    @XmlTransient
+    private List<String> conversionErrors;
 
     /**
      * Creates an empty XmlSerializableAddressBook. This empty constructor is
@@ -46,32 +71,157 @@ public class XmlSerializableTaskManager implements ReadOnlyTaskManager {
         tags.addAll(src.getTagList().stream().map(XmlAdaptedTag::new).collect(Collectors.toList()));
     }
 
+    XmlSerializableTaskManager(List<XmlAdaptedTask> tasks, List<XmlAdaptedTag> tags, Long journalSequence) {
+        this.tasks = tasks;
+        this.tags = tags;
+        this.journalSequence = journalSequence;
+    }
+
+    List<XmlAdaptedTask> getAdaptedTasks() {
+        return tasks;
+    }
+
+    List<XmlAdaptedTag> getAdaptedTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the {@code journalSequence} attribute, or null if it is absent.
+     */
+    Long getJournalSequenceAttribute() {
+        return journalSequence;
+    }
+
+    long getJournalSequence() {
+        return journalSequence == null ? 0 : journalSequence;
+    }
+
+    void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * Returns the tasks that could be converted, in order. The conversion is
+     * done once, on the common fork-join pool; changes to the adapted tasks
+     * after that are not reflected.
+     */
     @Override
     public ObservableList<ReadOnlyEvent> getTaskList() {
-        final ObservableList<Event> events = this.tasks.stream().map(p -> {
-            try {
-                return p.toModelType();
-            } catch (IllegalValueException e) {
-                e.printStackTrace();
-                // TODO: better error handling
-                return null;
-            }
-        }).collect(Collectors.toCollection(FXCollections::observableArrayList));
-        return new UnmodifiableObservableList<>(events);
+        convert();
+        return convertedTasks;
     }
 
+    /**
+     * Returns the tags that could be converted, in order.
+     */
     @Override
     public ObservableList<Tag> getTagList() {
-        final ObservableList<Tag> tags = this.tags.stream().map(t -> {
+        convert();
+        return convertedTags;
+    }
+
+    /**
+     * Returns one message for each task or tag that could not be converted and
+     * is left out of {@link #getTaskList()} or {@link #getTagList()}.
+     */
+    public List<String> getConversionErrors() {
+        convert();
+        return conversionErrors;
+    }
+
+    private synchronized void convert() {
+        if (conversionErrors != null) {
+            return;
+        }
+        ConvertedTasks converted = ForkJoinPool.commonPool().invoke(new TaskConversion(tasks, 0, tasks.size(), 0));
+        List<Tag> convertedTagList = new ArrayList<>();
+        for (int i = 0; i < tags.size(); i++) {
             try {
-                return t.toModelType();
+                convertedTagList.add(tags.get(i).toModelType());
             } catch (IllegalValueException e) {
-                e.printStackTrace();
-                // TODO: better error handling
-                return null;
+                converted.errors.add(tagError(i, e));
+            }
+        }
+        converted.errors.forEach(logger::warning);
+        convertedTasks = new UnmodifiableObservableList<>(FXCollections.observableList(converted.events));
+        convertedTags = new UnmodifiableObservableList<>(FXCollections.observableList(convertedTagList));
+        conversionErrors = Collections.unmodifiableList(converted.errors);
+    }
+
+    /**
+     * Starts converting {@code tasks} on the common fork-join pool, numbering
+     * them from {@code firstIndex} + 1 in the error messages.
+     */
+    static ForkJoinTask<ConvertedTasks> startConversion(List<XmlAdaptedTask> tasks, int firstIndex) {
+        return ForkJoinPool.commonPool().submit(new TaskConversion(tasks, 0, tasks.size(), firstIndex));
+    }
+
+    /** Returns the message for the tag at {@code index} that could not be converted. */
+    static String tagError(int index, IllegalValueException e) {
+        return "Tag " + (index + 1) + ": " + e.getMessage();
+    }
+
+    /**
+     * Tasks converted from a range of adapted tasks, with a message for each
+     * one that could not be converted.
+     */
+    static class ConvertedTasks {
+        private final List<ReadOnlyEvent> events = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        List<ReadOnlyEvent> getEvents() {
+            return events;
+        }
+
+        List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Converts the adapted tasks in {@code [from, to)}, splitting the range
+     * in halves down to {@link #CONVERSION_CHUNK_SIZE} tasks and joining the
+     * results in order.
+     */
+    private static class TaskConversion extends RecursiveTask<ConvertedTasks> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<XmlAdaptedTask> tasks;
+        private final int from;
+        private final int to;
+        /** The index of the first of {@link #tasks} in the whole document. */
+        private final int firstIndex;
+
+        TaskConversion(List<XmlAdaptedTask> tasks, int from, int to, int firstIndex) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+            this.firstIndex = firstIndex;
+        }
+
+        @Override
+        protected ConvertedTasks compute() {
+            if (to - from <= CONVERSION_CHUNK_SIZE) {
+                ConvertedTasks converted = new ConvertedTasks();
+                for (int i = from; i < to; i++) {
+                    try {
+                        converted.events.add(tasks.get(i).toModelType());
+                    } catch (IllegalValueException e) {
+                        converted.errors.add("Task " + (firstIndex + i + 1) + ": " + e.getMessage());
+                    }
+                }
+                return converted;
             }
-        }).collect(Collectors.toCollection(FXCollections::observableArrayList));
-        return new UnmodifiableObservableList<>(tags);
+            int middle = (from + to) >>> 1;
+            TaskConversion second = new TaskConversion(tasks, middle, to, firstIndex);
+            second.fork();
+            ConvertedTasks converted = new TaskConversion(tasks, from, middle, firstIndex).compute();
+            ConvertedTasks secondConverted = second.join();
+            converted.events.addAll(secondConverted.events);
+            converted.errors.addAll(secondConverted.errors);
+            return converted;
+        }
     }
 
 }
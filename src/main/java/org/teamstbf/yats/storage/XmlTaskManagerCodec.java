@@ -0,0 +1,510 @@
+package org.teamstbf.yats.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.teamstbf.yats.commons.core.LogsCenter;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.storage.XmlSerializableTaskManager.ConvertedTasks;
+
+/**
+ * Reads and writes the {@code YATS} XML file schema of
+ * {@link XmlSerializableTaskManager} with StAX, one task at a time.
+ *
+ * Unlike going through JAXB, no {@link XmlSerializableTaskManager} or list of
+ * all the {@link XmlAdaptedTask} is built up: the {@code <tasks>} elements are
+ * converted into events in chunks on the common fork-join pool while the rest
+ * of the file is read, and each event is written out as soon as it has been
+ * converted. A file with invalid tasks or tags is not read, and the error
+ * tells every one of them.
+ *
+ * Written files end with a {@code <?yats-checksum crc32="..."?>} processing
+ * instruction holding the CRC32 of everything before it. Files that have one
+ * are only read if it matches; files without one, e.g. written by JAXB, are
+ * read as they are.
+ */
+public class XmlTaskManagerCodec {
+
+    private static final String ROOT_ELEMENT = "YATS";
+    private static final String TASK_ELEMENT = "tasks";
+    private static final String TAG_ELEMENT = "tags";
+    private static final String JOURNAL_SEQUENCE_ATTRIBUTE = "journalSequence";
+    private static final String INDENT = "    ";
+    private static final byte[] CHECKSUM_START = "<?yats-checksum crc32=\"".getBytes(StandardCharsets.US_ASCII);
+    private static final String CHECKSUM_END = "\"?>\n";
+    /** How far from the end of a file the checksum is looked for. */
+    private static final int CHECKSUM_SEARCH_LENGTH = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Logger logger = LogsCenter.getLogger(XmlTaskManagerCodec.class);
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    static {
+        // the data file never needs external entities, so don't resolve them
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private XmlTaskManagerCodec() {
+    }
+
+    /**
+     * Reads the task manager stored in {@code file}. The file is streamed
+     * through a CRC32 as it is parsed rather than read into memory first, and
+     * the result is only returned if the CRC matches the checksum at its end.
+     *
+     * @throws FileNotFoundException
+     *             if the file is missing.
+     * @throws DataConversionException
+     *             if the file is not in the expected format, its checksum
+     *             does not match or a task in it is invalid.
+     */
+    public static DecodedTaskManager read(File file) throws DataConversionException, FileNotFoundException {
+        return read(file, false);
+    }
+
+    /**
+     * Reads the task manager stored in {@code file} like {@link #read(File)},
+     * but also returns it if the file is valid and only its checksum does not
+     * match, as when it was edited by hand. The result tells whether it did.
+     *
+     * @throws DataConversionException
+     *             if the file is not in the expected format or a task in it
+     *             is invalid.
+     */
+    public static DecodedTaskManager readAllowingEdits(File file)
+            throws DataConversionException, FileNotFoundException {
+        return read(file, true);
+    }
+
+    private static DecodedTaskManager read(File file, boolean isEditAllowed)
+            throws DataConversionException, FileNotFoundException {
+        assert file != null;
+        if (!FileUtil.isFileExists(file)) {
+            throw new FileNotFoundException("File not found : " + file.getAbsolutePath());
+        }
+        try (InputStream fileIn = new FileInputStream(file)) {
+            StoredChecksum stored = readStoredChecksum(file);
+            if (stored == null) {
+                return read(new BufferedInputStream(fileIn, BUFFER_SIZE));
+            }
+            CheckedInputStream checkedIn = new CheckedInputStream(
+                    new BufferedInputStream(new LimitedInputStream(fileIn, stored.offset), BUFFER_SIZE), new CRC32());
+            DecodedTaskManager taskManager;
+            try {
+                taskManager = read(checkedIn);
+            } catch (DataConversionException e) {
+                // a corrupted file is more likely to be reported for its checksum than for what it broke
+                if (!isChecksumMatched(checkedIn, stored)) {
+                    throw checksumMismatch();
+                }
+                throw e;
+            }
+            if (isChecksumMatched(checkedIn, stored)) {
+                return taskManager;
+            }
+            if (!isEditAllowed) {
+                throw checksumMismatch();
+            }
+            return new DecodedTaskManager(taskManager.getTaskList(), taskManager.getTagList(),
+                    taskManager.getJournalSequence(), true);
+        } catch (IOException e) {
+            throw new DataConversionException(e);
+        }
+    }
+
+    private static DataConversionException checksumMismatch() {
+        return new DataConversionException(new IllegalValueException("Checksum mismatch, the file is corrupted"));
+    }
+
+    /**
+     * Returns the checksum written at the end of {@code file} by
+     * {@link #write(File, ReadOnlyTaskManager, Long)}, or null if it has none.
+     * Only the end of the file is read.
+     */
+    static Long readChecksum(File file) throws IOException {
+        try {
+            StoredChecksum stored = readStoredChecksum(file);
+            return stored == null ? null : stored.value;
+        } catch (DataConversionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the checksum processing instruction among the last bytes of
+     * {@code file}, and returns null if there is none.
+     */
+    private static StoredChecksum readStoredChecksum(File file) throws DataConversionException, IOException {
+        byte[] tail;
+        long tailStart;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            tailStart = Math.max(0, in.length() - CHECKSUM_SEARCH_LENGTH);
+            tail = new byte[(int) (in.length() - tailStart)];
+            in.seek(tailStart);
+            in.readFully(tail);
+        }
+        int start = lastIndexOf(tail, CHECKSUM_START, 0);
+        if (start < 0) {
+            return null;
+        }
+        int valueStart = start + CHECKSUM_START.length;
+        String rest = new String(tail, valueStart, tail.length - valueStart, StandardCharsets.US_ASCII);
+        int valueEnd = rest.indexOf('"');
+        try {
+            if (valueEnd < 0) {
+                throw new IllegalValueException("Unterminated checksum");
+            }
+            return new StoredChecksum(tailStart + start, Long.parseLong(rest.substring(0, valueEnd), 16));
+        } catch (IllegalValueException | NumberFormatException e) {
+            throw new DataConversionException(e);
+        }
+    }
+
+    /**
+     * Reads what the parser left of the bytes before the checksum through
+     * {@code checkedIn}, and returns true if their CRC matches {@code stored}.
+     */
+    private static boolean isChecksumMatched(CheckedInputStream checkedIn, StoredChecksum stored)
+            throws IOException {
+        byte[] skipped = new byte[BUFFER_SIZE];
+        while (checkedIn.read(skipped) != -1) {
+            // only read to be checked
+        }
+        return checkedIn.getChecksum().getValue() == stored.value;
+    }
+
+    /**
+     * Returns the last position of {@code pattern} in {@code data} at or after
+     * {@code from}, or -1 if there is none.
+     */
+    private static int lastIndexOf(byte[] data, byte[] pattern, int from) {
+        for (int i = data.length - pattern.length; i >= from; i--) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static DecodedTaskManager read(InputStream input) throws DataConversionException {
+        List<ForkJoinTask<ConvertedTasks>> conversions = new ArrayList<>();
+        List<XmlAdaptedTask> chunk = new ArrayList<>();
+        int taskCount = 0;
+        List<Tag> tags = new ArrayList<>();
+        List<String> tagErrors = new ArrayList<>();
+        long journalSequence = 0;
+        try {
+            XMLStreamReader in = INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                in.nextTag();
+                if (!ROOT_ELEMENT.equals(in.getLocalName())) {
+                    throw new DataConversionException(
+                            new IllegalValueException("Unexpected root element " + in.getLocalName()));
+                }
+                String sequence = in.getAttributeValue(null, JOURNAL_SEQUENCE_ATTRIBUTE);
+                if (sequence != null) {
+                    journalSequence = Long.parseLong(sequence.trim());
+                }
+                while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    switch (in.getLocalName()) {
+                    case TASK_ELEMENT:
+                        chunk.add(XmlAdaptedTask.readFrom(in));
+                        taskCount++;
+                        if (chunk.size() == XmlSerializableTaskManager.CONVERSION_CHUNK_SIZE) {
+                            conversions.add(XmlSerializableTaskManager.startConversion(chunk,
+                                    taskCount - chunk.size()));
+                            chunk = new ArrayList<>();
+                        }
+                        break;
+                    case TAG_ELEMENT:
+                        String tagName = in.getElementText();
+                        try {
+                            tags.add(new Tag(tagName));
+                        } catch (IllegalValueException e) {
+                            tagErrors.add(XmlSerializableTaskManager.tagError(tags.size() + tagErrors.size(), e));
+                        }
+                        break;
+                    default:
+                        skipElement(in);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            conversions.forEach(conversion -> conversion.cancel(false));
+            throw new DataConversionException(e);
+        }
+        if (!chunk.isEmpty()) {
+            conversions.add(XmlSerializableTaskManager.startConversion(chunk, taskCount - chunk.size()));
+        }
+
+        List<ReadOnlyEvent> events = new ArrayList<>(taskCount);
+        List<String> errors = new ArrayList<>();
+        for (ForkJoinTask<ConvertedTasks> conversion : conversions) {
+            ConvertedTasks converted = conversion.join();
+            events.addAll(converted.getEvents());
+            errors.addAll(converted.getErrors());
+        }
+        errors.addAll(tagErrors);
+        if (!errors.isEmpty()) {
+            errors.forEach(logger::warning);
+            throw new DataConversionException(new IllegalValueException(String.join("\n", errors)));
+        }
+        return new DecodedTaskManager(events, tags, journalSequence);
+    }
+
+    /**
+     * Writes {@code taskManager} to {@code file} in the same layout JAXB
+     * produces for {@link XmlSerializableTaskManager}, followed by the
+     * checksum, and forces it to disk. The file is written in place; callers
+     * that replace a live file should write to a temporary file and move it.
+     *
+     * @param journalSequence
+     *            written as the {@code journalSequence} attribute of the root
+     *            element if not null.
+     * @return the checksum written at the end of the file.
+     * @throws FileNotFoundException
+     *             if the file is missing.
+     */
+    public static long write(File file, ReadOnlyTaskManager taskManager, Long journalSequence) throws IOException {
+        assert file != null && taskManager != null;
+        if (!file.exists()) {
+            throw new FileNotFoundException("File not found : " + file.getAbsolutePath());
+        }
+        try (FileOutputStream fileOut = new FileOutputStream(file)) {
+            OutputStream out = new BufferedOutputStream(fileOut);
+            CheckedOutputStream checkedOut = new CheckedOutputStream(out, new CRC32());
+            write(checkedOut, taskManager, journalSequence);
+            long checksum = checkedOut.getChecksum().getValue();
+            out.write(CHECKSUM_START);
+            out.write((Long.toHexString(checksum) + CHECKSUM_END).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            fileOut.getChannel().force(true);
+            return checksum;
+        }
+    }
+
+    /**
+     * Writes the document to {@code output} and flushes it, without closing
+     * it.
+     */
+    private static void write(OutputStream output, ReadOnlyTaskManager taskManager, Long journalSequence)
+            throws IOException {
+        try {
+            XMLStreamWriter out = OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+            out.writeStartDocument("UTF-8", "1.0");
+            out.writeCharacters("\n");
+            out.writeStartElement(ROOT_ELEMENT);
+            if (journalSequence != null) {
+                out.writeAttribute(JOURNAL_SEQUENCE_ATTRIBUTE, journalSequence.toString());
+            }
+            for (ReadOnlyEvent event : taskManager.getTaskList()) {
+                writeIndent(out, 1);
+                out.writeStartElement(TASK_ELEMENT);
+                new XmlAdaptedTask(event).writeTo(out);
+                writeIndent(out, 1);
+                out.writeEndElement();
+            }
+            writeTags(out, taskManager.getTagList());
+            out.writeCharacters("\n");
+            out.writeEndElement();
+            out.writeCharacters("\n");
+            out.writeEndDocument();
+            out.flush();
+            out.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeTags(XMLStreamWriter out, Collection<Tag> tags) throws XMLStreamException {
+        for (Tag tag : tags) {
+            writeIndent(out, 1);
+            writeText(out, TAG_ELEMENT, tag.tagName);
+        }
+    }
+
+    /**
+     * Writes a child element of a {@code <tasks>} element holding only text.
+     * Nothing is written if {@code value} is null.
+     */
+    static void writeTextElement(XMLStreamWriter out, String name, String value) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        writeIndent(out, 2);
+        writeText(out, name, value);
+    }
+
+    private static void writeText(XMLStreamWriter out, String name, String value) throws XMLStreamException {
+        out.writeStartElement(name);
+        out.writeCharacters(value);
+        out.writeEndElement();
+    }
+
+    private static void writeIndent(XMLStreamWriter out, int depth) throws XMLStreamException {
+        StringBuilder indent = new StringBuilder("\n");
+        for (int i = 0; i < depth; i++) {
+            indent.append(INDENT);
+        }
+        out.writeCharacters(indent.toString());
+    }
+
+    /**
+     * Skips the element {@code in} is positioned at, including its children.
+     */
+    static void skipElement(XMLStreamReader in) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = in.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * The checksum at the end of a file, and where it starts.
+     */
+    private static class StoredChecksum {
+        private final long offset;
+        private final long value;
+
+        StoredChecksum(long offset, long value) {
+            this.offset = offset;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Passes on at most a given number of bytes of another stream, so that
+     * what follows them is never read.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read();
+            if (read != -1) {
+                remaining--;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(bytes, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = super.skip(Math.min(count, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * A task manager read by {@link XmlTaskManagerCodec#read(File)}, along
+     * with the journal sequence number stored with it.
+     */
+    public static class DecodedTaskManager extends TaskManagerSnapshot {
+        private final long journalSequence;
+        private final boolean isChecksumMismatched;
+
+        DecodedTaskManager(Collection<? extends ReadOnlyEvent> events, Collection<Tag> tags, long journalSequence) {
+            this(events, tags, journalSequence, false);
+        }
+
+        DecodedTaskManager(Collection<? extends ReadOnlyEvent> events, Collection<Tag> tags, long journalSequence,
+                boolean isChecksumMismatched) {
+            super(events, tags);
+            this.journalSequence = journalSequence;
+            this.isChecksumMismatched = isChecksumMismatched;
+        }
+
+        /**
+         * Returns true if the file was read although its checksum did not
+         * match, as by {@link XmlTaskManagerCodec#readAllowingEdits(File)}.
+         */
+        public boolean isChecksumMismatched() {
+            return isChecksumMismatched;
+        }
+
+        /**
+         * Returns the {@code journalSequence} attribute of the file, or 0 if it
+         * has none.
+         */
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+}
@@ -16,6 +16,9 @@ import org.teamstbf.yats.model.ReadOnlyTaskManager;
  */
 public class XmlTaskManagerStorage implements TaskManagerStorage {
 
+    static final String BACKUP_SUFFIX = ".bak";
+    private static final String TEMP_SUFFIX = ".tmp";
+
     private static final Logger logger = LogsCenter.getLogger(XmlTaskManagerStorage.class);
 
     private static String filePath;
@@ -43,12 +46,17 @@ public class XmlTaskManagerStorage implements TaskManagerStorage {
     }
 
     /**
-     * Similar to {@link #readTaskManager()}
+     * Similar to {@link #readTaskManager()}. If the file is missing or
+     * cannot be read, e.g. because a crash cut it short, the previous version
+     * kept by {@link #saveTaskManager(ReadOnlyTaskManager, String)} is read
+     * instead. A valid file whose checksum does not match was edited by hand,
+     * so it is still read, with a warning.
      *
      * @param filePath
      *            location of the data. Cannot be null
      * @throws DataConversionException
-     *             if the file is not in the correct format.
+     *             if the file is not in the correct format and there is no
+     *             previous version.
      */
     @Override
     public Optional<ReadOnlyTaskManager> readTaskManager(String filePath)
@@ -56,15 +64,41 @@ public class XmlTaskManagerStorage implements TaskManagerStorage {
         assert filePath != null;
 
         File addressBookFile = new File(filePath);
+        File backupFile = new File(filePath + BACKUP_SUFFIX);
 
         if (!addressBookFile.exists()) {
+            if (backupFile.exists()) {
+                logger.warning("TaskManager file " + addressBookFile + " not found, reading previous version "
+                        + backupFile);
+                return Optional.of(XmlTaskManagerCodec.read(backupFile));
+            }
             logger.info("TaskManager file " + addressBookFile + " not found");
             return Optional.empty();
         }
 
-        ReadOnlyTaskManager addressBookOptional = XmlFileStorage.loadDataFromSaveFile(new File(filePath));
+        try {
+            return Optional.of(readDataFile(addressBookFile));
+        } catch (DataConversionException e) {
+            if (!backupFile.exists()) {
+                throw e;
+            }
+            logger.warning("TaskManager file " + addressBookFile + " is corrupted (" + e.getMessage()
+                    + "), reading previous version " + backupFile);
+            return Optional.of(XmlTaskManagerCodec.read(backupFile));
+        }
+    }
 
-        return Optional.of(addressBookOptional);
+    /**
+     * Reads the data file {@code file}, which the user may have edited by
+     * hand, and warns if it was.
+     */
+    static ReadOnlyTaskManager readDataFile(File file) throws DataConversionException, FileNotFoundException {
+        XmlTaskManagerCodec.DecodedTaskManager taskManager = XmlTaskManagerCodec.readAllowingEdits(file);
+        if (taskManager.isChecksumMismatched()) {
+            logger.warning("TaskManager file " + file + " was changed outside of the application; using it as it is"
+                    + " since it is valid. It will be saved with a new checksum.");
+        }
+        return taskManager;
     }
 
     @Override
@@ -73,19 +107,37 @@ public class XmlTaskManagerStorage implements TaskManagerStorage {
     }
 
     /**
-     * Similar to {@link #saveTaskManager(ReadOnlyTaskManager)}
+     * Similar to {@link #saveTaskManager(ReadOnlyTaskManager)}. The data is
+     * written to a temporary file and forced to disk first, then the current
+     * file is kept as {@code <file>.bak} and the temporary file is moved into
+     * its place, so that a crash never leaves only a half-written file.
      *
      * @param filePath
      *            location of the data. Cannot be null
      */
     @Override
     public void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+        save(taskManager, filePath);
+    }
+
+    /**
+     * Saves like {@link #saveTaskManager(ReadOnlyTaskManager, String)}, and
+     * returns the checksum written at the end of the file.
+     */
+    long save(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
         assert taskManager != null;
         assert filePath != null;
 
         File file = new File(filePath);
-        FileUtil.createIfMissing(file);
-        XmlFileStorage.saveDataToFile(file, new XmlSerializableTaskManager(taskManager));
+        File tempFile = new File(filePath + TEMP_SUFFIX);
+        FileUtil.createIfMissing(tempFile);
+        long checksum = XmlTaskManagerCodec.write(tempFile, taskManager, null);
+        if (file.exists()) {
+            FileUtil.moveAtomically(file, new File(filePath + BACKUP_SUFFIX));
+        }
+        FileUtil.moveAtomically(tempFile, file);
+        FileUtil.syncParentDirectory(file);
+        return checksum;
     }
 
 }
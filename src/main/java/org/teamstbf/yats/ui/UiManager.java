@@ -109,7 +109,9 @@ public class UiManager extends ComponentManager implements Ui {
     @Subscribe
     private void handleDataSavingExceptionEvent(DataSavingExceptionEvent event) {
         logger.info(LogsCenter.getEventHandlingLogMessage(event));
-        showFileOperationAlertAndWait("Could not save data", "Could not save data to file", event.exception);
+        // saves may fail on the background storage thread
+        Platform.runLater(() -> showFileOperationAlertAndWait("Could not save data", "Could not save data to file",
+                event.exception));
     }
 
     @Subscribe
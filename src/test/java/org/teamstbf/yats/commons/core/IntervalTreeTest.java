@@ -0,0 +1,80 @@
+package org.teamstbf.yats.commons.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntervalTreeTest {
+
+    @Test
+    public void findOverlapping_randomChanges_sameAsScan() {
+        Random random = new Random(42);
+        IntervalTree<long[]> tree = new IntervalTree<>();
+        List<long[]> intervals = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (random.nextInt(3) == 0 && !intervals.isEmpty()) {
+                tree.remove(intervals.remove(random.nextInt(intervals.size())));
+            } else {
+                long start = random.nextInt(1000);
+                long[] interval = { start, start + random.nextInt(50) };
+                intervals.add(interval);
+                tree.add(interval, interval[0], interval[1]);
+            }
+            long from = random.nextInt(1000);
+            long to = from + random.nextInt(20);
+            assertEquals(scan(intervals, from, to), sortedByStart(tree.findOverlapping(from, to)));
+        }
+        assertEquals(intervals.size(), tree.size());
+    }
+
+    @Test
+    public void findOverlapping_endpointsInclusive() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.add("a", 10, 20);
+        tree.add("b", 20, 30);
+        tree.add("c", 31, 31);
+
+        assertEquals(Arrays.asList("a", "b"), tree.findOverlapping(20, 20));
+        assertEquals(Arrays.asList("c"), tree.findOverlapping(31, 40));
+        assertEquals(Collections.emptyList(), tree.findOverlapping(0, 9));
+    }
+
+    @Test
+    public void copy_laterChanges_leaveOriginalUnchanged() {
+        IntervalTree<String> original = new IntervalTree<>();
+        original.add("a", 0, 10);
+        IntervalTree<String> copy = new IntervalTree<>(original);
+
+        copy.remove("a");
+        copy.add("b", 5, 5);
+
+        assertEquals(Arrays.asList("a"), original.findOverlapping(5, 5));
+        assertFalse(original.contains("b"));
+    }
+
+    private static List<long[]> scan(List<long[]> intervals, long from, long to) {
+        List<long[]> found = new ArrayList<>();
+        for (long[] interval : intervals) {
+            if (interval[0] <= to && interval[1] >= from) {
+                found.add(interval);
+            }
+        }
+        return sortedByStart(found);
+    }
+
+    /** Sorts by start, and intervals with the same start by identity, to compare two lists of them. */
+    private static List<long[]> sortedByStart(List<long[]> intervals) {
+        List<long[]> sorted = new ArrayList<>(intervals);
+        sorted.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : Integer.compare(System.identityHashCode(a), System.identityHashCode(b)));
+        return sorted;
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.teamstbf.yats.commons.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class InvertedIndexTest {
+
+    private final InvertedIndex<String> index = new InvertedIndex<>();
+
+    @Test
+    public void findWithAnyWord_wholeWordsIgnoringCase() {
+        index.add("a", "Buy  milk");
+        index.add("b", "buy bread");
+        index.add("c", "milkshake");
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), find(true, "BUY"));
+        assertEquals(new HashSet<>(Arrays.asList("a")), find(true, "milk"));
+        assertEquals(Collections.emptySet(), find(true, "mil"));
+    }
+
+    @Test
+    public void findWithAnyFragment_fragmentsInsideWords() {
+        index.add("a", "fishing trip");
+        index.add("b", "Shopping");
+        index.add("c", "sh");
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), find(false, "SH"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), find(false, "ing"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), find(false, "trip", " OPP"));
+        assertEquals(Collections.emptySet(), find(false, "ing trip"));
+    }
+
+    @Test
+    public void findWithAnyFragment_longerThanSuffixKept_checkedAgainstWords() {
+        index.add("a", "refreshing");
+        index.add("b", "freshman");
+        index.add("c", "fresco");
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), find(false, "fresh"));
+        assertEquals(new HashSet<>(Arrays.asList("a")), find(false, "reshing"));
+        assertEquals(Collections.emptySet(), find(false, "freshly"));
+    }
+
+    @Test
+    public void remove_wordWithRepeatedSuffixes_noLongerFound() {
+        index.add("a", "aaaaaaa");
+        index.add("b", "baaaa");
+
+        index.remove("a");
+
+        assertEquals(new HashSet<>(Arrays.asList("b")), find(false, "aaaa"));
+        assertEquals(Collections.emptySet(), find(false, "aaaaa"));
+    }
+
+    @Test
+    public void add_afterCopy_copiesIndependent() {
+        index.add("a", "fishing");
+        InvertedIndex<String> copy = new InvertedIndex<>(index);
+
+        index.add("b", "fishing boat");
+        copy.add("c", "fish market");
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), find(false, "fish"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "c")), find(copy, false, "fish"));
+        assertEquals(Collections.emptySet(), find(false, "market"));
+        assertEquals(Collections.emptySet(), find(copy, false, "boat"));
+    }
+
+    @Test
+    public void remove_elementNoLongerFound() {
+        index.add("a", "fishing");
+        index.add("b", "fishing");
+        InvertedIndex<String> copy = new InvertedIndex<>(index);
+
+        index.remove("a");
+
+        assertEquals(new HashSet<>(Arrays.asList("b")), find(false, "fish"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), find(copy, false, "fish"));
+    }
+
+    private Set<String> find(boolean isWholeWord, String... keywords) {
+        return find(index, isWholeWord, keywords);
+    }
+
+    private static Set<String> find(InvertedIndex<String> index, boolean isWholeWord, String... keywords) {
+        Set<String> found = new HashSet<>();
+        if (isWholeWord) {
+            index.findWithAnyWord(Arrays.asList(keywords), found);
+        } else {
+            index.findWithAnyFragment(Arrays.asList(keywords), found);
+        }
+        return found;
+    }
+
+}
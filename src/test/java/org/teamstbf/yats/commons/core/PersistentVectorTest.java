@@ -0,0 +1,100 @@
+package org.teamstbf.yats.commons.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javafx.collections.ListChangeListener;
+
+public class PersistentVectorTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void changes_randomOperations_sameAsArrayList() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(4);
+            if (operation == 0 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, i);
+                vector = vector.plus(index, i);
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, i);
+                vector = vector.with(index, i);
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size());
+                expected.remove(index);
+                vector = vector.minus(index);
+            } else {
+                expected.add(i);
+                vector = vector.plus(i);
+            }
+        }
+        assertEquals(expected, vector);
+        assertEquals(expected, new ArrayList<>(vector));
+        assertEquals(expected.get(expected.size() / 2), vector.get(expected.size() / 2));
+    }
+
+    @Test
+    public void changes_earlierVersion_unchanged() {
+        PersistentVector<String> original = PersistentVector.of(Arrays.asList("a", "b", "c"));
+
+        original.plus(1, "x").with(0, "y").minus(2);
+
+        assertEquals(Arrays.asList("a", "b", "c"), original);
+    }
+
+    @Test
+    public void get_outOfBounds_throwsIndexOutOfBoundsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        PersistentVector.of(Arrays.asList("a")).get(1);
+    }
+
+    @Test
+    public void observableList_snapshot_unchangedByLaterChanges() {
+        PersistentObservableList<String> list = new PersistentObservableList<>();
+        list.addAll(Arrays.asList("a", "b"));
+        PersistentVector<String> snapshot = list.snapshot();
+
+        list.add("c");
+        list.remove("a");
+
+        assertEquals(Arrays.asList("a", "b"), snapshot);
+        assertEquals(Arrays.asList("b", "c"), list);
+    }
+
+    @Test
+    public void observableList_setAll_firesReplacement() {
+        PersistentObservableList<String> list = new PersistentObservableList<>();
+        list.addAll(Arrays.asList("a", "b"));
+        List<String> removed = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        list.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                removed.addAll(change.getRemoved());
+                added.addAll(change.getAddedSubList());
+            }
+        });
+
+        PersistentVector<String> replacement = PersistentVector.of(Arrays.asList("c"));
+        list.setAll(replacement);
+
+        assertEquals(Arrays.asList("a", "b"), removed);
+        assertEquals(Arrays.asList("c"), added);
+        assertSame(replacement, list.snapshot());
+    }
+
+}
@@ -22,6 +22,7 @@ import org.teamstbf.yats.commons.events.model.TaskManagerChangedEvent;
 import org.teamstbf.yats.commons.events.ui.JumpToListRequestEvent;
 import org.teamstbf.yats.commons.events.ui.ShowHelpRequestEvent;
 import org.teamstbf.yats.logic.commands.AddCommand;
+import org.teamstbf.yats.logic.commands.BatchDeleteCommand;
 import org.teamstbf.yats.logic.commands.Command;
 import org.teamstbf.yats.logic.commands.CommandResult;
 import org.teamstbf.yats.logic.commands.DeleteCommand;
@@ -32,6 +33,8 @@ import org.teamstbf.yats.logic.commands.ListCommand;
 import org.teamstbf.yats.logic.commands.ResetCommand;
 import org.teamstbf.yats.logic.commands.SelectCommand;
 import org.teamstbf.yats.logic.commands.exceptions.CommandException;
+import org.teamstbf.yats.logic.parser.QueryParser;
+import org.teamstbf.yats.logic.parser.TagQueryParser;
 import org.teamstbf.yats.model.Model;
 import org.teamstbf.yats.model.ModelManager;
 import org.teamstbf.yats.model.ReadOnlyTaskManager;
@@ -202,6 +205,7 @@ public class LogicManagerTest {
     private Logic logic;
     // These are for checking the correctness of the events raised
     private ReadOnlyTaskManager latestSavedTaskManager;
+    private int modelChangedEventCount;
     private boolean helpShown;
 
     private int targetedJumpIndex;
@@ -341,20 +345,22 @@ public class LogicManagerTest {
 
     }
 
-    /*
-     * @Test public void execute_addDuplicate_notAllowed() throws Exception { //
-     * setup expectations TestDataHelper helper = new TestDataHelper(); Event
-     * toBeAdded = helper.testEvent();
-     *
-     * // setup starting state model.addEvent(toBeAdded); // Event already in
-     * internal address book
-     *
-     * // execute command and verify result
-     * assertCommandFailure(helper.generateAddCommand(toBeAdded),
-     * AddCommand.MESSAGE_DUPLICATE_EVENT);
-     *
-     * }
-     */
+    @Test
+    public void execute_addDuplicate_notAllowed() throws Exception {
+        // setup expectations
+        TestDataHelper helper = new TestDataHelper();
+        Event toBeAdded = helper.testEvent();
+
+        // setup starting state
+        model.addEvent(toBeAdded); // Event already in internal task manager
+
+        // execute command and verify result
+        assertCommandFailure(
+                "add sleep -l bed -s 26 june 2017 12:00AM -e 27 june 2017 11:00AM"
+                        + " -d finals finally over -T rest -T moreRest",
+                AddCommand.MESSAGE_DUPLICATE_EVENT);
+
+    }
 
     @Test
     public void execute_reset() throws Exception {
@@ -379,6 +385,22 @@ public class LogicManagerTest {
                 expectedAB, expectedAB.getTaskList());
     }
 
+    @Test
+    public void execute_batchDelete_removesAllInOneChange() throws Exception {
+        TestDataHelper helper = new TestDataHelper();
+        List<Event> fourEvents = helper.generateEventList(4);
+
+        TaskManager expectedAB = helper.generateTaskManager(fourEvents);
+        expectedAB.removeEvent(fourEvents.get(0));
+        expectedAB.removeEvent(fourEvents.get(2));
+        helper.addToModel(model, fourEvents);
+        modelChangedEventCount = 0;
+
+        assertCommandSuccess("delete 1 3", String.format(BatchDeleteCommand.MESSAGE_DELETE_TASK_SUCCESS, 2),
+                expectedAB, expectedAB.getTaskList());
+        assertEquals(1, modelChangedEventCount);
+    }
+
     @Test
     public void execute_deleteIndexNotFound_errorMessageShown() throws Exception {
         assertIndexNotFoundBehaviorForCommand("delete");
@@ -453,6 +475,59 @@ public class LogicManagerTest {
                 expectedList);
     }
 
+    @Test
+    public void execute_listByTag_combinesTags() throws Exception {
+        TestDataHelper helper = new TestDataHelper();
+        Event urgentWork = helper.generateEvent(1);
+        urgentWork.setTags(new UniqueTagList("work", "urgent"));
+        Event work = helper.generateEvent(2);
+        work.setTags(new UniqueTagList("Work"));
+        Event home = helper.generateEvent(3);
+        home.setTags(new UniqueTagList("home"));
+
+        List<Event> threeEvents = helper.generateEventList(urgentWork, work, home);
+        TaskManager expectedAB = helper.generateTaskManager(threeEvents);
+        helper.addToModel(model, threeEvents);
+
+        assertCommandSuccess("list by tag work AND NOT urgent", Command.getMessageForPersonListShownSummary(1),
+                expectedAB, helper.generateEventList(work));
+        assertCommandSuccess("list by tag urgent home", Command.getMessageForPersonListShownSummary(2),
+                expectedAB, helper.generateEventList(urgentWork, home));
+        assertCommandSuccess("list by tag NOT work OR urgent AND work", Command.getMessageForPersonListShownSummary(2),
+                expectedAB, helper.generateEventList(urgentWork, home));
+        assertCommandFailure("list by tag work AND", TagQueryParser.MESSAGE_INVALID_TAG_QUERY);
+    }
+
+    @Test
+    public void execute_listWhere_combinesFields() throws Exception {
+        TestDataHelper helper = new TestDataHelper();
+        Event urgentWork = helper.generateEvent(1);
+        urgentWork.setTags(new UniqueTagList("work", "urgent"));
+        Event work = helper.generateEvent(2);
+        work.setTags(new UniqueTagList("Work"));
+        Event home = helper.generateEvent(3);
+        home.setTags(new UniqueTagList("home"));
+
+        List<Event> threeEvents = helper.generateEventList(urgentWork, work, home);
+        TaskManager expectedAB = helper.generateTaskManager(threeEvents);
+        helper.addToModel(model, threeEvents);
+
+        assertCommandSuccess("list where tag:work AND NOT tag:urgent", Command.getMessageForPersonListShownSummary(1),
+                expectedAB, helper.generateEventList(work));
+        assertCommandSuccess("list where (location:bed1 OR location:bed3) done:no",
+                Command.getMessageForPersonListShownSummary(2), expectedAB, helper.generateEventList(urgentWork, home));
+        assertCommandSuccess("find title:person2", Command.getMessageForPersonListShownSummary(1), expectedAB,
+                helper.generateEventList(work));
+        assertCommandFailure("list where tag:work AND", QueryParser.MESSAGE_INVALID_QUERY);
+
+        CommandResult result = logic.execute("list explain title:person1 tag:work");
+        assertTrue(result.feedbackToUser.contains("Cache miss"));
+        assertTrue(result.feedbackToUser.contains("Index lookup title:person1"));
+        result = logic.execute("list explain title:person1 tag:work");
+        assertTrue(result.feedbackToUser.contains("Cache hit"));
+        assertTrue(result.feedbackToUser.endsWith("Rows examined: 0"));
+    }
+
     @Test
     public void execute_help() {
         assertCommandSuccess("help", HelpCommand.SHOWING_HELP_MESSAGE, new TaskManager(), Collections.emptyList());
@@ -517,6 +592,7 @@ public class LogicManagerTest {
     @Subscribe
     private void handleLocalModelChangedEvent(TaskManagerChangedEvent abce) {
         latestSavedTaskManager = new TaskManager(abce.data);
+        modelChangedEventCount++;
     }
 
     @Subscribe
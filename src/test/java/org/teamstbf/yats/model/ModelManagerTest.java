@@ -0,0 +1,133 @@
+package org.teamstbf.yats.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.ReadOnlyEventComparatorByStartTime;
+import org.teamstbf.yats.model.item.ReadOnlyEventComparatorIsEvent;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class ModelManagerTest {
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private ModelManager createModel(UndoHistory undoHistory) {
+        return new ModelManager(td.getTypicalTaskManager(), new UserPrefs(), null, undoHistory);
+    }
+
+    private static TaskManager copyOf(Model model) {
+        return new TaskManager(model.getTaskManager());
+    }
+
+    @Test
+    public void markDoneAndDeleteEvents_eachUndoneInOneStep() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+        List<ReadOnlyEvent> tasks = model.getTaskManager().getTaskList();
+
+        model.saveImageOfCurrentTaskManager();
+        model.markDone(Arrays.asList(tasks.get(0), tasks.get(2)));
+        TaskManager afterMarkDone = copyOf(model);
+        model.saveImageOfCurrentTaskManager();
+        model.deleteEvents(Arrays.asList(tasks.get(3), tasks.get(1)));
+        assertEquals(initial.getTaskList().size() - 2, model.getTaskManager().getTaskList().size());
+
+        model.getPreviousState();
+        assertEquals(afterMarkDone, copyOf(model));
+        model.getPreviousState();
+        assertEquals(initial, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+    }
+
+    @Test
+    public void updateDoneTaskList_afterMarkDone_showsNewlyDoneTasks() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        model.updateDoneTaskList();
+        int doneBefore = model.getTaskFilteredTaskList().size();
+        ReadOnlyEvent target = model.getTaskManager().getTaskList().stream()
+                .filter(task -> !task.getIsDone().getValue().equals("Yes")).findFirst().get();
+
+        model.markDone(Arrays.asList(target));
+        model.updateDoneTaskList();
+
+        assertEquals(doneBefore + 1, model.getTaskFilteredTaskList().size());
+        assertTrue(model.getTaskFilteredTaskList().stream()
+                .allMatch(task -> task.getIsDone().getValue().equals("Yes")));
+    }
+
+    @Test
+    public void sort_leavesTaskManagerUnchanged() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+
+        model.saveImageOfCurrentTaskManager();
+        model.updateFilteredListToShowSortedStart();
+        assertEquals(initial, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+
+        // the shown list is kept sorted as events are added
+        model.addEvent(new Event(td.fish));
+        List<ReadOnlyEvent> shown = model.getFilteredTaskList();
+        List<ReadOnlyEvent> sorted = new ArrayList<>(shown);
+        sorted.sort(new ReadOnlyEventComparatorIsEvent().thenComparing(new ReadOnlyEventComparatorByStartTime()));
+        assertEquals(sorted, shown);
+    }
+
+    @Test
+    public void transaction_commit_undoneInOneStep() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+
+        model.beginTransaction();
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.goon));
+        model.commitTransaction();
+        assertEquals(initial.getTaskList().size() + 2, model.getTaskManager().getTaskList().size());
+
+        model.getPreviousState();
+        assertEquals(initial, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+    }
+
+    @Test
+    public void transaction_rollback_restoresDataAndForgetsStep() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        TaskManager afterAdd = copyOf(model);
+
+        model.beginTransaction();
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.goon));
+        model.deleteEvent(model.getTaskManager().getTaskList().get(0));
+        model.rollbackTransaction();
+        assertEquals(afterAdd, copyOf(model));
+
+        model.getPreviousState();
+        assertEquals(initial, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+    }
+
+    @Test
+    public void transaction_rollbackWithoutUndo_restoresData() throws Exception {
+        ModelManager model = createModel(new UndoHistory(0, UndoHistory.DEFAULT_MEMORY_BUDGET));
+        TaskManager initial = copyOf(model);
+
+        model.beginTransaction();
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        model.rollbackTransaction();
+        assertEquals(initial, copyOf(model));
+    }
+
+}
@@ -1,17 +1,23 @@
 package org.teamstbf.yats.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Schedule;
 import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.model.tag.UniqueTagList;
 import org.teamstbf.yats.testutil.TypicalTestEvents;
 
 import javafx.collections.FXCollections;
@@ -56,6 +62,54 @@ public class TaskManagerTest {
         taskManager.resetData(newData);
     }
 
+    @Test
+    public void addEvent_tagsEqualToMasterTags_shareMasterTagObjects() throws Exception {
+        TypicalTestEvents td = new TypicalTestEvents();
+        Event first = new Event(td.fish);
+        first.setTags(new UniqueTagList("holiday", "fish"));
+        Event second = new Event(td.goon);
+        second.setTags(new UniqueTagList("holiday"));
+
+        taskManager.addEvent(first);
+        taskManager.addEvent(second);
+
+        assertEquals(2, taskManager.getTagList().size());
+        Tag masterTag = taskManager.getTagList().get(0);
+        assertSame(masterTag, first.getTags().iterator().next());
+        assertSame(masterTag, second.getTags().iterator().next());
+    }
+
+    @Test
+    public void findEventsOverlapping_dayInsideMultiDayEvent_findsEvent() throws Exception {
+        TypicalTestEvents td = new TypicalTestEvents();
+        taskManager.resetData(td.getTypicalTaskManager());
+        Date dayStart = new Schedule("12:00AM 10/04/2017").getDate();
+        Date dayEnd = new Schedule("11:59PM 10/04/2017").getDate();
+
+        List<ReadOnlyEvent> found = taskManager.findEventsOverlapping(dayStart, dayEnd);
+        assertEquals(1, found.size());
+        assertTrue(found.get(0).isSameStateAs(td.scheduleChecker));
+
+        taskManager.removeEvent(td.scheduleChecker);
+        assertEquals(Collections.emptyList(), taskManager.findEventsOverlapping(dayStart, dayEnd));
+    }
+
+    @Test
+    public void findEventsOverlapping_afterUpdate_usesNewTimes() throws Exception {
+        TypicalTestEvents td = new TypicalTestEvents();
+        taskManager.resetData(td.getTypicalTaskManager());
+        Date dayStart = new Schedule("12:00AM 08/04/2017").getDate();
+        Date dayEnd = new Schedule("11:59PM 08/04/2017").getDate();
+        int startingOnDay = taskManager.findEventsOverlapping(dayStart, dayEnd).size();
+
+        Event moved = new Event(td.abdicate);
+        moved.setStartTime(new Schedule("11:59PM 08/04/2018"));
+        moved.setEndTime(new Schedule("11:59PM 08/04/2018"));
+        taskManager.updateEvent(0, moved);
+
+        assertEquals(startingOnDay - 1, taskManager.findEventsOverlapping(dayStart, dayEnd).size());
+    }
+
     /**
      * A stub ReadOnlyAddressBook whose persons and tags lists can violate
      * interface constraints.
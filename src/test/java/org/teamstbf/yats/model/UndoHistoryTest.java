@@ -0,0 +1,138 @@
+package org.teamstbf.yats.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.tag.UniqueTagList;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class UndoHistoryTest {
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private ModelManager createModel(UndoHistory undoHistory) {
+        return new ModelManager(td.getTypicalTaskManager(), new UserPrefs(), null, undoHistory);
+    }
+
+    private static TaskManager copyOf(Model model) {
+        return new TaskManager(model.getTaskManager());
+    }
+
+    @Test
+    public void undoRedo_addUpdateDelete_restoresEachState() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        TaskManager afterAdd = copyOf(model);
+        model.saveImageOfCurrentTaskManager();
+        model.updateEvent(0, new Event(td.goon));
+        TaskManager afterUpdate = copyOf(model);
+        model.saveImageOfCurrentTaskManager();
+        model.deleteEvent(model.getTaskManager().getTaskList().get(2));
+
+        model.getPreviousState();
+        assertEquals(afterUpdate, copyOf(model));
+        model.getPreviousState();
+        assertEquals(afterAdd, copyOf(model));
+        model.getPreviousState();
+        assertEquals(initial, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+
+        model.getNextState();
+        model.getNextState();
+        assertEquals(afterUpdate, copyOf(model));
+    }
+
+    @Test
+    public void undo_addWithNewTag_removesTag() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+
+        Event tagged = new Event(td.fish);
+        tagged.setTags(new UniqueTagList("holiday"));
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(tagged);
+        assertEquals(initial.getTagList().size() + 1, model.getTaskManager().getTagList().size());
+
+        model.getPreviousState();
+        assertEquals(initial, copyOf(model));
+        model.getNextState();
+        assertEquals(initial.getTagList().size() + 1, model.getTaskManager().getTagList().size());
+    }
+
+    @Test
+    public void undo_resetAndSort_restoresDataAndOrder() {
+        ModelManager model = createModel(new UndoHistory());
+        TaskManager initial = copyOf(model);
+
+        model.saveImageOfCurrentTaskManager();
+        model.updateFilteredListToShowSortedStart();
+        model.resetData(new TaskManager());
+        model.getPreviousState();
+        assertEquals(initial, copyOf(model));
+        model.getNextState();
+        assertEquals(new TaskManager(), copyOf(model));
+    }
+
+    @Test
+    public void beginStep_afterUndo_clearsRedo() throws Exception {
+        ModelManager model = createModel(new UndoHistory());
+
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        model.getPreviousState();
+        assertFalse(model.checkEmptyRedoStack());
+
+        model.saveImageOfCurrentTaskManager();
+        assertTrue(model.checkEmptyRedoStack());
+    }
+
+    @Test
+    public void beginStep_beyondDepth_forgetsOldestStep() throws Exception {
+        ModelManager model = createModel(new UndoHistory(2, UndoHistory.DEFAULT_MEMORY_BUDGET));
+
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        TaskManager afterFirst = copyOf(model);
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.goon));
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.sameDayScheduleChecker));
+
+        model.getPreviousState();
+        model.getPreviousState();
+        assertEquals(afterFirst, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+    }
+
+    @Test
+    public void record_overMemoryBudget_forgetsOldestSteps() throws Exception {
+        // room for the changes of two single adds
+        ModelManager model = createModel(new UndoHistory(UndoHistory.DEFAULT_DEPTH,
+                2 * UndoHistory.ESTIMATED_EVENT_SIZE + 1024));
+
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.fish));
+        TaskManager afterFirst = copyOf(model);
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.goon));
+        model.saveImageOfCurrentTaskManager();
+        model.addEvent(new Event(td.sameDayScheduleChecker));
+
+        model.getPreviousState();
+        model.getPreviousState();
+        assertEquals(afterFirst, copyOf(model));
+        assertTrue(model.checkEmptyUndoStack());
+
+        // a step larger than the whole budget cannot be undone at all
+        model.saveImageOfCurrentTaskManager();
+        model.resetData(new TaskManager());
+        assertTrue(model.checkEmptyUndoStack());
+    }
+
+}
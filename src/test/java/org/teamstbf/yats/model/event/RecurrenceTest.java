@@ -1,9 +1,17 @@
 package org.teamstbf.yats.model.event;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+
 import org.junit.Test;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.model.item.Recurrence;
 
 // @@author A0139448U
@@ -28,4 +36,74 @@ public class RecurrenceTest {
 
     }
 
+    @Test
+    public void getOccurenceBetween_startLongAgo_onlyOccurencesInRange() throws IllegalValueException {
+        Recurrence daily = new Recurrence(date(2000, 1, 1, 9), Recurrence.RECURRENCE_DAY);
+
+        assertEquals(Arrays.asList(date(2017, 4, 2, 9), date(2017, 4, 3, 9)),
+                daily.getOccurenceBetween(date(2017, 4, 1, 9), date(2017, 4, 4, 9)));
+        assertEquals(Arrays.asList(), daily.getOccurenceBetween(date(1999, 1, 1, 0), date(1999, 2, 1, 0)));
+    }
+
+    @Test
+    public void getOccurencesFrom_monthlyOnLastDay_doesNotDrift() throws IllegalValueException {
+        Recurrence monthly = new Recurrence(date(2017, 1, 31, 9), Recurrence.RECURRENCE_MONTH);
+
+        Iterator<Date> occurences = monthly.getOccurencesFrom(date(2017, 2, 1, 0));
+        assertEquals(date(2017, 2, 28, 9), occurences.next());
+        assertEquals(date(2017, 3, 31, 9), occurences.next());
+        assertEquals(date(2017, 4, 30, 9), occurences.next());
+    }
+
+    @Test
+    public void hasOccurenceOn() throws IllegalValueException {
+        Recurrence weekly = new Recurrence(date(2017, 4, 3, 9), Recurrence.RECURRENCE_WEEK);
+        assertTrue(weekly.hasOccurenceOn(date(2017, 4, 3, 0)));
+        assertTrue(weekly.hasOccurenceOn(date(2020, 4, 6, 23)));
+        assertFalse(weekly.hasOccurenceOn(date(2020, 4, 7, 9)));
+        assertFalse(weekly.hasOccurenceOn(date(2017, 3, 27, 9)));
+
+        Recurrence yearly = new Recurrence(date(2016, 2, 29, 9), Recurrence.RECURRENCE_YEAR);
+        assertTrue(yearly.hasOccurenceOn(date(2017, 2, 28, 9)));
+        assertTrue(yearly.hasOccurenceOn(date(2020, 2, 29, 9)));
+        assertFalse(yearly.hasOccurenceOn(date(2020, 2, 28, 9)));
+
+        assertFalse(new Recurrence().hasOccurenceOn(date(2017, 4, 3, 9)));
+    }
+
+    @Test
+    public void markOccurenceDone_storedAsRuns() throws IllegalValueException {
+        Recurrence daily = new Recurrence("01/04/2017", Recurrence.RECURRENCE_DAY, "");
+        for (int i = 0; i < 3; i++) {
+            daily.markOccurenceDone();
+        }
+        assertEquals("0-2", daily.getDoneListString());
+        assertEquals("04/04/2017", daily.getLatestUndoneDateString());
+
+        Recurrence copy = new Recurrence(daily);
+        copy.markOccurenceUndone();
+        assertEquals("0-1", copy.getDoneListString());
+        assertEquals("0-2", daily.getDoneListString());
+
+        Recurrence read = new Recurrence("01/04/2017", Recurrence.RECURRENCE_DAY, "0-2,5,7-8");
+        assertEquals("0-2,5,7-8", read.getDoneListString());
+        assertEquals("10/04/2017", read.getLatestUndoneDateString());
+    }
+
+    @Test
+    public void constructor_legacyDoneDates_readAsFirstOccurences() throws IllegalValueException {
+        Recurrence weekly = new Recurrence("01/04/2017", Recurrence.RECURRENCE_WEEK, "01/04/2017,08/04/2017,");
+        assertEquals("0-1", weekly.getDoneListString());
+        assertEquals("15/04/2017", weekly.getLatestUndoneDateString());
+    }
+
+    @Test(expected = IllegalValueException.class)
+    public void constructor_invalidDoneList_throwsIllegalValueException() throws IllegalValueException {
+        new Recurrence("01/04/2017", Recurrence.RECURRENCE_DAY, "3-1");
+    }
+
+    private static Date date(int year, int month, int day, int hour) {
+        return Date.from(LocalDateTime.of(year, month, day, hour, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
 }
@@ -1,8 +1,11 @@
 package org.teamstbf.yats.model.event;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Date;
+
 import org.junit.Test;
 import org.teamstbf.yats.model.item.Schedule;
 
@@ -47,4 +50,27 @@ public class ScheduleTest {
 
     }
 
+    @Test
+    public void constructor_stringRoundTrip_equalToMinute() {
+        Schedule schedule = new Schedule("09:30AM 05/05/2017");
+        assertEquals("09:30AM 05/05/2017", schedule.toString());
+        assertEquals(schedule, new Schedule(new Date(schedule.getTime() + 59999)));
+        assertFalse(schedule.equals(new Schedule(schedule.getTime() + 60000)));
+
+        assertTrue(new Schedule("").isEmpty());
+        assertTrue(new Schedule("not a time").isEmpty());
+        assertEquals(new Schedule(Schedule.NO_TIME), new Schedule(""));
+    }
+
+    @Test
+    public void matching_dateOrTimeKeyword() {
+        Schedule schedule = new Schedule("09:30AM 05/05/2017");
+        assertTrue(Schedule.matching("05/05/2017").test(schedule));
+        assertTrue(Schedule.matching("09:30am").test(schedule));
+        assertFalse(Schedule.matching("06/05/2017").test(schedule));
+        assertFalse(Schedule.matching("09:31AM").test(schedule));
+        assertFalse(Schedule.matching("meeting").test(schedule));
+        assertFalse(Schedule.matching("05/05/2017").test(new Schedule("")));
+    }
+
 }
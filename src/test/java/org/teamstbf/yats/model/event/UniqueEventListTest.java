@@ -0,0 +1,67 @@
+package org.teamstbf.yats.model.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.UniqueEventList;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class UniqueEventListTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+    private final UniqueEventList list = new UniqueEventList();
+
+    @Test
+    public void add_duplicateEvent_throwsDuplicateEventException() throws Exception {
+        list.add(new Event(td.fish));
+
+        thrown.expect(DuplicateEventException.class);
+        list.add(new Event(td.fish));
+    }
+
+    @Test
+    public void remove_equivalentEvent_removesEvent() throws Exception {
+        list.add(new Event(td.fish));
+        list.add(new Event(td.goon));
+
+        list.remove(new Event(td.fish));
+
+        assertFalse(list.contains(td.fish));
+        assertTrue(list.contains(td.goon));
+        assertEquals(0, list.indexOf(td.goon));
+    }
+
+    @Test
+    public void updateEvent_toExistingEvent_throwsDuplicateEventException() throws Exception {
+        list.add(new Event(td.fish));
+        list.add(new Event(td.goon));
+
+        thrown.expect(DuplicateEventException.class);
+        list.updateEvent(1, new Event(td.fish));
+    }
+
+    @Test
+    public void setEvents_savedDuplicates_keptUntilAllRemoved() throws Exception {
+        list.setEvents(Arrays.asList(td.fish, td.goon, td.fish));
+        assertEquals(3, list.size());
+
+        list.remove(0);
+        assertTrue(list.contains(td.fish));
+        assertEquals(1, list.indexOf(td.fish));
+
+        list.remove(1);
+        assertFalse(list.contains(td.fish));
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.teamstbf.yats.model.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Description;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.IsDone;
+import org.teamstbf.yats.model.item.Location;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Recurrence;
+import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.tag.TagQuery;
+import org.teamstbf.yats.model.tag.UniqueTagList;
+
+public class QueryCacheTest {
+
+    private TaskManager taskManager;
+    private QueryCache cache;
+
+    private static Event event(String title, String isDone, String... tags) throws Exception {
+        return new Event(new Title(title), new Location("office"), new Schedule(""), new Schedule(""),
+                new Schedule(""), new Description("none"), new UniqueTagList(tags), new IsDone(isDone), false,
+                new Recurrence());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        taskManager = new TaskManager();
+        taskManager.addEvent(event("weekly meeting", "No", "work"));
+        taskManager.addEvent(event("write report", "Yes", "work"));
+        taskManager.addEvent(event("buy milk", "No", "home"));
+        taskManager.drainChanges();
+        cache = new QueryCache();
+    }
+
+    private ReadOnlyEvent taskTitled(String title) {
+        return taskManager.getTaskList().stream().filter(task -> task.getTitle().fullName.equals(title))
+                .findFirst().get();
+    }
+
+    @Test
+    public void find_unchanged_returnsSameResult() {
+        QueryCache.Result undone = cache.find(Query.done(false), taskManager);
+
+        assertSame(undone, cache.find(Query.done(false), taskManager));
+        assertEquals(2, undone.size());
+        assertTrue(undone.contains(taskTitled("buy milk")));
+        assertFalse(undone.contains(taskTitled("write report")));
+    }
+
+    @Test
+    public void find_afterChanges_updatesResultFromChanges() throws Exception {
+        QueryCache.Result work = cache.find(Query.tag(TagQuery.tag("work")), taskManager);
+        assertEquals(2, work.size());
+
+        taskManager.addEvent(event("plan sprint", "No", "work"));
+        taskManager.addEvent(event("water plants", "No", "home"));
+        int milk = taskManager.getTaskList().indexOf(taskTitled("buy milk"));
+        taskManager.updateEvent(milk, event("buy milk", "No", "work"));
+        taskManager.removeEvent(taskTitled("weekly meeting"));
+
+        assertSame(work, cache.find(Query.tag(TagQuery.tag("work")), taskManager));
+        assertEquals(3, work.size());
+        assertTrue(work.contains(taskTitled("plan sprint")));
+        assertTrue(work.contains(taskTitled("buy milk")));
+        assertFalse(work.contains(taskTitled("water plants")));
+        assertEquals(2, work.getAdditions());
+    }
+
+    @Test
+    public void find_changesDrained_updatesResultFromChanges() throws Exception {
+        QueryCache.Result undone = cache.find(Query.done(false), taskManager);
+
+        taskManager.addEvent(event("plan sprint", "No"));
+        taskManager.drainChanges();
+
+        assertSame(undone, cache.find(Query.done(false), taskManager));
+        assertEquals(3, undone.size());
+        assertTrue(undone.contains(taskTitled("plan sprint")));
+    }
+
+    @Test
+    public void find_afterReset_findsResultAgain() throws Exception {
+        QueryCache.Result undone = cache.find(Query.done(false), taskManager);
+
+        TaskManager replacement = new TaskManager();
+        replacement.addEvent(event("plan sprint", "No"));
+        taskManager.resetData(replacement);
+
+        QueryCache.Result found = cache.find(Query.done(false), taskManager);
+        assertNotSame(undone, found);
+        assertEquals(1, found.size());
+        assertTrue(found.contains(taskTitled("plan sprint")));
+    }
+
+    @Test
+    public void find_negatedCombination_notSharedWithCombinationOfNegation() {
+        Query notEither = Query.not(Query.or(Query.title("milk"), Query.title("report")));
+        Query eitherNotFirst = Query.or(Query.not(Query.title("milk")), Query.title("report"));
+
+        QueryCache.Result neither = cache.find(notEither, taskManager);
+        QueryCache.Result found = cache.find(eitherNotFirst, taskManager);
+
+        assertNotSame(neither, found);
+        assertEquals(1, neither.size());
+        assertEquals(2, found.size());
+        assertTrue(found.contains(taskTitled("write report")));
+    }
+
+    @Test
+    public void explain_notCached_explainsPlanThatFoundResult() {
+        QueryCache.Result work = cache.find(Query.tag(TagQuery.tag("work")), taskManager);
+
+        String explanation = work.explain();
+        assertTrue(explanation.startsWith("Cache miss"));
+        assertTrue(explanation.contains("Index lookup tag:work (estimated 2 rows, examined 2)"));
+        assertTrue(explanation.endsWith("Rows examined: 2"));
+    }
+
+    @Test
+    public void explain_cached_countsOnlyTasksTestedFromChanges() throws Exception {
+        cache.find(Query.tag(TagQuery.tag("work")), taskManager);
+        taskManager.addEvent(event("plan sprint", "No", "work"));
+        taskManager.removeEvent(taskTitled("buy milk"));
+
+        String explanation = cache.find(Query.tag(TagQuery.tag("work")), taskManager).explain();
+        assertTrue(explanation.startsWith("Cache hit, brought up to date from 2 changes"));
+        assertTrue(explanation.contains("Index lookup tag:work"));
+        assertTrue(explanation.endsWith("Rows examined: 1"));
+
+        explanation = cache.find(Query.tag(TagQuery.tag("work")), taskManager).explain();
+        assertTrue(explanation.startsWith("Cache hit, brought up to date from 0 changes"));
+        assertTrue(explanation.endsWith("Rows examined: 0"));
+    }
+
+    @Test
+    public void find_overCapacity_dropsLeastRecentlyUsed() {
+        cache = new QueryCache(2);
+        QueryCache.Result undone = cache.find(Query.done(false), taskManager);
+        QueryCache.Result done = cache.find(Query.done(true), taskManager);
+        cache.find(Query.done(false), taskManager);
+        cache.find(Query.title("milk"), taskManager);
+
+        assertEquals(2, cache.size());
+        assertSame(undone, cache.find(Query.done(false), taskManager));
+        assertNotSame(done, cache.find(Query.done(true), taskManager));
+    }
+
+}
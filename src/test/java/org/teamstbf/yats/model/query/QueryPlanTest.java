@@ -0,0 +1,113 @@
+package org.teamstbf.yats.model.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Description;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.IsDone;
+import org.teamstbf.yats.model.item.Location;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Recurrence;
+import org.teamstbf.yats.model.item.Schedule;
+import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.model.query.Query.TimeField;
+import org.teamstbf.yats.model.tag.TagQuery;
+import org.teamstbf.yats.model.tag.UniqueTagList;
+
+public class QueryPlanTest {
+
+    private TaskManager taskManager;
+
+    private static Event event(String title, String location, String start, String isDone, String... tags)
+            throws Exception {
+        return new Event(new Title(title), new Location(location), new Schedule(start), new Schedule(""),
+                new Schedule(""), new Description("none"), new UniqueTagList(tags), new IsDone(isDone), false,
+                new Recurrence());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        taskManager = new TaskManager();
+        taskManager.addEvent(event("weekly meeting", "office", "09:00AM 05/05/2017", "No", "work"));
+        taskManager.addEvent(event("write report", "office", "02:00PM 05/05/2017", "Yes", "work"));
+        taskManager.addEvent(event("buy milk", "shop", "", "No", "home"));
+        taskManager.addEvent(event("team lunch", "canteen", "12:00PM 06/05/2017", "No", "work", "fun"));
+    }
+
+    private Set<String> titlesOf(Set<ReadOnlyEvent> events) {
+        Set<String> titles = new HashSet<>();
+        events.forEach(event -> titles.add(event.getTitle().fullName));
+        return titles;
+    }
+
+    @Test
+    public void execute_and_looksUpMostSelectiveIndex() {
+        Query query = Query.and(Query.tag(TagQuery.tag("work")), Query.title("lunch"));
+        QueryPlan plan = QueryPlan.of(query, taskManager);
+
+        assertFalse(plan.isScan());
+        assertEquals(Collections.singleton("team lunch"), titlesOf(plan.execute()));
+        String explanation = plan.explain();
+        assertTrue(explanation.startsWith("Filter tag:work"));
+        assertTrue(explanation.contains("  Index lookup title:lunch (estimated 1 rows, examined 1)"));
+        // the task found by title, then tested for its tag
+        assertEquals(2, plan.getRowsExamined());
+    }
+
+    @Test
+    public void execute_notIndexed_scansEveryTask() {
+        Query query = Query.or(Query.done(true), Query.location("shop"));
+        QueryPlan plan = QueryPlan.of(query, taskManager);
+
+        assertTrue(plan.isScan());
+        assertEquals(new HashSet<>(Arrays.asList("write report", "buy milk")), titlesOf(plan.execute()));
+        assertEquals(4, plan.getRowsExamined());
+        assertTrue(plan.explain().startsWith("Scan done:yes OR location:shop"));
+    }
+
+    @Test
+    public void execute_orOfIndexed_unitesLookups() {
+        Query query = Query.or(Query.location("shop"), Query.location("canteen"));
+        QueryPlan plan = QueryPlan.of(query, taskManager);
+
+        assertFalse(plan.isScan());
+        assertEquals(new HashSet<>(Arrays.asList("buy milk", "team lunch")), titlesOf(plan.execute()));
+        assertEquals(2, plan.getRowsExamined());
+    }
+
+    @Test
+    public void execute_startBetween_looksUpTimesAndTestsStart() {
+        LocalDate day = LocalDate.of(2017, 5, 5);
+        Query query = Query.and(Query.between(TimeField.START, day, day), Query.not(Query.done(true)));
+        QueryPlan plan = QueryPlan.of(query, taskManager);
+
+        assertFalse(plan.isScan());
+        assertEquals(Collections.singleton("weekly meeting"), titlesOf(plan.execute()));
+        assertTrue(plan.explain().contains("Index lookup time overlapping 05/05/2017"));
+        assertEquals(Collections.singleton("team lunch"), titlesOf(QueryPlan.of(
+                Query.between(TimeField.START, day.plusDays(1), day.plusDays(3)), taskManager).execute()));
+    }
+
+    @Test
+    public void matches_sameAsPlan() {
+        Query query = Query.and(Query.tag(TagQuery.or(TagQuery.tag("FUN"), TagQuery.tag("home"))),
+                Query.not(Query.title("milk")));
+        Set<ReadOnlyEvent> found = QueryPlan.of(query, taskManager).execute();
+        for (ReadOnlyEvent event : taskManager.getTaskList()) {
+            assertEquals(found.contains(event), query.matches(event));
+        }
+        assertEquals(Collections.singleton("team lunch"), titlesOf(found));
+    }
+
+}
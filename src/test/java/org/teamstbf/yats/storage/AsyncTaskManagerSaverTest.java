@@ -0,0 +1,96 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.teamstbf.yats.model.ReadOnlyTaskManager;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.TaskManagerChange;
+import org.teamstbf.yats.model.TaskManagerSnapshot;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class AsyncTaskManagerSaverTest {
+
+    private static final long LONG_DEBOUNCE_MILLIS = 60 * 1000;
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    @Test
+    public void submit_burstOfChanges_savedOnceWithAllChanges() throws Exception {
+        RecordingStorageStub storage = new RecordingStorageStub();
+        AsyncTaskManagerSaver saver = new AsyncTaskManagerSaver(storage, LONG_DEBOUNCE_MILLIS, 100, e -> { });
+        TaskManager taskManager = new TaskManager();
+        taskManager.drainChanges();
+
+        ReadOnlyTaskManager latest = null;
+        for (Event event : new Event[] { new Event(td.abdicate), new Event(td.boop), new Event(td.fish) }) {
+            taskManager.addEvent(event);
+            latest = TaskManagerSnapshot.of(taskManager);
+            saver.submit(latest, taskManager.drainChanges());
+        }
+        saver.flush();
+
+        assertEquals(1, storage.savedSnapshots.size());
+        assertSame(latest, storage.savedSnapshots.get(0));
+        assertEquals(3, storage.savedChanges.get(0).size());
+    }
+
+    @Test
+    public void submit_tooManyChanges_savedInFull() throws Exception {
+        RecordingStorageStub storage = new RecordingStorageStub();
+        AsyncTaskManagerSaver saver = new AsyncTaskManagerSaver(storage, LONG_DEBOUNCE_MILLIS, 1, e -> { });
+        TaskManager taskManager = new TaskManager();
+        taskManager.drainChanges();
+
+        taskManager.addEvent(new Event(td.abdicate));
+        saver.submit(TaskManagerSnapshot.of(taskManager), taskManager.drainChanges());
+        taskManager.addEvent(new Event(td.boop));
+        saver.submit(TaskManagerSnapshot.of(taskManager), taskManager.drainChanges());
+        saver.flush();
+
+        assertTrue(storage.savedChanges.get(0).isEmpty());
+    }
+
+    @Test
+    public void submit_saveFails_failureReported() {
+        List<IOException> failures = Collections.synchronizedList(new ArrayList<>());
+        AsyncTaskManagerSaver saver = new AsyncTaskManagerSaver(new XmlTaskManagerStorage("dummy") {
+            @Override
+            public void saveTaskManager(ReadOnlyTaskManager taskManager, String filePath) throws IOException {
+                throw new IOException("dummy exception");
+            }
+        }, 0, 100, failures::add);
+
+        saver.submit(new TaskManager(), Collections.emptyList());
+        saver.flush();
+
+        assertEquals(1, failures.size());
+    }
+
+    /**
+     * A stub that records what it was asked to save instead of writing it.
+     */
+    private static class RecordingStorageStub extends XmlTaskManagerStorage {
+        private final List<ReadOnlyTaskManager> savedSnapshots = new ArrayList<>();
+        private final List<List<TaskManagerChange>> savedChanges = new ArrayList<>();
+
+        RecordingStorageStub() {
+            super("dummy");
+        }
+
+        @Override
+        public void saveTaskManagerChanges(ReadOnlyTaskManager taskManager, List<TaskManagerChange> changes) {
+            savedSnapshots.add(taskManager);
+            savedChanges.add(new ArrayList<>(changes));
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.commons.util.XmlUtil;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class BinaryTaskManagerStorageTest {
+
+    private static final File VALID_FILE = new File(FileUtil.getPath("src/test/data/XmlUtilTest/validAddressBook.xml"));
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    @Test
+    public void saveAndRead_allInOrder_success() throws Exception {
+        String filePath = testFolder.getRoot().getPath() + File.separator + "taskmanager.xml";
+        BinaryTaskManagerStorage storage = new BinaryTaskManagerStorage(filePath);
+        TaskManager original = td.getTypicalTaskManager();
+
+        storage.saveTaskManager(original);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+
+        original.addEvent(new Event(td.fish));
+        original.removeEvent(new Event(td.abdicate));
+        storage.saveTaskManager(original);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+        assertFalse(new File(filePath).exists());
+    }
+
+    @Test
+    public void read_onlyXmlFileExists_readsXmlFile() throws Exception {
+        String filePath = testFolder.getRoot().getPath() + File.separator + "taskmanager.xml";
+        TaskManager original = td.getTypicalTaskManager();
+        new XmlTaskManagerStorage(filePath).saveTaskManager(original);
+
+        BinaryTaskManagerStorage storage = new BinaryTaskManagerStorage(filePath);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+
+        storage.saveTaskManager(original);
+        assertTrue(new File(filePath + BinaryTaskManagerStorage.BINARY_SUFFIX).exists());
+    }
+
+    @Test
+    public void convert_xmlToBinaryAndBack_noLoss() throws Exception {
+        XmlSerializableTaskManager original = XmlUtil.getDataFromFile(VALID_FILE, XmlSerializableTaskManager.class);
+        original.getAdaptedTasks().get(0).setStartTime("not a time");
+        original.getAdaptedTasks().get(0).setCompleted("maybe");
+        original.getAdaptedTasks().get(0).setPeriod(null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTaskManagerCodec.write(out, original);
+        XmlSerializableTaskManager converted = BinaryTaskManagerCodec
+                .readAsXml(new ByteArrayInputStream(out.toByteArray()));
+
+        File expectedFile = testFolder.newFile("expected.xml");
+        File actualFile = testFolder.newFile("actual.xml");
+        XmlUtil.saveDataToFile(expectedFile, original);
+        XmlUtil.saveDataToFile(actualFile, converted);
+        assertEquals(FileUtil.readFromFile(expectedFile), FileUtil.readFromFile(actualFile));
+    }
+
+    @Test
+    public void read_corruptedBlock_exceptionThrown() throws Exception {
+        String filePath = testFolder.getRoot().getPath() + File.separator + "taskmanager.xml";
+        BinaryTaskManagerStorage storage = new BinaryTaskManagerStorage(filePath);
+        storage.saveTaskManager(td.getTypicalTaskManager());
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath + BinaryTaskManagerStorage.BINARY_SUFFIX, "rw")) {
+            file.seek(file.length() / 2);
+            int value = file.read();
+            file.seek(file.length() / 2);
+            file.write(value ^ 0xff);
+        }
+
+        thrown.expect(DataConversionException.class);
+        storage.readTaskManager();
+    }
+
+}
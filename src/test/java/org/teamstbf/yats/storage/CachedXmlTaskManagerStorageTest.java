@@ -0,0 +1,93 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class CachedXmlTaskManagerStorageTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private String getTempFilePath(String fileName) {
+        return testFolder.getRoot().getPath() + File.separator + fileName;
+    }
+
+    private void saveAndAwaitCache(String filePath, TaskManager taskManager) throws Exception {
+        CachedXmlTaskManagerStorage storage = new CachedXmlTaskManagerStorage(filePath);
+        storage.saveTaskManager(taskManager);
+        storage.awaitCacheWriter();
+    }
+
+    @Test
+    public void read_afterSave_readFromCache() throws Exception {
+        String filePath = getTempFilePath("Cached.xml");
+        TaskManager original = td.getTypicalTaskManager();
+        saveAndAwaitCache(filePath, original);
+
+        CachedXmlTaskManagerStorage storage = new CachedXmlTaskManagerStorage(filePath);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+        assertTrue(storage.isLastReadFromCache());
+        assertEquals(original, new TaskManager(new XmlTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void read_xmlChangedAfterSave_readsXmlAndRebuildsCache() throws Exception {
+        String filePath = getTempFilePath("Cached.xml");
+        saveAndAwaitCache(filePath, td.getTypicalTaskManager());
+        TaskManager changed = td.getTypicalTaskManager();
+        changed.addEvent(new Event(td.fish));
+        new XmlTaskManagerStorage(filePath).saveTaskManager(changed);
+
+        CachedXmlTaskManagerStorage storage = new CachedXmlTaskManagerStorage(filePath);
+        assertEquals(changed, new TaskManager(storage.readTaskManager().get()));
+        assertFalse(storage.isLastReadFromCache());
+
+        storage.awaitCacheWriter();
+        assertEquals(changed, new TaskManager(storage.readTaskManager().get()));
+        assertTrue(storage.isLastReadFromCache());
+    }
+
+    @Test
+    public void save_twiceBeforeCacheWritten_cacheOfLastSave() throws Exception {
+        String filePath = getTempFilePath("Cached.xml");
+        TaskManager changed = td.getTypicalTaskManager();
+        changed.addEvent(new Event(td.fish));
+        CachedXmlTaskManagerStorage storage = new CachedXmlTaskManagerStorage(filePath);
+        storage.saveTaskManager(td.getTypicalTaskManager());
+        storage.saveTaskManager(changed);
+        storage.awaitCacheWriter();
+
+        storage = new CachedXmlTaskManagerStorage(filePath);
+        assertEquals(changed, new TaskManager(storage.readTaskManager().get()));
+        assertTrue(storage.isLastReadFromCache());
+    }
+
+    @Test
+    public void read_corruptedCache_readsXml() throws Exception {
+        String filePath = getTempFilePath("Cached.xml");
+        TaskManager original = td.getTypicalTaskManager();
+        saveAndAwaitCache(filePath, original);
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath + CachedXmlTaskManagerStorage.CACHE_SUFFIX, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+
+        CachedXmlTaskManagerStorage storage = new CachedXmlTaskManagerStorage(filePath);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+        assertFalse(storage.isLastReadFromCache());
+    }
+
+}
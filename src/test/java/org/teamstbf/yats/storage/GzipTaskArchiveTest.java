@@ -0,0 +1,84 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.model.ModelManager;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.UserPrefs;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class GzipTaskArchiveTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private GzipTaskArchive getTempArchive() {
+        return new GzipTaskArchive(new XmlTaskManagerStorage(testFolder.getRoot().getPath() + File.separator
+                + "taskmanager.xml"));
+    }
+
+    @Test
+    public void read_noArchiveFile_emptyList() throws Exception {
+        assertTrue(getTempArchive().readArchivedEvents().isEmpty());
+    }
+
+    @Test
+    public void archive_twice_allReadBackInOrder() throws Exception {
+        GzipTaskArchive archive = getTempArchive();
+        archive.archiveEvents(Arrays.asList(new Event(td.abdicate), new Event(td.boop)));
+        archive.archiveEvents(Collections.singletonList(new Event(td.oxygen)));
+
+        List<ReadOnlyEvent> archived = archive.readArchivedEvents();
+        assertEquals(Arrays.asList(new Event(td.abdicate), new Event(td.boop), new Event(td.oxygen)), archived);
+    }
+
+    @Test
+    public void archive_sameTasksAgain_readBackOnce() throws Exception {
+        GzipTaskArchive archive = getTempArchive();
+        archive.archiveEvents(Arrays.asList(new Event(td.abdicate), new Event(td.boop)));
+        // as if the data file was not saved after archiving them
+        archive.archiveEvents(Arrays.asList(new Event(td.abdicate), new Event(td.boop)));
+        Event edited = new Event(td.abdicate);
+        edited.getIsDone().markDone();
+        archive.archiveEvents(Collections.singletonList(edited));
+
+        List<ReadOnlyEvent> archived = archive.readArchivedEvents();
+        assertEquals(3, archived.size());
+        assertEquals(Arrays.asList(new Event(td.abdicate), new Event(td.boop), edited), archived);
+    }
+
+    @Test
+    public void archiveDoneEvents_oldDoneTasks_movedToArchive() throws Exception {
+        GzipTaskArchive archive = getTempArchive();
+        TaskManager taskManager = td.getTypicalTaskManager();
+        Event done = new Event(td.abdicate);
+        done.getIsDone().markDone();
+        taskManager.updateEvent(0, done);
+        ModelManager model = new ModelManager(taskManager, new UserPrefs(), archive);
+
+        assertEquals(0, model.archiveDoneEvents(new Date(0)));
+        assertEquals(1, model.archiveDoneEvents(new Date()));
+
+        assertEquals(td.getTypicalTasks().length - 1, model.getTaskManager().getTaskList().size());
+        assertEquals(Collections.singletonList(done), archive.readArchivedEvents());
+        assertEquals(Collections.singletonList(done),
+                model.findArchivedEvents(new HashSet<>(Arrays.asList("Throne"))));
+        assertTrue(model.findArchivedEvents(new HashSet<>(Arrays.asList("nose"))).isEmpty());
+    }
+
+}
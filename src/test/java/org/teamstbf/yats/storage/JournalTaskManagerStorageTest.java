@@ -0,0 +1,178 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class JournalTaskManagerStorageTest {
+
+    private static final long LARGE_THRESHOLD = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private String getTempFilePath(String fileName) {
+        return testFolder.getRoot().getPath() + File.separator + fileName;
+    }
+
+    /** Cuts {@code filePath} in half, as a crash while writing it might. */
+    private static void truncate(String filePath) throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+    }
+
+    @Test
+    public void read_missingFile_emptyResult() throws Exception {
+        String filePath = getTempFilePath("Missing.xml");
+        assertFalse(new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD).readTaskManager().isPresent());
+    }
+
+    @Test
+    public void saveChanges_appendsToJournal_replayedOnRead() throws Exception {
+        String filePath = getTempFilePath("Journal.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        long snapshotLength = new File(filePath).length();
+
+        original.addEvent(new Event(td.fish));
+        original.updateEvent(0, new Event(td.goon));
+        original.removeEvent(new Event(td.cower));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        assertEquals(snapshotLength, new File(filePath).length());
+        assertTrue(new File(filePath + JournalTaskManagerStorage.JOURNAL_SUFFIX).length() > 0);
+        JournalTaskManagerStorage reopened = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        assertEquals(original, new TaskManager(reopened.readTaskManager().get()));
+
+        // records written after a replay continue the same journal
+        original.addEvent(new Event(td.sameDayScheduleChecker));
+        reopened.saveTaskManagerChanges(original, original.drainChanges());
+        assertEquals(original, new TaskManager(reopened.readTaskManager().get()));
+    }
+
+    @Test
+    public void saveChanges_journalPastThreshold_compactedIntoSnapshot() throws Exception {
+        String filePath = getTempFilePath("Compacted.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, 1);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        storage.awaitCompaction();
+
+        assertFalse(new File(filePath + JournalTaskManagerStorage.COMPACTING_SUFFIX).exists());
+        assertEquals(original, new TaskManager(new XmlTaskManagerStorage(filePath).readTaskManager().get()));
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+    }
+
+    @Test
+    public void read_compactedSnapshotCorrupted_readsPreviousSnapshotAndJournals() throws Exception {
+        String filePath = getTempFilePath("CompactedCorrupted.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, 1);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        storage.awaitCompaction();
+        original.addEvent(new Event(td.goon));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        storage.awaitCompaction();
+
+        assertTrue(new File(filePath + XmlTaskManagerStorage.BACKUP_SUFFIX).exists());
+        truncate(filePath);
+
+        JournalTaskManagerStorage reopened = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        assertEquals(original, new TaskManager(reopened.readTaskManager().get()));
+
+        // the next save writes a fresh snapshot rather than appending to the unreadable one
+        original.removeEvent(new Event(td.fish));
+        reopened.saveTaskManagerChanges(original, original.drainChanges());
+        truncate(filePath + XmlTaskManagerStorage.BACKUP_SUFFIX);
+        assertEquals(original, new TaskManager(reopened.readTaskManager().get()));
+    }
+
+    @Test
+    public void read_snapshotCorrupted_readsPreviousSnapshotAndJournals() throws Exception {
+        String filePath = getTempFilePath("Corrupted.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        storage.saveTaskManager(original);
+        original.removeEvent(new Event(td.cower));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        truncate(filePath);
+
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+    }
+
+    @Test
+    public void read_snapshotMissingWithPreviousKept_readsPreviousSnapshotAndJournals() throws Exception {
+        String filePath = getTempFilePath("Missing.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        storage.saveTaskManager(original);
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        // as after a crash between keeping the previous snapshot and moving the new one in
+        new File(filePath).delete();
+
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+    }
+
+    @Test(expected = DataConversionException.class)
+    public void read_journalRecordsMissing_exceptionThrown() throws Exception {
+        String filePath = getTempFilePath("Gap.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        storage.saveTaskManager(original);
+        original.addEvent(new Event(td.goon));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        truncate(filePath);
+        new File(filePath + XmlTaskManagerStorage.BACKUP_SUFFIX + JournalTaskManagerStorage.JOURNAL_SUFFIX).delete();
+
+        storage.readTaskManager();
+    }
+
+    @Test
+    public void read_tornRecordAtEnd_ignored() throws Exception {
+        String filePath = getTempFilePath("Torn.xml");
+        JournalTaskManagerStorage storage = new JournalTaskManagerStorage(filePath, LARGE_THRESHOLD);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        try (FileOutputStream out = new FileOutputStream(filePath + JournalTaskManagerStorage.JOURNAL_SUFFIX, true)) {
+            out.write(new byte[] { 0, 0, 0, 42, 1, 2, 3 });
+        }
+
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+    }
+
+}
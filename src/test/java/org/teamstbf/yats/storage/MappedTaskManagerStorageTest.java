@@ -0,0 +1,179 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class MappedTaskManagerStorageTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private String getTempFilePath(String fileName) {
+        return testFolder.getRoot().getPath() + File.separator + fileName;
+    }
+
+    @Test
+    public void saveChanges_markDone_onlySlotWritten() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        MappedTaskManagerStorage storage = new MappedTaskManagerStorage(filePath);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        long overflowUsed = storage.getOverflowUsed();
+        long fileLength = new File(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX).length();
+
+        Event marked = new Event(original.getTaskList().get(1));
+        marked.getIsDone().markDone();
+        original.updateEvent(1, marked);
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        assertEquals(overflowUsed, storage.getOverflowUsed());
+        assertEquals(fileLength, new File(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX).length());
+        assertEquals(original, new TaskManager(new MappedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void saveChanges_addUpdateRemove_readBackInOrder() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        MappedTaskManagerStorage storage = new MappedTaskManagerStorage(filePath);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        original.removeEvent(new Event(td.abdicate));
+        original.addEvent(new Event(td.fish));
+        original.updateEvent(0, new Event(td.goon));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        original.addEvent(new Event(td.sameDayScheduleChecker));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        assertTrue(storage.getOverflowUsed() > 0);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+        assertEquals(original, new TaskManager(new MappedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void save_slotFileMapped_writesNextSlotFileAndDeletesOld() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        MappedTaskManagerStorage storage = new MappedTaskManagerStorage(filePath);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManager(original);
+
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManager(original);
+        original.drainChanges();
+        // written in place to the new slot file, from the slots it was written with
+        original.removeEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        assertFalse(new File(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX).exists());
+        assertTrue(new File(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX + ".1").exists());
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+        assertEquals(original, new TaskManager(new MappedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void read_onlyXmlFileExists_readsXmlFile() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        TaskManager original = td.getTypicalTaskManager();
+        new XmlTaskManagerStorage(filePath).saveTaskManager(original);
+
+        assertEquals(original, new TaskManager(new MappedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void read_corruptedSlot_otherTasksRead() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        TaskManager original = td.getTypicalTaskManager();
+        new MappedTaskManagerStorage(filePath).saveTaskManager(original);
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX, "rw")) {
+            // the start time of the first slot
+            file.seek(4096 + 16);
+            file.write(0x7f);
+        }
+
+        MappedTaskManagerStorage storage = new MappedTaskManagerStorage(filePath);
+        TaskManager expected = new TaskManager(original);
+        expected.removeEvent(original.getTaskList().get(0));
+        assertEquals(expected.getTaskList(), storage.readTaskManager().get().getTaskList());
+
+        // the slot is reused once a task is added
+        expected.drainChanges();
+        expected.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(expected, expected.drainChanges());
+        assertEquals(expected.getTaskList(),
+                new MappedTaskManagerStorage(filePath).readTaskManager().get().getTaskList());
+    }
+
+    @Test
+    public void read_crashBeforeHeaderWritten_changedSlotsRead() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        MappedTaskManagerStorage storage = new MappedTaskManagerStorage(filePath);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        long headerOverflowEnd;
+        try (RandomAccessFile file = new RandomAccessFile(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX, "r")) {
+            file.seek(24);
+            headerOverflowEnd = file.readLong();
+        }
+
+        original.updateEvent(0, new Event(td.goon));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        try (RandomAccessFile file = new RandomAccessFile(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX, "rw")) {
+            // as if the header had not been forced yet
+            file.seek(24);
+            file.writeLong(headerOverflowEnd);
+        }
+
+        storage = new MappedTaskManagerStorage(filePath);
+        assertEquals(original, new TaskManager(storage.readTaskManager().get()));
+        original.addEvent(new Event(td.fish));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        assertEquals(original, new TaskManager(new MappedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void read_corruptedHeader_readsXmlFile() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        TaskManager original = td.getTypicalTaskManager();
+        new XmlTaskManagerStorage(filePath).saveTaskManager(original);
+        new MappedTaskManagerStorage(filePath).saveTaskManager(td.getTypicalTaskManager());
+        corruptHeader(filePath);
+
+        assertEquals(original, new TaskManager(new MappedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void read_corruptedHeaderWithoutXmlFile_exceptionThrown() throws Exception {
+        String filePath = getTempFilePath("Mapped.xml");
+        new MappedTaskManagerStorage(filePath).saveTaskManager(td.getTypicalTaskManager());
+        corruptHeader(filePath);
+
+        thrown.expect(DataConversionException.class);
+        new MappedTaskManagerStorage(filePath).readTaskManager();
+    }
+
+    private static void corruptHeader(String filePath) throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(filePath + MappedTaskManagerStorage.SLOTS_SUFFIX, "rw")) {
+            file.write(0);
+        }
+    }
+
+}
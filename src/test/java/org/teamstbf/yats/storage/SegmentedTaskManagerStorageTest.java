@@ -0,0 +1,111 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.commons.exceptions.IllegalValueException;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.item.Title;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class SegmentedTaskManagerStorageTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    private String getTempFilePath(String fileName) {
+        return testFolder.getRoot().getPath() + File.separator + fileName;
+    }
+
+    private File getSegmentFile(String filePath, int segment) {
+        return new File(filePath + SegmentedTaskManagerStorage.SEGMENTS_SUFFIX, "events-" + segment + ".xml");
+    }
+
+    /** Returns a copy of {@code event} with a title made unique by {@code number}. */
+    private static Event numbered(ReadOnlyEvent event, int number) throws IllegalValueException {
+        Event copy = new Event(event);
+        copy.setTitle(new Title(event.getTitle().fullName + " " + number));
+        return copy;
+    }
+
+    @Test
+    public void saveChanges_markDone_onlyItsSegmentWritten() throws Exception {
+        String filePath = getTempFilePath("Segmented.xml");
+        SegmentedTaskManagerStorage storage = new SegmentedTaskManagerStorage(filePath);
+        TaskManager original = new TaskManager();
+        for (int i = 0; i < SegmentedTaskManagerStorage.SEGMENT_SIZE * 3; i++) {
+            original.addEvent(numbered(td.abdicate, i));
+        }
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        for (int segment = 0; segment < 3; segment++) {
+            assertTrue(getSegmentFile(filePath, segment).setLastModified(0));
+        }
+
+        Event marked = new Event(original.getTaskList().get(SegmentedTaskManagerStorage.SEGMENT_SIZE + 1));
+        marked.markDone();
+        original.updateEvent(SegmentedTaskManagerStorage.SEGMENT_SIZE + 1, marked);
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        assertEquals(0, getSegmentFile(filePath, 0).lastModified());
+        assertTrue(getSegmentFile(filePath, 1).lastModified() != 0);
+        assertEquals(0, getSegmentFile(filePath, 2).lastModified());
+        assertEquals(original, new TaskManager(new SegmentedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void saveChanges_addUpdateRemove_readBackInOrder() throws Exception {
+        String filePath = getTempFilePath("Segmented.xml");
+        SegmentedTaskManagerStorage storage = new SegmentedTaskManagerStorage(filePath);
+        TaskManager original = td.getTypicalTaskManager();
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        original.removeEvent(new Event(td.abdicate));
+        original.addEvent(new Event(td.fish));
+        original.updateEvent(0, new Event(td.goon));
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        for (int i = 0; i < SegmentedTaskManagerStorage.SEGMENT_SIZE; i++) {
+            original.addEvent(numbered(td.sameDayScheduleChecker, i));
+        }
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+        assertTrue(getSegmentFile(filePath, 1).exists());
+
+        assertEquals(original, new TaskManager(new SegmentedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void saveChanges_reset_staleSegmentsDeleted() throws Exception {
+        String filePath = getTempFilePath("Segmented.xml");
+        SegmentedTaskManagerStorage storage = new SegmentedTaskManagerStorage(filePath);
+        TaskManager original = new TaskManager();
+        for (int i = 0; i < SegmentedTaskManagerStorage.SEGMENT_SIZE * 2; i++) {
+            original.addEvent(numbered(td.boop, i));
+        }
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        original.resetData(td.getTypicalTaskManager());
+        storage.saveTaskManagerChanges(original, original.drainChanges());
+
+        assertFalse(getSegmentFile(filePath, 1).exists());
+        assertEquals(original, new TaskManager(new SegmentedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+    @Test
+    public void read_onlyXmlFileExists_readsXmlFile() throws Exception {
+        String filePath = getTempFilePath("Segmented.xml");
+        TaskManager original = td.getTypicalTaskManager();
+        new XmlTaskManagerStorage(filePath).saveTaskManager(original);
+
+        assertEquals(original, new TaskManager(new SegmentedTaskManagerStorage(filePath).readTaskManager().get()));
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.ReadOnlyEvent;
+import org.teamstbf.yats.model.tag.Tag;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class XmlSerializableTaskManagerTest {
+
+    private final TypicalTestEvents td = new TypicalTestEvents();
+
+    @Test
+    public void getTaskList_manyTasks_convertedInOrderOnce() throws Exception {
+        List<ReadOnlyEvent> expected = new ArrayList<>();
+        List<XmlAdaptedTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ReadOnlyEvent event = new Event(td.getTypicalTasks()[i % td.getTypicalTasks().length]);
+            expected.add(event);
+            tasks.add(new XmlAdaptedTask(event));
+        }
+        XmlSerializableTaskManager data = new XmlSerializableTaskManager(tasks, new ArrayList<>(), null);
+
+        assertEquals(expected, data.getTaskList());
+        assertSame(data.getTaskList(), data.getTaskList());
+        assertTrue(data.getConversionErrors().isEmpty());
+    }
+
+    @Test
+    public void getTaskList_invalidRecords_leftOutAndReported() throws Exception {
+        List<XmlAdaptedTask> tasks = new ArrayList<>();
+        for (ReadOnlyEvent event : td.getTypicalTasks()) {
+            tasks.add(new XmlAdaptedTask(event));
+        }
+        tasks.get(1).setTitle("*invalid*");
+        tasks.get(3).setTitle("");
+        List<XmlAdaptedTag> tags = new ArrayList<>();
+        tags.add(new XmlAdaptedTag(new Tag("valid")));
+        tags.add(new XmlAdaptedTag());
+        tags.get(1).tagName = "in valid";
+        XmlSerializableTaskManager data = new XmlSerializableTaskManager(tasks, tags, null);
+
+        assertEquals(td.getTypicalTasks().length - 2, data.getTaskList().size());
+        assertEquals(new Event(td.oxygen), data.getTaskList().get(1));
+        assertEquals(1, data.getTagList().size());
+        assertEquals(3, data.getConversionErrors().size());
+        assertTrue(data.getConversionErrors().get(0).startsWith("Task 2: "));
+        assertTrue(data.getConversionErrors().get(1).startsWith("Task 4: "));
+        assertTrue(data.getConversionErrors().get(2).startsWith("Tag 2: "));
+    }
+
+}
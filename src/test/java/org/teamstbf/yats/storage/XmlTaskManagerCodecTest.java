@@ -0,0 +1,125 @@
+package org.teamstbf.yats.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.teamstbf.yats.commons.exceptions.DataConversionException;
+import org.teamstbf.yats.commons.util.FileUtil;
+import org.teamstbf.yats.commons.util.XmlUtil;
+import org.teamstbf.yats.model.TaskManager;
+import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.Recurrence;
+import org.teamstbf.yats.testutil.EventBuilder;
+import org.teamstbf.yats.testutil.TypicalTestEvents;
+
+public class XmlTaskManagerCodecTest {
+
+    private static final File VALID_FILE = new File(FileUtil.getPath("src/test/data/XmlUtilTest/validAddressBook.xml"));
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void read_fileWrittenByJaxb_sameAsJaxb() throws Exception {
+        XmlSerializableTaskManager expected = XmlUtil.getDataFromFile(VALID_FILE, XmlSerializableTaskManager.class);
+        XmlTaskManagerCodec.DecodedTaskManager actual = XmlTaskManagerCodec.read(VALID_FILE);
+
+        assertEquals(new TaskManager(expected), new TaskManager(actual));
+        assertEquals(0, actual.getJournalSequence());
+    }
+
+    @Test
+    public void write_readByJaxbAndCodec_sameData() throws Exception {
+        File file = testFolder.newFile("written.xml");
+        TaskManager original = new TypicalTestEvents().getTypicalTaskManager();
+
+        XmlTaskManagerCodec.write(file, original, 42L);
+
+        assertEquals(original, new TaskManager(XmlUtil.getDataFromFile(file, XmlSerializableTaskManager.class)));
+        XmlTaskManagerCodec.DecodedTaskManager readBack = XmlTaskManagerCodec.read(file);
+        assertEquals(original, new TaskManager(readBack));
+        assertEquals(42, readBack.getJournalSequence());
+    }
+
+    @Test
+    public void read_moreTasksThanOneChunk_readInOrder() throws Exception {
+        File file = testFolder.newFile("many.xml");
+        TaskManager original = new TaskManager();
+        for (int i = 0; i < XmlSerializableTaskManager.CONVERSION_CHUNK_SIZE * 2 + 5; i++) {
+            original.addEvent(new Event(new EventBuilder().withTitle("Task " + i).withDescription("none")
+                    .withStartTime("").withEndTime("").withDeadline("").withLocation("home").withTags("chore")
+                    .withIsDone("No").withRecurrence(new Recurrence()).build()));
+        }
+        XmlTaskManagerCodec.write(file, original, null);
+
+        assertEquals(original, new TaskManager(XmlTaskManagerCodec.read(file)));
+    }
+
+    @Test
+    public void read_invalidRecords_allReported() throws Exception {
+        File file = testFolder.newFile("invalid.xml");
+        XmlTaskManagerCodec.write(file, new TypicalTestEvents().getTypicalTaskManager(), null);
+        String content = FileUtil.readFromFile(file);
+        // without its checksum, so that the records themselves are checked
+        content = content.substring(0, content.lastIndexOf("<?yats-checksum"));
+        content = content.replace("Abdicate the British Throne", "!@#$").replace("Oxygen not Included", "");
+        FileUtil.writeToFile(file, content);
+
+        try {
+            XmlTaskManagerCodec.read(file);
+            fail();
+        } catch (DataConversionException e) {
+            assertTrue(e.getMessage().contains("Task 1: "));
+            assertTrue(e.getMessage().contains("Task 3: "));
+        }
+    }
+
+    @Test
+    public void read_changedBeforeChecksum_checksumMismatchReported() throws Exception {
+        File file = testFolder.newFile("corrupted.xml");
+        XmlTaskManagerCodec.write(file, new TypicalTestEvents().getTypicalTaskManager(), null);
+        // still a valid task manager, so that only the checksum can tell
+        FileUtil.writeToFile(file, FileUtil.readFromFile(file).replace("Oxygen not Included", "Oxygen not included"));
+
+        try {
+            XmlTaskManagerCodec.read(file);
+            fail();
+        } catch (DataConversionException e) {
+            assertTrue(e.getMessage().contains("Checksum mismatch"));
+        }
+    }
+
+    @Test
+    public void readAllowingEdits_changedBeforeChecksum_readWithMismatch() throws Exception {
+        File file = testFolder.newFile("edited.xml");
+        XmlTaskManagerCodec.write(file, new TypicalTestEvents().getTypicalTaskManager(), null);
+        FileUtil.writeToFile(file, FileUtil.readFromFile(file).replace("Oxygen not Included", "Oxygen not included"));
+
+        XmlTaskManagerCodec.DecodedTaskManager read = XmlTaskManagerCodec.readAllowingEdits(file);
+        assertTrue(read.isChecksumMismatched());
+        assertTrue(read.getTaskList().stream()
+                .anyMatch(task -> task.getTitle().fullName.equals("Oxygen not included")));
+        assertFalse(XmlTaskManagerCodec.readAllowingEdits(VALID_FILE).isChecksumMismatched());
+    }
+
+    @Test
+    public void read_invalidTask_exceptionThrown() throws Exception {
+        File file = testFolder.newFile("invalid.xml");
+        FileUtil.writeToFile(file, "<YATS><tasks><title>!@#$</title><isRecurring>No</isRecurring></tasks></YATS>");
+
+        thrown.expect(DataConversionException.class);
+        XmlTaskManagerCodec.read(file);
+    }
+
+}
@@ -2,8 +2,11 @@ package org.teamstbf.yats.storage;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -70,14 +73,14 @@ public class XmlTaskManagerStorageTest {
         assertEquals(original, new TaskManager(readBack));
 
         // Modify data, overwrite exiting file, and read back
-        original.addEvent(new Event(td.abdicate));
+        original.addEvent(new Event(td.fish));
         original.removeEvent(new Event(td.abdicate));
         xmlAddressBookStorage.saveTaskManager(original, filePath);
         readBack = xmlAddressBookStorage.readTaskManager(filePath).get();
         assertEquals(original, new TaskManager(readBack));
 
         // Save and read without specifying file path
-        original.addEvent(new Event(td.boop));
+        original.addEvent(new Event(td.goon));
         xmlAddressBookStorage.saveTaskManager(original); // file path not
                                                          // specified
         readBack = xmlAddressBookStorage.readTaskManager().get(); // file path
@@ -87,6 +90,57 @@ public class XmlTaskManagerStorageTest {
 
     }
 
+    @Test
+    public void read_truncatedFile_readsPreviousVersion() throws Exception {
+        String filePath = testFolder.getRoot().getPath() + File.separator + "Truncated.xml";
+        TypicalTestEvents td = new TypicalTestEvents();
+        TaskManager previous = td.getTypicalTaskManager();
+        XmlTaskManagerStorage storage = new XmlTaskManagerStorage(filePath);
+        storage.saveTaskManager(previous);
+        TaskManager current = td.getTypicalTaskManager();
+        current.addEvent(new Event(td.fish));
+        storage.saveTaskManager(current);
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+        assertEquals(previous, new TaskManager(storage.readTaskManager().get()));
+
+        new File(filePath).delete();
+        assertEquals(previous, new TaskManager(storage.readTaskManager().get()));
+    }
+
+    @Test
+    public void read_editedByHand_readsEditedFile() throws Exception {
+        String filePath = testFolder.getRoot().getPath() + File.separator + "Changed.xml";
+        TypicalTestEvents td = new TypicalTestEvents();
+        XmlTaskManagerStorage storage = new XmlTaskManagerStorage(filePath);
+        storage.saveTaskManager(td.getTypicalTaskManager());
+        TaskManager current = td.getTypicalTaskManager();
+        storage.saveTaskManager(current);
+
+        String contents = FileUtil.readFromFile(new File(filePath));
+        FileUtil.writeToFile(new File(filePath), contents.replace("Oxygen not Included", "Oxygen not included"));
+        ReadOnlyTaskManager read = storage.readTaskManager().get();
+        assertEquals(current.getTaskList().size(), read.getTaskList().size());
+        assertTrue(read.getTaskList().stream()
+                .anyMatch(task -> task.getTitle().fullName.equals("Oxygen not included")));
+    }
+
+    @Test
+    public void read_editedAndInvalid_readsPreviousVersion() throws Exception {
+        String filePath = testFolder.getRoot().getPath() + File.separator + "Changed.xml";
+        TypicalTestEvents td = new TypicalTestEvents();
+        TaskManager previous = td.getTypicalTaskManager();
+        XmlTaskManagerStorage storage = new XmlTaskManagerStorage(filePath);
+        storage.saveTaskManager(previous);
+        storage.saveTaskManager(new TaskManager());
+
+        String contents = FileUtil.readFromFile(new File(filePath));
+        FileUtil.writeToFile(new File(filePath), contents.replace("</YATS>", ""));
+        assertEquals(previous, new TaskManager(storage.readTaskManager().get()));
+    }
+
     @Test
     public void saveAddressBook_nullAddressBook_assertionFailure() throws IOException {
         thrown.expect(AssertionError.class);
@@ -3,6 +3,7 @@ package org.teamstbf.yats.testutil;
 import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.model.TaskManager;
 import org.teamstbf.yats.model.item.Event;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 import org.teamstbf.yats.model.tag.Tag;
 
 /**
@@ -19,7 +20,7 @@ public class TaskManagerBuilder {
         this.taskManager = taskManager;
     }
 
-    public TaskManagerBuilder withEvent(Event event) {
+    public TaskManagerBuilder withEvent(Event event) throws DuplicateEventException {
         taskManager.addEvent(event);
         return this;
     }
@@ -6,6 +6,7 @@ import org.teamstbf.yats.commons.exceptions.IllegalValueException;
 import org.teamstbf.yats.model.TaskManager;
 import org.teamstbf.yats.model.item.Event;
 import org.teamstbf.yats.model.item.Recurrence;
+import org.teamstbf.yats.model.item.UniqueEventList.DuplicateEventException;
 
 /**
  *
@@ -13,8 +14,12 @@ import org.teamstbf.yats.model.item.Recurrence;
 public class TypicalTestEvents {
 
     public static void loadTaskManagerWithSampleData(TaskManager ab) {
-        for (TestEvent person : new TypicalTestEvents().getTypicalTasks()) {
-            ab.addEvent(new Event(person));
+        try {
+            for (TestEvent person : new TypicalTestEvents().getTypicalTasks()) {
+                ab.addEvent(new Event(person));
+            }
+        } catch (DuplicateEventException e) {
+            assert false : "not possible";
         }
     }
 